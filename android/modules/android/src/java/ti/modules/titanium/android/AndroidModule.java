@@ -11,6 +11,7 @@ import java.util.List;
 
 import android.content.pm.PackageManager;
 import android.os.Build;
+import org.appcelerator.kroll.KrollDict;
 import org.appcelerator.kroll.KrollFunction;
 import org.appcelerator.kroll.KrollModule;
 import org.appcelerator.kroll.KrollRuntime;
@@ -22,6 +23,7 @@ import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.proxy.IntentProxy;
 import org.appcelerator.titanium.proxy.RProxy;
 import org.appcelerator.titanium.proxy.ServiceProxy;
+import org.appcelerator.titanium.util.TiBitmapRegistry;
 import org.appcelerator.titanium.util.TiConvert;
 
 import android.app.Activity;
@@ -346,6 +348,12 @@ public class AndroidModule extends KrollModule
 		}
 	}
 
+	@Kroll.method
+	public KrollDict bitmapStats()
+	{
+		return TiBitmapRegistry.getInstance().getStats();
+	}
+
 	@Kroll.method
 	public boolean hasPermission(String permission) {
 		if (Build.VERSION.SDK_INT < 23) {
@@ -77,6 +77,15 @@ public class PropertiesModule extends KrollModule {
 		appProperties.removeAllProperties();
 	}
 
+	/**
+	 * Starts writing the pending changes of the properties to disk.
+	 */
+	@Kroll.method
+	public void flush()
+	{
+		appProperties.flush();
+	}
+
 	@Kroll.method
 	public void setBool(String key, boolean value)
 	{
@@ -92,8 +101,8 @@ public class PropertiesModule extends KrollModule {
 	{
 		Object doubleValue = appProperties.getPreference(key);
 		//Since there is no double type in SharedPreferences, we store doubles as strings, i.e "10.0"
-		//so we need to convert before comparing.
-		if (doubleValue == null || !doubleValue.equals(String.valueOf(value))) {
+		//so we need to convert before comparing. The binary storage keeps them as doubles.
+		if (doubleValue == null || !(doubleValue.equals(String.valueOf(value)) || doubleValue.equals(value))) {
 			appProperties.setDouble(key, value);
 			fireEvent(TiC.EVENT_CHANGE, null);
 		}
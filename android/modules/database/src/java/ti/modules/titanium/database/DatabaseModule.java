@@ -1,19 +1,16 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package ti.modules.titanium.database;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollFunction;
 import org.appcelerator.kroll.KrollInvocation;
 import org.appcelerator.kroll.KrollModule;
 import org.appcelerator.kroll.annotations.Kroll;
@@ -40,13 +37,19 @@ public class DatabaseModule extends KrollModule
 	@Kroll.constant public static final int FIELD_TYPE_FLOAT = 2;
 	@Kroll.constant public static final int FIELD_TYPE_DOUBLE = 3;
 
+	// Options of install()
+	private static final String PROPERTY_CHECKSUM = "checksum";
+	private static final String PROPERTY_CHECKSUM_ALGORITHM = "checksumAlgorithm";
+	private static final String PROPERTY_COMPRESSION = "compression";
+	private static final String PROPERTY_PROGRESS = "progress";
+
 	public DatabaseModule()
 	{
 		super();
 	}
 
 	@Kroll.method
-	public TiDatabaseProxy open(Object file)
+	public TiDatabaseProxy open(Object file, @Kroll.argument(optional = true) KrollDict options)
 	{
 		TiDatabaseProxy dbp = null;
 
@@ -64,6 +67,7 @@ public class DatabaseModule extends KrollModule
 				dbp = new TiDatabaseProxy(name, db);
 			}
 
+			dbp.applyOptions(options);
 			Log.d(TAG, "Opened database: " + dbp.getName(), Log.DEBUG_MODE);
 
 		} catch (SQLException e) {
@@ -76,7 +80,8 @@ public class DatabaseModule extends KrollModule
 	}
 
 	@Kroll.method
-	public TiDatabaseProxy install(KrollInvocation invocation, String url, String name) throws IOException
+	public TiDatabaseProxy install(KrollInvocation invocation, String url, String name,
+		@Kroll.argument(optional = true) KrollDict options) throws IOException
 	{
 		try {
 			Context ctx = TiApplication.getInstance();
@@ -84,7 +89,7 @@ public class DatabaseModule extends KrollModule
 			{
 				if (dbname.equals(name))
 				{
-					return open(name);
+					return open(name, options);
 				}
 			}
 			// open an empty one to get the full path and then close and delete it
@@ -110,27 +115,28 @@ public class DatabaseModule extends KrollModule
 			Log.d(TAG, "new url is = " + url, Log.DEBUG_MODE);
 
 			if (srcDb.isFile()) {
-				InputStream is = null;
-				OutputStream os = null;
-
-				byte[] buf = new byte[8096];
-				int count = 0;
-				try
-				{
-					is = new BufferedInputStream(srcDb.getInputStream());
-					os = new BufferedOutputStream(new FileOutputStream(dbPath));
-
-					while((count = is.read(buf)) != -1) {
-						os.write(buf, 0, count);
+				TiDatabaseInstaller installer = new TiDatabaseInstaller(srcDb, dbPath);
+				if (options != null) {
+					installer.setCompression(options.optString(PROPERTY_COMPRESSION, null));
+					installer.setChecksum(options.optString(PROPERTY_CHECKSUM, null),
+						options.optString(PROPERTY_CHECKSUM_ALGORITHM, null));
+					final Object progress = options.get(PROPERTY_PROGRESS);
+					if (progress instanceof KrollFunction) {
+						installer.setProgressListener(new TiDatabaseInstaller.ProgressListener() {
+							public void onProgress(long bytes, long totalBytes)
+							{
+								KrollDict event = new KrollDict();
+								event.put(PROPERTY_PROGRESS, (totalBytes > 0) ? (double) bytes / totalBytes : -1);
+								event.put("bytes", bytes);
+								event.put("totalBytes", totalBytes);
+								((KrollFunction) progress).call(getKrollObject(), event);
+							}
+						});
 					}
 				}
-				finally
-				{
-					try { is.close(); } catch (Exception ig) { }
-					try { os.close(); } catch (Exception ig) { }
-				}
+				installer.install();
 			}
-			return open(name);
+			return open(name, options);
 
 		} catch (SQLException e) {
 			String msg = "Error installing database: " + name + " msg=" + e.getMessage();
@@ -0,0 +1,351 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.database;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.appcelerator.kroll.common.Log;
+import org.appcelerator.titanium.TiApplication;
+import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.io.TiBaseFile;
+import org.appcelerator.titanium.io.TiFile;
+import org.appcelerator.titanium.io.TiResourceFile;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+/**
+ * Copies a bundled database file to its install location. The copy is written next to the
+ * destination and only renamed to it once complete, so an interrupted install is never taken for
+ * an installed database.
+ * <ul>
+ * <li>Uncompressed files that do not need a checksum are copied by the kernel, with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} from the
+ * file, or from the APK for assets that are stored without compression.</li>
+ * <li>Other files are streamed through a single buffer, which decompresses gzip files and the
+ * first entry of zip files, and computes the checksum of the database as it is written.</li>
+ * </ul>
+ */
+class TiDatabaseInstaller
+{
+	private static final String TAG = "TiDatabase";
+
+	static final String COMPRESSION_NONE = "none";
+	static final String COMPRESSION_GZIP = "gzip";
+	static final String COMPRESSION_ZIP = "zip";
+
+	static final String DEFAULT_CHECKSUM_ALGORITHM = "SHA-256";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// Progress is reported at most once for each chunk of the source.
+	private static final long PROGRESS_CHUNK = 1024 * 1024;
+
+	interface ProgressListener
+	{
+		/**
+		 * @param bytes number of bytes of the source read so far.
+		 * @param totalBytes size of the source, or -1 if unknown.
+		 */
+		void onProgress(long bytes, long totalBytes);
+	}
+
+	private final TiBaseFile source;
+	private final File destination;
+	private String compression;
+	private String checksum;
+	private String checksumAlgorithm = DEFAULT_CHECKSUM_ALGORITHM;
+	private ProgressListener progressListener;
+
+	TiDatabaseInstaller(TiBaseFile source, File destination)
+	{
+		this.source = source;
+		this.destination = destination;
+		this.compression = getCompression(source.name());
+	}
+
+	/**
+	 * @return the compression of a file from its extension.
+	 */
+	static String getCompression(String name)
+	{
+		if (name != null) {
+			String lowerName = name.toLowerCase();
+			if (lowerName.endsWith(".gz")) {
+				return COMPRESSION_GZIP;
+			}
+			if (lowerName.endsWith(".zip")) {
+				return COMPRESSION_ZIP;
+			}
+		}
+		return COMPRESSION_NONE;
+	}
+
+	void setCompression(String compression)
+	{
+		if (compression != null) {
+			this.compression = compression;
+		}
+	}
+
+	/**
+	 * Verifies the installed database against a hex encoded checksum.
+	 */
+	void setChecksum(String checksum, String algorithm)
+	{
+		this.checksum = checksum;
+		if (algorithm != null) {
+			this.checksumAlgorithm = algorithm;
+		}
+	}
+
+	void setProgressListener(ProgressListener progressListener)
+	{
+		this.progressListener = progressListener;
+	}
+
+	void install() throws IOException
+	{
+		File parent = destination.getParentFile();
+		if (parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+
+		File partial = new File(destination.getPath() + ".part");
+		boolean installed = false;
+		try {
+			long startTime = System.currentTimeMillis();
+			if (!COMPRESSION_NONE.equals(compression) || checksum != null || !transfer(partial)) {
+				stream(partial);
+			}
+			if (!partial.renameTo(destination)) {
+				throw new IOException("Unable to move " + partial + " to " + destination);
+			}
+			installed = true;
+			Log.d(TAG, "Installed " + destination + " in " + (System.currentTimeMillis() - startTime) + "ms",
+				Log.DEBUG_MODE);
+		} finally {
+			if (!installed) {
+				partial.delete();
+			}
+		}
+	}
+
+	// Copies the source with the kernel, if it is a file or an uncompressed asset.
+	private boolean transfer(File partial) throws IOException
+	{
+		AssetFileDescriptor afd = null;
+		FileInputStream in = null;
+		long start, length;
+		if (source instanceof TiResourceFile) {
+			afd = openAssetFd();
+			if (afd == null) {
+				return false;
+			}
+			in = new FileInputStream(afd.getFileDescriptor());
+			start = afd.getStartOffset();
+			length = afd.getLength();
+		} else if (source instanceof TiFile) {
+			File file = source.getNativeFile();
+			in = new FileInputStream(file);
+			start = 0;
+			length = file.length();
+		} else {
+			return false;
+		}
+
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(partial);
+			FileChannel inChannel = in.getChannel();
+			FileChannel outChannel = out.getChannel();
+			long copied = 0;
+			while (copied < length) {
+				long count = inChannel.transferTo(start + copied, Math.min(PROGRESS_CHUNK, length - copied), outChannel);
+				if (count <= 0) {
+					throw new IOException("Unexpected end of " + source.nativePath());
+				}
+				copied += count;
+				onProgress(copied, length);
+			}
+		} finally {
+			closeQuietly(out);
+			closeQuietly(in);
+			if (afd != null) {
+				try {
+					afd.close();
+				} catch (IOException e) {
+					// Ignore
+				}
+			}
+		}
+		return true;
+	}
+
+	// Assets that are compressed in the APK have no file descriptor.
+	private AssetFileDescriptor openAssetFd()
+	{
+		Context context = TiApplication.getInstance();
+		String url = source.nativePath();
+		if (context == null || url == null || !url.startsWith(TiC.URL_ANDROID_ASSET_RESOURCES)) {
+			return null;
+		}
+		try {
+			return context.getAssets().openFd("Resources/" + url.substring(TiC.URL_ANDROID_ASSET_RESOURCES.length()));
+		} catch (FileNotFoundException e) {
+			return null;
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to open " + url + ": " + e.getMessage(), Log.DEBUG_MODE);
+			return null;
+		}
+	}
+
+	private void stream(File partial) throws IOException
+	{
+		MessageDigest digest = null;
+		if (checksum != null) {
+			try {
+				digest = MessageDigest.getInstance(checksumAlgorithm);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IOException("Unsupported checksum algorithm: " + checksumAlgorithm);
+			}
+		}
+
+		long length = source.size();
+		CountingInputStream counter = null;
+		InputStream in = null;
+		FileOutputStream out = null;
+		try {
+			InputStream sourceStream = source.getInputStream();
+			if (sourceStream == null) {
+				throw new IOException("Unable to read " + source.nativePath());
+			}
+			counter = new CountingInputStream(sourceStream);
+			in = counter;
+			if (COMPRESSION_GZIP.equals(compression)) {
+				in = new GZIPInputStream(counter, BUFFER_SIZE);
+			} else if (COMPRESSION_ZIP.equals(compression)) {
+				ZipInputStream zip = new ZipInputStream(counter);
+				ZipEntry entry = zip.getNextEntry();
+				while (entry != null && entry.isDirectory()) {
+					entry = zip.getNextEntry();
+				}
+				if (entry == null) {
+					throw new IOException("No database in " + source.nativePath());
+				}
+				in = zip;
+			}
+
+			out = new FileOutputStream(partial);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long reported = 0;
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+				if (digest != null) {
+					digest.update(buffer, 0, count);
+				}
+				if (counter.count - reported >= PROGRESS_CHUNK) {
+					reported = counter.count;
+					onProgress(reported, length);
+				}
+			}
+			onProgress(counter.count, length);
+		} finally {
+			closeQuietly(out);
+			closeQuietly(in);
+		}
+
+		if (digest != null) {
+			String actual = toHex(digest.digest());
+			if (!actual.equalsIgnoreCase(checksum.trim())) {
+				throw new IOException("Checksum mismatch for " + source.nativePath() + ": expected " + checksum
+					+ ", was " + actual);
+			}
+		}
+	}
+
+	private void onProgress(long bytes, long totalBytes)
+	{
+		if (progressListener != null) {
+			progressListener.onProgress(bytes, (totalBytes > 0) ? totalBytes : -1);
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+			sb.append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	private static void closeQuietly(Closeable closeable)
+	{
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	// Counts the bytes read from the source, before they are decompressed.
+	private static class CountingInputStream extends FilterInputStream
+	{
+		long count;
+
+		CountingInputStream(InputStream in)
+		{
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException
+		{
+			int n = super.read(buffer, offset, length);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
@@ -1,40 +1,78 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package ti.modules.titanium.database;
 
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollFunction;
 import org.appcelerator.kroll.KrollProxy;
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.kroll.common.Log;
 import org.appcelerator.titanium.TiApplication;
 import org.appcelerator.titanium.TiBlob;
+import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.TiFileProxy;
 import org.appcelerator.titanium.io.TiFileFactory;
 import org.appcelerator.titanium.util.TiConvert;
+import org.appcelerator.titanium.util.TiRowSource;
 
 import android.content.Context;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 @Kroll.proxy(parentModule=DatabaseModule.class)
-public class TiDatabaseProxy extends KrollProxy
+public class TiDatabaseProxy extends KrollProxy implements TiRowSource.Provider
 {
 	private static final String TAG = "TiDB";
 
+	// Options of Ti.Database.open()
+	static final String PROPERTY_WAL_ENABLED = "walEnabled";
+	static final String PROPERTY_SLOW_QUERY_TIME = "slowQueryTime";
+
+	private static final String LAST_INSERT_ROWID = "select last_insert_rowid()";
+
 	protected SQLiteDatabase db;
 	protected String name;
 	boolean statementLogging, readOnly;
+	private boolean walEnabled;
+	private final TiStatementCache statements;
+	private final TiQueryStats stats;
+
+	// Asynchronous statements run in order on their own thread, with their own compiled
+	// statements, so that neither thread waits for the other to release the statement cache.
+	private ExecutorService executor;
+	private final TiStatementCache asyncStatements;
+
+	// Changes of the last statement run on the JS thread.
+	private long lastInsertRowId;
+	private int rowsAffected;
+
+	// Changes made by a statement or a batch of statements.
+	private static class Changes
+	{
+		int rowsAffected;
+		long lastInsertRowId = -1;
+	}
 
 	public TiDatabaseProxy(String name, SQLiteDatabase db)
 	{
 		super();
 		this.name = name;
 		this.db = db;
+		this.statements = new TiStatementCache(db, TiStatementCache.DEFAULT_SIZE);
+		this.asyncStatements = new TiStatementCache(db, TiStatementCache.DEFAULT_SIZE);
+		this.stats = new TiQueryStats(name);
 		statementLogging = false;
 		readOnly = false;
 	}
@@ -45,14 +83,40 @@ public class TiDatabaseProxy extends KrollProxy
 		super();
 		this.name = db.getPath();
 		this.db = db;
+		this.statements = new TiStatementCache(db, TiStatementCache.DEFAULT_SIZE);
+		this.asyncStatements = new TiStatementCache(db, TiStatementCache.DEFAULT_SIZE);
+		this.stats = new TiQueryStats(name);
 		statementLogging = false;
 		readOnly = true;
 	}
 
+	/**
+	 * Applies the options passed to <code>Ti.Database.open()</code>.
+	 */
+	void applyOptions(KrollDict options)
+	{
+		if (options == null) {
+			return;
+		}
+		// With write-ahead logging, queries that do not run in a transaction use the reader
+		// connections of the database, so they neither wait for nor block a write.
+		if (options.optBoolean(PROPERTY_WAL_ENABLED, false)) {
+			walEnabled = db.enableWriteAheadLogging();
+			if (!walEnabled) {
+				Log.w(TAG, "Unable to enable write-ahead logging for " + name);
+			}
+		}
+		stats.setSlowQueryTime(options.optInt(PROPERTY_SLOW_QUERY_TIME, 0));
+	}
+
 	@Kroll.method
 	public void close() {
 		if (db.isOpen()) {
 			Log.d(TAG, "Closing database: " + name, Log.DEBUG_MODE);
+			shutdownExecutor();
+			synchronized (statements) {
+				statements.clear();
+			}
 			db.close();
 		} else {
 			Log.d(TAG, "Database is not open, ignoring close for " + name, Log.DEBUG_MODE);
@@ -62,87 +126,232 @@ public class TiDatabaseProxy extends KrollProxy
 	@Kroll.method
 	public TiResultSetProxy execute(String sql, Object... args)
 	{
-		// Handle the cases where an array is passed containing the SQL query arguments.
-		// Otherwise use the variable argument list for the SQL query.
-		Object[] sqlArgs;
+		Object[] sqlArgs = getSqlArgs(args);
+		logStatement(sql, sqlArgs);
+
+		long startTime = System.nanoTime();
+		try {
+			// You must use execSQL unless you are expecting a resultset, changes aren't committed
+			// if you don't. Just expecting them on select or pragma may be enough, but
+			// it may need additional tuning. The better solution would be to expose
+			// both types of queries through the Titanium API.
+			if (TiStatementCache.isQuery(sql)) {
+				return query(sql, sqlArgs);
+			}
+			setChanges(update(statements, sql, sqlArgs));
+			return null;
+		} catch (SQLException e) {
+			String msg = "Error executing sql: " + e.getMessage();
+			Log.e(TAG, msg, e);
+			throw e;
+		} finally {
+			stats.record(sql, startTime);
+		}
+	}
+
+	/**
+	 * Runs a statement on the executor of the database, and passes the result set or the changes
+	 * to the callback, which is the last argument.
+	 */
+	@Kroll.method
+	public void executeAsync(final String sql, Object... args)
+	{
+		if (args == null || args.length == 0 || !(args[args.length - 1] instanceof KrollFunction)) {
+			throw new IllegalArgumentException("executeAsync() requires a callback");
+		}
+		final KrollFunction callback = (KrollFunction) args[args.length - 1];
+		Object[] argsWithoutCallback = new Object[args.length - 1];
+		System.arraycopy(args, 0, argsWithoutCallback, 0, argsWithoutCallback.length);
+		final Object[] sqlArgs = getSqlArgs(argsWithoutCallback);
+		logStatement(sql, sqlArgs);
+
+		getExecutor().execute(new Runnable() {
+			public void run()
+			{
+				KrollDict result = new KrollDict();
+				long startTime = System.nanoTime();
+				try {
+					if (TiStatementCache.isQuery(sql)) {
+						result.put("resultSet", query(sql, sqlArgs));
+					} else {
+						putChanges(result, update(asyncStatements, sql, sqlArgs));
+					}
+					result.putCodeAndMessage(TiC.ERROR_CODE_NO_ERROR, null);
+				} catch (Throwable t) {
+					Log.e(TAG, "Error executing sql: " + t.getMessage(), t);
+					result.putCodeAndMessage(TiC.ERROR_CODE_UNKNOWN, t.getMessage());
+				}
+				result.put(TiC.PROPERTY_TIME, stats.record(sql, startTime));
+				callback.callAsync(getKrollObject(), result);
+			}
+		});
+	}
+
+	/**
+	 * Runs a list of statements in a single transaction on the executor of the database, and
+	 * passes the total changes to the callback. Each statement is either its SQL, or a dictionary
+	 * with its SQL and its arguments. Statements must not return rows.
+	 */
+	@Kroll.method
+	public void transactionAsync(Object[] statementList, final KrollFunction callback)
+	{
+		final int count = statementList.length;
+		final String[] sqls = new String[count];
+		final Object[][] argsList = new Object[count][];
+		for (int i = 0; i < count; i++) {
+			Object statement = statementList[i];
+			if (statement instanceof HashMap) {
+				KrollDict dict = new KrollDict((HashMap) statement);
+				sqls[i] = dict.getString("sql");
+				Object args = dict.get("args");
+				argsList[i] = (args instanceof Object[]) ? (Object[]) args : (args != null) ? new Object[] { args } : null;
+			} else {
+				sqls[i] = TiConvert.toString(statement);
+			}
+			if (sqls[i] == null || TiStatementCache.isQuery(sqls[i])) {
+				throw new IllegalArgumentException("transactionAsync() does not support queries: " + sqls[i]);
+			}
+		}
+		if (statementLogging) {
+			Log.v(TAG, "Executing SQL transaction of " + count + " statements", Log.DEBUG_MODE);
+		}
+
+		getExecutor().execute(new Runnable() {
+			public void run()
+			{
+				KrollDict result = new KrollDict();
+				Changes changes = new Changes();
+				long startTime = System.nanoTime();
+				db.beginTransactionNonExclusive();
+				try {
+					for (int i = 0; i < count; i++) {
+						long statementTime = System.nanoTime();
+						Changes statementChanges = update(asyncStatements, sqls[i], argsList[i]);
+						stats.record(sqls[i], statementTime);
+						changes.rowsAffected += statementChanges.rowsAffected;
+						if (statementChanges.lastInsertRowId >= 0) {
+							changes.lastInsertRowId = statementChanges.lastInsertRowId;
+						}
+					}
+					db.setTransactionSuccessful();
+					putChanges(result, changes);
+					result.putCodeAndMessage(TiC.ERROR_CODE_NO_ERROR, null);
+				} catch (Throwable t) {
+					Log.e(TAG, "Error executing sql transaction: " + t.getMessage(), t);
+					result.putCodeAndMessage(TiC.ERROR_CODE_UNKNOWN, t.getMessage());
+				} finally {
+					try {
+						db.endTransaction();
+					} catch (Throwable t) {
+						Log.e(TAG, "Error ending sql transaction: " + t.getMessage(), t);
+					}
+				}
+				result.put(TiC.PROPERTY_TIME, (System.nanoTime() - startTime) / 1000000.0);
+				callback.callAsync(getKrollObject(), result);
+			}
+		});
+	}
+
+	/**
+	 * Runs a statement once for each list of arguments, in a single transaction. The statement
+	 * is compiled once and must not return rows.
+	 * @return the total number of rows changed.
+	 */
+	@Kroll.method
+	public int executeBatch(String sql, Object[] argsList)
+	{
+		if (TiStatementCache.isQuery(sql)) {
+			throw new IllegalArgumentException("executeBatch() does not support queries: " + sql);
+		}
+		if (statementLogging) {
+			Log.v(TAG, "Executing SQL batch of " + argsList.length + ": " + sql, Log.DEBUG_MODE);
+		}
+
+		Changes changes = new Changes();
+		long startTime = System.nanoTime();
+		db.beginTransaction();
+		try {
+			synchronized (statements) {
+				SQLiteStatement statement = statements.get(sql);
+				for (Object args : argsList) {
+					TiStatementCache.bindArgs(statement, (args instanceof Object[]) ? (Object[]) args : new Object[] { args });
+					changes.rowsAffected += statement.executeUpdateDelete();
+				}
+				changes.lastInsertRowId = statements.get(LAST_INSERT_ROWID).simpleQueryForLong();
+			}
+			db.setTransactionSuccessful();
+		} catch (SQLException e) {
+			Log.e(TAG, "Error executing sql batch: " + e.getMessage(), e);
+			throw e;
+		} finally {
+			db.endTransaction();
+			stats.record(sql, startTime);
+		}
+		setChanges(changes);
+		return changes.rowsAffected;
+	}
+
+	// Handle the cases where an array is passed containing the SQL query arguments.
+	// Otherwise use the variable argument list for the SQL query.
+	private static Object[] getSqlArgs(Object[] args)
+	{
 		if (args != null && args.length == 1 && args[0] instanceof Object[]) {
-			sqlArgs = (Object[]) args[0];
-		} else {
-			sqlArgs = args;
+			return (Object[]) args[0];
 		}
+		return args;
+	}
 
+	private void logStatement(String sql, Object[] sqlArgs)
+	{
 		if(statementLogging) {
 			StringBuilder sb = new StringBuilder();
 			sb.append("Executing SQL: ").append(sql).append("\n  Args: [ ");
 			boolean needsComma = false;
 
-			for(Object s : sqlArgs) {
-				if (needsComma) {
-					sb.append(", \"");
-				} else {
-					sb.append(" \"");
-					needsComma = true;
+			if (sqlArgs != null) {
+				for(Object s : sqlArgs) {
+					if (needsComma) {
+						sb.append(", \"");
+					} else {
+						sb.append(" \"");
+						needsComma = true;
+					}
+					sb.append(TiConvert.toString(s)).append("\"");
 				}
-				sb.append(TiConvert.toString(s)).append("\"");
 			}
 			sb.append(" ]");
 			Log.v(TAG, sb.toString(), Log.DEBUG_MODE);
 		}
+	}
 
+	// Runs a query on the calling thread, including the first pass over its rows, which counts them.
+	private TiResultSetProxy query(String sql, Object[] sqlArgs)
+	{
 		TiResultSetProxy rs = null;
 		Cursor c = null;
 		try {
-			String lcSql = sql.toLowerCase().trim();
-			// You must use execSQL unless you are expecting a resultset, changes aren't committed
-			// if you don't. Just expecting them on select or pragma may be enough, but
-			// it may need additional tuning. The better solution would be to expose
-			// both types of queries through the Titanium API.
-			if (lcSql.startsWith("select") || (lcSql.startsWith("pragma") && !lcSql.contains("="))) {
-				String[] selectArgs = null;
-				if (sqlArgs != null) {
-					selectArgs = new String[sqlArgs.length];
-					for (int i = 0; i < sqlArgs.length; i++) {
-						selectArgs[i] = TiConvert.toString(sqlArgs[i]);
-					}
-				}
-				c = db.rawQuery(sql, selectArgs);
-	 			if (c != null) {
-					// Most non-SELECT statements won't actually return data, but some such as
-					// PRAGMA do. If there are no results, just return null.
-					// Thanks to brion for working through the logic, based off of commit
-					// https://github.com/brion/titanium_mobile/commit/8d3251fca69e10df6a96a2a9ae513159494d17c3
-					if (c.getColumnCount() > 0) {
-						rs = new TiResultSetProxy(c);
-						if (rs.isValidRow()) {
-							rs.next(); // Position on first row if we have data.
-						}
-					} else {
-						c.close();
-						c = null;
-						rs = null;
+			c = TiStatementCache.query(db, sql, sqlArgs);
+ 			if (c != null) {
+				// Most non-SELECT statements won't actually return data, but some such as
+				// PRAGMA do. If there are no results, just return null.
+				// Thanks to brion for working through the logic, based off of commit
+				// https://github.com/brion/titanium_mobile/commit/8d3251fca69e10df6a96a2a9ae513159494d17c3
+				if (c.getColumnCount() > 0) {
+					rs = new TiResultSetProxy(c);
+					if (rs.isValidRow()) {
+						rs.next(); // Position on first row if we have data.
 					}
 				} else {
-					// Leaving for historical purposes, but walking through several different
-					// types of statements never hit this branch. (create, drop, select, pragma)
-					rs = new TiResultSetProxy(null); // because iPhone does it this way.
+					c.close();
+					c = null;
+					rs = null;
 				}
 			} else {
-				Object[] newArgs = null;
-				if (sqlArgs != null) {
-					newArgs = new Object[sqlArgs.length];
-					for (int i = 0; i < sqlArgs.length; i++) {
-						if (sqlArgs[i] instanceof TiBlob) {
-							newArgs[i] = ((TiBlob) sqlArgs[i]).getBytes();
-						} else {
-							newArgs[i] = TiConvert.toString(sqlArgs[i]);
-						}
-					}
-				}
-				db.execSQL(sql, newArgs);
+				// Leaving for historical purposes, but walking through several different
+				// types of statements never hit this branch. (create, drop, select, pragma)
+				rs = new TiResultSetProxy(null); // because iPhone does it this way.
 			}
 		} catch (SQLException e) {
-			String msg = "Error executing sql: " + e.getMessage();
-			Log.e(TAG, msg, e);
 			if (c != null) {
 				try {
 					c.close();
@@ -152,10 +361,87 @@ public class TiDatabaseProxy extends KrollProxy
 			}
 			throw e;
 		}
-
 		return rs;
 	}
 
+	// Runs a statement that does not return rows with the compiled statements of the calling thread.
+	private Changes update(TiStatementCache cache, String sql, Object[] sqlArgs)
+	{
+		Changes changes = new Changes();
+		int type = DatabaseUtils.getSqlStatementType(sql);
+
+		// The id of an inserted row is read in the same transaction as the insert: with write-ahead
+		// logging, a query outside of a transaction may run on another connection.
+		boolean write = (type == DatabaseUtils.STATEMENT_UPDATE);
+		boolean transaction = write && !db.inTransaction();
+		if (transaction) {
+			db.beginTransactionNonExclusive();
+		}
+		try {
+			synchronized (cache) {
+				SQLiteStatement statement = cache.get(sql);
+				TiStatementCache.bindArgs(statement, sqlArgs);
+				changes.rowsAffected = statement.executeUpdateDelete();
+				if (write) {
+					changes.lastInsertRowId = cache.get(LAST_INSERT_ROWID).simpleQueryForLong();
+				}
+			}
+			if (transaction) {
+				db.setTransactionSuccessful();
+			}
+		} finally {
+			if (transaction) {
+				db.endTransaction();
+			}
+		}
+		return changes;
+	}
+
+	private void setChanges(Changes changes)
+	{
+		rowsAffected = changes.rowsAffected;
+		if (changes.lastInsertRowId >= 0) {
+			lastInsertRowId = changes.lastInsertRowId;
+		}
+	}
+
+	private static void putChanges(KrollDict result, Changes changes)
+	{
+		result.put("rowsAffected", changes.rowsAffected);
+		if (changes.lastInsertRowId >= 0) {
+			result.put("lastInsertRowId", changes.lastInsertRowId);
+		}
+	}
+
+	private synchronized ExecutorService getExecutor()
+	{
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor();
+		}
+		return executor;
+	}
+
+	// Waits for the pending asynchronous statements, before the database closes.
+	private void shutdownExecutor()
+	{
+		ExecutorService pending;
+		synchronized (this) {
+			pending = executor;
+			executor = null;
+		}
+		if (pending != null) {
+			pending.shutdown();
+			try {
+				pending.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (asyncStatements) {
+			asyncStatements.clear();
+		}
+	}
+
 	@Kroll.getProperty @Kroll.method
 	public String getName() {
 		return name;
@@ -163,12 +449,45 @@ public class TiDatabaseProxy extends KrollProxy
 
 	@Kroll.getProperty @Kroll.method
 	public int getLastInsertRowId() {
-		return (int) DatabaseUtils.longForQuery(db, "select last_insert_rowid()", null);
+		return (int) lastInsertRowId;
 	}
 
 	@Kroll.getProperty @Kroll.method
 	public int getRowsAffected() {
-		return (int) DatabaseUtils.longForQuery(db, "select changes()", null);
+		return rowsAffected;
+	}
+
+	@Kroll.getProperty @Kroll.method
+	public boolean getWalEnabled()
+	{
+		return walEnabled;
+	}
+
+	@Kroll.getProperty @Kroll.method
+	public int getSlowQueryTime()
+	{
+		return stats.getSlowQueryTime();
+	}
+
+	@Kroll.setProperty @Kroll.method
+	public void setSlowQueryTime(int slowQueryTime)
+	{
+		stats.setSlowQueryTime(slowQueryTime);
+	}
+
+	/**
+	 * @return the number and time of the statements run on the database.
+	 */
+	@Kroll.getProperty @Kroll.method
+	public KrollDict getQueryStats()
+	{
+		return stats.toDict();
+	}
+
+	@Kroll.method
+	public void resetQueryStats()
+	{
+		stats.clear();
 	}
 
 	@Kroll.method
@@ -180,6 +499,10 @@ public class TiDatabaseProxy extends KrollProxy
 
 		if (db.isOpen()) {
 			Log.w(TAG, "Attempt to remove open database. Closing then removing " + name);
+			shutdownExecutor();
+			synchronized (statements) {
+				statements.clear();
+			}
 			db.close();
 		}
 		Context ctx = TiApplication.getInstance();
@@ -196,6 +519,125 @@ public class TiDatabaseProxy extends KrollProxy
 		return new TiFileProxy(TiFileFactory.createTitaniumFile(path,false));
 	}
 
+	/**
+	 * Creates a row source paging through the results of a select statement, which lets list
+	 * sections show large query results without loading them all. Columns are mapped to list
+	 * items by name: a column named <code>bindId.property</code> sets that property of the
+	 * bound view, a column named <code>template</code> selects the item template and any other
+	 * column sets the item property of the same name, such as <code>title</code> or <code>itemId</code>.
+	 * Queries run on the executor of the database, after its pending asynchronous statements.
+	 */
+	public TiRowSource createRowSource(String query, Object[] args)
+	{
+		return new QueryRowSource(query, args);
+	}
+
+	private class QueryRowSource implements TiRowSource
+	{
+		private final String query;
+		private final String[] args;
+
+		QueryRowSource(String query, Object[] args)
+		{
+			this.query = query;
+			if (args != null) {
+				this.args = new String[args.length];
+				for (int i = 0; i < args.length; i++) {
+					this.args[i] = TiConvert.toString(args[i]);
+				}
+			} else {
+				this.args = null;
+			}
+		}
+
+		public void fetchRowCount(final Callback callback)
+		{
+			getExecutor().execute(new Runnable() {
+				public void run()
+				{
+					int count = 0;
+					try {
+						count = (int) DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM (" + query + ")", args);
+					} catch (RuntimeException e) {
+						Log.e(TAG, "Unable to count the rows of " + query, e);
+					}
+					callback.onRowCount(count);
+				}
+			});
+		}
+
+		public void fetchRows(final int offset, final int count, final Callback callback)
+		{
+			getExecutor().execute(new Runnable() {
+				public void run()
+				{
+					Object[] rows;
+					try {
+						rows = getRows(offset, count);
+					} catch (RuntimeException e) {
+						Log.e(TAG, "Unable to fetch the rows of " + query, e);
+						rows = new Object[0];
+					}
+					callback.onRows(offset, rows);
+				}
+			});
+		}
+
+		private Object[] getRows(int offset, int count)
+		{
+			Cursor c = db.rawQuery("SELECT * FROM (" + query + ") LIMIT " + count + " OFFSET " + offset, args);
+			try {
+				String[] names = c.getColumnNames();
+				Object[] rows = new Object[c.getCount()];
+				int row = 0;
+				while (c.moveToNext()) {
+					HashMap<String, Object> item = new HashMap<String, Object>();
+					HashMap<String, Object> properties = new HashMap<String, Object>();
+					for (int i = 0; i < names.length; i++) {
+						String name = names[i];
+						Object value = getValue(c, i);
+						int dot = name.indexOf('.');
+						if (dot > 0) {
+							String bindId = name.substring(0, dot);
+							@SuppressWarnings("unchecked")
+							HashMap<String, Object> view = (HashMap<String, Object>) item.get(bindId);
+							if (view == null) {
+								view = new HashMap<String, Object>();
+								item.put(bindId, view);
+							}
+							view.put(name.substring(dot + 1), value);
+						} else if (name.equals("template")) {
+							item.put(name, value);
+						} else {
+							properties.put(name, value);
+						}
+					}
+					item.put("properties", properties);
+					rows[row++] = item;
+				}
+				return rows;
+			} finally {
+				c.close();
+			}
+		}
+
+		private Object getValue(Cursor c, int index)
+		{
+			switch (c.getType(index)) {
+				case Cursor.FIELD_TYPE_NULL:
+					return null;
+				case Cursor.FIELD_TYPE_INTEGER:
+					return c.getLong(index);
+				case Cursor.FIELD_TYPE_FLOAT:
+					return c.getDouble(index);
+				case Cursor.FIELD_TYPE_BLOB:
+					return TiBlob.blobFromData(c.getBlob(index));
+				default:
+					return c.getString(index);
+			}
+		}
+	}
+
 	@Override
 	public String getApiName()
 	{
@@ -0,0 +1,125 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.common.Log;
+
+/**
+ * Times the statements run on a database, and logs the ones slower than a threshold. Statements
+ * are kept by their SQL, up to a maximum number of the most recently run ones, so that SQL built
+ * with inlined values does not grow the statistics without bounds. Statements run on the JS
+ * thread and on the executor of the database, so all methods are synchronized.
+ */
+class TiQueryStats
+{
+	private static final String TAG = "TiDB";
+
+	static final int MAX_STATEMENTS = 100;
+
+	private static class Entry
+	{
+		int count;
+		double totalTime;
+		double maxTime;
+	}
+
+	private final String name;
+	private final LinkedHashMap<String, Entry> entries;
+	private int count, slowCount;
+	private double totalTime;
+
+	// In milliseconds, or 0 to not log slow statements.
+	private int slowQueryTime;
+
+	TiQueryStats(String name)
+	{
+		this.name = name;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+			{
+				return size() > MAX_STATEMENTS;
+			}
+		};
+	}
+
+	synchronized int getSlowQueryTime()
+	{
+		return slowQueryTime;
+	}
+
+	synchronized void setSlowQueryTime(int slowQueryTime)
+	{
+		this.slowQueryTime = Math.max(0, slowQueryTime);
+	}
+
+	/**
+	 * Records a statement that started at the given {@link System#nanoTime()}.
+	 * @return the time it took, in milliseconds.
+	 */
+	synchronized double record(String sql, long startTime)
+	{
+		double time = (System.nanoTime() - startTime) / 1000000.0;
+		Entry entry = entries.get(sql);
+		if (entry == null) {
+			entry = new Entry();
+			entries.put(sql, entry);
+		}
+		entry.count++;
+		entry.totalTime += time;
+		entry.maxTime = Math.max(entry.maxTime, time);
+		count++;
+		totalTime += time;
+
+		if (slowQueryTime > 0 && time >= slowQueryTime) {
+			slowCount++;
+			Log.w(TAG, "Slow query on " + name + " took " + Math.round(time) + "ms: " + sql);
+		}
+		return time;
+	}
+
+	synchronized void clear()
+	{
+		entries.clear();
+		count = 0;
+		slowCount = 0;
+		totalTime = 0;
+	}
+
+	/**
+	 * @return the totals, and the count, total time and maximum time of each statement, from the
+	 * most recently run one.
+	 */
+	synchronized KrollDict toDict()
+	{
+		Object[] statements = new Object[entries.size()];
+		int i = statements.length;
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			Entry entry = e.getValue();
+			KrollDict statement = new KrollDict();
+			statement.put("sql", e.getKey());
+			statement.put("count", entry.count);
+			statement.put("totalTime", entry.totalTime);
+			statement.put("maxTime", entry.maxTime);
+			statements[--i] = statement;
+		}
+
+		KrollDict dict = new KrollDict();
+		dict.put("count", count);
+		dict.put("totalTime", totalTime);
+		dict.put("slowCount", slowCount);
+		dict.put("statements", statements);
+		return dict;
+	}
+}
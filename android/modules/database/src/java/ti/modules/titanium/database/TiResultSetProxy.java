@@ -6,8 +6,10 @@
  */
 package ti.modules.titanium.database;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
+import org.appcelerator.kroll.KrollDict;
 import org.appcelerator.kroll.KrollProxy;
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.kroll.common.Log;
@@ -275,6 +277,181 @@ public class TiResultSetProxy extends KrollProxy
 		return false;
 	}
 
+	/**
+	 * Reads all remaining rows, starting at the current row. See {@link #fetchPage(int)}.
+	 */
+	@Kroll.method
+	public KrollDict fetchAll()
+	{
+		return fetchPage(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Reads up to <code>maxRows</code> rows, starting at the current row, and moves past them. The
+	 * rows are returned by column, so the whole page is converted to JavaScript in one go
+	 * instead of one bridge call per field:
+	 * <ul>
+	 * <li><code>fields</code>: the column names.</li>
+	 * <li><code>rowCount</code>: the number of rows read.</li>
+	 * <li><code>columns</code>: one array of values per column. Columns of integers or reals
+	 * without nulls are primitive arrays; other columns hold strings, blobs, numbers and nulls.</li>
+	 * </ul>
+	 */
+	@Kroll.method
+	public KrollDict fetchPage(int maxRows)
+	{
+		KrollDict page = new KrollDict();
+		if (rs == null || rs.isClosed()) {
+			Log.w(TAG, "Attempted to fetch rows when no result set is available.");
+			page.put("fields", new String[0]);
+			page.put("rowCount", 0);
+			page.put("columns", new Object[0]);
+			return page;
+		}
+
+		int columnCount = rs.getColumnCount();
+		int capacity = Math.max(0, Math.min(maxRows, rs.getCount() - Math.max(0, rs.getPosition())));
+		Column[] columns = new Column[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columns[i] = new Column(capacity);
+		}
+
+		int rowCount = 0;
+		try {
+			while (rowCount < maxRows && isValidRow()) {
+				for (int i = 0; i < columnCount; i++) {
+					columns[i].read(rs, i, rowCount);
+				}
+				rowCount++;
+				rs.moveToNext();
+			}
+		} catch (SQLException e) {
+			Log.e(TAG, "Exception fetching rows: " + e.getMessage(), e);
+			throw e;
+		}
+
+		Object[] values = new Object[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			values[i] = columns[i].toArray(rowCount);
+		}
+		page.put("fields", rs.getColumnNames());
+		page.put("rowCount", rowCount);
+		page.put("columns", values);
+		return page;
+	}
+
+	/**
+	 * The values of one column, kept in a primitive array for as long as the column only
+	 * holds integers or reals.
+	 */
+	private static class Column
+	{
+		private static final int LONG = 0;
+		private static final int DOUBLE = 1;
+		private static final int OBJECT = 2;
+
+		private int kind = LONG;
+		private long[] longs;
+		private double[] doubles;
+		private Object[] objects;
+
+		Column(int capacity)
+		{
+			longs = new long[capacity];
+		}
+
+		void read(Cursor cursor, int index, int row)
+		{
+			int type = cursor.getType(index);
+			if (type == Cursor.FIELD_TYPE_INTEGER && kind == LONG) {
+				ensureCapacity(row);
+				longs[row] = cursor.getLong(index);
+				return;
+			}
+			if ((type == Cursor.FIELD_TYPE_INTEGER || type == Cursor.FIELD_TYPE_FLOAT) && kind != OBJECT) {
+				toDoubles(row);
+				ensureCapacity(row);
+				doubles[row] = cursor.getDouble(index);
+				return;
+			}
+
+			toObjects(row);
+			ensureCapacity(row);
+			switch (type) {
+				case Cursor.FIELD_TYPE_NULL:
+					objects[row] = null;
+					break;
+				case Cursor.FIELD_TYPE_INTEGER:
+					objects[row] = cursor.getLong(index);
+					break;
+				case Cursor.FIELD_TYPE_FLOAT:
+					objects[row] = cursor.getDouble(index);
+					break;
+				case Cursor.FIELD_TYPE_BLOB:
+					objects[row] = TiBlob.blobFromData(cursor.getBlob(index));
+					break;
+				default:
+					objects[row] = cursor.getString(index);
+			}
+		}
+
+		private void toDoubles(int rows)
+		{
+			if (kind != LONG) {
+				return;
+			}
+			doubles = new double[longs.length];
+			for (int i = 0; i < rows; i++) {
+				doubles[i] = longs[i];
+			}
+			longs = null;
+			kind = DOUBLE;
+		}
+
+		private void toObjects(int rows)
+		{
+			if (kind == OBJECT) {
+				return;
+			}
+			objects = new Object[(kind == LONG) ? longs.length : doubles.length];
+			for (int i = 0; i < rows; i++) {
+				objects[i] = (kind == LONG) ? (Object) longs[i] : (Object) doubles[i];
+			}
+			longs = null;
+			doubles = null;
+			kind = OBJECT;
+		}
+
+		// The row count of a cursor may be an estimate, so arrays still grow when needed.
+		private void ensureCapacity(int row)
+		{
+			int length = (kind == LONG) ? longs.length : (kind == DOUBLE) ? doubles.length : objects.length;
+			if (row < length) {
+				return;
+			}
+			int newLength = Math.max(16, length * 2);
+			if (kind == LONG) {
+				longs = Arrays.copyOf(longs, newLength);
+			} else if (kind == DOUBLE) {
+				doubles = Arrays.copyOf(doubles, newLength);
+			} else {
+				objects = Arrays.copyOf(objects, newLength);
+			}
+		}
+
+		Object toArray(int rows)
+		{
+			switch (kind) {
+				case LONG:
+					return (longs.length == rows) ? longs : Arrays.copyOf(longs, rows);
+				case DOUBLE:
+					return (doubles.length == rows) ? doubles : Arrays.copyOf(doubles, rows);
+				default:
+					return (objects.length == rows) ? objects : Arrays.copyOf(objects, rows);
+			}
+		}
+	}
+
 	@Override
 	public String getApiName()
 	{
@@ -0,0 +1,154 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.appcelerator.titanium.TiBlob;
+import org.appcelerator.titanium.util.TiConvert;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Keeps the most recently used compiled statements of a database, keyed by their SQL, and binds
+ * arguments by type instead of as strings. Statements are not thread safe: callers synchronize
+ * on the cache while they bind and run a statement.
+ */
+class TiStatementCache
+{
+	// Same as the default size of the prepared statement cache of an SQLite connection.
+	static final int DEFAULT_SIZE = 25;
+
+	private final SQLiteDatabase db;
+	private final LinkedHashMap<String, SQLiteStatement> statements;
+
+	TiStatementCache(SQLiteDatabase db, final int maxSize)
+	{
+		this.db = db;
+		this.statements = new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest)
+			{
+				if (size() > maxSize) {
+					eldest.getValue().close();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return the compiled statement for the SQL, compiling it the first time.
+	 */
+	SQLiteStatement get(String sql)
+	{
+		SQLiteStatement statement = statements.get(sql);
+		if (statement == null) {
+			statement = db.compileStatement(sql);
+			statements.put(sql, statement);
+		}
+		return statement;
+	}
+
+	/**
+	 * Closes all statements, before the database closes.
+	 */
+	void clear()
+	{
+		for (SQLiteStatement statement : statements.values()) {
+			statement.close();
+		}
+		statements.clear();
+	}
+
+	/**
+	 * Replaces the arguments of a statement or query.
+	 */
+	static void bindArgs(SQLiteProgram program, Object[] args)
+	{
+		program.clearBindings();
+		if (args == null) {
+			return;
+		}
+		for (int i = 0; i < args.length; i++) {
+			bindArg(program, i + 1, args[i]);
+		}
+	}
+
+	// Whole numbers are bound as integers and other numbers as reals, so comparisons and
+	// arithmetic work without relying on column affinity. Booleans are still bound as
+	// "true" and "false", as they always have been.
+	private static void bindArg(SQLiteProgram program, int index, Object arg)
+	{
+		if (arg == null) {
+			program.bindNull(index);
+		} else if (arg instanceof TiBlob) {
+			program.bindBlob(index, ((TiBlob) arg).getBytes());
+		} else if (arg instanceof byte[]) {
+			program.bindBlob(index, (byte[]) arg);
+		} else if (arg instanceof Number) {
+			if (arg instanceof Double || arg instanceof Float) {
+				double value = ((Number) arg).doubleValue();
+				if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+					program.bindLong(index, (long) value);
+				} else {
+					program.bindDouble(index, value);
+				}
+			} else {
+				program.bindLong(index, ((Number) arg).longValue());
+			}
+		} else if (arg instanceof String) {
+			program.bindString(index, (String) arg);
+		} else {
+			program.bindString(index, TiConvert.toString(arg));
+		}
+	}
+
+	/**
+	 * Runs a query with arguments bound by type. {@link SQLiteDatabase#rawQuery(String, String[])}
+	 * only binds strings.
+	 */
+	static Cursor query(SQLiteDatabase db, String sql, final Object[] args)
+	{
+		return db.rawQueryWithFactory(new SQLiteDatabase.CursorFactory()
+		{
+			public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver, String editTable, SQLiteQuery query)
+			{
+				bindArgs(query, args);
+				return new SQLiteCursor(driver, editTable, query);
+			}
+		}, sql, null, null);
+	}
+
+	/**
+	 * @return whether the SQL returns rows and must run as a query. Checks the leading keyword in
+	 * place, without copying the SQL.
+	 */
+	static boolean isQuery(String sql)
+	{
+		int start = 0;
+		int length = sql.length();
+		while (start < length && Character.isWhitespace(sql.charAt(start))) {
+			start++;
+		}
+		if (sql.regionMatches(true, start, "select", 0, 6)) {
+			return true;
+		}
+		return sql.regionMatches(true, start, "pragma", 0, 6) && sql.indexOf('=', start) < 0;
+	}
+}
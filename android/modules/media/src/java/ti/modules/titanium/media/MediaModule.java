@@ -36,6 +36,7 @@ import org.appcelerator.titanium.util.TiActivityResultHandler;
 import org.appcelerator.titanium.util.TiActivitySupport;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiFileHelper;
+import org.appcelerator.titanium.util.TiImageHelper;
 import org.appcelerator.titanium.util.TiIntentWrapper;
 import org.appcelerator.titanium.util.TiMimeTypeHelper;
 import org.appcelerator.titanium.util.TiUIHelper;
@@ -77,6 +78,8 @@ public class MediaModule extends KrollModule
 	protected static final String PROP_AUTOHIDE = "autohide";
 	protected static final String PROP_AUTOSAVE = "saveToPhotoGallery";
 	protected static final String PROP_OVERLAY = "overlay";
+	protected static final String PROP_MAX_IMAGE_SIZE = "maxImageSize";
+	protected static final String PROP_IMAGE_QUALITY = "imageQuality";
 
 	@Kroll.constant public static final int UNKNOWN_ERROR = -1;
 	@Kroll.constant public static final int NO_ERROR = 0;
@@ -177,6 +180,8 @@ public class MediaModule extends KrollModule
 		int videoMaximumDuration = 0;
 		int videoQuality = VIDEO_QUALITY_HIGH;
 		int cameraType = 0;
+		int maxImageSize = 0;
+		float imageQuality = -1f;
 
 		if (cameraOptions.containsKeyAndNotNull(TiC.PROPERTY_SUCCESS)) {
 			successCallback = (KrollFunction) cameraOptions.get(TiC.PROPERTY_SUCCESS);
@@ -187,6 +192,12 @@ public class MediaModule extends KrollModule
 		if (cameraOptions.containsKeyAndNotNull(TiC.EVENT_ERROR)) {
 			errorCallback = (KrollFunction) cameraOptions.get(TiC.EVENT_ERROR);
 		}
+		if (cameraOptions.containsKeyAndNotNull(PROP_MAX_IMAGE_SIZE)) {
+			maxImageSize = cameraOptions.getInt(PROP_MAX_IMAGE_SIZE);
+		}
+		if (cameraOptions.containsKeyAndNotNull(PROP_IMAGE_QUALITY)) {
+			imageQuality = TiConvert.toFloat(cameraOptions, PROP_IMAGE_QUALITY);
+		}
 		if (cameraOptions.containsKeyAndNotNull("saveToPhotoGallery")) {
 			saveToPhotoGallery = cameraOptions.getBoolean("saveToPhotoGallery");
 		}
@@ -268,6 +279,8 @@ public class MediaModule extends KrollModule
 		resultHandler.activitySupport = activitySupport;
 		resultHandler.lastImageId = getLastImageId(activity);
 		resultHandler.intentType = intentType;
+		resultHandler.maxImageSize = maxImageSize;
+		resultHandler.imageQuality = imageQuality;
 		activity.runOnUiThread(resultHandler);
 
 
@@ -286,6 +299,8 @@ public class MediaModule extends KrollModule
 		String[] mediaTypes = null;
 		int flashMode = CAMERA_FLASH_OFF;
 		int whichCamera = CAMERA_REAR;
+		int maxImageSize = 0;
+		float imageQuality = -1f;
 
 		if (cameraOptions.containsKeyAndNotNull(TiC.PROPERTY_SUCCESS)) {
 			successCallback = (KrollFunction) cameraOptions.get(TiC.PROPERTY_SUCCESS);
@@ -308,6 +323,12 @@ public class MediaModule extends KrollModule
 		if (cameraOptions.containsKeyAndNotNull(TiC.PROPERTY_WHICH_CAMERA)) {
 			whichCamera = cameraOptions.getInt(TiC.PROPERTY_WHICH_CAMERA);
 		}
+		if (cameraOptions.containsKeyAndNotNull(PROP_MAX_IMAGE_SIZE)) {
+			maxImageSize = cameraOptions.getInt(PROP_MAX_IMAGE_SIZE);
+		}
+		if (cameraOptions.containsKeyAndNotNull(PROP_IMAGE_QUALITY)) {
+			imageQuality = TiConvert.toFloat(cameraOptions, PROP_IMAGE_QUALITY);
+		}
 
 		// VIDEO
 		if (cameraOptions.containsKeyAndNotNull(TiC.PROPERTY_VIDEO_MAX_DURATION)) {
@@ -342,6 +363,8 @@ public class MediaModule extends KrollModule
 		TiCameraActivity.videoQuality = videoQuality;
 		TiCameraActivity.videoMaximumDuration = videoMaximumDuration;
 		TiCameraActivity.mediaType = mediaType;
+		TiCameraActivity.maxImageSize = maxImageSize;
+		TiCameraActivity.imageQuality = imageQuality;
 		TiCameraActivity.setFlashMode(flashMode);
 
 		//Create Intent and Launch
@@ -632,6 +655,8 @@ public class MediaModule extends KrollModule
 		protected int lastImageId;
 		private boolean validFileCreated;
 		protected String intentType;
+		protected int maxImageSize;
+		protected float imageQuality = -1f;
 
 		//Validates if the file is a valid bitmap
 		private void validateFile() throws Throwable
@@ -784,6 +809,11 @@ public class MediaModule extends KrollModule
 					}
 
 
+					// Apply the size and quality settings before the capture is copied or scanned.
+					if (intentType != MediaStore.ACTION_VIDEO_CAPTURE) {
+						TiImageHelper.processCapture(imageFile, maxImageSize, imageQuality);
+					}
+
 					if (!saveToPhotoGallery) {
 						//Create a file in the internal data directory and delete the original file
 						try {
@@ -21,6 +21,7 @@ import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.io.TiFile;
 import org.appcelerator.titanium.io.TiFileFactory;
 import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.TiImageHelper;
 
 import android.app.Activity;
 import android.content.Context;
@@ -89,6 +90,8 @@ public class TiCameraActivity extends TiBaseActivity implements SurfaceHolder.Ca
 	public static int videoQuality = VIDEO_QUALITY_HIGH;
 	public static String mediaType = MEDIA_TYPE_PHOTO;
 	public static int cameraType = 0;
+	public static int maxImageSize = 0;
+	public static float imageQuality = -1f;
 	private static int cameraRotation = 0;
 	private static MediaRecorder recorder;
 	private static File videoFile = null;
@@ -675,6 +678,10 @@ public class TiCameraActivity extends TiBaseActivity implements SurfaceHolder.Ca
 			FileOutputStream imageOut = new FileOutputStream(imageFile);
 			imageOut.write(data);
 			imageOut.close();
+
+			if (mediaType != MEDIA_TYPE_VIDEO) {
+				TiImageHelper.processCapture(imageFile, maxImageSize, imageQuality);
+			}
 			
 			if (saveToGallery) {
 				Intent mediaScanIntent = new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE);
@@ -9,8 +9,10 @@ package ti.modules.titanium.ui;
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.titanium.TiBlob;
 import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.view.TiFlatNode;
 import org.appcelerator.titanium.view.TiUIView;
 
+import ti.modules.titanium.ui.widget.TiFlatImageView;
 import ti.modules.titanium.ui.widget.TiUIImageView;
 import android.app.Activity;
 
@@ -22,6 +24,7 @@ import android.app.Activity;
 	TiC.PROPERTY_ENABLE_ZOOM_CONTROLS,
 	TiC.PROPERTY_IMAGE,
 	TiC.PROPERTY_IMAGES,
+	TiC.PROPERTY_PROGRESSIVE,
 	TiC.PROPERTY_REPEAT_COUNT,
 	TiC.PROPERTY_URL
 })
@@ -37,6 +40,12 @@ public class ImageViewProxy extends ViewProxy
 		return new TiUIImageView(this);
 	}
 
+	@Override
+	public TiFlatNode createFlatNode()
+	{
+		return new TiFlatImageView(this);
+	}
+
 	private TiUIImageView getImageView() {
 		return (TiUIImageView) getOrCreateView();
 	}
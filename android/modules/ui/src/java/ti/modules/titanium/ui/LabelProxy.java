@@ -11,8 +11,10 @@ import org.appcelerator.kroll.KrollProxy;
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.view.TiFlatNode;
 import org.appcelerator.titanium.view.TiUIView;
 
+import ti.modules.titanium.ui.widget.TiFlatLabel;
 import ti.modules.titanium.ui.widget.TiUILabel;
 import android.app.Activity;
 
@@ -64,6 +66,12 @@ public class LabelProxy extends TiViewProxy
 		return new TiUILabel(this);
 	}
 
+	@Override
+	public TiFlatNode createFlatNode()
+	{
+		return new TiFlatLabel(this);
+	}
+
 	@Override
 	public String getApiName()
 	{
@@ -111,6 +111,27 @@ public class ScrollViewProxy extends TiViewProxy
 		return super.handleMessage(msg);
 	}
 
+	@Override
+	protected boolean deferChildView(TiViewProxy child)
+	{
+		TiUIView view = peekView();
+		if (view instanceof TiUIScrollView && ((TiUIScrollView) view).isVirtualized()) {
+			((TiUIScrollView) view).getVirtualizer().childrenChanged();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void handleRemove(TiViewProxy child)
+	{
+		super.handleRemove(child);
+		TiUIView view = peekView();
+		if (view instanceof TiUIScrollView && ((TiUIScrollView) view).isVirtualized()) {
+			((TiUIScrollView) view).getVirtualizer().childRemoved(child);
+		}
+	}
+
 	public void handleScrollTo(int x, int y) {
 		getScrollView().scrollTo(x, y);
 	}
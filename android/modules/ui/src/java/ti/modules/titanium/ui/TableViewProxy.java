@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -22,6 +22,7 @@ import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.view.TiUIView;
 
 import ti.modules.titanium.ui.widget.TiUITableView;
+import ti.modules.titanium.ui.widget.tableview.TableViewModel;
 import ti.modules.titanium.ui.widget.tableview.TableViewModel.Item;
 import android.app.Activity;
 import android.os.Message;
@@ -63,6 +64,8 @@ public class TableViewProxy extends TiViewProxy
 	private static final int MSG_APPEND_SECTION = TiViewProxy.MSG_LAST_ID + 5009;
 	private static final int MSG_DELETE_SECTION = TiViewProxy.MSG_LAST_ID + 5010;
 	private static final int MSG_INSERT_SECTION = TiViewProxy.MSG_LAST_ID + 5011;
+	private static final int MSG_UPDATE_ROW = TiViewProxy.MSG_LAST_ID + 5012;
+	private static final int MSG_UPDATE_SECTION = TiViewProxy.MSG_LAST_ID + 5013;
 
 	public static final String CLASSNAME_DEFAULT = "__default__";
 	public static final String CLASSNAME_HEADER = "__header__";
@@ -174,6 +177,17 @@ public class TableViewProxy extends TiViewProxy
 
 	@Kroll.method
 	public void updateRow(Object row, Object data, @Kroll.argument(optional = true) KrollDict options)
+	{
+		if (TiApplication.isUIThread()) {
+			handleUpdateRow(row, data);
+			return;
+		}
+
+		TiMessenger.sendBlockingMainMessage(getMainHandler().obtainMessage(MSG_UPDATE_ROW), new Object[] { row, data });
+	}
+
+	// The model is read by the adapter on the UI thread, so it is only changed there.
+	private void handleUpdateRow(Object row, Object data)
 	{
 		TableViewSectionProxy sectionProxy = null;
 		int rowIndex = -1;
@@ -203,7 +217,7 @@ public class TableViewProxy extends TiViewProxy
 		}
 		if (sectionProxy != null) {
 			sectionProxy.updateRowAt(rowIndex, rowProxy);
-			getTableView().setModelDirty();
+			getTableView().getModel().rowUpdated(getSectionsArray().indexOf(sectionProxy), rowIndex);
 			updateView();
 		} else {
 			Log.e(TAG, "Unable to update row. Non-existent row: " + row);
@@ -213,7 +227,16 @@ public class TableViewProxy extends TiViewProxy
 	@Kroll.method
 	public void updateSection(Number index, Object data, @Kroll.argument(optional = true) KrollDict options)
 	{
-		int sectionIndex = index.intValue();
+		if (TiApplication.isUIThread()) {
+			handleUpdateSection(index.intValue(), data);
+			return;
+		}
+
+		TiMessenger.sendBlockingMainMessage(getMainHandler().obtainMessage(MSG_UPDATE_SECTION, index.intValue(), 0), data);
+	}
+
+	private void handleUpdateSection(int sectionIndex, Object data)
+	{
 		TableViewSectionProxy sectionProxy = sectionProxyFor(data);
 
 		if (sectionProxy == null) {
@@ -230,10 +253,10 @@ public class TableViewProxy extends TiViewProxy
 					oldSection.setParent(null);
 				}
 			}
-			getTableView().setModelDirty();
+			getTableView().getModel().sectionUpdated(sectionIndex);
 			updateView();
 		} catch (IndexOutOfBoundsException e) {
-			Log.e(TAG, "Unable to update section. Index out of range. Non-existent section at " + index);
+			Log.e(TAG, "Unable to update section. Index out of range. Non-existent section at " + sectionIndex);
 		}
 	}
 
@@ -261,9 +284,15 @@ public class TableViewProxy extends TiViewProxy
 		}
 
 		ArrayList<TableViewSectionProxy> sections = getSectionsArray();
+		TableViewModel model = getTableView().getModel();
 		if (sections.size() == 0) {
 			processData(rowList);
+			model.setDirty();
 		} else {
+			int lastSectionIndex = sections.size() - 1;
+			TableViewSectionProxy appendedSection = sections.get(lastSectionIndex);
+			int appendedRowIndex = (int) appendedSection.getRowCount();
+			boolean appendedSectionChanged = false;
 			for (int i = 0; i < rowList.length; i++) {
 				TableViewRowProxy rowProxy = rowProxyFor(rowList[i]);
 
@@ -272,11 +301,22 @@ public class TableViewProxy extends TiViewProxy
 				if (lastSection == null || !lastSection.equals(addedToSection)) {
 					sections.add(addedToSection);
 					addedToSection.setParent(this);
+				} else if (addedToSection == appendedSection && rowProxy.hasProperty(TiC.PROPERTY_FOOTER)) {
+					appendedSectionChanged = true;
 				}
 			}
+
+			// Only the rows and sections that were appended are added to the model.
+			if (appendedSectionChanged) {
+				model.sectionUpdated(lastSectionIndex);
+			} else if (appendedSection.getRowCount() > appendedRowIndex) {
+				model.rowsInserted(lastSectionIndex, appendedRowIndex, (int) appendedSection.getRowCount() - appendedRowIndex);
+			}
+			for (int i = lastSectionIndex + 1; i < sections.size(); i++) {
+				model.sectionInserted(i);
+			}
 		}
 
-		getTableView().setModelDirty();
 		updateView();
 	}
 
@@ -302,15 +342,16 @@ public class TableViewProxy extends TiViewProxy
 		}
 
 		ArrayList<TableViewSectionProxy> currentSections = getSectionsArray();
+		TableViewModel model = getTableView().getModel();
 		for (int i = 0; i < sectionList.length; i++) {
 			TableViewSectionProxy sectionProxy = sectionProxyFor(sectionList[i]);
 			if (sectionProxy != null) {
 				currentSections.add(sectionProxy);
 				sectionProxy.setParent(this);
+				model.sectionInserted(currentSections.size() - 1);
 			}
 		}
 
-		getTableView().setModelDirty();
 		updateView();
 	}
 
@@ -336,7 +377,7 @@ public class TableViewProxy extends TiViewProxy
 			RowResult rr = new RowResult();
 			if (locateIndex(index, rr)) {
 				rr.section.removeRowAt(rr.rowIndexInSection);
-				getTableView().setModelDirty();
+				getTableView().getModel().rowRemoved(rr.sectionIndex, rr.rowIndexInSection);
 				updateView();
 			} else {
 				Log.e(TAG, "Unable to delete row. Index out of range. Non-existent row at " + index);
@@ -345,8 +386,10 @@ public class TableViewProxy extends TiViewProxy
 			TableViewRowProxy rowProxy = (TableViewRowProxy) row;
 			TiViewProxy section = rowProxy.getParent();
 			if (section instanceof TableViewSectionProxy) {
-				((TableViewSectionProxy) section).remove(rowProxy);
-				getTableView().setModelDirty();
+				TableViewSectionProxy sectionProxy = (TableViewSectionProxy) section;
+				int rowIndex = sectionProxy.rows.indexOf(rowProxy);
+				sectionProxy.remove(rowProxy);
+				getTableView().getModel().rowRemoved(getSectionsArray().indexOf(sectionProxy), rowIndex);
 				updateView();
 			} else {
 				Log.e(TAG, "Unable to delete row. The row is not added to the table yet.");
@@ -380,7 +423,7 @@ public class TableViewProxy extends TiViewProxy
 			if (section.getParent() == this) {
 				section.setParent(null);
 			}
-			getTableView().setModelDirty();
+			getTableView().getModel().sectionRemoved(index);
 			updateView();
 		} catch (IndexOutOfBoundsException e) {
 			throw new IllegalStateException("Unable to delete section. Index out of range. Non-existent section at " + index);
@@ -437,6 +480,7 @@ public class TableViewProxy extends TiViewProxy
 			if (locateIndex(index, rr)) {
 				TableViewRowProxy rowProxy = rowProxyFor(data);
 				rr.section.insertRowAt(rr.rowIndexInSection, rowProxy);
+				getTableView().getModel().rowsInserted(rr.sectionIndex, rr.rowIndexInSection, 1);
 			} else {
 				throw new IllegalStateException("Index out of range. Non-existent row at " + index);
 			}
@@ -444,8 +488,8 @@ public class TableViewProxy extends TiViewProxy
 			// Add first row.
 			Object[] args = { rowProxyFor(data) };
 			processData(args);
+			getTableView().setModelDirty();
 		}
-		getTableView().setModelDirty();
 		updateView();
 	}
 
@@ -476,7 +520,7 @@ public class TableViewProxy extends TiViewProxy
 			ArrayList<TableViewSectionProxy> currentSections = getSectionsArray();
 			currentSections.add(index, sectionProxy);
 			sectionProxy.setParent(this);
-			getTableView().setModelDirty();
+			getTableView().getModel().sectionInserted(index);
 			updateView();
 		} catch (IndexOutOfBoundsException e) {
 			throw new IllegalStateException("Unable to insert section. Index out of range. Non-existent row at " + index);
@@ -506,7 +550,7 @@ public class TableViewProxy extends TiViewProxy
 			// TODO check for section
 			TableViewRowProxy rowProxy = rowProxyFor(data);
 			rr.section.insertRowAt(rr.rowIndexInSection + 1, rowProxy);
-			getTableView().setModelDirty();
+			getTableView().getModel().rowsInserted(rr.sectionIndex, rr.rowIndexInSection + 1, 1);
 			updateView();
 		} else {
 			throw new IllegalStateException("Index out of range. Non-existent row at " + index);
@@ -544,7 +588,7 @@ public class TableViewProxy extends TiViewProxy
 			ArrayList<TableViewSectionProxy> currentSections = getSectionsArray();
 			currentSections.add(index+1, sectionProxy);
 			sectionProxy.setParent(this);
-			getTableView().setModelDirty();
+			getTableView().getModel().sectionInserted(index + 1);
 			updateView();
 		} catch (IndexOutOfBoundsException e) {
 			throw new IllegalStateException("Unable to insert section. Index out of range. Non-existent row at " + index);
@@ -926,6 +970,17 @@ public class TableViewProxy extends TiViewProxy
 				result.setResult(e);
 			}
 			return true;
+		} else if (msg.what == MSG_UPDATE_ROW) {
+			AsyncResult result = (AsyncResult) msg.obj;
+			Object[] args = (Object[]) result.getArg();
+			handleUpdateRow(args[0], args[1]);
+			result.setResult(null);
+			return true;
+		} else if (msg.what == MSG_UPDATE_SECTION) {
+			AsyncResult result = (AsyncResult) msg.obj;
+			handleUpdateSection(msg.arg1, result.getArg());
+			result.setResult(null);
+			return true;
 		} else if (msg.what == MSG_SCROLL_TO_TOP) {
 			getTableView().scrollToTop(msg.arg1);
 			return true;
@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -15,6 +15,7 @@ import org.appcelerator.kroll.common.Log;
 import org.appcelerator.titanium.TiApplication;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.view.TiUIView;
 
 import ti.modules.titanium.ui.widget.TiUITableView;
@@ -191,8 +192,15 @@ public class TableViewRowProxy extends TiViewProxy
 			if (tableViewItem != null) {
 				tableViewItem.setRowData(this);
 				// update/refresh table view when a row's data changed.
-				TiUITableView table = getTable().getTableView();
-				table.setModelDirty();
+				TableViewProxy tableProxy = getTable();
+				TiUITableView table = tableProxy.getTableView();
+				TiViewProxy parent = getParent();
+				if (parent instanceof TableViewSectionProxy) {
+					TableViewSectionProxy section = (TableViewSectionProxy) parent;
+					table.getModel().rowUpdated(tableProxy.getSectionsArray().indexOf(section), section.rows.indexOf(this));
+				} else {
+					table.setModelDirty();
+				}
 				table.updateView();
 			}
 			return true;
@@ -239,6 +247,13 @@ public class TableViewRowProxy extends TiViewProxy
 		super.firePropertyChanged(name, oldValue, newValue);
 		TableViewProxy table = getTable();
 		if (table != null) {
+			// The search index holds the filter attribute of every row, so it must be rebuilt.
+			if (name.equals(TiConvert.toString(table.getProperty(TiC.PROPERTY_FILTER_ATTRIBUTE)))) {
+				TiUIView view = table.peekView();
+				if (view instanceof TiUITableView) {
+					((TiUITableView) view).getTableView().invalidateSearchIndex();
+				}
+			}
 			table.updateView();
 		}
 	}
@@ -8,6 +8,7 @@ package ti.modules.titanium.ui;
 
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.view.TiFlatNode;
 import org.appcelerator.titanium.view.TiUIView;
 
 import ti.modules.titanium.ui.widget.TiView;
@@ -30,6 +31,19 @@ public class ViewProxy extends TiViewProxy
 		return view;
 	}
 
+	@Override
+	public TiFlatNode createFlatNode()
+	{
+		// Subclasses draw content of their own.
+		if (getClass() != ViewProxy.class) {
+			return null;
+		}
+		TiFlatNode node = new TiFlatNode(this);
+		node.getLayoutParams().autoFillsHeight = true;
+		node.getLayoutParams().autoFillsWidth = true;
+		return node;
+	}
+
 	@Override
 	public String getApiName()
 	{
@@ -0,0 +1,168 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.ui.widget;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.common.Log;
+import org.appcelerator.titanium.TiBlob;
+import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.TiConvert;
+import org.appcelerator.titanium.util.TiLoadImageListener;
+import org.appcelerator.titanium.util.TiLoadImageManager;
+import org.appcelerator.titanium.view.TiDrawableReference;
+import org.appcelerator.titanium.view.TiFlatNode;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.view.View.MeasureSpec;
+
+/**
+ * Draws a single local image without an ImageView. Remote images, animations and zooming
+ * need a {@link TiUIImageView}.
+ */
+public class TiFlatImageView extends TiFlatNode implements TiLoadImageListener
+{
+	private static final String TAG = "TiFlatImageView";
+
+	private TiDrawableReference imageSource;
+	private BitmapDrawable drawable;
+	private boolean firedLoad;
+
+	public TiFlatImageView(TiViewProxy proxy)
+	{
+		super(proxy);
+	}
+
+	@Override
+	protected boolean canDraw(String key, Object value)
+	{
+		if (key.equals(TiC.PROPERTY_IMAGE)) {
+			if (value instanceof String) {
+				return !TiDrawableReference.fromUrl(proxy, (String) value).isNetworkUrl();
+			}
+			return value == null || value instanceof TiBlob;
+		}
+		return super.canDraw(key, value);
+	}
+
+	@Override
+	protected void applyProperty(String key, Object value)
+	{
+		if (key.equals(TiC.PROPERTY_IMAGE)) {
+			setImageSource(value);
+		} else {
+			super.applyProperty(key, value);
+		}
+	}
+
+	private void setImageSource(Object value)
+	{
+		drawable = null;
+		firedLoad = false;
+		if (value instanceof String) {
+			imageSource = TiDrawableReference.fromUrl(proxy, (String) value);
+		} else if (value != null) {
+			imageSource = TiDrawableReference.fromObject(proxy.getActivity(), value);
+		} else {
+			imageSource = null;
+		}
+		if (imageSource != null && !imageSource.isTypeNull()) {
+			TiLoadImageManager.getInstance().load(imageSource, this);
+		}
+	}
+
+	public void loadImageFinished(int hash, Bitmap bitmap)
+	{
+		// Ignore images of a previous source.
+		if (bitmap == null || imageSource == null || imageSource.hashCode() != hash) {
+			return;
+		}
+		drawable = new BitmapDrawable(getContext().getResources(), bitmap);
+		requestLayout();
+		if (!firedLoad) {
+			KrollDict data = new KrollDict();
+			data.put(TiC.EVENT_PROPERTY_STATE, TiC.PROPERTY_IMAGE);
+			proxy.fireEvent(TiC.EVENT_LOAD, data);
+			firedLoad = true;
+		}
+	}
+
+	public void loadImageFailed()
+	{
+		Log.w(TAG, "Unable to load image", Log.DEBUG_MODE);
+	}
+
+	private boolean isWidthDefined()
+	{
+		return layoutParams.optionWidth != null || (layoutParams.sizeOrFillWidthEnabled && layoutParams.autoFillsWidth)
+			|| (layoutParams.optionLeft != null && layoutParams.optionRight != null);
+	}
+
+	private boolean isHeightDefined()
+	{
+		return layoutParams.optionHeight != null || (layoutParams.sizeOrFillHeightEnabled && layoutParams.autoFillsHeight)
+			|| (layoutParams.optionTop != null && layoutParams.optionBottom != null);
+	}
+
+	// Sizes the image the same way TiImageView does, keeping its aspect ratio when only one
+	// dimension is defined.
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
+	{
+		int width = 0;
+		int height = 0;
+		if (drawable != null) {
+			width = drawable.getIntrinsicWidth();
+			height = drawable.getIntrinsicHeight();
+			if (width > 0 && height > 0) {
+				float aspectRatio = 1f * height / width;
+				boolean widthDefined = isWidthDefined();
+				boolean heightDefined = isHeightDefined();
+				if (widthDefined && !heightDefined) {
+					width = MeasureSpec.getSize(widthMeasureSpec);
+					height = Math.round(width * aspectRatio);
+				} else if (heightDefined && !widthDefined) {
+					height = MeasureSpec.getSize(heightMeasureSpec);
+					width = Math.round(height / aspectRatio);
+				}
+			}
+		}
+		setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas, int width, int height)
+	{
+		if (drawable == null) {
+			return;
+		}
+		int imageWidth = drawable.getIntrinsicWidth();
+		int imageHeight = drawable.getIntrinsicHeight();
+		if ((isWidthDefined() && isHeightDefined()) || imageWidth <= 0 || imageHeight <= 0) {
+			// Fills the bounds, like ScaleType.FIT_XY.
+			drawable.setBounds(0, 0, width, height);
+		} else {
+			// Fits and centers the image, like ScaleType.FIT_CENTER.
+			float scale = Math.min(1f * width / imageWidth, 1f * height / imageHeight);
+			int scaledWidth = Math.round(imageWidth * scale);
+			int scaledHeight = Math.round(imageHeight * scale);
+			int left = (width - scaledWidth) / 2;
+			int top = (height - scaledHeight) / 2;
+			drawable.setBounds(left, top, left + scaledWidth, top + scaledHeight);
+		}
+		drawable.draw(canvas);
+	}
+
+	@Override
+	protected void onDetach()
+	{
+		drawable = null;
+		imageSource = null;
+	}
+}
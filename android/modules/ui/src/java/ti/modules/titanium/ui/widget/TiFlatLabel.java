@@ -0,0 +1,246 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.ui.widget;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.TiConvert;
+import org.appcelerator.titanium.util.TiUIHelper;
+import org.appcelerator.titanium.view.TiFlatNode;
+
+import ti.modules.titanium.ui.UIModule;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.text.TextUtils.TruncateAt;
+import android.view.View.MeasureSpec;
+import android.widget.TextView;
+
+/**
+ * Draws a plain text label without a TextView. Html, attributed strings, links, shadows and
+ * marquees need a {@link TiUILabel}.
+ */
+public class TiFlatLabel extends TiFlatNode
+{
+	private static final HashSet<String> LABEL_PROPERTIES = new HashSet<String>(Arrays.asList(
+		TiC.PROPERTY_TEXT, TiC.PROPERTY_TEXTID, TiC.PROPERTY_COLOR, TiC.PROPERTY_FONT, TiC.PROPERTY_TEXT_ALIGN,
+		TiC.PROPERTY_VERTICAL_ALIGN, TiC.PROPERTY_WORD_WRAP, TiC.PROPERTY_ELLIPSIZE, TiC.PROPERTY_MAX_LINES,
+		TiC.PROPERTY_INCLUDE_FONT_PADDING, TiC.PROPERTY_SHADOW_RADIUS));
+
+	// The theme color of a TextView, looked up once per activity.
+	private static WeakReference<Context> defaultColorContext;
+	private static int defaultColor;
+
+	private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+	private String text = "";
+	private Object color;
+	private HashMap<String, Object> font;
+	private boolean fontChanged = true;
+	private Layout.Alignment alignment = Layout.Alignment.ALIGN_NORMAL;
+	private String verticalAlign = "middle";
+	private boolean wordWrap = true;
+	private TruncateAt ellipsize = TruncateAt.END;
+	private int maxLines = Integer.MAX_VALUE;
+	private boolean includeFontPadding = true;
+	private Layout layout;
+
+	public TiFlatLabel(TiViewProxy proxy)
+	{
+		super(proxy);
+	}
+
+	@Override
+	protected boolean canDraw(String key, Object value)
+	{
+		if (key.equals(TiC.PROPERTY_ELLIPSIZE)) {
+			// A marquee scrolls.
+			return !(value instanceof Number) || TiConvert.toInt(value) != UIModule.TEXT_ELLIPSIZE_TRUNCATE_MARQUEE;
+		}
+		return LABEL_PROPERTIES.contains(key) || super.canDraw(key, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected void applyProperty(String key, Object value)
+	{
+		if (key.equals(TiC.PROPERTY_TEXT)) {
+			text = (value == null) ? "" : TiConvert.toString(value);
+		} else if (key.equals(TiC.PROPERTY_COLOR)) {
+			color = value;
+		} else if (key.equals(TiC.PROPERTY_FONT)) {
+			font = (value instanceof HashMap) ? (HashMap<String, Object>) value : null;
+			fontChanged = true;
+		} else if (key.equals(TiC.PROPERTY_TEXT_ALIGN)) {
+			String textAlign = TiConvert.toString(value);
+			if (UIModule.TEXT_ALIGNMENT_CENTER.equals(textAlign)) {
+				alignment = Layout.Alignment.ALIGN_CENTER;
+			} else if (UIModule.TEXT_ALIGNMENT_RIGHT.equals(textAlign)) {
+				alignment = Layout.Alignment.ALIGN_OPPOSITE;
+			} else {
+				alignment = Layout.Alignment.ALIGN_NORMAL;
+			}
+		} else if (key.equals(TiC.PROPERTY_VERTICAL_ALIGN)) {
+			verticalAlign = (value == null) ? "middle" : TiConvert.toString(value);
+		} else if (key.equals(TiC.PROPERTY_WORD_WRAP)) {
+			wordWrap = TiConvert.toBoolean(value, true);
+		} else if (key.equals(TiC.PROPERTY_ELLIPSIZE)) {
+			ellipsize = toTruncateAt(value);
+		} else if (key.equals(TiC.PROPERTY_MAX_LINES)) {
+			maxLines = (value == null) ? Integer.MAX_VALUE : Math.max(1, TiConvert.toInt(value));
+		} else if (key.equals(TiC.PROPERTY_INCLUDE_FONT_PADDING)) {
+			includeFontPadding = TiConvert.toBoolean(value, true);
+		} else {
+			super.applyProperty(key, value);
+		}
+		layout = null;
+	}
+
+	private static TruncateAt toTruncateAt(Object value)
+	{
+		if (value instanceof Boolean) {
+			return ((Boolean) value) ? TruncateAt.END : null;
+		}
+		if (value instanceof Number) {
+			switch (TiConvert.toInt(value)) {
+				case UIModule.TEXT_ELLIPSIZE_TRUNCATE_START:
+					return TruncateAt.START;
+				case UIModule.TEXT_ELLIPSIZE_TRUNCATE_MIDDLE:
+					return TruncateAt.MIDDLE;
+				case UIModule.TEXT_ELLIPSIZE_TRUNCATE_END:
+					return TruncateAt.END;
+				default:
+					return null;
+			}
+		}
+		return TruncateAt.END;
+	}
+
+	// Styles the paint the same way TiUIHelper.styleText() styles a TextView.
+	private void updatePaint()
+	{
+		Context context = getContext();
+		if (fontChanged) {
+			String fontSize = null;
+			String fontWeight = null;
+			String fontFamily = null;
+			String fontStyle = null;
+			if (font != null) {
+				fontSize = TiConvert.toString(font.get("fontSize"));
+				fontWeight = TiConvert.toString(font.get("fontWeight"));
+				fontFamily = TiConvert.toString(font.get("fontFamily"));
+				fontStyle = TiConvert.toString(font.get("fontStyle"));
+			}
+			int style = TiUIHelper.toTypefaceStyle(fontWeight, fontStyle);
+			Typeface typeface = TiUIHelper.toTypeface(context, fontFamily);
+			if (style != Typeface.NORMAL) {
+				typeface = (typeface == null) ? Typeface.defaultFromStyle(style) : Typeface.create(typeface, style);
+			}
+			int missingStyle = style & ~((typeface == null) ? 0 : typeface.getStyle());
+			paint.setTypeface(typeface);
+			paint.setFakeBoldText((missingStyle & Typeface.BOLD) != 0);
+			paint.setTextSkewX(((missingStyle & Typeface.ITALIC) != 0) ? -0.25f : 0);
+			paint.setTextSize(TiUIHelper.getRawSize(fontSize, context));
+			fontChanged = false;
+		}
+		paint.setColor((color == null) ? getDefaultColor(context) : TiConvert.toColor(TiConvert.toString(color)));
+	}
+
+	private static int getDefaultColor(Context context)
+	{
+		if (defaultColorContext == null || defaultColorContext.get() != context) {
+			defaultColor = new TextView(context).getCurrentTextColor();
+			defaultColorContext = new WeakReference<Context>(context);
+		}
+		return defaultColor;
+	}
+
+	private Layout createLayout(int width)
+	{
+		CharSequence content = text;
+		if (!wordWrap) {
+			content = text.replace('\n', ' ');
+			if (ellipsize != null) {
+				content = TextUtils.ellipsize(content, paint, width, ellipsize);
+			}
+		}
+		Layout textLayout = new StaticLayout(content, paint, width, alignment, 1f, 0f, includeFontPadding);
+		if (wordWrap && ellipsize == TruncateAt.END && textLayout.getLineCount() > maxLines) {
+			// Like a TextView, only the end of the last visible line is ellipsized.
+			int lastLineStart = textLayout.getLineStart(maxLines - 1);
+			CharSequence lastLine = TextUtils.ellipsize(text.substring(lastLineStart).replace('\n', ' '), paint,
+				width, TruncateAt.END);
+			content = TextUtils.concat(text.substring(0, lastLineStart), lastLine);
+			textLayout = new StaticLayout(content, paint, width, alignment, 1f, 0f, includeFontPadding);
+		}
+		return textLayout;
+	}
+
+	private int getLayoutHeight(Layout textLayout)
+	{
+		return textLayout.getLineTop(Math.min(textLayout.getLineCount(), maxLines));
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
+	{
+		updatePaint();
+
+		int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+		int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+		String measured = wordWrap ? text : text.replace('\n', ' ');
+		int desiredWidth = (int) Math.ceil(Layout.getDesiredWidth(measured, paint));
+
+		// As with TiUILabel, a label that neither wraps nor ellipsizes may exceed its parent.
+		boolean unbounded = !wordWrap && ellipsize == null && layoutParams.optionWidth == null
+			&& !layoutParams.autoFillsWidth;
+		int width;
+		if (widthMode == MeasureSpec.EXACTLY) {
+			width = widthSize;
+		} else if (widthMode == MeasureSpec.AT_MOST && !unbounded) {
+			width = Math.min(desiredWidth, widthSize);
+		} else {
+			width = desiredWidth;
+		}
+		layout = createLayout(Math.max(0, width));
+		setMeasuredDimension(width, resolveSize(getLayoutHeight(layout), heightMeasureSpec));
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas, int width, int height)
+	{
+		if (text.length() == 0) {
+			return;
+		}
+		if (layout == null || layout.getWidth() != width) {
+			updatePaint();
+			layout = createLayout(width);
+		}
+		int textHeight = getLayoutHeight(layout);
+		int top = 0;
+		if ("middle".equals(verticalAlign)) {
+			top = (height - textHeight) / 2;
+		} else if ("bottom".equals(verticalAlign)) {
+			top = height - textHeight;
+		}
+		canvas.save();
+		canvas.clipRect(0, 0, width, height);
+		canvas.translate(0, top);
+		canvas.clipRect(0, 0, width, textHeight);
+		layout.draw(canvas);
+		canvas.restore();
+	}
+}
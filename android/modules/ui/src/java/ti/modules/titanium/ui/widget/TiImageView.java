@@ -17,7 +17,9 @@ import android.graphics.ColorFilter;
 import android.graphics.Matrix;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.graphics.drawable.TransitionDrawable;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
@@ -64,6 +66,7 @@ public class TiImageView extends ViewGroup implements Handler.Callback, OnClickL
 
 	private int orientation;
 	private int tintColor;
+	private boolean placeholderShown;
 	private WeakReference<TiViewProxy> proxy;
 
 	public TiImageView(Context context) {
@@ -182,9 +185,69 @@ public class TiImageView extends ViewGroup implements Handler.Callback, OnClickL
 	 * @param bitmap The bitmap to set. If it is null, it will clear the previous image.
 	 */
 	public void setImageBitmap(Bitmap bitmap) {
+		placeholderShown = false;
 		imageView.setImageBitmap(bitmap);
 	}
 
+	/**
+	 * Shows a tiny placeholder bitmap stretched to the size of the full image, which gives a blurred
+	 * preview until the full image is set with {@link #crossFadeToBitmap(Bitmap, int)}.
+	 * @param placeholder the placeholder bitmap.
+	 * @param width the width of the full image.
+	 * @param height the height of the full image.
+	 */
+	public void setPlaceholder(Bitmap placeholder, final int width, final int height)
+	{
+		BitmapDrawable drawable = new BitmapDrawable(getResources(), placeholder) {
+			@Override
+			public int getIntrinsicWidth()
+			{
+				return width;
+			}
+
+			@Override
+			public int getIntrinsicHeight()
+			{
+				return height;
+			}
+		};
+		drawable.setFilterBitmap(true);
+		imageView.setImageDrawable(drawable);
+		placeholderShown = true;
+	}
+
+	/**
+	 * Sets a Bitmap as the content of imageView, cross-fading from the placeholder if one is shown.
+	 * Only the placeholder and the new bitmap take part in the transition, so no second full-size
+	 * bitmap is allocated.
+	 * @param bitmap the bitmap to set.
+	 * @param duration the duration of the cross-fade in milliseconds.
+	 */
+	public void crossFadeToBitmap(final Bitmap bitmap, int duration)
+	{
+		Drawable current = imageView.getDrawable();
+		if (!placeholderShown || current == null || bitmap == null) {
+			setImageBitmap(bitmap);
+			return;
+		}
+		placeholderShown = false;
+		final TransitionDrawable transition = new TransitionDrawable(new Drawable[] { current,
+			new BitmapDrawable(getResources(), bitmap) });
+		transition.setCrossFadeEnabled(true);
+		imageView.setImageDrawable(transition);
+		transition.startTransition(duration);
+
+		// Swap in the plain bitmap when done, since callers expect a BitmapDrawable.
+		postDelayed(new Runnable() {
+			public void run()
+			{
+				if (imageView.getDrawable() == transition) {
+					imageView.setImageBitmap(bitmap);
+				}
+			}
+		}, duration);
+	}
+
 	public void setOnClickListener(OnClickListener clickListener)
 	{
 		this.clickListener = clickListener;
@@ -0,0 +1,541 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.ui.widget;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollPropertyChange;
+import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.TiDimension;
+import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.TiConvert;
+import org.appcelerator.titanium.view.TiCompositeLayout;
+import org.appcelerator.titanium.view.TiUIView;
+
+import android.view.View;
+
+/**
+ * Keeps native views only for the children of a vertical or horizontal scroll view that are
+ * visible or close to it. The other children are replaced by two spacers, sized from the sizes
+ * measured when the children were last visible or, for children never shown, from an estimate.
+ * The proxies stay authoritative: a child keeps its properties while it has no view, and gets
+ * them applied when it is shown again.
+ *
+ * Views of children scrolled out are kept in a pool and reused for children of the same proxy
+ * class that have the same view hierarchy and set the same properties.
+ */
+public class TiScrollViewVirtualizer
+{
+	// Views are kept for a viewport before and after the visible one.
+	private static final int BUFFER_VIEWPORTS = 1;
+	private static final int MAX_POOLED_VIEWS = 8;
+	private static final String DEFAULT_ESTIMATED_SIZE = "44dp";
+
+	private final TiUIScrollView scrollView;
+	private final TiViewProxy proxy;
+	private final TiCompositeLayout layout;
+	private final View scroller;
+	private final boolean vertical;
+	private final View leadingSpacer;
+	private final View trailingSpacer;
+
+	private final IdentityHashMap<TiViewProxy, TiUIView> liveViews = new IdentityHashMap<TiViewProxy, TiUIView>();
+	private final IdentityHashMap<TiViewProxy, Integer> measuredSizes = new IdentityHashMap<TiViewProxy, Integer>();
+	private long measuredTotal;
+	// Fixed sizes of children that were never measured, with the layout properties they come from.
+	private final IdentityHashMap<TiViewProxy, Estimate> estimates = new IdentityHashMap<TiViewProxy, Estimate>();
+	// Prefix sums of the child sizes: child i starts at offsets[i] and ends at offsets[i + 1]. They are
+	// only rebuilt when children are added or removed or a size changes, not on every scroll.
+	private int[] offsets = new int[1];
+	private boolean offsetsValid;
+	private final HashMap<Class<?>, ArrayList<TiUIView>> pool = new HashMap<Class<?>, ArrayList<TiUIView>>();
+	// The properties each pooled view was showing, to only apply differences when it is reused.
+	private final IdentityHashMap<TiUIView, KrollDict> pooledProperties = new IdentityHashMap<TiUIView, KrollDict>();
+
+	private static class Estimate
+	{
+		Object size;
+		Object leading;
+		Object trailing;
+		// The fixed size in pixels including margins, or -1 if the child has no fixed size.
+		int pixels;
+	}
+
+	private TiViewProxy anchor;
+	private int anchorPosition;
+	private boolean updatePending;
+
+	private final Runnable updateRunnable = new Runnable() {
+		public void run()
+		{
+			update();
+		}
+	};
+
+	public TiScrollViewVirtualizer(TiUIScrollView scrollView, TiCompositeLayout layout, View scroller, boolean vertical)
+	{
+		this.scrollView = scrollView;
+		this.proxy = scrollView.getProxy();
+		this.layout = layout;
+		this.scroller = scroller;
+		this.vertical = vertical;
+		leadingSpacer = createSpacer();
+		trailingSpacer = createSpacer();
+		layout.addView(leadingSpacer, 0, leadingSpacer.getLayoutParams());
+		layout.addView(trailingSpacer, 1, trailingSpacer.getLayoutParams());
+	}
+
+	private View createSpacer()
+	{
+		View spacer = new View(layout.getContext());
+		spacer.setLayoutParams(new TiCompositeLayout.LayoutParams());
+		setSpacerSize(spacer, 0);
+		return spacer;
+	}
+
+	private void setSpacerSize(View spacer, int size)
+	{
+		TiCompositeLayout.LayoutParams params = (TiCompositeLayout.LayoutParams) spacer.getLayoutParams();
+		TiDimension dimension = new TiDimension(size + TiDimension.UNIT_PX,
+			vertical ? TiDimension.TYPE_HEIGHT : TiDimension.TYPE_WIDTH);
+		TiDimension current = vertical ? params.optionHeight : params.optionWidth;
+		if (current != null && current.getAsPixels(layout) == size) {
+			return;
+		}
+		params.sizeOrFillWidthEnabled = false;
+		params.sizeOrFillHeightEnabled = false;
+		if (vertical) {
+			params.optionHeight = dimension;
+		} else {
+			params.optionWidth = dimension;
+		}
+		params.invalidateMeasureCache();
+		spacer.requestLayout();
+	}
+
+	/**
+	 * Schedules an update of the views after children were added or removed.
+	 */
+	public void childrenChanged()
+	{
+		offsetsValid = false;
+		if (!updatePending) {
+			updatePending = true;
+			layout.post(updateRunnable);
+		}
+	}
+
+	public void childRemoved(TiViewProxy child)
+	{
+		liveViews.remove(child);
+		Integer size = measuredSizes.remove(child);
+		if (size != null) {
+			measuredTotal -= size;
+		}
+		estimates.remove(child);
+		if (anchor == child) {
+			anchor = null;
+		}
+		childrenChanged();
+	}
+
+	void onScrollChanged()
+	{
+		update();
+	}
+
+	// Records the sizes of the children with views, and keeps the anchor where it was on screen
+	// when the sizes of children above it turned out to differ from their estimates.
+	void onLayout()
+	{
+		boolean newSizes = false;
+		for (Map.Entry<TiViewProxy, TiUIView> entry : liveViews.entrySet()) {
+			View view = entry.getValue().getOuterView();
+			if (view != null && view.getParent() == layout) {
+				newSizes |= recordSize(entry.getKey(), view);
+			}
+		}
+
+		if (anchor != null) {
+			TiUIView anchorView = liveViews.get(anchor);
+			anchor = null;
+			if (anchorView != null && anchorView.getOuterView() != null) {
+				View view = anchorView.getOuterView();
+				int delta = (vertical ? view.getTop() : view.getLeft()) - anchorPosition;
+				if (delta != 0) {
+					scroller.scrollBy(vertical ? 0 : delta, vertical ? delta : 0);
+				}
+			}
+		}
+		if (newSizes) {
+			childrenChanged();
+		}
+	}
+
+	private boolean recordSize(TiViewProxy child, View view)
+	{
+		TiCompositeLayout.LayoutParams params = (TiCompositeLayout.LayoutParams) view.getLayoutParams();
+		int size = vertical
+			? view.getHeight() + getPixels(params.optionTop) + getPixels(params.optionBottom)
+			: view.getWidth() + getPixels(params.optionLeft) + getPixels(params.optionRight);
+		Integer previous = measuredSizes.put(child, size);
+		if (previous != null) {
+			measuredTotal -= previous;
+		}
+		measuredTotal += size;
+		if (previous == null || previous != size) {
+			// The average used for unmeasured children may have changed too.
+			offsetsValid = false;
+			return true;
+		}
+		return false;
+	}
+
+	private int getPixels(TiDimension dimension)
+	{
+		return (dimension == null) ? 0 : dimension.getAsPixels(layout);
+	}
+
+	// The last measured size of the child, its fixed size if it has one, or else the average size of
+	// the measured children.
+	private int getSize(TiViewProxy child)
+	{
+		Integer size = measuredSizes.get(child);
+		if (size != null) {
+			return size;
+		}
+		int fixed = getFixedSize(child);
+		if (fixed >= 0) {
+			return fixed;
+		}
+		if (!measuredSizes.isEmpty()) {
+			return (int) (measuredTotal / measuredSizes.size());
+		}
+		return new TiDimension(DEFAULT_ESTIMATED_SIZE, vertical ? TiDimension.TYPE_HEIGHT : TiDimension.TYPE_WIDTH)
+			.getAsPixels(layout);
+	}
+
+	// Converts the layout properties of a child only when they differ from the ones last converted.
+	private int getFixedSize(TiViewProxy child)
+	{
+		Object size = child.getProperty(vertical ? TiC.PROPERTY_HEIGHT : TiC.PROPERTY_WIDTH);
+		Object leading = child.getProperty(vertical ? TiC.PROPERTY_TOP : TiC.PROPERTY_LEFT);
+		Object trailing = child.getProperty(vertical ? TiC.PROPERTY_BOTTOM : TiC.PROPERTY_RIGHT);
+		Estimate estimate = estimates.get(child);
+		if (estimate != null && equal(estimate.size, size) && equal(estimate.leading, leading)
+			&& equal(estimate.trailing, trailing)) {
+			return estimate.pixels;
+		}
+
+		TiCompositeLayout.LayoutParams params = new TiCompositeLayout.LayoutParams();
+		TiConvert.fillLayout(child.getProperties(), params);
+		TiDimension fixed = vertical ? params.optionHeight : params.optionWidth;
+		estimate = new Estimate();
+		estimate.size = size;
+		estimate.leading = leading;
+		estimate.trailing = trailing;
+		estimate.pixels = -1;
+		if (fixed != null && !fixed.isUnitPercent()) {
+			estimate.pixels = fixed.getAsPixels(layout)
+				+ (vertical ? getPixels(params.optionTop) + getPixels(params.optionBottom)
+					: getPixels(params.optionLeft) + getPixels(params.optionRight));
+		}
+		estimates.put(child, estimate);
+		return estimate.pixels;
+	}
+
+	private static boolean equal(Object a, Object b)
+	{
+		return (a == null) ? b == null : a.equals(b);
+	}
+
+	private void buildOffsets(TiViewProxy[] children)
+	{
+		if (offsets.length != children.length + 1) {
+			offsets = new int[children.length + 1];
+		}
+		for (int i = 0; i < children.length; i++) {
+			offsets[i + 1] = offsets[i] + getSize(children[i]);
+		}
+		offsetsValid = true;
+	}
+
+	// The index of the first child ending after the given position.
+	private int childEndingAfter(int position, int count)
+	{
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (offsets[middle + 1] > position) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	// The index of the first child starting at or after the given position.
+	private int childStartingAt(int position, int count)
+	{
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (offsets[middle] >= position) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	private int getViewportSize()
+	{
+		int size = vertical ? scroller.getHeight() : scroller.getWidth();
+		if (size <= 0) {
+			// Not laid out yet.
+			size = vertical ? layout.getResources().getDisplayMetrics().heightPixels
+				: layout.getResources().getDisplayMetrics().widthPixels;
+		}
+		return size;
+	}
+
+	private void update()
+	{
+		updatePending = false;
+		if (scrollView.getNativeView() == null) {
+			return;
+		}
+		TiViewProxy[] children = proxy.getChildren();
+		int viewport = getViewportSize();
+		int scroll = vertical ? scroller.getScrollY() : scroller.getScrollX();
+		int start = scroll - viewport * BUFFER_VIEWPORTS;
+		int end = scroll + viewport * (1 + BUFFER_VIEWPORTS);
+
+		if (!offsetsValid || offsets.length != children.length + 1) {
+			// Layout property changes of unmeasured children are picked up here, or once they are shown.
+			buildOffsets(children);
+		}
+		int total = offsets[children.length];
+		int first = childEndingAfter(start, children.length);
+		int last = childStartingAt(end, children.length) - 1;
+		if (first > last) {
+			first = last = -1;
+		}
+		if (first < 0 && children.length > 0) {
+			// Scrolled past the estimated end of the content.
+			first = last = children.length - 1;
+		}
+
+		setAnchor(scroll);
+
+		// Release the views scrolled out first, so they can be reused right away.
+		ArrayList<TiViewProxy> inRange = new ArrayList<TiViewProxy>();
+		for (int i = first; i <= last && i >= 0; i++) {
+			inRange.add(children[i]);
+		}
+		Iterator<Map.Entry<TiViewProxy, TiUIView>> it = liveViews.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<TiViewProxy, TiUIView> entry = it.next();
+			if (!containsProxy(inRange, entry.getKey())) {
+				it.remove();
+				detach(entry.getKey(), entry.getValue());
+			}
+		}
+
+		int leading = 0;
+		int trailing = total;
+		if (first >= 0) {
+			leading = offsets[first];
+			trailing = total - offsets[last + 1];
+			// The live views are always a contiguous range, after the leading spacer.
+			for (int i = first; i <= last; i++) {
+				if (!liveViews.containsKey(children[i])) {
+					attach(children[i], 1 + i - first);
+				}
+			}
+		}
+		setSpacerSize(leadingSpacer, leading);
+		setSpacerSize(trailingSpacer, trailing);
+	}
+
+	private static boolean containsProxy(List<TiViewProxy> proxies, TiViewProxy proxy)
+	{
+		for (TiViewProxy p : proxies) {
+			if (p == proxy) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Remembers the position of the first visible child, see onLayout().
+	private void setAnchor(int scroll)
+	{
+		anchor = null;
+		for (Map.Entry<TiViewProxy, TiUIView> entry : liveViews.entrySet()) {
+			View view = entry.getValue().getOuterView();
+			if (view == null || view.getParent() != layout) {
+				continue;
+			}
+			int position = vertical ? view.getTop() : view.getLeft();
+			int size = vertical ? view.getHeight() : view.getWidth();
+			if (position + size > scroll && (anchor == null || position < anchorPosition)) {
+				anchor = entry.getKey();
+				anchorPosition = position;
+			}
+		}
+	}
+
+	private void attach(TiViewProxy child, int index)
+	{
+		TiUIView view = obtainPooledView(child);
+		if (view == null) {
+			child.setActivity(proxy.getActivity());
+			view = child.getOrCreateView();
+		}
+		View outerView = (view == null) ? null : view.getOuterView();
+		if (outerView == null) {
+			return;
+		}
+		// Indexes count the leading spacer, so the view is added to the layout directly.
+		liveViews.put(child, view);
+		layout.addView(outerView, index, view.getLayoutParams());
+		view.setParent(proxy);
+	}
+
+	private void detach(TiViewProxy child, TiUIView view)
+	{
+		scrollView.remove(view);
+		View outerView = view.getOuterView();
+		if (outerView != null && outerView.getWidth() > 0) {
+			recordSize(child, outerView);
+		}
+
+		ArrayList<TiUIView> views = pool.get(child.getClass());
+		if (views == null) {
+			views = new ArrayList<TiUIView>();
+			pool.put(child.getClass(), views);
+		}
+		if (views.size() < MAX_POOLED_VIEWS && child.getPendingAnimation() == null) {
+			disconnect(view);
+			views.add(view);
+		} else {
+			child.releaseViews();
+		}
+	}
+
+	// Detaches the proxies from a pooled view hierarchy, keeping the properties it shows.
+	private void disconnect(TiUIView view)
+	{
+		TiViewProxy viewProxy = view.getProxy();
+		pooledProperties.put(view, new KrollDict(viewProxy.getProperties()));
+		viewProxy.setView(null);
+		viewProxy.setModelListener(null);
+		for (TiUIView childView : view.getChildren()) {
+			disconnect(childView);
+		}
+	}
+
+	private TiUIView obtainPooledView(TiViewProxy child)
+	{
+		ArrayList<TiUIView> views = pool.get(child.getClass());
+		if (views == null) {
+			return null;
+		}
+		for (int i = 0; i < views.size(); i++) {
+			TiUIView view = views.get(i);
+			if (canReuse(view, child)) {
+				views.remove(i);
+				reconnect(view, child, proxy);
+				return view;
+			}
+		}
+		return null;
+	}
+
+	private boolean canReuse(TiUIView view, TiViewProxy child)
+	{
+		KrollDict properties = pooledProperties.get(view);
+		if (view.getProxy() == null || view.getProxy().getClass() != child.getClass() || properties == null
+			|| !properties.keySet().equals(child.getProperties().keySet())) {
+			return false;
+		}
+		TiViewProxy[] grandChildren = child.getChildren();
+		List<TiUIView> childViews = view.getChildren();
+		if (grandChildren.length != childViews.size()) {
+			return false;
+		}
+		for (int i = 0; i < grandChildren.length; i++) {
+			if (!canReuse(childViews.get(i), grandChildren[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Gives a pooled view hierarchy to the proxies of a child, the same way table view rows reuse views.
+	private void reconnect(TiUIView view, TiViewProxy child, TiViewProxy parent)
+	{
+		KrollDict shown = pooledProperties.remove(view);
+		// The previous proxy may have a new view by now.
+		TiViewProxy previous = view.getProxy();
+		child.transferView(view, (previous != null && previous.peekView() == view) ? previous : null);
+		view.setParent(parent);
+		ArrayList<KrollPropertyChange> changes = new ArrayList<KrollPropertyChange>();
+		for (Map.Entry<String, Object> entry : child.getProperties().entrySet()) {
+			Object oldValue = shown.get(entry.getKey());
+			Object newValue = entry.getValue();
+			if (oldValue == null ? newValue != null : !oldValue.equals(newValue)) {
+				changes.add(new KrollPropertyChange(entry.getKey(), oldValue, newValue));
+			}
+		}
+		if (!changes.isEmpty()) {
+			view.propertiesChanged(changes, child);
+		}
+		TiViewProxy[] grandChildren = child.getChildren();
+		List<TiUIView> childViews = view.getChildren();
+		for (int i = 0; i < grandChildren.length; i++) {
+			reconnect(childViews.get(i), grandChildren[i], child);
+		}
+	}
+
+	private void releaseHierarchy(TiUIView view)
+	{
+		for (TiUIView childView : view.getChildren()) {
+			releaseHierarchy(childView);
+		}
+		view.release();
+	}
+
+	public void release()
+	{
+		layout.removeCallbacks(updateRunnable);
+		for (ArrayList<TiUIView> views : pool.values()) {
+			for (TiUIView view : views) {
+				releaseHierarchy(view);
+			}
+		}
+		pool.clear();
+		pooledProperties.clear();
+		liveViews.clear();
+		measuredSizes.clear();
+		measuredTotal = 0;
+		estimates.clear();
+		offsetsValid = false;
+		anchor = null;
+	}
+}
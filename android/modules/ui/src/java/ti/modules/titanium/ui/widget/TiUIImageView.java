@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -25,6 +25,7 @@ import org.appcelerator.titanium.TiBlob;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.TiLifecycle.OnLifecycleEvent;
 import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.TiBitmapRegistry;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiDownloadListener;
 import org.appcelerator.titanium.util.TiDownloadManager;
@@ -81,6 +82,7 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 	private static final int START = 10002;
 	private static final int STOP = 10003;
 	private static final int SET_TINT = 10004;
+	private static final int CROSS_FADE_DURATION = 200;
 	
 	// This handles the memory cache of images.
 	private TiImageLruCache mMemoryCache = TiImageLruCache.getInstance();
@@ -119,7 +121,7 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 			public void postDownload(URI uri)
 			{
 				if (TiResponseCache.peek(uri)) {
-					handleCacheAndSetImage(TiDrawableReference.fromUrl(imageViewProxy, uri.toString()));
+					handleCacheAndSetImage(TiDrawableReference.fromUrl(imageViewProxy, uri.toString()), uri);
 				}
 			}
 		};
@@ -223,7 +225,7 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 		}
 	}
 
-	private void handleCacheAndSetImage(TiDrawableReference imageref)
+	private void handleCacheAndSetImage(TiDrawableReference imageref, URI uri)
 	{
 		// Don't update UI if the current image source has been changed.
 		if (imageSources != null && imageSources.size() == 1) {
@@ -241,6 +243,10 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 						mMemoryCache.put(hash, bitmap);
 					}
 					setImage(bitmap);
+					if (isProgressive()) {
+						// Keep a tiny version next to the cache entry to show while this image is decoded next time.
+						TiResponseCache.putPlaceholder(uri, bitmap);
+					}
 					if (!firedLoad) {
 						fireLoad(TiC.PROPERTY_IMAGE);
 						firedLoad = true;
@@ -263,7 +269,18 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 	{
 		TiImageView view = getView();
 		if (view != null) {
-			view.setImageBitmap(bitmap);
+			unregisterShownBitmap(view);
+			TiBitmapRegistry.getInstance().register(bitmap, proxy);
+			view.crossFadeToBitmap(bitmap, CROSS_FADE_DURATION);
+		}
+	}
+
+	// The bitmap shown by the view is attributed to the proxy until it is replaced or the view is released.
+	private void unregisterShownBitmap(TiImageView view)
+	{
+		Drawable drawable = view.getImageDrawable();
+		if (drawable instanceof BitmapDrawable) {
+			TiBitmapRegistry.getInstance().unregister(((BitmapDrawable) drawable).getBitmap(), proxy);
 		}
 	}
 
@@ -749,8 +766,11 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 					Log.e(TAG, "NullPointerException for url " + imageref.getUrl(), e);
 				}
 
-				// Check if the image is not cached in disc and the uri is valid.
-				if (!isCachedInDisk && uri != null) {
+				if (isCachedInDisk && uri != null && isProgressive()) {
+					// Decode the placeholder and the full image on a loader thread.
+					loadProgressiveImage(imageref, uri);
+				} else if (!isCachedInDisk && uri != null) {
+					// The image is not cached in disc and the uri is valid.
 					TiDownloadManager.getInstance().download(uri, downloadListener);
 				} else {
 					// If the image has been cached in disk or the uri is not valid,
@@ -765,6 +785,36 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 		}
 	}
 
+	// Shows the placeholder of an image cached on disk while the full image is decoded, and creates the
+	// placeholder from the full image if the cache entry has none yet.
+	private void loadProgressiveImage(final TiDrawableReference imageref, final URI uri)
+	{
+		TiLoadImageManager.getInstance().execute(new Runnable() {
+			public void run()
+			{
+				final TiResponseCache.Placeholder placeholder = TiResponseCache.getPlaceholder(uri);
+				if (placeholder != null) {
+					TiMessenger.postOnMain(new Runnable() {
+						public void run()
+						{
+							TiImageView view = getView();
+							if (view != null && imageSources != null && imageSources.size() == 1
+								&& imageref.equals(imageSources.get(0))) {
+								view.setPlaceholder(placeholder.bitmap, placeholder.width, placeholder.height);
+							}
+						}
+					});
+				}
+				handleCacheAndSetImage(imageref, uri);
+			}
+		});
+	}
+
+	private boolean isProgressive()
+	{
+		return TiConvert.toBoolean(proxy.getProperty(TiC.PROPERTY_PROGRESSIVE), false);
+	}
+
 	private void setDefaultImage()
 	{
 		if (defaultImageSource == null) {
@@ -982,6 +1032,10 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 	@Override
 	public void release()
 	{
+		TiImageView view = getView();
+		if (view != null) {
+			unregisterShownBitmap(view);
+		}
 		super.release();
 		if (loader != null) {
 			synchronized (loader) {
@@ -995,7 +1049,7 @@ public class TiUIImageView extends TiUIView implements OnLifecycleEvent, Handler
 			if (imageSources != null) {
 				for (TiDrawableReference imageref : imageSources) {
 					int hash = imageref.hashCode();
-					mMemoryCache.remove(hash); //Release the cached images
+					TiBitmapRegistry.getInstance().unregister(mMemoryCache.remove(hash), proxy); //Release the cached images
 				}
 				imageSources.clear();
 				imageSources = null;
@@ -39,6 +39,7 @@ public class TiUIScrollView extends TiUIView
 	private int offsetX = 0, offsetY = 0;
 	private boolean setInitialOffset = false;
 	private boolean mScrollingEnabled = true;
+	private TiScrollViewVirtualizer virtualizer;
 	
 	public class TiScrollViewLayout extends TiCompositeLayout
 	{
@@ -82,6 +83,15 @@ public class TiUIScrollView extends TiUIView
 			canCancelEvents = value;
 		}
 
+		@Override
+		protected void onLayout(boolean changed, int l, int t, int r, int b)
+		{
+			super.onLayout(changed, l, t, r, b);
+			if (virtualizer != null) {
+				virtualizer.onLayout();
+			}
+		}
+
 		@Override
 		public boolean dispatchTouchEvent(MotionEvent ev)
 		{
@@ -254,6 +264,9 @@ public class TiUIScrollView extends TiUIView
 			data.put(TiC.EVENT_PROPERTY_Y, t);
 			setContentOffset(l, t);
 			getProxy().fireEvent(TiC.EVENT_SCROLL, data);
+			if (virtualizer != null) {
+				virtualizer.onScrollChanged();
+			}
 		}
 
 		@Override
@@ -370,6 +383,9 @@ public class TiUIScrollView extends TiUIView
 			data.put(TiC.EVENT_PROPERTY_Y, t);
 			setContentOffset(l, t);
 			getProxy().fireEvent(TiC.EVENT_SCROLL, data);
+			if (virtualizer != null) {
+				virtualizer.onScrollChanged();
+			}
 		}
 
 		@Override
@@ -571,12 +587,37 @@ public class TiUIScrollView extends TiUIView
 
 		setNativeView(view);
 
+		if (TiConvert.toBoolean(d, TiC.PROPERTY_VIRTUALIZE_CHILDREN, false)) {
+			// Only children laid out one after the other along the scroll direction have positions
+			// that can be estimated without their views.
+			if ((type == TYPE_VERTICAL && arrangement == LayoutArrangement.VERTICAL)
+				|| (type == TYPE_HORIZONTAL && arrangement == LayoutArrangement.HORIZONTAL && !wrap)) {
+				virtualizer = new TiScrollViewVirtualizer(this, scrollViewLayout, view, type == TYPE_VERTICAL);
+			} else {
+				Log.w(TAG, "virtualizeChildren requires a vertical layout scrolling vertically, or a horizontal layout"
+					+ " without horizontalWrap scrolling horizontally. Children are not virtualized.");
+			}
+		}
+
 		nativeView.setHorizontalScrollBarEnabled(showHorizontalScrollBar);
 		nativeView.setVerticalScrollBarEnabled(showVerticalScrollBar);
 
 		super.processProperties(d);
 	}
 
+	/**
+	 * @return whether this scroll view only keeps views for the children close to the visible area.
+	 */
+	public boolean isVirtualized()
+	{
+		return virtualizer != null;
+	}
+
+	public TiScrollViewVirtualizer getVirtualizer()
+	{
+		return virtualizer;
+	}
+
 	public TiScrollViewLayout getLayout()
 	{
 		View nativeView = getNativeView();
@@ -662,6 +703,16 @@ public class TiUIScrollView extends TiUIView
 		}
 	}
 	
+	@Override
+	public void release()
+	{
+		if (virtualizer != null) {
+			virtualizer.release();
+			virtualizer = null;
+		}
+		super.release();
+	}
+
 	@Override
 	public void resort()
 	{
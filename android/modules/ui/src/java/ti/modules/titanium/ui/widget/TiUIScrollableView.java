@@ -6,8 +6,11 @@
  */
 package ti.modules.titanium.ui.widget;
 
-import java.util.ArrayList;
 import java.lang.Math;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.appcelerator.kroll.KrollDict;
 import org.appcelerator.kroll.KrollProxy;
@@ -16,15 +19,25 @@ import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.proxy.TiViewProxy;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiEventHelper;
+import org.appcelerator.titanium.util.TiImageLruCache;
+import org.appcelerator.titanium.util.TiLoadImageListener;
+import org.appcelerator.titanium.util.TiLoadImageManager;
+import org.appcelerator.titanium.util.TiResponseCache;
+import org.appcelerator.titanium.util.TiUrl;
 import org.appcelerator.titanium.view.TiCompositeLayout;
 import org.appcelerator.titanium.view.TiCompositeLayout.LayoutParams;
+import org.appcelerator.titanium.view.TiDrawableReference;
 import org.appcelerator.titanium.view.TiUIView;
 
+import ti.modules.titanium.filesystem.FileProxy;
+import ti.modules.titanium.ui.ImageViewProxy;
 import ti.modules.titanium.ui.ScrollableViewProxy;
 import ti.modules.titanium.ui.widget.listview.ListItemProxy;
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Parcelable;
 import android.support.v4.view.PagerAdapter;
@@ -50,7 +63,10 @@ public class TiUIScrollableView extends TiUIView
 	private final TiCompositeLayout mContainer;
 	private final RelativeLayout mPagingControl;
 
+	private final ImagePreloader mPreloader = new ImagePreloader();
+
 	private int mCurIndex = 0;
+	private int mSelectedIndex = 0;
 	private boolean mEnabled = true;
 
 	public TiUIScrollableView(ScrollableViewProxy proxy)
@@ -162,6 +178,7 @@ public class TiUIScrollableView extends TiUIView
 			@Override
 			public void onPageSelected(int page)
 			{
+				preloadAhead(page);
 
 				// If we didn't just fire a `dragend` event then this is the case
 				// where a user drags the view and settles it on a different view.
@@ -312,11 +329,11 @@ public class TiUIScrollableView extends TiUIView
 			}
 		}
 
-		if (d.containsKey("cacheSize")) {
-			int cacheSize = TiConvert.toInt(d.get("cacheSize"));
-			mPager.setOffscreenPageLimit(cacheSize);
+		if (d.containsKey(TiC.PROPERTY_CACHE_SIZE)) {
+			setCacheSize(d.get(TiC.PROPERTY_CACHE_SIZE));
 		}
-		
+
+
 		super.processProperties(d);
 	}
 
@@ -339,11 +356,36 @@ public class TiUIScrollableView extends TiUIView
 			if (Build.VERSION.SDK_INT >= 9) {
 				mPager.setOverScrollMode(TiConvert.toInt(newValue, View.OVER_SCROLL_ALWAYS));
 			}
+		} else if (TiC.PROPERTY_CACHE_SIZE.equals(key)) {
+			setCacheSize(newValue);
 		} else {
 			super.propertyChanged(key, oldValue, newValue, proxy);
 		}
 	}
 
+	/**
+	 * Sets the number of pages that have native views: the current page and (cacheSize - 1) / 2
+	 * pages on each side of it, and at least one on each side. Pages that leave this window
+	 * release their views.
+	 */
+	private void setCacheSize(Object value)
+	{
+		int cacheSize = TiConvert.toInt(value, 3);
+		mPager.setOffscreenPageLimit(Math.max(1, (cacheSize - 1) / 2));
+	}
+
+	// Decodes the images of the page that will be created next when the pager keeps moving in
+	// the same direction, while the selected page settles.
+	private void preloadAhead(int page)
+	{
+		int direction = (page >= mSelectedIndex) ? 1 : -1;
+		mSelectedIndex = page;
+		int index = page + direction * (mPager.getOffscreenPageLimit() + 1);
+		if (index >= 0 && index < mViews.size()) {
+			mPreloader.preload(mViews.get(index));
+		}
+	}
+
 	public void addView(TiViewProxy proxy)
 	{
 		if (!mViews.contains(proxy)) {
@@ -545,6 +587,34 @@ public class TiUIScrollableView extends TiUIView
 		super.release();
 	}
 
+	/**
+	 * A page that has a native view in the pager. The page keeps the view it added, so the view
+	 * can be removed from the pager even after the views of the proxy were released elsewhere.
+	 */
+	private static class Page
+	{
+		final TiViewProxy proxy;
+		final View view;
+
+		Page(TiViewProxy proxy, View view)
+		{
+			this.proxy = proxy;
+			this.view = view;
+		}
+
+		boolean isCurrent()
+		{
+			TiUIView tiView = proxy.peekView();
+			return tiView != null && tiView.getOuterView() == view;
+		}
+	}
+
+	/**
+	 * Creates the views of a page when the pager needs it, and releases them as soon as the page
+	 * leaves the window of live pages set by the offscreen page limit. Pages are keyed by
+	 * {@link Page} rather than by position, so views inserted or removed before a page don't
+	 * release the wrong views.
+	 */
 	public static class ViewPagerAdapter extends PagerAdapter
 	{
 		private final ArrayList<TiViewProxy> mViewProxies;
@@ -556,10 +626,11 @@ public class TiUIScrollableView extends TiUIView
 		@Override
 		public void destroyItem(View container, int position, Object object)
 		{
-			((ViewPager) container).removeView((View) object);
-			if (position < mViewProxies.size()) {
-				TiViewProxy proxy = mViewProxies.get(position);
-				proxy.releaseViews();
+			Page page = (Page) object;
+			((ViewPager) container).removeView(page.view);
+			// The views may already have been released or recreated by a removal.
+			if (page.isCurrent()) {
+				page.proxy.releaseViews();
 			}
 		}
 
@@ -587,13 +658,13 @@ public class TiUIScrollableView extends TiUIView
 			} else {
 				pager.addView(view);
 			}
-			return view;
+			return new Page(tiProxy, view);
 		}
 
 		@Override
 		public boolean isViewFromObject(View view, Object obj)
 		{
-			return (obj instanceof View && view.equals(obj));
+			return (obj instanceof Page && ((Page) obj).view == view);
 		}
 
 		@Override
@@ -608,11 +679,91 @@ public class TiUIScrollableView extends TiUIView
 		@Override
 		public int getItemPosition(Object object)
 		{
-			if (!mViewProxies.contains(object)) {
+			Page page = (Page) object;
+			int position = mViewProxies.indexOf(page.proxy);
+			if (position < 0 || !page.isCurrent()) {
 				return POSITION_NONE;
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Decodes the images of a page that has no views yet into the memory cache of the image
+	 * views, so they show without a delay when the page is created. Only local images and
+	 * remote images that are already in the response cache are decoded.
+	 */
+	private static class ImagePreloader implements TiLoadImageListener
+	{
+		private final TiImageLruCache mMemoryCache = TiImageLruCache.getInstance();
+
+		public void preload(TiViewProxy page)
+		{
+			if (page.peekView() != null) {
+				return;
+			}
+			List<TiDrawableReference> images = new ArrayList<TiDrawableReference>();
+			collectImages(page, images);
+			for (TiDrawableReference imageref : images) {
+				if (mMemoryCache.get(imageref.hashCode()) == null) {
+					// The manager only holds a soft reference to this listener, the view keeps it alive.
+					TiLoadImageManager.getInstance().load(imageref, this);
+				}
+			}
+		}
+
+		private void collectImages(TiViewProxy proxy, List<TiDrawableReference> images)
+		{
+			if (proxy instanceof ImageViewProxy && !proxy.hasPropertyAndNotNull(TiC.PROPERTY_IMAGES)) {
+				TiDrawableReference imageref = toImageSource(proxy, proxy.getProperty(TiC.PROPERTY_IMAGE));
+				if (imageref != null) {
+					images.add(imageref);
+				}
+			}
+			for (TiViewProxy child : proxy.getChildren()) {
+				collectImages(child, images);
+			}
+		}
+
+		// Builds the same reference as TiUIImageView, so the cached bitmap is found under the same hash.
+		private TiDrawableReference toImageSource(TiViewProxy proxy, Object image)
+		{
+			TiDrawableReference imageref;
+			if (image == null) {
+				return null;
+			} else if (image instanceof FileProxy) {
+				imageref = TiDrawableReference.fromFile(proxy.getActivity(), ((FileProxy) image).getBaseFile());
+			} else if (image instanceof String) {
+				imageref = TiDrawableReference.fromUrl(proxy, (String) image);
 			} else {
-				return POSITION_UNCHANGED;
+				imageref = TiDrawableReference.fromObject(proxy.getActivity(), image);
 			}
+			if (imageref.isTypeNull()) {
+				return null;
+			}
+			if (imageref.isNetworkUrl()) {
+				Uri cleanUri = TiUrl.getCleanUri(imageref.getUrl());
+				try {
+					if (cleanUri == null || !TiResponseCache.peek(new URI(cleanUri.toString()))) {
+						return null;
+					}
+				} catch (URISyntaxException e) {
+					return null;
+				}
+			}
+			return imageref;
+		}
+
+		public void loadImageFinished(int hash, Bitmap bitmap)
+		{
+			if (bitmap != null && mMemoryCache.get(hash) == null) {
+				mMemoryCache.put(hash, bitmap);
+			}
+		}
+
+		public void loadImageFailed()
+		{
+			Log.w(TAG, "Unable to preload image", Log.DEBUG_MODE);
 		}
 	}
 
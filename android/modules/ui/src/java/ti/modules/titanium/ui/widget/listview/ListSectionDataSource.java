@@ -0,0 +1,208 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.ui.widget.listview;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.appcelerator.kroll.KrollFunction;
+import org.appcelerator.kroll.KrollObject;
+import org.appcelerator.kroll.common.Log;
+import org.appcelerator.kroll.common.TiMessenger;
+import org.appcelerator.titanium.TiApplication;
+import org.appcelerator.titanium.util.TiRowSource;
+
+import ti.modules.titanium.ui.widget.listview.ListSectionProxy.ListItemData;
+import android.support.v4.util.LruCache;
+
+/**
+ * Backs a list section with a row count and pages of rows fetched on demand. Only the most
+ * recently used pages are kept as list items, so memory use depends on the page size and
+ * the number of cached pages rather than on the size of the data set.
+ * <p>
+ * Items are requested by the adapter on the UI thread, so pages are fetched asynchronously:
+ * an empty placeholder item is bound until its page arrives, and the section is then notified.
+ * All other methods are called on the UI thread.
+ */
+public class ListSectionDataSource {
+
+	private static final String TAG = "ListSectionDataSource";
+
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int DEFAULT_CACHED_PAGES = 10;
+
+	private final ListSectionProxy section;
+	private final TiRowSource rows;
+	private final int pageSize;
+	private final LruCache<Integer, ListItemData[]> pages;
+	private final HashSet<Integer> pendingPages = new HashSet<Integer>();
+	private ListItemData placeholder;
+	private int rowCount;
+
+	// Results requested before the last reload are dropped. Only read and written on the UI thread.
+	private int generation;
+	private boolean released;
+
+	/**
+	 * A row source calling back into JavaScript, for data that does not come from a database.
+	 * The fetch function runs on the runtime thread, and is never waited for on the UI thread.
+	 */
+	public static class FunctionRowSource implements TiRowSource {
+		private final KrollObject krollObject;
+		private final KrollFunction fetch;
+		private final int count;
+
+		public FunctionRowSource(KrollObject krollObject, KrollFunction fetch, int count) {
+			this.krollObject = krollObject;
+			this.fetch = fetch;
+			this.count = count;
+		}
+
+		public void fetchRowCount(Callback callback) {
+			callback.onRowCount(count);
+		}
+
+		public void fetchRows(final int offset, final int count, final Callback callback) {
+			TiMessenger.postOnRuntime(new Runnable() {
+				public void run() {
+					Object result;
+					try {
+						result = fetch.call(krollObject, new Object[] { offset, count });
+					} catch (RuntimeException e) {
+						Log.e(TAG, "The fetch function of a list section data source failed", e);
+						callback.onRows(offset, null);
+						return;
+					}
+					if (!(result instanceof Object[])) {
+						Log.e(TAG, "The fetch function of a list section data source must return an array of items");
+						result = new Object[0];
+					}
+					callback.onRows(offset, (Object[]) result);
+				}
+			});
+		}
+	}
+
+	public ListSectionDataSource(ListSectionProxy section, TiRowSource rows, int pageSize, int cachedPages) {
+		this.section = section;
+		this.rows = rows;
+		this.pageSize = Math.max(1, pageSize);
+		this.pages = new LruCache<Integer, ListItemData[]>(Math.max(1, cachedPages));
+	}
+
+	/**
+	 * Drops every cached page and counts the rows again. The section is notified of the
+	 * new count through {@link ListSectionProxy#onDataSourceChanged(int)}.
+	 */
+	public void reload() {
+		generation++;
+		pages.evictAll();
+		pendingPages.clear();
+		placeholder = null;
+		final int requested = generation;
+		rows.fetchRowCount(new TiRowSource.Callback() {
+			public void onRowCount(final int count) {
+				runOnUiThread(new Runnable() {
+					public void run() {
+						if (requested == generation && !released) {
+							rowCount = Math.max(0, count);
+							section.onDataSourceChanged(rowCount);
+						}
+					}
+				});
+			}
+
+			public void onRows(int offset, Object[] rows) {
+			}
+		});
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return the item at the given index, or a placeholder item while its page is fetched,
+	 * or null if the index is out of range.
+	 */
+	public ListItemData getItem(int index) {
+		if (index < 0 || index >= rowCount) {
+			return null;
+		}
+		int page = index / pageSize;
+		ListItemData[] items = pages.get(page);
+		if (items == null) {
+			fetchPage(page);
+			return getPlaceholder(index);
+		}
+		return items[index % pageSize];
+	}
+
+	private ListItemData getPlaceholder(int index) {
+		if (placeholder == null) {
+			placeholder = section.createItemData(new Object[] { new HashMap<String, Object>() }, index)[0];
+		}
+		return placeholder;
+	}
+
+	private void fetchPage(final int page) {
+		if (!pendingPages.add(page)) {
+			return;
+		}
+		// The generation is taken when the page is requested, so a page requested before
+		// a reload is dropped even if it arrives after it.
+		final int requested = generation;
+		int offset = page * pageSize;
+		rows.fetchRows(offset, Math.min(pageSize, rowCount - offset), new TiRowSource.Callback() {
+			public void onRowCount(int count) {
+			}
+
+			public void onRows(final int offset, final Object[] fetched) {
+				runOnUiThread(new Runnable() {
+					public void run() {
+						if (requested != generation || released) {
+							return;
+						}
+						pendingPages.remove(page);
+						if (fetched == null) {
+							// The fetch failed, so the page is requested again when it is next bound.
+							return;
+						}
+						pages.put(page, createPage(offset, fetched));
+						section.onDataSourceChanged(rowCount);
+					}
+				});
+			}
+		});
+	}
+
+	private ListItemData[] createPage(int offset, Object[] fetched) {
+		int count = Math.max(0, Math.min(pageSize, rowCount - offset));
+
+		// Rows that disappeared since the count was taken are shown as empty items,
+		// as the adapter cannot shrink until the section is reloaded.
+		Object[] items = new Object[count];
+		for (int i = 0; i < count; i++) {
+			items[i] = (i < fetched.length && fetched[i] instanceof HashMap) ? fetched[i] : new HashMap<String, Object>();
+		}
+		return section.createItemData(items, offset);
+	}
+
+	private static void runOnUiThread(Runnable runnable) {
+		if (TiApplication.isUIThread()) {
+			runnable.run();
+		} else {
+			TiMessenger.postOnMain(runnable);
+		}
+	}
+
+	public void release() {
+		released = true;
+		pages.evictAll();
+		pendingPages.clear();
+	}
+}
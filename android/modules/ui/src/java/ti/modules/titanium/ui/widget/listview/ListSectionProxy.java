@@ -13,6 +13,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 
 import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollFunction;
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.kroll.common.AsyncResult;
 import org.appcelerator.kroll.common.Log;
@@ -21,6 +22,8 @@ import org.appcelerator.titanium.TiApplication;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.proxy.TiViewProxy;
 import org.appcelerator.titanium.util.TiConvert;
+import org.appcelerator.titanium.util.TiRowSource;
+import org.appcelerator.titanium.util.TiSearchIndex;
 import org.appcelerator.titanium.view.TiCompositeLayout;
 import org.appcelerator.titanium.view.TiUIView;
 
@@ -41,7 +44,12 @@ public class ListSectionProxy extends ViewProxy{
 	private TiBaseAdapter adapter;
 	private ArrayList<Object> itemProperties;
 	private ArrayList<Integer> filterIndices;
+	// The search text filterIndices were computed for, or null if the section is not filtered.
+	private String filterText;
+	private TiSearchIndex searchIndex;
 	private boolean preload;
+	// Set when the items are fetched in pages rather than given up front.
+	private ListSectionDataSource dataSource;
 	
 	private String headerTitle;
 	private String footerTitle;
@@ -66,11 +74,13 @@ public class ListSectionProxy extends ViewProxy{
 	private static final int MSG_SET_FOOTER_TITLE = MSG_FIRST_ID + 709;
 	private static final int MSG_SET_HEADER_VIEW = MSG_FIRST_ID + 710;
 	private static final int MSG_SET_FOOTER_VIEW = MSG_FIRST_ID + 711;
+	private static final int MSG_SET_DATA_SOURCE = MSG_FIRST_ID + 712;
 
 	public class ListItemData {
 		private KrollDict properties;
 		private TiListViewTemplate template;
 		private String searchableText = "";
+		private volatile BoundProperties bound;
 		public ListItemData (KrollDict properties, TiListViewTemplate template) {
 			this.properties = properties;
 			this.template = template;
@@ -91,6 +101,59 @@ public class ListSectionProxy extends ViewProxy{
 		public KrollDict getProperties() {
 			return properties;
 		}
+
+		/**
+		 * Returns the properties of each bound view, resolved against the template defaults.
+		 * They are resolved once per item, ahead of time on the binding worker when the item
+		 * is about to scroll into view. This may be called from any thread.
+		 */
+		public BoundProperties getBoundProperties() {
+			BoundProperties result = bound;
+			if (result == null) {
+				synchronized (this) {
+					result = bound;
+					if (result == null) {
+						result = bound = resolveBindings(properties, template);
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Resolves the bindings and parses their colors, dimensions and font families into the
+		 * caches of the converters. Binding the item on the UI thread still processes every
+		 * property, but finds those values already parsed while the caches hold them. The
+		 * converted values are not kept with the item. Called on the binding worker.
+		 */
+		public void prepare() {
+			BoundProperties result = getBoundProperties();
+			if (result == null || result.converted) {
+				return;
+			}
+			// Template defaults may be updated on the UI thread, so they are copied under its lock
+			// and converted outside of it.
+			ArrayList<HashMap<String, Object>> copies = new ArrayList<HashMap<String, Object>>(result.views.length + 1);
+			synchronized (template) {
+				for (KrollDict properties : result.views) {
+					if (properties != null) {
+						copies.add(new HashMap<String, Object>(properties));
+					}
+				}
+				if (result.itemProperties != null) {
+					copies.add(new HashMap<String, Object>(result.itemProperties));
+				}
+			}
+			for (HashMap<String, Object> properties : copies) {
+				TiConvert.preconvert(properties);
+			}
+			result.converted = true;
+		}
+
+		public boolean isPrepared() {
+			BoundProperties result = bound;
+			return result != null && result.converted;
+		}
 		
 		public String getSearchableText() {
 			return searchableText;
@@ -101,10 +164,66 @@ public class ListSectionProxy extends ViewProxy{
 		}
 	}
 	
+	/**
+	 * The properties to apply to the views of one list item, indexed by the binding slots of
+	 * its template. The dictionaries are shared and must not be modified, which lets a view
+	 * skip diffing when it is bound to the same dictionary again.
+	 */
+	public static class BoundProperties {
+		final KrollDict[] views;
+		final KrollDict itemProperties;
+		final String itemId;
+		// Whether the values were parsed ahead of time, see ListItemData.prepare().
+		volatile boolean converted;
+
+		BoundProperties(KrollDict[] views, KrollDict itemProperties, String itemId) {
+			this.views = views;
+			this.itemProperties = itemProperties;
+			this.itemId = itemId;
+		}
+	}
+
+	/**
+	 * Resolves the data of an item against the defaults of its template: bindings missing
+	 * from the data get the template defaults. This may be called from any thread.
+	 */
+	public static BoundProperties resolveBindings(KrollDict data, TiListViewTemplate template) {
+		if (data == null || template == null) {
+			return null;
+		}
+		// Template defaults are updated on the UI thread as new items are processed.
+		synchronized (template) {
+			String[] bindings = template.getBindingSlots();
+			KrollDict[] views = new KrollDict[bindings.length];
+			for (int slot = 0; slot < bindings.length; slot++) {
+				String binding = bindings[slot];
+				if (data.containsKey(binding)) {
+					views[slot] = new KrollDict((HashMap) data.get(binding));
+				} else {
+					views[slot] = template.getDataItem(binding).getDefaultProperties();
+				}
+			}
+
+			KrollDict itemProperties;
+			if (data.containsKey(TiC.PROPERTY_PROPERTIES)) {
+				itemProperties = new KrollDict((HashMap) data.get(TiC.PROPERTY_PROPERTIES));
+			} else {
+				itemProperties = template.getRootItem().getDefaultProperties();
+			}
+
+			String itemId = null;
+			if (itemProperties.containsKey(TiC.PROPERTY_ITEM_ID)) {
+				itemId = TiConvert.toString(itemProperties.get(TiC.PROPERTY_ITEM_ID));
+			}
+			return new BoundProperties(views, itemProperties, itemId);
+		}
+	}
+
 	public ListSectionProxy () {
 		//initialize variables
 		listItemData = new ArrayList<ListItemData>();
 		filterIndices = new ArrayList<Integer>();
+		searchIndex = new TiSearchIndex();
 		itemCount = 0;
 		preload = false;
 	}
@@ -252,9 +371,16 @@ public class ListSectionProxy extends ViewProxy{
 				return true;
 			}
 
+			case MSG_SET_DATA_SOURCE: {
+				AsyncResult result = (AsyncResult) msg.obj;
+				handleSetDataSource(result.getArg());
+				result.setResult(null);
+				return true;
+			}
+
 			case MSG_GET_ITEMS: {
 				AsyncResult result = (AsyncResult) msg.obj;
-				result.setResult(itemProperties.toArray());
+				result.setResult((itemProperties != null) ? itemProperties.toArray() : new Object[0]);
 				return true;
 			}
 
@@ -327,6 +453,10 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	private KrollDict handleGetItemAt(int index) {
+		if (dataSource != null) {
+			ListItemData item = dataSource.getItem(index);
+			return (item != null) ? item.getProperties() : null;
+		}
 		if (itemProperties != null && index >= 0 && index < itemProperties.size()) {
 			return new KrollDict((HashMap)itemProperties.get(index));
 		}
@@ -362,6 +492,27 @@ public class ListSectionProxy extends ViewProxy{
 		}
 	}
 	
+	/**
+	 * Backs the section with a data source, replacing its items. Only a window of pages is
+	 * kept in memory; setting the same data source again reloads the row count and the pages.
+	 * @param source a dictionary with either a <code>count</code> and a <code>fetch(offset, count)</code>
+	 * function returning an array of items, or a <code>database</code> and a <code>query</code> with
+	 * optional <code>args</code>. <code>pageSize</code> and <code>cachedPages</code> size the window.
+	 * Passing null removes the data source.
+	 */
+	@Kroll.method
+	public void setDataSource(Object source) {
+		if (TiApplication.isUIThread()) {
+			handleSetDataSource(source);
+		} else {
+			TiMessenger.sendBlockingMainMessage(getMainHandler().obtainMessage(MSG_SET_DATA_SOURCE), source);
+		}
+	}
+
+	public boolean hasDataSource() {
+		return dataSource != null;
+	}
+
 	public boolean isIndexValid(int index) {
 		return (index >= 0) ? true : false;
 	}
@@ -440,7 +591,25 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	public void refreshItems() {
-		handleSetItems(itemProperties.toArray());
+		if (dataSource != null) {
+			// Pages are merged with the template defaults when they are fetched
+			dataSource.reload();
+			if (adapter != null) {
+				adapter.notifyDataSetChanged();
+			}
+		} else if (itemProperties != null) {
+			handleSetItems(itemProperties.toArray());
+		}
+	}
+
+	/**
+	 * Called by the data source when its row count or its loaded pages change.
+	 */
+	void onDataSourceChanged(int count) {
+		itemCount = count;
+		if (adapter != null) {
+			adapter.notifyDataSetChanged();
+		}
 	}
 
 	private void processData(Object[] items, int offset) {
@@ -448,6 +617,28 @@ public class ListSectionProxy extends ViewProxy{
 			return;
 		}
 		
+		ListItemData[] data = createItemData(items, offset);
+		int position = offset;
+		for (ListItemData itemD : data) {
+			if (itemD != null) {
+				listItemData.add(position, itemD);
+				searchIndex.add(position, itemD.getSearchableText());
+				position++;
+			}
+		}
+		
+		//reapply filter if necessary
+		reapplyFilter();
+		//Notify adapter that data has changed.
+		adapter.notifyDataSetChanged();
+	}
+
+	/**
+	 * Resolves the templates of the given items and merges them with the template defaults.
+	 * @return the list items, with null in place of entries that are not dictionaries.
+	 */
+	ListItemData[] createItemData(Object[] items, int offset) {
+		ListItemData[] data = new ListItemData[items.length];
 		TiListViewTemplate[] temps = new TiListViewTemplate[items.length];
 		//First pass through data, we process template and update
 		//default properties based data given
@@ -469,26 +660,21 @@ public class ListSectionProxy extends ViewProxy{
 				if (template != null) {
 					template.updateOrMergeWithDefaultProperties(d, false);
 				}
-				ListItemData itemD = new ListItemData(d, template);
+				data[i] = new ListItemData(d, template);
 				d.remove(TiC.PROPERTY_TEMPLATE);
-				listItemData.add(i+offset, itemD);
 			}
 		}
-		
-		//reapply filter if necessary
-		if (isFilterOn()) {
-			applyFilter(getListView().getSearchText());
-		}
-		//Notify adapter that data has changed.
-		adapter.notifyDataSetChanged();
+		return data;
 	}
 
 	private void handleSetItems(Object data) {
 
 		if (data instanceof Object[]) {
 			Object[] items = (Object[]) data;
+			releaseDataSource();
 			itemProperties =  new ArrayList<Object>(Arrays.asList(items));
 			listItemData.clear();
+			searchIndex.clear();
 			//only process items when listview's properties is processed.
 			if (getListView() == null) {
 				preload = true;
@@ -502,6 +688,66 @@ public class ListSectionProxy extends ViewProxy{
 		}
 	}
 
+	private void handleSetDataSource(Object source) {
+		TiRowSource rows = null;
+		int pageSize = ListSectionDataSource.DEFAULT_PAGE_SIZE;
+		int cachedPages = ListSectionDataSource.DEFAULT_CACHED_PAGES;
+		if (source instanceof HashMap) {
+			KrollDict dict = new KrollDict((HashMap) source);
+			pageSize = dict.optInt("pageSize", pageSize);
+			cachedPages = dict.optInt("cachedPages", cachedPages);
+			Object database = dict.get("database");
+			Object fetch = dict.get("fetch");
+			if (database instanceof TiRowSource.Provider && dict.containsKey("query")) {
+				Object args = dict.get("args");
+				rows = ((TiRowSource.Provider) database).createRowSource(dict.getString("query"),
+					(args instanceof Object[]) ? (Object[]) args : null);
+			} else if (fetch instanceof KrollFunction) {
+				rows = new ListSectionDataSource.FunctionRowSource(getKrollObject(), (KrollFunction) fetch, dict.optInt(TiC.PROPERTY_COUNT, 0));
+			} else {
+				Log.e(TAG, "A data source needs either a count and a fetch function, or a database and a query");
+				return;
+			}
+		} else if (source != null) {
+			Log.e(TAG, "Invalid argument type to setDataSource", Log.DEBUG_MODE);
+			return;
+		}
+
+		releaseDataSource();
+		itemProperties = null;
+		listItemData.clear();
+		searchIndex.clear();
+		filterText = null;
+		filterIndices.clear();
+		preload = false;
+		if (rows != null) {
+			dataSource = new ListSectionDataSource(this, rows, pageSize, cachedPages);
+		}
+		itemCount = 0;
+		if (dataSource != null) {
+			dataSource.reload();
+		}
+		if (adapter != null) {
+			adapter.notifyDataSetChanged();
+		}
+	}
+
+	private void releaseDataSource() {
+		if (dataSource != null) {
+			dataSource.release();
+			dataSource = null;
+		}
+	}
+
+	// Item mutations address the whole data set, which the section does not hold.
+	private boolean rejectForDataSource(String method) {
+		if (dataSource != null) {
+			Log.w(TAG, method + " is not supported on a section with a data source. Update the data and set the data source again.");
+			return true;
+		}
+		return false;
+	}
+
 	private void handleSetHeaderTitle(String headerTitle) {
 		this.headerTitle = headerTitle;
 		if (adapter != null) {
@@ -531,6 +777,9 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	private void handleAppendItems(Object data) {
+		if (rejectForDataSource("appendItems")) {
+			return;
+		}
 		if (data instanceof Object[]) {
 			Object[] views = (Object[]) data;
 			if (itemProperties == null) {
@@ -557,6 +806,9 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	private void handleInsertItemsAt(int index, Object data) {
+		if (rejectForDataSource("insertItemsAt")) {
+			return;
+		}
 		if (data instanceof Object[]) {
 			Object[] views = (Object[]) data;
 			
@@ -596,17 +848,19 @@ public class ListSectionProxy extends ViewProxy{
 			}
 			if (index < listItemData.size()) {
 				listItemData.remove(index);
+				searchIndex.remove(index);
 			}
 			count--;
 		}
 		//reapply filter if necessary
-		if (isFilterOn()) {
-			applyFilter(getListView().getSearchText());
-		}
+		reapplyFilter();
 		return delete;
 	}
 	
 	private void handleDeleteItemsAt(int index, int count) {
+		if (rejectForDataSource("deleteItemsAt")) {
+			return;
+		}
 		deleteItems(index, count);
 		if (adapter != null) {
 			adapter.notifyDataSetChanged();
@@ -614,6 +868,9 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	private void handleReplaceItemsAt(int index, int count, Object data) {
+		if (rejectForDataSource("replaceItemsAt")) {
+			return;
+		}
 		if (count == 0) {
 			handleInsertItemsAt(index, data);
 		} else if (deleteItems(index, count)) {
@@ -622,6 +879,9 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	private void handleUpdateItemAt(int index, Object data) {
+		if (rejectForDataSource("updateItemAt")) {
+			return;
+		}
 		handleReplaceItemsAt(index, 1, data);
 		setProperty(TiC.PROPERTY_ITEMS, itemProperties.toArray());
 	}
@@ -690,17 +950,30 @@ public class ListSectionProxy extends ViewProxy{
 	 * @return
 	 */
 	public void generateCellContent(int sectionIndex, KrollDict data, TiListViewTemplate template, TiBaseListViewItem itemContent, int itemPosition, View item_layout) {
+		generateCellContent(sectionIndex, resolveBindings(data, template), template, itemContent, itemPosition, item_layout);
+	}
+
+	public void generateCellContent(int sectionIndex, BoundProperties data, TiListViewTemplate template, TiBaseListViewItem itemContent, int itemPosition, View item_layout) {
 		//Here we create an item content and populate it with data
+		generateCellViews(template, itemContent, item_layout, data != null && template != null);
+		if (data != null && template != null) {
+			populateViews(data, itemContent, template, itemPosition, sectionIndex, item_layout);
+		}
+	}
+
+	/**
+	 * Creates the view hierarchy of a cell without binding any data to it.
+	 */
+	public void generateCellViews(TiListViewTemplate template, TiBaseListViewItem itemContent, View item_layout, boolean withChildren) {
 		//Get item proxy
 		TiViewProxy itemProxy = template.getRootItem().getViewProxy();
 		//Create corresponding TiUIView for item proxy
 		TiListItem item = new TiListItem(itemProxy, (TiCompositeLayout.LayoutParams)itemContent.getLayoutParams(), itemContent, item_layout);		
 		//Connect native view with TiUIView so we can get it from recycled view.
 		itemContent.setTag(item);
-	
-		if (data != null && template != null) {
+
+		if (withChildren) {
 			generateChildContentViews(template.getRootItem(), null, itemContent, true);
-			populateViews(data, itemContent, template, itemPosition, sectionIndex, item_layout);
 		}
 	}
 	
@@ -764,55 +1037,43 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	public void populateViews(KrollDict data, TiBaseListViewItem cellContent, TiListViewTemplate template, int itemIndex, int sectionIndex, View item_layout) {
+		populateViews(resolveBindings(data, template), cellContent, template, itemIndex, sectionIndex, item_layout);
+	}
+
+	public void populateViews(BoundProperties data, TiBaseListViewItem cellContent, TiListViewTemplate template, int itemIndex, int sectionIndex, View item_layout) {
 		Object cell = cellContent.getTag();
 		//Handling root item, since that is not in the views map.
-		if (!(cell instanceof TiListItem)) {
+		if (!(cell instanceof TiListItem) || data == null) {
 			Log.e(TAG, "Cell is not TiListItem. Something is wrong..", Log.DEBUG_MODE);
 			return;
 		}
 		
 		TiListItem listItem = (TiListItem) cell;
-		KrollDict listItemProperties;
-		String itemId = null;
-
-		if (data.containsKey(TiC.PROPERTY_PROPERTIES)) {
-			listItemProperties = new KrollDict((HashMap)data.get(TiC.PROPERTY_PROPERTIES));
-		} else {
-			listItemProperties = template.getRootItem().getDefaultProperties(); 
-		}
-		
-		//find out if we need to update itemId
-		if (listItemProperties.containsKey(TiC.PROPERTY_ITEM_ID)) {
-			itemId = TiConvert.toString(listItemProperties.get(TiC.PROPERTY_ITEM_ID));
-		}
+		String itemId = data.itemId;
 		
 		//update extra event data for list item
 		appendExtraEventData(listItem, itemIndex, sectionIndex, TiC.PROPERTY_PROPERTIES, itemId);
 		
-		HashMap<String, ViewItem> views = (HashMap<String, ViewItem>) cellContent.getViewsMap();
-		//Loop through all our views and apply default properties
-		for (String binding: views.keySet()) {
-			DataItem dataItem = template.getDataItem(binding);
-			ViewItem viewItem = views.get(binding);
+		String[] bindings = template.getBindingSlots();
+		ViewItem[] views = cellContent.getViewSlots(template);
+		//Loop through all our views and apply data or default properties
+		for (int slot = 0; slot < views.length; slot++) {
+			ViewItem viewItem = views[slot];
+			if (viewItem == null) {
+				continue;
+			}
+			String binding = bindings[slot];
 			TiUIView view = viewItem.getView();
 			//update extra event data for views
 			if (view != null) {
 				appendExtraEventData(view, itemIndex, sectionIndex, binding, itemId);
 			}
-			//if binding is contain in data given to us, process that data, otherwise
-			//apply default properties.
-			if (data.containsKey(binding) && view != null) {
-				KrollDict properties = new KrollDict((HashMap)data.get(binding));
+			KrollDict properties = data.views[slot];
+			if (properties != null && view != null) {
 				KrollDict diffProperties = viewItem.generateDiffProperties(properties);
 				if (!diffProperties.isEmpty()) {
 					view.processProperties(diffProperties);
 				}
-
-			} else if (dataItem != null && view != null) {
-				KrollDict diffProperties = viewItem.generateDiffProperties(dataItem.getDefaultProperties());
-				if (!diffProperties.isEmpty()) {
-					view.processProperties(diffProperties);
-				}
 			} else {
 				Log.w(TAG, "Sorry, " + binding + " isn't a valid binding. Perhaps you made a typo?", Log.DEBUG_MODE);
 			}
@@ -820,7 +1081,7 @@ public class ListSectionProxy extends ViewProxy{
 		}
 		
 		//process listItem properties
-		KrollDict listItemDiff = cellContent.getViewItem().generateDiffProperties(listItemProperties);
+		KrollDict listItemDiff = cellContent.getViewItem().generateDiffProperties(data.itemProperties);
 		if (!listItemDiff.isEmpty()) {
 			listItem.processProperties(listItemDiff);
 		}
@@ -832,7 +1093,10 @@ public class ListSectionProxy extends ViewProxy{
 			index -= 1;
 		}
 		
-		if (isFilterOn()) {
+		if (dataSource != null) {
+			ListItemData item = dataSource.getItem(index);
+			return (item != null) ? item.getTemplate() : processDefaultTemplate(null, index);
+		} else if (isFilterOn()) {
 			return listItemData.get(filterIndices.get(index)).getTemplate();
 		} else {
 			return listItemData.get(index).getTemplate();
@@ -871,8 +1135,7 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	private boolean hideHeaderOrFooter() {
-		TiListView listview = getListView();
-		return (listview.getSearchText() != null && filterIndices.isEmpty());
+		return (isFilterOn() && filterIndices.isEmpty());
 	}
 	
 	public boolean hasHeader() {
@@ -920,12 +1183,36 @@ public class ListSectionProxy extends ViewProxy{
 		}
 	}
 	
+	/**
+	 * @param position the position of the entry within the section, including the header.
+	 * @return the item at that position, or null if it is a header or footer.
+	 */
+	public ListItemData getListItem(int position) {
+		if (headerTitle != null || headerView != null) {
+			position -= 1;
+		}
+
+		if (dataSource != null) {
+			return dataSource.getItem(position);
+		} else if (isFilterOn()) {
+			if (position >= 0 && position < filterIndices.size()) {
+				return listItemData.get(filterIndices.get(position));
+			}
+		} else if (position >= 0 && position < listItemData.size()) {
+			return listItemData.get(position);
+		}
+		return null;
+	}
+
 	public KrollDict getListItemData(int position) {
 		if (headerTitle != null || headerView != null) {
 			position -= 1;
 		}
 		
-		if (isFilterOn()) {
+		if (dataSource != null) {
+			ListItemData item = dataSource.getItem(position);
+			return (item != null) ? item.getProperties() : null;
+		} else if (isFilterOn()) {
 			return listItemData.get(filterIndices.get(position)).getProperties();
 		} else if (position >= 0 && position < listItemData.size()) {
 			return listItemData.get(position).getProperties();
@@ -934,29 +1221,60 @@ public class ListSectionProxy extends ViewProxy{
 	}
 	
 	public boolean isFilterOn() {
+		return filterText != null;
+	}
+
+	private void reapplyFilter() {
 		TiListView lv = getListView();
-		if (lv != null && lv.getSearchText() != null) {
-			return true;
+		if (lv != null && (lv.getSearchText() != null || isFilterOn())) {
+			applyFilter(lv.getSearchText());
 		}
-		return false;
 	}
 
+	/**
+	 * Filters the section synchronously.
+	 * @param searchText the text to look for, or null to remove the filter.
+	 * @return the number of matching items.
+	 */
 	public int applyFilter(String searchText) {
-		//Clear previous result
-		filterIndices.clear();
-		boolean caseInsensitive = getListView().getCaseInsensitive();
-		//Add new results
-		for (int i = 0; i < listItemData.size(); ++i) {
-			String searchableText = listItemData.get(i).getSearchableText();
-			//Handle case sensitivity
-			if (caseInsensitive) {
-				searchText = searchText.toLowerCase();
-				searchableText = searchableText.toLowerCase();
-			}
-			//String comparison
-			if (searchableText.contains(searchText)) {
-				filterIndices.add(i);
-			}
+		if (searchText == null || dataSource != null) {
+			filterText = null;
+			filterIndices.clear();
+			return (dataSource != null) ? itemCount : 0;
+		}
+		TiListView lv = getListView();
+		boolean caseInsensitive = (lv == null) || lv.getCaseInsensitive();
+		setFilterResult(searchText, search(searchText, caseInsensitive));
+		return filterIndices.size();
+	}
+
+	/**
+	 * Looks up the items matching the search text. This may be called from any thread.
+	 */
+	public TiSearchIndex.Result search(String searchText, boolean caseInsensitive) {
+		return searchIndex.search(searchText, caseInsensitive, false);
+	}
+
+	/**
+	 * Applies the result of a search that ran in the background.
+	 * @return false if the items changed since the search ran, in which case the result is dropped.
+	 */
+	public boolean setFilterResult(String searchText, TiSearchIndex.Result result) {
+		if (dataSource != null) {
+			// Only a window of the items is loaded, so data source sections are not filtered.
+			return true;
+		}
+		if (result.version != searchIndex.getVersion()) {
+			return false;
+		}
+		filterText = searchText;
+		filterIndices = result.positions;
+		return true;
+	}
+
+	public int getFilterResultCount() {
+		if (dataSource != null) {
+			return itemCount;
 		}
 		return filterIndices.size();
 	}
@@ -966,6 +1284,8 @@ public class ListSectionProxy extends ViewProxy{
 			listItemData.clear();
 			listItemData = null;
 		}
+		searchIndex.clear();
+		releaseDataSource();
 		
 		if (itemProperties != null) {
 			itemProperties.clear();
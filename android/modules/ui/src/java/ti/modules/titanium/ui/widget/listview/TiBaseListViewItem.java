@@ -21,6 +21,9 @@ public class TiBaseListViewItem extends TiCompositeLayout{
 
 	private HashMap<String, ViewItem> viewsMap;
 	private ViewItem viewItem;
+	//Views indexed by the binding slots of the template they were last looked up for.
+	private ViewItem[] viewSlots;
+	private TiListViewTemplate slotsTemplate;
 	public TiBaseListViewItem(Context context) {
 		super(context);
 		viewsMap = new HashMap<String, ViewItem>();
@@ -43,6 +46,23 @@ public class TiBaseListViewItem extends TiCompositeLayout{
 	
 	public void bindView(String binding, ViewItem view) {
 		viewsMap.put(binding, view);
+		viewSlots = null;
+	}
+
+	/**
+	 * @return the bound views indexed by the binding slots of the given template. A slot is
+	 * null if the cell has no view for that binding.
+	 */
+	public ViewItem[] getViewSlots(TiListViewTemplate template) {
+		if (viewSlots == null || slotsTemplate != template) {
+			String[] bindings = template.getBindingSlots();
+			viewSlots = new ViewItem[bindings.length];
+			for (int slot = 0; slot < bindings.length; slot++) {
+				viewSlots[slot] = viewsMap.get(bindings[slot]);
+			}
+			slotsTemplate = template;
+		}
+		return viewSlots;
 	}
 	
 	public TiUIView getViewFromBinding(String binding) {
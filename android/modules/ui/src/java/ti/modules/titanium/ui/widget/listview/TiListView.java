@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2015 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2015-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -12,12 +12,17 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import android.view.MotionEvent;
 import org.appcelerator.kroll.KrollDict;
 import org.appcelerator.kroll.KrollProxy;
 import org.appcelerator.kroll.common.Log;
+import org.appcelerator.kroll.common.TiMessenger;
+import org.appcelerator.titanium.TiApplication;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.TiDimension;
 import org.appcelerator.titanium.proxy.TiViewProxy;
@@ -25,6 +30,7 @@ import org.appcelerator.titanium.util.TiColorHelper;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiRHelper;
 import org.appcelerator.titanium.util.TiRHelper.ResourceNotFoundException;
+import org.appcelerator.titanium.util.TiSearchIndex;
 import org.appcelerator.titanium.view.TiCompositeLayout;
 import org.appcelerator.titanium.view.TiCompositeLayout.LayoutArrangement;
 import org.appcelerator.titanium.view.TiCompositeLayout.LayoutParams;
@@ -36,12 +42,18 @@ import ti.modules.titanium.ui.android.SearchViewProxy;
 import ti.modules.titanium.ui.widget.searchbar.TiUISearchBar;
 import ti.modules.titanium.ui.widget.searchbar.TiUISearchBar.OnSearchChangeListener;
 import ti.modules.titanium.ui.widget.searchview.TiUISearchView;
+import android.annotation.SuppressLint;
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.Pair;
+import android.util.SparseArray;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -81,6 +93,15 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 	private View footerView;
 	private String searchText;
 	private boolean caseInsensitive;
+	// Incremented for every search, so that the results of an outdated search are dropped.
+	private int filterGeneration = 0;
+	private static ExecutorService bindingExecutor;
+	// Spare cells hold full view hierarchies, so only a few template types get one.
+	private static final int MAX_SPARE_CELLS = 4;
+	private final SparseArray<View> spareCells = new SparseArray<View>();
+	private ComponentCallbacks2 trimCallbacks;
+	private final HashMap<Integer, Pair<ListSectionProxy, TiListViewTemplate>> spareCellRequests = new HashMap<Integer, Pair<ListSectionProxy, TiListViewTemplate>>();
+	private final AtomicReference<ArrayList<ListSectionProxy.ListItemData>> pendingPrefetch = new AtomicReference<ArrayList<ListSectionProxy.ListItemData>>();
 	private RelativeLayout searchLayout;
 	private static final String TAG = "TiListView";
 	private boolean canScroll = true;
@@ -96,6 +117,8 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 	public static List<String> MUST_SET_PROPERTIES = Arrays.asList(TiC.PROPERTY_VALUE, TiC.PROPERTY_AUTO_LINK, TiC.PROPERTY_TEXT, TiC.PROPERTY_HTML);
 	
 	public static final String MIN_SEARCH_HEIGHT = "50dp";
+	// Number of items beyond the visible ones whose bindings are resolved in the background.
+	public static final int PREFETCH_COUNT = 10;
 	public static final int HEADER_FOOTER_WRAP_ID = 12345;
 	public static final int HEADER_FOOTER_VIEW_TYPE = 0;
 	public static final int HEADER_FOOTER_TITLE_TYPE = 1;
@@ -285,10 +308,17 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 			//check marker and fire appropriate events
 			checkMarker(sectionIndex, sectionItemIndex, section.hasHeader());
 
-			//Handling templates
-			KrollDict data = section.getListItemData(sectionItemIndex);
+			//Handling templates. The bindings are usually resolved already by the prefetcher.
+			ListSectionProxy.ListItemData item = section.getListItem(sectionItemIndex);
+			ListSectionProxy.BoundProperties data = (item != null) ? item.getBoundProperties() : null;
 			TiListViewTemplate template = section.getTemplateByIndex(sectionItemIndex);
 
+			if (content == null) {
+				//Use a cell created ahead of time if there is one, and create a new spare for later.
+				content = spareCells.get(template.getType());
+				spareCells.remove(template.getType());
+				requestSpareCell(section, template);
+			}
 			if (content != null) {
 				TiBaseListViewItem itemContent = (TiBaseListViewItem) content.findViewById(listContentId);
 				section.populateViews(data, itemContent, template, sectionItemIndex, sectionIndex, content);
@@ -335,6 +365,9 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 		if (inflater == null) {
 			inflater = (LayoutInflater)activity.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
 		}
+
+		//drop spare cells when memory runs low
+		registerTrimCallbacks(TiApplication.getInstance());
 		
 		listView.setCacheColorHint(Color.TRANSPARENT);
 		getLayoutParams().autoFillsHeight = true;
@@ -400,6 +433,9 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 
 			public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount)
 			{
+				if (firstVisibleItem != _firstVisibleItem || visibleItemCount != _visibleItemCount) {
+					prefetch(firstVisibleItem, visibleItemCount, firstVisibleItem >= _firstVisibleItem);
+				}
 				_firstVisibleItem = firstVisibleItem;
 				_visibleItemCount = visibleItemCount;
 				int scrolledOffset = listView.getVerticalScrollOffset();
@@ -439,6 +475,115 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 		setNativeView(wrapper);
 	}
 	
+	/**
+	 * Resolves the bindings of the items about to scroll into view on the binding worker, and
+	 * parses their colors, dimensions and font families into the caches of the converters.
+	 * getView() still applies the properties on the UI thread, but usually finds those values
+	 * already parsed.
+	 */
+	private void prefetch(int firstVisibleItem, int visibleItemCount, boolean forward) {
+		int start = forward ? firstVisibleItem + visibleItemCount : firstVisibleItem - PREFETCH_COUNT;
+		int end = Math.min(start + PREFETCH_COUNT, adapter.getCount());
+		ArrayList<ListSectionProxy.ListItemData> items = new ArrayList<ListSectionProxy.ListItemData>(PREFETCH_COUNT);
+		for (int position = Math.max(start, 0); position < end; position++) {
+			Pair<ListSectionProxy, Pair<Integer, Integer>> info = getSectionInfoByEntryIndex(position);
+			if (info == null) {
+				break;
+			}
+			ListSectionProxy.ListItemData item = info.first.getListItem(info.second.second);
+			if (item != null && !item.isPrepared()) {
+				items.add(item);
+			}
+		}
+		if (items.isEmpty()) {
+			return;
+		}
+		// Only the latest window matters; a queued one that was not started yet is replaced.
+		if (pendingPrefetch.getAndSet(items) == null) {
+			getBindingExecutor().execute(new Runnable() {
+				public void run() {
+					ArrayList<ListSectionProxy.ListItemData> pending;
+					while ((pending = pendingPrefetch.getAndSet(null)) != null) {
+						for (ListSectionProxy.ListItemData item : pending) {
+							item.prepare();
+						}
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Schedules the creation of a spare cell for the template's type once the UI thread is idle,
+	 * so that the next new cell of that type does not have to be inflated while scrolling.
+	 */
+	private void requestSpareCell(ListSectionProxy section, TiListViewTemplate template) {
+		int type = template.getType();
+		if (spareCells.get(type) != null || spareCellRequests.containsKey(type)
+			|| spareCells.size() + spareCellRequests.size() >= MAX_SPARE_CELLS) {
+			return;
+		}
+		spareCellRequests.put(type, new Pair<ListSectionProxy, TiListViewTemplate>(section, template));
+		if (spareCellRequests.size() == 1) {
+			Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+				public boolean queueIdle() {
+					// Create one cell per idle pass to keep each pass short.
+					Iterator<Integer> types = spareCellRequests.keySet().iterator();
+					if (!types.hasNext()) {
+						return false;
+					}
+					Integer type = types.next();
+					Pair<ListSectionProxy, TiListViewTemplate> request = spareCellRequests.remove(type);
+					if (listView != null && inflater != null && request.second.getRootItem() != null) {
+						View content = inflater.inflate(listItemId, null);
+						TiBaseListViewItem itemContent = (TiBaseListViewItem) content.findViewById(listContentId);
+						LayoutParams params = new LayoutParams();
+						params.autoFillsWidth = true;
+						itemContent.setLayoutParams(params);
+						request.first.generateCellViews(request.second, itemContent, content, true);
+						spareCells.put(type, content);
+					}
+					return !spareCellRequests.isEmpty();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Drops the spare cells, which are only an optimization and are created again when needed.
+	 */
+	private void releaseSpareCells() {
+		spareCells.clear();
+		spareCellRequests.clear();
+	}
+
+	@SuppressLint("NewApi")
+	private void registerTrimCallbacks(Context context) {
+		if (Build.VERSION.SDK_INT < TiC.API_LEVEL_ICE_CREAM_SANDWICH) {
+			return;
+		}
+		trimCallbacks = new ComponentCallbacks2() {
+			public void onTrimMemory(int level) {
+				releaseSpareCells();
+			}
+
+			public void onLowMemory() {
+				releaseSpareCells();
+			}
+
+			public void onConfigurationChanged(Configuration newConfig) {
+			}
+		};
+		context.registerComponentCallbacks(trimCallbacks);
+	}
+
+	private static synchronized ExecutorService getBindingExecutor() {
+		if (bindingExecutor == null) {
+			bindingExecutor = Executors.newSingleThreadExecutor();
+		}
+		return bindingExecutor;
+	}
+
 	public String getSearchText() {
 		return searchText;
 	}
@@ -705,14 +850,53 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 		}
 	}
 
-	private void reFilter(String searchText) {
-		int numResults = 0;
-		if (searchText != null) {
+	private void reFilter(final String searchText) {
+		final int generation = ++filterGeneration;
+		if (searchText == null) {
 			for (int i = 0; i < sections.size(); ++i) {
-				ListSectionProxy section = sections.get(i);
-				numResults += section.applyFilter(searchText);
+				sections.get(i).applyFilter(null);
+			}
+			fireEvent(TiC.EVENT_NO_RESULTS, null);
+			if (adapter != null) {
+				adapter.notifyDataSetChanged();
+			}
+			return;
+		}
+
+		// Search all sections on the search worker, then apply the results in one batch
+		// so the list is only refreshed once per query.
+		final ListSectionProxy[] targets = sections.toArray(new ListSectionProxy[sections.size()]);
+		final boolean searchCaseInsensitive = caseInsensitive;
+		TiSearchIndex.getSearchExecutor().execute(new Runnable() {
+			public void run() {
+				final TiSearchIndex.Result[] results = new TiSearchIndex.Result[targets.length];
+				for (int i = 0; i < targets.length; ++i) {
+					results[i] = targets[i].search(searchText, searchCaseInsensitive);
+				}
+				TiMessenger.postOnMain(new Runnable() {
+					public void run() {
+						applyFilterResults(generation, searchText, targets, results);
+					}
+				});
+			}
+		});
+	}
+
+	private void applyFilterResults(int generation, String searchText, ListSectionProxy[] targets, TiSearchIndex.Result[] results) {
+		// Drop the results if a newer search started or the list view was released.
+		if (generation != filterGeneration || listView == null) {
+			return;
+		}
+		for (int i = 0; i < targets.length; ++i) {
+			// Sections whose items changed during the search were already filtered with this text.
+			if (sections.contains(targets[i])) {
+				targets[i].setFilterResult(searchText, results[i]);
 			}
 		}
+		int numResults = 0;
+		for (int i = 0; i < sections.size(); ++i) {
+			numResults += sections.get(i).getFilterResultCount();
+		}
 		if (numResults == 0) {
 			fireEvent(TiC.EVENT_NO_RESULTS, null);
 		}
@@ -1016,6 +1200,11 @@ public class TiListView extends TiUIView implements OnSearchChangeListener {
 		
 		templatesByBinding.clear();
 		sections.clear();
+		releaseSpareCells();
+		if (trimCallbacks != null) {
+			TiApplication.getInstance().unregisterComponentCallbacks(trimCallbacks);
+			trimCallbacks = null;
+		}
 		
 		if (wrapper != null) {
 			wrapper = null;
@@ -37,6 +37,9 @@ public class TiListViewTemplate {
 	protected String itemID;
 	//Properties of the template. 
 	private KrollDict properties;
+	//Compiled binding plan: the child bindings in a fixed order, so that bound properties and
+	//cell views can be looked up by slot instead of by binding id.
+	private String[] bindingSlots;
 	
 	public class DataItem {
 		//proxy for the item
@@ -222,7 +225,31 @@ public class TiListViewTemplate {
 		return rootItem;
 	}
 
-	public void updateOrMergeWithDefaultProperties(KrollDict data, boolean update) {
+	/**
+	 * @return the binding ids of the template, including the root "properties" binding.
+	 */
+	public Set<String> getBindingIds() {
+		return dataItems.keySet();
+	}
+
+	/**
+	 * @return the binding ids of the child views, indexed by slot. The order never changes
+	 * once the template is compiled.
+	 */
+	public synchronized String[] getBindingSlots() {
+		if (bindingSlots == null) {
+			ArrayList<String> slots = new ArrayList<String>(dataItems.size());
+			for (String binding : dataItems.keySet()) {
+				if (!binding.equals(itemID)) {
+					slots.add(binding);
+				}
+			}
+			bindingSlots = slots.toArray(new String[slots.size()]);
+		}
+		return bindingSlots;
+	}
+
+	public synchronized void updateOrMergeWithDefaultProperties(KrollDict data, boolean update) {
 		for (String binding: data.keySet()) {
 			DataItem dataItem = dataItems.get(binding);
 			if (dataItem == null) continue;
@@ -257,6 +284,7 @@ public class TiListViewTemplate {
 			}
 		}
 		dataItems.clear();
+		bindingSlots = null;
 		if (rootItem != null) {
 			rootItem.release();
 			rootItem = null;
@@ -17,6 +17,8 @@ public class ViewItem {
 	TiUIView view;
 	KrollDict properties;
 	KrollDict diffProperties;
+	//The shared, read-only properties applied last. See generateDiffProperties().
+	KrollDict lastApplied;
 	
 	public ViewItem(TiUIView view, KrollDict props) {
 		properties = new KrollDict((HashMap<String, Object>)props.clone());
@@ -37,24 +39,35 @@ public class ViewItem {
 	public KrollDict generateDiffProperties(KrollDict properties) {
 		diffProperties.clear();
 
-		for (String appliedProp : this.properties.keySet()) {
-			if (!properties.containsKey(appliedProp)) {
-				applyProperty(appliedProp, null);
+		if (properties == lastApplied) {
+			//Bound properties are never modified, so binding the same dictionary again, such as
+			//the template defaults, only needs the properties that must always be set.
+			for (String property : TiListView.MUST_SET_PROPERTIES) {
+				if (properties.containsKey(property)) {
+					applyProperty(property, properties.get(property));
+				}
 			}
-		}
-		
-		for (String property : properties.keySet()) {
-			Object value = properties.get(property);
-			if (TiListView.MUST_SET_PROPERTIES.contains(property)) {
-				applyProperty(property, value);
-				continue;
+		} else {
+			for (String appliedProp : this.properties.keySet()) {
+				if (!properties.containsKey(appliedProp)) {
+					applyProperty(appliedProp, null);
+				}
 			}
 
-			Object existingVal = this.properties.get(property);
-			if ((existingVal == null && value != null) || (existingVal != null && value == null)
-				|| (existingVal != null && !existingVal.equals(value))) {
-				applyProperty(property, value);
+			for (String property : properties.keySet()) {
+				Object value = properties.get(property);
+				if (TiListView.MUST_SET_PROPERTIES.contains(property)) {
+					applyProperty(property, value);
+					continue;
+				}
+
+				Object existingVal = this.properties.get(property);
+				if ((existingVal == null && value != null) || (existingVal != null && value == null)
+					|| (existingVal != null && !existingVal.equals(value))) {
+					applyProperty(property, value);
+				}
 			}
+			lastApplied = properties;
 		}
 
 		//backgroundImage and backgroundColor needs to be processed together
@@ -41,27 +41,110 @@ public class TableViewModel
 		public TiViewProxy proxy;
 		public Object rowData;
 	}
+	// The items of one section: its header items, its rows and its footer items.
+	private static class SectionItems
+	{
+		ArrayList<Item> items = new ArrayList<Item>();
+		int firstRow;
+		int rowCount;
+	}
+
+	/**
+	 * A Fenwick tree over the sizes of the sections, used to map between flat positions
+	 * and sections in logarithmic time without renumbering every item on each change.
+	 */
+	private static class OffsetIndex
+	{
+		private int[] tree = new int[1];
+		private int size = 0;
+
+		void build(int[] sizes, int count)
+		{
+			size = count;
+			tree = new int[count + 1];
+			for (int i = 1; i <= count; i++) {
+				tree[i] += sizes[i - 1];
+				int parent = i + (i & -i);
+				if (parent <= count) {
+					tree[parent] += tree[i];
+				}
+			}
+		}
+
+		void add(int section, int delta)
+		{
+			for (int i = section + 1; i <= size; i += i & -i) {
+				tree[i] += delta;
+			}
+		}
+
+		// The sum of the sizes of the sections before the given one.
+		int offsetOf(int section)
+		{
+			int sum = 0;
+			for (int i = section; i > 0; i -= i & -i) {
+				sum += tree[i];
+			}
+			return sum;
+		}
+
+		int total()
+		{
+			return offsetOf(size);
+		}
+
+		// The section containing the given offset, or the section count if it is past the end.
+		int sectionAt(int offset)
+		{
+			int section = 0;
+			int remaining = offset;
+			for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+				int next = section + step;
+				if (next <= size && tree[next] <= remaining) {
+					section = next;
+					remaining -= tree[next];
+				}
+			}
+			return section;
+		}
+	}
+
 	private TableViewProxy proxy;
 
 	private boolean dirty;
 
+	private ArrayList<SectionItems> sectionItems;
+	private OffsetIndex itemOffsets;
+	private OffsetIndex rowOffsets;
+
+	// Lazily flattened copy of the items, only needed while the table is filtered.
 	private ArrayList<Item> viewModel;
 
+	// The range of positions changed since the last call to clearChanges(), and whether
+	// the number or order of the items changed.
+	private int changedFrom = -1;
+	private int changedTo = -1;
+	private boolean structureChanged;
+	private int version = 0;
+
 	// The unstructured set of data. Modifier operations are treated as edits to this
 	// and the section structure.
 
 	public TableViewModel(TableViewProxy proxy) {
 		this.proxy = proxy;
 
-		viewModel = new ArrayList<Item>();
+		sectionItems = new ArrayList<SectionItems>();
+		itemOffsets = new OffsetIndex();
+		rowOffsets = new OffsetIndex();
 		dirty = true;
 	}
 
 	public void release() {
-		if (viewModel != null) {
-			viewModel.clear();
-			viewModel = null;
+		if (sectionItems != null) {
+			sectionItems.clear();
+			sectionItems = null;
 		}
+		viewModel = null;
 		proxy = null;
 	}
 
@@ -73,8 +156,8 @@ public class TableViewModel
 		return className;
 	}
 
-	private Item itemForHeader(int index, TableViewSectionProxy proxy, String headerText, String footerText) {
-		Item newItem = new Item(index);
+	private Item itemForHeader(TableViewSectionProxy proxy, String headerText, String footerText) {
+		Item newItem = new Item(0);
 		newItem.className = TableViewProxy.CLASSNAME_HEADER;
 		if (headerText != null) {
 			newItem.headerText = headerText;
@@ -86,11 +169,93 @@ public class TableViewModel
 		return newItem;
 	}
 
+	private Item itemForRow(TableViewRowProxy row) {
+		Item item = new Item(0);
+		item.proxy = row;
+		item.rowData = row.getProperties().get(TiC.PROPERTY_ROW_DATA);
+		item.className = classNameForRow(row);
+		return item;
+	}
+
+	private SectionItems itemsForSection(TableViewSectionProxy section) {
+		SectionItems block = new SectionItems();
+		String headerTitle = TiConvert.toString(section.getProperty(TiC.PROPERTY_HEADER_TITLE));
+		if (headerTitle != null) {
+			block.items.add(itemForHeader(section, headerTitle, null));
+		}
+		if (section.hasProperty(TiC.PROPERTY_HEADER_VIEW)) {
+			Object headerView = section.getProperty(TiC.PROPERTY_HEADER_VIEW);
+			if (headerView instanceof TiViewProxy) {
+				Item item = new Item(0);
+				item.proxy = (TiViewProxy) headerView;
+				item.className = TableViewProxy.CLASSNAME_HEADERVIEW;
+				block.items.add(item);
+			} else {
+				Log.e(TAG, "HeaderView must be of type TiViewProxy");
+			}
+		}
+
+		block.firstRow = block.items.size();
+		for (TableViewRowProxy row : section.getRows()) {
+			block.items.add(itemForRow(row));
+		}
+		block.rowCount = block.items.size() - block.firstRow;
+
+		String footerTitle = TiConvert.toString(section.getProperty(TiC.PROPERTY_FOOTER_TITLE));
+		if (footerTitle != null) {
+			block.items.add(itemForHeader(section, null, footerTitle));
+		}
+		if (section.hasProperty(TiC.PROPERTY_FOOTER_VIEW)) {
+			Object footerView = section.getProperty(TiC.PROPERTY_FOOTER_VIEW);
+			if (footerView instanceof TiViewProxy) {
+				Item item = new Item(0);
+				item.proxy = (TiViewProxy) footerView;
+				item.className = TableViewProxy.CLASSNAME_HEADERVIEW;
+				block.items.add(item);
+			} else {
+				Log.e(TAG, "FooterView must be of type TiViewProxy");
+			}
+		}
+		return block;
+	}
+
+	private void ensureModel()
+	{
+		if (!dirty || proxy == null) {
+			return;
+		}
+		sectionItems = new ArrayList<SectionItems>();
+		ArrayList<TableViewSectionProxy> sections = proxy.getSectionsArray();
+		if (sections != null) {
+			for (TableViewSectionProxy section : sections) {
+				sectionItems.add(itemsForSection(section));
+			}
+		}
+		rebuildOffsets();
+		dirty = false;
+	}
+
+	private void rebuildOffsets()
+	{
+		int count = sectionItems.size();
+		int[] itemCounts = new int[count];
+		int[] rowCounts = new int[count];
+		for (int i = 0; i < count; i++) {
+			SectionItems block = sectionItems.get(i);
+			itemCounts[i] = block.items.size();
+			rowCounts[i] = block.rowCount;
+		}
+		itemOffsets.build(itemCounts, count);
+		rowOffsets.build(rowCounts, count);
+		viewModel = null;
+	}
+
 	public int getRowCount() {
-		if (viewModel == null) {
+		if (sectionItems == null) {
 			return 0;
 		}
-		return viewModel.size();
+		ensureModel();
+		return itemOffsets.total();
 	}
 
 	public TableViewSectionProxy getSection(int index)
@@ -98,90 +263,86 @@ public class TableViewModel
 		return proxy.getSectionsArray().get(index);
 	}
 
+	/**
+	 * Returns the item at the given position, including section headers and footers,
+	 * with its row and section indexes brought up to date.
+	 */
+	public Item getItem(int position)
+	{
+		if (sectionItems == null) {
+			return null;
+		}
+		ensureModel();
+		if (position < 0 || position >= itemOffsets.total()) {
+			return null;
+		}
+		int sectionIndex = itemOffsets.sectionAt(position);
+		SectionItems block = sectionItems.get(sectionIndex);
+		int indexInBlock = position - itemOffsets.offsetOf(sectionIndex);
+		Item item = block.items.get(indexInBlock);
+
+		int firstRowIndex = rowOffsets.offsetOf(sectionIndex);
+		item.sectionIndex = sectionIndex;
+		if (indexInBlock < block.firstRow) {
+			item.index = firstRowIndex;
+		} else if (indexInBlock < block.firstRow + block.rowCount) {
+			item.indexInSection = indexInBlock - block.firstRow;
+			item.index = firstRowIndex + item.indexInSection;
+		} else {
+			item.index = firstRowIndex + block.rowCount;
+		}
+		return item;
+	}
+
 	public ArrayList<Item> getViewModel()
 	{
-		if (dirty) {
-			viewModel = new ArrayList<Item>();
-			int sectionIndex = 0;
-			int indexInSection = 0;
-			int index = 0;
-			ArrayList<TableViewSectionProxy> sections = proxy.getSectionsArray();
-			if (sections != null) {
-				for (TableViewSectionProxy section : sections) {
-					String headerTitle = TiConvert.toString(section.getProperty(TiC.PROPERTY_HEADER_TITLE));
-					if (headerTitle != null) {
-						viewModel.add(itemForHeader(index, section, headerTitle, null));
-					}
-					if (section.hasProperty(TiC.PROPERTY_HEADER_VIEW)) {
-						Object headerView = section.getProperty(TiC.PROPERTY_HEADER_VIEW);
-						if (headerView instanceof TiViewProxy) {
-							Item item = new Item(index);
-							item.proxy = (TiViewProxy) headerView;
-							item.className = TableViewProxy.CLASSNAME_HEADERVIEW;
-							viewModel.add(item);
-						} else {
-							Log.e(TAG, "HeaderView must be of type TiViewProxy");
-						}
-					}
-					for (TableViewRowProxy row : section.getRows()) {
-						Item item = new Item(index);
-						item.sectionIndex = sectionIndex;
-						item.indexInSection = indexInSection;
-						item.proxy = row;
-						item.rowData = row.getProperties().get(TiC.PROPERTY_ROW_DATA);
-						item.className = classNameForRow(row);
-
-						viewModel.add(item);
-						index++;
-						indexInSection++;
-					}
-
-					String footerTitle = TiConvert.toString(section.getProperty(TiC.PROPERTY_FOOTER_TITLE));
-					if (footerTitle != null) {
-						viewModel.add(itemForHeader(index, section, null, footerTitle));
-					}
-
-					if (section.hasProperty(TiC.PROPERTY_FOOTER_VIEW)) {
-						Object footerView = section.getProperty(TiC.PROPERTY_FOOTER_VIEW);
-						if (footerView instanceof TiViewProxy) {
-							Item item = new Item(index);
-							item.proxy = (TiViewProxy) footerView;
-							item.className = TableViewProxy.CLASSNAME_HEADERVIEW;
-							viewModel.add(item);
-						} else {
-							Log.e(TAG, "FooterView must be of type TiViewProxy");
-						}
-					}
-
-					sectionIndex++;
-					indexInSection = 0;
-				}
-				dirty = false;
+		if (sectionItems == null) {
+			return new ArrayList<Item>();
+		}
+		ensureModel();
+		if (viewModel == null) {
+			int count = itemOffsets.total();
+			viewModel = new ArrayList<Item>(count);
+			for (int i = 0; i < count; i++) {
+				viewModel.add(getItem(i));
 			}
 		}
 		return viewModel;
 	}
 
+	/**
+	 * Returns the first position whose item has the given row index. As before the incremental model,
+	 * section headers and footers carry the index of the row that follows them, so this is the position
+	 * of the first header or footer in front of that row, if there is one.
+	 * @return the position, or -1 if no item has the index.
+	 */
 	public int getViewIndex(int index) {
-		int position = -1;
+		if (sectionItems == null) {
+			return -1;
+		}
+		ensureModel();
 		// the View index can be larger than model index if there are headers.
-		if (viewModel != null && index <= viewModel.size()) {
-			for(int i = 0; i < viewModel.size(); i++) {
-				Item item = viewModel.get(i);
-				if (index == item.index) {
-					position = i;
-					break;
-				}
+		// Item indexes never decrease with the position, so the first match is found by binary search.
+		int low = 0;
+		int high = itemOffsets.total() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (getItem(middle).index < index) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
 			}
 		}
-
-		return position;
+		if (low < itemOffsets.total() && getItem(low).index == index) {
+			return low;
+		}
+		return -1;
 	}
 
 	public int getRowHeight(int position, int defaultHeight) {
 		int rowHeight = defaultHeight;
 
-		Item item = viewModel.get(position);
+		Item item = getItem(position);
 		Object rh = item.proxy.getProperty(TiC.PROPERTY_ROW_HEIGHT);
 		if (rh != null) {
 			rowHeight = TiConvert.toInt(rh);
@@ -192,5 +353,169 @@ public class TableViewModel
 
 	public void setDirty() {
 		dirty = true;
+		viewModel = null;
+		structureChanged = true;
+		version++;
+	}
+
+	/**
+	 * @return a number that changes whenever items are added, removed or updated.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Updates the model after rows were inserted into a section of the table.
+	 */
+	public void rowsInserted(int sectionIndex, int rowIndex, int count) {
+		SectionItems block = blockFor(sectionIndex, rowIndex, count);
+		if (block == null) {
+			return;
+		}
+		TableViewSectionProxy section = getSection(sectionIndex);
+		ArrayList<Item> rows = new ArrayList<Item>(count);
+		for (int i = 0; i < count; i++) {
+			rows.add(itemForRow(section.rowAtIndex(rowIndex + i)));
+		}
+		block.items.addAll(block.firstRow + rowIndex, rows);
+		block.rowCount += count;
+		itemOffsets.add(sectionIndex, count);
+		rowOffsets.add(sectionIndex, count);
+		viewModel = null;
+		markChanged(itemOffsets.offsetOf(sectionIndex) + block.firstRow + rowIndex, Integer.MAX_VALUE, true);
+	}
+
+	/**
+	 * Updates the model after a row was removed from a section of the table.
+	 */
+	public void rowRemoved(int sectionIndex, int rowIndex) {
+		SectionItems block = blockFor(sectionIndex, rowIndex, -1);
+		if (block == null) {
+			return;
+		}
+		block.items.remove(block.firstRow + rowIndex);
+		block.rowCount--;
+		itemOffsets.add(sectionIndex, -1);
+		rowOffsets.add(sectionIndex, -1);
+		viewModel = null;
+		markChanged(itemOffsets.offsetOf(sectionIndex) + block.firstRow + rowIndex, Integer.MAX_VALUE, true);
+	}
+
+	/**
+	 * Updates the model after a row of the table was replaced or its data changed.
+	 */
+	public void rowUpdated(int sectionIndex, int rowIndex) {
+		SectionItems block = blockFor(sectionIndex, rowIndex, 0);
+		if (block == null) {
+			return;
+		}
+		int indexInBlock = block.firstRow + rowIndex;
+		block.items.set(indexInBlock, itemForRow(getSection(sectionIndex).rowAtIndex(rowIndex)));
+		viewModel = null;
+		int position = itemOffsets.offsetOf(sectionIndex) + indexInBlock;
+		markChanged(position, position, false);
+	}
+
+	/**
+	 * Updates the model after a section was inserted into the table.
+	 */
+	public void sectionInserted(int sectionIndex) {
+		if (dirty || sectionIndex < 0 || sectionIndex > sectionItems.size()
+			|| proxy.getSectionsArray().size() != sectionItems.size() + 1) {
+			setDirty();
+			return;
+		}
+		sectionItems.add(sectionIndex, itemsForSection(getSection(sectionIndex)));
+		rebuildOffsets();
+		markChanged(itemOffsets.offsetOf(sectionIndex), Integer.MAX_VALUE, true);
+	}
+
+	/**
+	 * Updates the model after a section was removed from the table.
+	 */
+	public void sectionRemoved(int sectionIndex) {
+		if (dirty || sectionIndex < 0 || sectionIndex >= sectionItems.size()
+			|| proxy.getSectionsArray().size() != sectionItems.size() - 1) {
+			setDirty();
+			return;
+		}
+		int position = itemOffsets.offsetOf(sectionIndex);
+		sectionItems.remove(sectionIndex);
+		rebuildOffsets();
+		markChanged(position, Integer.MAX_VALUE, true);
+	}
+
+	/**
+	 * Updates the model after a section was replaced, or its header or footer changed.
+	 */
+	public void sectionUpdated(int sectionIndex) {
+		if (dirty || sectionIndex < 0 || sectionIndex >= sectionItems.size()
+			|| proxy.getSectionsArray().size() != sectionItems.size()) {
+			setDirty();
+			return;
+		}
+		sectionItems.set(sectionIndex, itemsForSection(getSection(sectionIndex)));
+		rebuildOffsets();
+		markChanged(itemOffsets.offsetOf(sectionIndex), Integer.MAX_VALUE, true);
+	}
+
+	// Returns the items of a section whose row count is expected to change by the given delta at
+	// the given row, or null if the model has to be rebuilt anyway.
+	private SectionItems blockFor(int sectionIndex, int rowIndex, int rowDelta) {
+		if (dirty || sectionIndex < 0 || sectionIndex >= sectionItems.size()
+			|| proxy.getSectionsArray().size() != sectionItems.size()) {
+			setDirty();
+			return null;
+		}
+		SectionItems block = sectionItems.get(sectionIndex);
+		int lastRowIndex = (rowDelta > 0) ? block.rowCount : block.rowCount - 1;
+		if (rowIndex < 0 || rowIndex > lastRowIndex
+			|| (int) getSection(sectionIndex).getRowCount() != block.rowCount + rowDelta) {
+			Log.w(TAG, "Table model out of sync with section " + sectionIndex + ", rebuilding", Log.DEBUG_MODE);
+			setDirty();
+			return null;
+		}
+		return block;
+	}
+
+	private void markChanged(int from, int to, boolean structural) {
+		if (changedFrom < 0) {
+			changedFrom = from;
+			changedTo = to;
+		} else {
+			changedFrom = Math.min(changedFrom, from);
+			changedTo = Math.max(changedTo, to);
+		}
+		structureChanged |= structural;
+		version++;
+	}
+
+	/**
+	 * @return true if items were added, removed or moved since the last call to {@link #clearChanges()}.
+	 */
+	public boolean isStructureChanged() {
+		return structureChanged || dirty;
+	}
+
+	/**
+	 * @return the first position changed since the last call to {@link #clearChanges()}, or -1 if none.
+	 */
+	public int getChangedFrom() {
+		return changedFrom;
+	}
+
+	/**
+	 * @return the last position changed since the last call to {@link #clearChanges()}, or
+	 * Integer.MAX_VALUE if everything after {@link #getChangedFrom()} may have changed.
+	 */
+	public int getChangedTo() {
+		return changedTo;
+	}
+
+	public void clearChanges() {
+		changedFrom = -1;
+		changedTo = -1;
+		structureChanged = false;
 	}
 }
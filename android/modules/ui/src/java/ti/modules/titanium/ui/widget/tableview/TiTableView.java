@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -13,10 +13,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.appcelerator.kroll.KrollDict;
 import org.appcelerator.kroll.KrollProxy;
 import org.appcelerator.kroll.common.Log;
+import org.appcelerator.kroll.common.TiMessenger;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.proxy.TiViewProxy;
 import org.appcelerator.titanium.util.TiColorHelper;
 import org.appcelerator.titanium.util.TiConvert;
+import org.appcelerator.titanium.util.TiSearchIndex;
 import org.appcelerator.titanium.view.TiCompositeLayout;
 import org.appcelerator.titanium.view.TiUIView;
 
@@ -67,6 +69,14 @@ public class TiTableView extends FrameLayout
 	private boolean filterAnchored = false;
 	private StateListDrawable selector;
 
+	private TiSearchIndex searchIndex;
+	private int searchIndexVersion;
+	private String searchIndexAttribute;
+	// Set from any thread when the filter attribute of a row changes without changing the model version.
+	private volatile boolean searchIndexStale;
+	// Incremented for every search, so that the results of an outdated search are dropped.
+	private int filterGeneration = 0;
+
 	public interface OnItemClickedListener {
 		public void onClick(KrollDict item);
 	}
@@ -82,7 +92,7 @@ public class TiTableView extends FrameLayout
 
 		TTVListAdapter(TableViewModel viewModel) {
 			this.viewModel = viewModel;
-			this.index = new ArrayList<Integer>(viewModel.getRowCount());
+			this.index = new ArrayList<Integer>();
 			reIndexItems();
 		}
 
@@ -94,64 +104,49 @@ public class TiTableView extends FrameLayout
 		}
 
 		public void reIndexItems() {
-			ArrayList<Item> items = viewModel.getViewModel();
-			int count = items.size();
 			index.clear();
 
+			// Without a filter, positions map straight onto the model and nothing needs to be indexed.
 			filtered = false;
-			if (filterAttribute != null && filterText != null && filterAttribute.length() > 0 && filterText.length() > 0) {
+			if (isFiltering()) {
 				filtered = true;
-				String filter = filterText;
-				if (filterCaseInsensitive) {
-					filter = filterText.toLowerCase();
-				}
-				for(int i = 0; i < count; i++) {
-					boolean keep = true;
-					Item item = items.get(i);
-					registerClassName(item.className);
-					if (item.proxy.hasProperty(filterAttribute)) {
-						String t = TiConvert.toString(item.proxy.getProperty(filterAttribute));
-						if (filterCaseInsensitive) {
-							t = t.toLowerCase();
-						}
-						if (filterAnchored) {
-						    if(!t.startsWith(filter)) {
-							keep = false;
-							}
-						}
-						else {
-						    if(t.indexOf(filter) < 0) {
-							keep = false;
-							}
-						}
-					}
-					if (keep) {
-						index.add(i);
-					}
-				}
-			} else {
-				for(int i = 0; i < count; i++) {
-					Item item = items.get(i);
-					registerClassName(item.className);
-					index.add(i);
-				}
+				index.addAll(getSearchIndex().search(filterText, filterCaseInsensitive, filterAnchored).positions);
+			}
+			if (getCount() == 0) {
+				proxy.fireEvent(TiC.EVENT_NO_RESULTS, null);
+			}
+		}
+
+		// Applies the result of a search that ran in the background, unless the rows changed meanwhile.
+		public void applyFilterResult(TiSearchIndex searched, TiSearchIndex.Result result) {
+			if (searched != searchIndex || result.version != searched.getVersion() || searchIndexVersion != viewModel.getVersion()) {
+				notifyDataSetChanged();
+				return;
 			}
+			index.clear();
+			index.addAll(result.positions);
+			filtered = true;
 			if (index.size() == 0) {
 				proxy.fireEvent(TiC.EVENT_NO_RESULTS, null);
 			}
+			super.notifyDataSetChanged();
 		}
 
 		public int getCount() {
-			//return viewModel.getViewModel().length();
-			return index.size();
+			if (filtered) {
+				return index.size();
+			}
+			return viewModel.getRowCount();
 		}
 
 		public Object getItem(int position) {
-			if (position >= index.size()) {
-				return null;
+			if (filtered) {
+				if (position >= index.size()) {
+					return null;
+				}
+				return viewModel.getItem(index.get(position));
 			}
-
-			return viewModel.getViewModel().get(index.get(position));
+			return viewModel.getItem(position);
 		}
 
 		public long getItemId(int position) {
@@ -463,7 +458,7 @@ public class TiTableView extends FrameLayout
 		if (position == -1 || position == adapter.getCount()) {
 			return null;
 		}
-		return viewModel.getViewModel().get(adapter.index.get(position));
+		return (Item) adapter.getItem(position);
 	}
 
 	public int getIndexFromXY(double x, double y) {
@@ -539,11 +534,36 @@ public class TiTableView extends FrameLayout
 	}
 
 	public void dataSetChanged() {
-		if (adapter != null) {
+		if (adapter == null) {
+			return;
+		}
+		// Rows that were only updated in place are rebound directly when visible, instead of
+		// re-indexing and rebinding the whole list.
+		int from = viewModel.getChangedFrom();
+		int to = viewModel.getChangedTo();
+		boolean rebindAll = from < 0 || viewModel.isStructureChanged() || adapter.isFiltered();
+		viewModel.clearChanges();
+		if (rebindAll || !rebindRange(from, to)) {
 			adapter.notifyDataSetChanged();
 		}
 	}
 
+	// Rebinds the visible rows in the given range of positions, returning false if that
+	// was not possible with the existing row views.
+	private boolean rebindRange(int from, int to)
+	{
+		int headerCount = listView.getHeaderViewsCount();
+		int first = Math.max(from, listView.getFirstVisiblePosition() - headerCount);
+		int last = Math.min(to, listView.getLastVisiblePosition() - headerCount);
+		for (int position = first; position <= last; position++) {
+			View child = listView.getChildAt(position + headerCount - listView.getFirstVisiblePosition());
+			if (child == null || adapter.getView(position, child, listView) != child) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public void setOnItemClickListener(OnItemClickedListener listener) {
 		this.itemClickListener = listener;
 	}
@@ -575,13 +595,73 @@ public class TiTableView extends FrameLayout
 		return listView;
 	}
 
+	private boolean isFiltering() {
+		return filterAttribute != null && filterText != null && filterAttribute.length() > 0 && filterText.length() > 0;
+	}
+
+	// Returns the search index over the filter attribute of every item, rebuilding it if the rows
+	// or the filter attribute changed since it was built. Must be called on the UI thread.
+	private TiSearchIndex getSearchIndex() {
+		if (searchIndex == null || searchIndexStale || searchIndexVersion != viewModel.getVersion()
+			|| !filterAttribute.equals(searchIndexAttribute)) {
+			searchIndexStale = false;
+			ArrayList<Item> items = viewModel.getViewModel();
+			ArrayList<String> texts = new ArrayList<String>(items.size());
+			for (Item item : items) {
+				// Items without the attribute, such as headers, are always kept.
+				String text = null;
+				if (item.proxy.hasProperty(filterAttribute)) {
+					text = TiConvert.toString(item.proxy.getProperty(filterAttribute));
+				}
+				texts.add(text);
+			}
+			searchIndex = new TiSearchIndex();
+			searchIndex.addAll(0, texts);
+			searchIndexVersion = viewModel.getVersion();
+			searchIndexAttribute = filterAttribute;
+		}
+		return searchIndex;
+	}
+
+	/**
+	 * Marks the search index as outdated, so that it is rebuilt on the next search. Called when the
+	 * filter attribute of a row changes, which does not change the model version.
+	 */
+	public void invalidateSearchIndex() {
+		searchIndexStale = true;
+	}
+
 	@Override
 	public void filterBy(String text) {
 		filterText = text;
 		if (adapter != null) {
+			final int generation = ++filterGeneration;
 			proxy.getActivity().runOnUiThread(new Runnable() {
 				public void run() {
-					dataSetChanged();
+					if (adapter == null || generation != filterGeneration) {
+						return;
+					}
+					if (!isFiltering()) {
+						dataSetChanged();
+						return;
+					}
+					// Search on the search worker and apply the result in one batch.
+					final TiSearchIndex searched = getSearchIndex();
+					final String query = filterText;
+					final boolean caseInsensitive = filterCaseInsensitive;
+					final boolean anchored = filterAnchored;
+					TiSearchIndex.getSearchExecutor().execute(new Runnable() {
+						public void run() {
+							final TiSearchIndex.Result result = searched.search(query, caseInsensitive, anchored);
+							TiMessenger.postOnMain(new Runnable() {
+								public void run() {
+									if (adapter != null && generation == filterGeneration) {
+										adapter.applyFilterResult(searched, result);
+									}
+								}
+							});
+						}
+					});
 				}
 			});
 		}
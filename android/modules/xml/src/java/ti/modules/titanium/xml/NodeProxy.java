@@ -1,11 +1,13 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package ti.modules.titanium.xml;
 
+import java.lang.ref.WeakReference;
+
 import org.appcelerator.kroll.KrollProxy;
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.kroll.common.Log;
@@ -43,6 +45,7 @@ public class NodeProxy extends KrollProxy
 	@Kroll.constant public static final int TEXT_NODE = Node.TEXT_NODE;
 
 	private static final String TAG = "TiNodeProxy";
+	private static final String PROXY_KEY = "ti.proxy";
 
 	protected Node node;
 
@@ -63,7 +66,11 @@ public class NodeProxy extends KrollProxy
 			return null;
 		}
 
-		NodeProxy proxy;
+		NodeProxy proxy = getCachedProxy(node);
+		if (proxy != null) {
+			return proxy;
+		}
+
 		switch (node.getNodeType()) {
 			case Node.ATTRIBUTE_NODE:
 				proxy = new AttrProxy((Attr)node);
@@ -106,14 +113,38 @@ public class NodeProxy extends KrollProxy
 				break;
 		}
 
+		cacheProxy(node, proxy);
 		return proxy;
 	}
 
+	// The proxy of a node is kept weakly in the user data of the node, so walking the same nodes
+	// again returns the same proxies, and the cache is released along with its document.
+	private static NodeProxy getCachedProxy(Node node)
+	{
+		try {
+			Object data = node.getUserData(PROXY_KEY);
+			if (data instanceof WeakReference) {
+				return (NodeProxy) ((WeakReference<?>) data).get();
+			}
+		} catch (DOMException e) {
+			// Nodes that do not support user data are not cached
+		}
+		return null;
+	}
+
+	private static void cacheProxy(Node node, NodeProxy proxy)
+	{
+		try {
+			node.setUserData(PROXY_KEY, new WeakReference<NodeProxy>(proxy), null);
+		} catch (DOMException e) {
+			// Nodes that do not support user data are not cached
+		}
+	}
+
 	public static NodeProxy removeProxyForNode(Node node)
 	{
-		// if we're here then a proxy was never generated for this node
-		// just return a temporary wrapper in this case
-		return new NodeProxy(node);
+		// removing a node from its parent keeps its proxy
+		return getNodeProxy(node);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -8,7 +8,13 @@ package ti.modules.titanium.xml;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -20,10 +26,20 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollFunction;
 import org.appcelerator.kroll.KrollModule;
 import org.appcelerator.kroll.annotations.Kroll;
 import org.appcelerator.kroll.common.Log;
+import org.appcelerator.titanium.TiBlob;
+import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.TiFileProxy;
+import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import android.util.Xml;
 
 @Kroll.module
 public class XMLModule extends KrollModule {
@@ -31,6 +47,16 @@ public class XMLModule extends KrollModule {
 	private static DocumentBuilder builder;
 	private static final String TAG = "XMLModule";
 	private static TransformerFactory transformerFactory;
+	private static ExecutorService streamExecutor;
+
+	private static final String PROPERTY_ELEMENT = "element";
+	private static final String PROPERTY_BATCH_SIZE = "batchSize";
+	private static final String PROPERTY_BATCH = "batch";
+	private static final String PROPERTY_COMPLETE = "complete";
+	private static final String PROPERTY_ELEMENTS = "elements";
+	private static final String PROPERTY_COUNT = "count";
+
+	private static final int DEFAULT_BATCH_SIZE = 50;
 
 	static {
 		try {
@@ -67,7 +93,8 @@ public class XMLModule extends KrollModule {
 	{
 		if (builder != null) {
 			try {
-				return new DocumentProxy(builder.parse(new ByteArrayInputStream(xml.getBytes(encoding))));
+				Document doc = builder.parse(new ByteArrayInputStream(xml.getBytes(encoding)));
+				return (DocumentProxy) NodeProxy.getNodeProxy(doc);
 			} catch (SAXException e) {
 				Log.e(TAG, "Error parsing XML", e);
 				throw e;
@@ -79,6 +106,158 @@ public class XMLModule extends KrollModule {
 		return null;
 	}
 
+	/**
+	 * Parses XML in the background with a pull parser, without building a document. The matching
+	 * elements are passed to the batch callback as dictionaries, a batch at a time. The parser waits
+	 * for each batch to be handled before it reads on, so large feeds are never held in memory.
+	 */
+	@Kroll.method
+	public void parseStream(Object source, KrollDict options)
+	{
+		final Object input;
+		try {
+			input = openSource(source);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Unable to read XML source: " + e.getMessage());
+		}
+
+		final String element = options.optString(PROPERTY_ELEMENT, null);
+		final int batchSize = Math.max(1, options.optInt(PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+		Object batch = options.get(PROPERTY_BATCH);
+		Object complete = options.get(PROPERTY_COMPLETE);
+		if (!(batch instanceof KrollFunction)) {
+			throw new IllegalArgumentException("parseStream requires a batch callback");
+		}
+		final KrollFunction batchCallback = (KrollFunction) batch;
+		final KrollFunction completeCallback = (complete instanceof KrollFunction) ? (KrollFunction) complete : null;
+
+		getStreamExecutor().execute(new Runnable() {
+			public void run()
+			{
+				KrollDict result = new KrollDict();
+				int count = 0;
+				try {
+					XmlPullParser parser = Xml.newPullParser();
+					if (input instanceof Reader) {
+						parser.setInput((Reader) input);
+					} else {
+						parser.setInput((InputStream) input, null);
+					}
+
+					ArrayList<KrollDict> elements = new ArrayList<KrollDict>(batchSize);
+					int event = parser.getEventType();
+					while (event != XmlPullParser.END_DOCUMENT) {
+						if (event == XmlPullParser.START_TAG
+							&& (element == null ? parser.getDepth() == 2 : element.equals(parser.getName()))) {
+							elements.add(readElement(parser));
+							count++;
+							if (elements.size() == batchSize) {
+								emitBatch(batchCallback, elements, count);
+								elements.clear();
+							}
+						}
+						event = parser.next();
+					}
+					if (!elements.isEmpty()) {
+						emitBatch(batchCallback, elements, count);
+					}
+					result.putCodeAndMessage(TiC.ERROR_CODE_NO_ERROR, null);
+				} catch (XmlPullParserException e) {
+					Log.e(TAG, "Error parsing XML", e);
+					result.putCodeAndMessage(TiC.ERROR_CODE_UNKNOWN, e.getMessage());
+				} catch (IOException e) {
+					Log.e(TAG, "Error reading XML", e);
+					result.putCodeAndMessage(TiC.ERROR_CODE_UNKNOWN, e.getMessage());
+				} catch (RuntimeException e) {
+					// Also raised by a failing batch callback, which would otherwise end the worker silently
+					Log.e(TAG, "Error streaming XML", e);
+					result.putCodeAndMessage(TiC.ERROR_CODE_UNKNOWN, e.toString());
+				} finally {
+					try {
+						if (input instanceof Reader) {
+							((Reader) input).close();
+						} else {
+							((InputStream) input).close();
+						}
+					} catch (IOException e) {
+						// Ignore
+					}
+				}
+
+				result.put(PROPERTY_COUNT, count);
+				if (completeCallback != null) {
+					completeCallback.callAsync(getKrollObject(), result);
+				}
+			}
+		});
+	}
+
+	private static Object openSource(Object source) throws IOException
+	{
+		InputStream in = null;
+		if (source instanceof String) {
+			return new StringReader((String) source);
+		} else if (source instanceof TiBlob) {
+			in = ((TiBlob) source).getInputStream();
+		} else if (source instanceof TiFileProxy) {
+			in = ((TiFileProxy) source).getInputStream();
+		} else {
+			throw new IllegalArgumentException("XML source must be a String, Blob or File");
+		}
+		if (in == null) {
+			throw new IOException("No data");
+		}
+		return in;
+	}
+
+	// Blocks until the batch is handled on the JS thread.
+	private void emitBatch(KrollFunction callback, ArrayList<KrollDict> elements, int count)
+	{
+		KrollDict data = new KrollDict();
+		data.put(PROPERTY_ELEMENTS, elements.toArray());
+		data.put(PROPERTY_COUNT, count);
+		callback.call(getKrollObject(), data);
+	}
+
+	// Reads the element at the current start tag, up to its end tag, as its name, attributes,
+	// text and child elements.
+	private static KrollDict readElement(XmlPullParser parser) throws XmlPullParserException, IOException
+	{
+		KrollDict element = new KrollDict();
+		element.put(TiC.PROPERTY_NAME, parser.getName());
+
+		KrollDict attributes = new KrollDict();
+		for (int i = 0; i < parser.getAttributeCount(); i++) {
+			attributes.put(parser.getAttributeName(i), parser.getAttributeValue(i));
+		}
+		element.put("attributes", attributes);
+
+		StringBuilder text = new StringBuilder();
+		ArrayList<KrollDict> children = new ArrayList<KrollDict>();
+		int depth = parser.getDepth();
+		int event = parser.next();
+		while (event != XmlPullParser.END_DOCUMENT
+			&& !(event == XmlPullParser.END_TAG && parser.getDepth() == depth)) {
+			if (event == XmlPullParser.START_TAG) {
+				children.add(readElement(parser));
+			} else if (event == XmlPullParser.TEXT) {
+				text.append(parser.getText());
+			}
+			event = parser.next();
+		}
+		element.put("text", text.toString().trim());
+		element.put("children", children.toArray());
+		return element;
+	}
+
+	private static synchronized ExecutorService getStreamExecutor()
+	{
+		if (streamExecutor == null) {
+			streamExecutor = Executors.newSingleThreadExecutor();
+		}
+		return streamExecutor;
+	}
+
 	@Kroll.method
 	public String serializeToString(NodeProxy node) throws TransformerConfigurationException, TransformerException
 	{
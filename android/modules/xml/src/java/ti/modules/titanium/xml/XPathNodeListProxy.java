@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2012-2016 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2012-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -17,6 +17,9 @@ public class XPathNodeListProxy extends KrollProxy
 {
 	private List nodeList;
 
+	// Proxies are only created for the items that are accessed.
+	private NodeProxy[] proxies;
+
 	public XPathNodeListProxy(List nodeList)
 	{
 		super();
@@ -30,7 +33,21 @@ public class XPathNodeListProxy extends KrollProxy
 
 	@Kroll.method
 	public NodeProxy item(int index) {
-		Node node = (Node)nodeList.get(index);
-		return NodeProxy.getNodeProxy(node);
+		if (index < 0 || index >= nodeList.size()) {
+			return null;
+		}
+		if (proxies == null) {
+			proxies = new NodeProxy[nodeList.size()];
+		}
+		NodeProxy proxy = proxies[index];
+		if (proxy == null) {
+			Object item = nodeList.get(index);
+			if (!(item instanceof Node)) {
+				return null;
+			}
+			proxy = NodeProxy.getNodeProxy((Node) item);
+			proxies[index] = proxy;
+		}
+		return proxy;
 	}
 }
@@ -1,13 +1,15 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2012 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package ti.modules.titanium.xml;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.appcelerator.kroll.common.Log;
 import org.jaxen.JaxenException;
@@ -17,18 +19,49 @@ import org.jaxen.dom.DOMXPath;
 public class XPathUtil {
 
 	private static final String TAG = "XPath";
-	
+
+	// Feeds tend to evaluate the same few expressions over and over, so the most recently used
+	// compiled expressions are kept.
+	private static final int MAX_EXPRESSIONS = 32;
+
+	private static final LinkedHashMap<String, XPath> expressions = new LinkedHashMap<String, XPath>(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, XPath> eldest)
+		{
+			return size() > MAX_EXPRESSIONS;
+		}
+	};
+
 	public static XPathNodeListProxy evaluate(NodeProxy start, String xpathExpr)
 	{
 		try {
-			XPath xpath = new DOMXPath(xpathExpr);
-			List nodes= xpath.selectNodes(start.getNode());
-			
+			XPath xpath = getExpression(xpathExpr);
+			List nodes;
+			// Compiled expressions are shared, so evaluations are serialized.
+			synchronized (xpath) {
+				nodes = xpath.selectNodes(start.getNode());
+			}
+
 			return new XPathNodeListProxy(nodes);
 		} catch (JaxenException e) {
 			Log.e(TAG, "Exception selecting nodes in XPath ("+xpathExpr+")", e);
 		}
-		
+
 		return new XPathNodeListProxy(new ArrayList());
 	}
+
+	private static XPath getExpression(String xpathExpr) throws JaxenException
+	{
+		synchronized (expressions) {
+			XPath xpath = expressions.get(xpathExpr);
+			if (xpath == null) {
+				xpath = new DOMXPath(xpathExpr);
+				expressions.put(xpathExpr, xpath);
+			}
+			return xpath;
+		}
+	}
 }
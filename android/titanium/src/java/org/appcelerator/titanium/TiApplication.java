@@ -35,6 +35,7 @@ import org.appcelerator.kroll.util.KrollAssetHelper;
 import org.appcelerator.kroll.util.TiTempFileHelper;
 import org.appcelerator.titanium.analytics.TiAnalyticsEventFactory;
 import org.appcelerator.titanium.util.TiBlobLruCache;
+import org.appcelerator.titanium.util.TiDrawableCache;
 import org.appcelerator.titanium.util.TiFileHelper;
 import org.appcelerator.titanium.util.TiImageLruCache;
 import org.appcelerator.titanium.util.TiPlatformHelper;
@@ -73,6 +74,9 @@ public abstract class TiApplication extends Application implements KrollApplicat
 	private static final String PROPERTY_ENABLE_COVERAGE = "ti.android.enablecoverage";
 	private static final String PROPERTY_DEFAULT_UNIT = "ti.ui.defaultunit";
 	private static final String PROPERTY_USE_LEGACY_WINDOW = "ti.android.useLegacyWindow";
+	private static final String PROPERTY_PROPERTIES_STORAGE = "ti.android.properties.storage";
+	private static final String PROPERTIES_STORAGE_BINARY = "binary";
+	private static final String PROPERTIES_LOG_NAME = "titanium.properties.bin";
 	private static long mainThreadId = 0;
 
 	protected static WeakReference<TiApplication> tiApp = null;
@@ -351,6 +355,9 @@ public abstract class TiApplication extends Application implements KrollApplicat
 				Log.e(TAG, "Unable to load app properties.");
 			}
 		}
+		if (PROPERTIES_STORAGE_BINARY.equals(appProperties.getString(PROPERTY_PROPERTIES_STORAGE, null))) {
+			appProperties.useLog(new File(getFilesDir(), PROPERTIES_LOG_NAME));
+		}
 	}
 
 	@Override
@@ -403,6 +410,7 @@ public abstract class TiApplication extends Application implements KrollApplicat
 		// Release all the cached images
 		TiBlobLruCache.getInstance().evictAll();
 		TiImageLruCache.getInstance().evictAll();
+		TiDrawableCache.getInstance().evictAll();
 		super.onLowMemory();
 	}
 
@@ -415,6 +423,9 @@ public abstract class TiApplication extends Application implements KrollApplicat
 			TiBlobLruCache.getInstance().evictAll();
 			TiImageLruCache.getInstance().evictAll();
 		}
+		if (Build.VERSION.SDK_INT >= TiC.API_LEVEL_HONEYCOMB) {
+			TiDrawableCache.getInstance().trim(level);
+		}
 		super.onTrimMemory(level);
 	}
 
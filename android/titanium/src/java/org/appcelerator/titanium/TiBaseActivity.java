@@ -36,6 +36,7 @@ import org.appcelerator.titanium.proxy.TiWindowProxy;
 import org.appcelerator.titanium.util.TiActivityResultHandler;
 import org.appcelerator.titanium.util.TiActivitySupport;
 import org.appcelerator.titanium.util.TiActivitySupportHelper;
+import org.appcelerator.titanium.util.TiBitmapRegistry;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiMenuSupport;
 import org.appcelerator.titanium.util.TiPlatformHelper;
@@ -43,6 +44,7 @@ import org.appcelerator.titanium.util.TiUIHelper;
 import org.appcelerator.titanium.util.TiWeakList;
 import org.appcelerator.titanium.view.TiCompositeLayout;
 import org.appcelerator.titanium.view.TiCompositeLayout.LayoutArrangement;
+import org.appcelerator.titanium.view.TiLayoutStats;
 
 import android.app.Activity;
 import android.support.v7.app.AppCompatActivity;
@@ -145,6 +147,7 @@ public abstract class TiBaseActivity extends AppCompatActivity
 	public boolean isResumed = false;
 
 	private boolean overridenLayout;
+	private final TiLayoutStats layoutStats = new TiLayoutStats();
 
 	public class DialogWrapper {
 		boolean isPersistent;
@@ -335,6 +338,14 @@ public abstract class TiBaseActivity extends AppCompatActivity
 		this.activityProxy = proxy;
 	}
 
+	/**
+	 * @return the layout work counters of this window.
+	 */
+	public TiLayoutStats getLayoutStats()
+	{
+		return layoutStats;
+	}
+
 	/**
 	 * @return the activity's current layout.
 	 */
@@ -1240,6 +1251,9 @@ public abstract class TiBaseActivity extends AppCompatActivity
 		tiApp.setCurrentActivity(this, null);
 		TiUIHelper.showSoftKeyboard(getWindow().getDecorView(), false);
 
+		// Write the coalesced property changes before the app may be killed.
+		tiApp.getAppProperties().flush();
+
 		if (this.isFinishing()) {
 			releaseDialogs(true);
 		} else {
@@ -1577,6 +1591,9 @@ public abstract class TiBaseActivity extends AppCompatActivity
 		// so we can recover the activity later.
 		KrollRuntime.decrementActivityRefCount(isFinishing);
 		KrollRuntime.suggestGC();
+		if (isFinishing) {
+			TiBitmapRegistry.getInstance().onActivityDestroyed(this);
+		}
 	}
 
 	@Override
@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -22,8 +22,10 @@ import org.appcelerator.kroll.common.Log;
 import org.appcelerator.kroll.util.KrollStreamHelper;
 import org.appcelerator.titanium.io.TiBaseFile;
 import org.appcelerator.titanium.io.TitaniumBlob;
+import org.appcelerator.titanium.util.TiBitmapRegistry;
 import org.appcelerator.titanium.util.TiBlobLruCache;
 import org.appcelerator.titanium.util.TiImageHelper;
+import org.appcelerator.titanium.util.TiImageTransform;
 import org.appcelerator.titanium.util.TiMimeTypeHelper;
 
 import android.graphics.Bitmap;
@@ -149,25 +151,29 @@ public class TiBlob extends KrollProxy
 	 */
 	public static TiBlob blobFromImage(Bitmap image)
 	{
-	
+		return blobFromImage(image, image.hasAlpha() ? CompressFormat.PNG : CompressFormat.JPEG, 100);
+	}
+
+	/**
+	 * Creates a blob from a bitmap, encoded with the given format and quality.
+	 * @param image the image used to create blob.
+	 * @param format the format used to encode the image.
+	 * @param quality the compression quality, from 0 to 100.
+	 * @return new instance of TiBlob.
+	 */
+	public static TiBlob blobFromImage(Bitmap image, CompressFormat format, int quality)
+	{
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		String mimeType = "image/bitmap";
 		byte data[] = new byte[0];
-		if (image.hasAlpha()) {
-			if (image.compress(CompressFormat.PNG, 100, bos)) {
-				data = bos.toByteArray();
-				mimeType = "image/png";
-			}
-		}
-		else {
-			if (image.compress(CompressFormat.JPEG, 100, bos)) {
-				data = bos.toByteArray();
-				mimeType = "image/jpeg";
-			}
+		if (image.compress(format, quality, bos)) {
+			data = bos.toByteArray();
+			mimeType = (format == CompressFormat.PNG) ? "image/png" : "image/jpeg";
 		}
 
 		TiBlob blob = new TiBlob(TYPE_IMAGE, data, mimeType);
 		blob.image = image;
+		TiBitmapRegistry.getInstance().register(image, blob);
 		blob.width = image.getWidth();
 		blob.height = image.getHeight();
 		return blob;
@@ -604,6 +610,7 @@ public class TiBlob extends KrollProxy
 				switch (type) {
 					case TYPE_FILE:
 						bitmap = BitmapFactory.decodeStream(getInputStream(),null,opts);
+						TiBitmapRegistry.getInstance().register(bitmap, this);
 						if (key != null) {
 							mMemoryCache.put(key, bitmap);
 						}
@@ -611,6 +618,7 @@ public class TiBlob extends KrollProxy
 					case TYPE_DATA:
 						byte[] byteArray = (byte[]) data;
 						bitmap = BitmapFactory.decodeByteArray(byteArray, 0, byteArray.length,opts);
+						TiBitmapRegistry.getInstance().register(bitmap, this);
 						if (key != null) {
 							mMemoryCache.put(key, bitmap);
 						}
@@ -668,6 +676,7 @@ public class TiBlob extends KrollProxy
 			matrix.postRotate(rotation);
 			Bitmap imageCropped = Bitmap.createBitmap(img, x, y, widthCropped, heightCropped, matrix, true);
 			if (img != image && img != imageCropped) {
+				TiBitmapRegistry.getInstance().unregister(img);
 				img.recycle();
 				img = null;
 			}
@@ -762,6 +771,7 @@ public class TiBlob extends KrollProxy
 				imageResized = Bitmap.createScaledBitmap(img, dstWidth, dstHeight, true);
 			}
 			if (img != image && img != imageResized) {
+				TiBitmapRegistry.getInstance().unregister(img);
 				img.recycle();
 				img = null;
 			}
@@ -822,6 +832,7 @@ public class TiBlob extends KrollProxy
 		} finally {
 			// [MOD-309] Free up memory to work around issue in Android
 			if (img != null) {
+				TiBitmapRegistry.getInstance().unregister(img);
 				img.recycle();
 				img = null;
 			}
@@ -874,6 +885,7 @@ public class TiBlob extends KrollProxy
 			Bitmap imageFinal = null;
 			Bitmap imageThumbnail = ThumbnailUtils.extractThumbnail(img, thumbnailSize, thumbnailSize);
 			if (img != image && img != imageThumbnail) {
+				TiBitmapRegistry.getInstance().unregister(img);
 				img.recycle();
 				img = null;
 			}
@@ -938,6 +950,7 @@ public class TiBlob extends KrollProxy
 		try {
 			Bitmap imageWithAlpha = TiImageHelper.imageWithAlpha(img);
 			if (img != image && img != imageWithAlpha) {
+				TiBitmapRegistry.getInstance().unregister(img);
 				img.recycle();
 				img = null;
 			}
@@ -997,6 +1010,7 @@ public class TiBlob extends KrollProxy
 		try {
 			Bitmap imageRoundedCorner = TiImageHelper.imageWithRoundedCorner(img, radius, border);
 			if (img != image && img != imageRoundedCorner) {
+				TiBitmapRegistry.getInstance().unregister(img);
 				img.recycle();
 				img = null;
 			}
@@ -1052,6 +1066,7 @@ public class TiBlob extends KrollProxy
 		try {
 			Bitmap imageWithBorder = TiImageHelper.imageWithTransparentBorder(img, borderSize);
 			if (img != image && img != imageWithBorder) {
+				TiBitmapRegistry.getInstance().unregister(img);
 				img.recycle();
 				img = null;
 			}
@@ -1075,6 +1090,21 @@ public class TiBlob extends KrollProxy
 		}
 	}
 
+	/**
+	 * Starts a chain of image operations that are only evaluated when the chain is applied,
+	 * decoding and encoding the image once for the whole chain.
+	 * @return a new image transform proxy, or null if this blob is not an image.
+	 */
+	@Kroll.method
+	public TiImageTransformProxy imageTransform()
+	{
+		TiImageTransform transform = new TiImageTransform(this);
+		if (!transform.isValid()) {
+			return null;
+		}
+		return new TiImageTransformProxy(transform);
+	}
+
 	@Override
 	public String getApiName()
 	{
@@ -607,6 +607,11 @@ public class TiC
 	 */
 	public static final String PROPERTY_ACCURACY = "accuracy";
 
+	/**
+	 * @module.api
+	 */
+	public static final String PROPERTY_ACCELERATED = "accelerated";
+
 	/**
 	 * @module.api
 	 */
@@ -999,6 +1004,11 @@ public class TiC
 	 */
 	public static final String PROPERTY_CACHE_MODE = "cacheMode";
 
+	/**
+	 * @module.api
+	 */
+	public static final String PROPERTY_CACHE_SIZE = "cacheSize";
+
 	/**
 	 * @module.api
 	 */
@@ -1379,6 +1389,11 @@ public class TiC
 	 */
 	public static final String PROPERTY_FLAGS = "flags";
 
+	/**
+	 * @module.api
+	 */
+	public static final String PROPERTY_FLATTEN_CHILDREN = "flattenChildren";
+
 
 	/**
 	 * @module.api
@@ -2191,6 +2206,11 @@ public class TiC
 	 */
 	public static final String PROPERTY_PREVENT_CORNER_OVERLAP = "preventCornerOverlap";
 
+	/**
+	 * @module.api
+	 */
+	public static final String PROPERTY_PROGRESSIVE = "progressive";
+
 	/**
 	 * @module.api
 	 */
@@ -2842,6 +2862,11 @@ public class TiC
 	 */
 	public static final String PROPERTY_VIEWS = "views";
 
+	/**
+	 * @module.api
+	 */
+	public static final String PROPERTY_VIRTUALIZE_CHILDREN = "virtualizeChildren";
+
 	/**
 	 * @module.api
 	 */
@@ -1,11 +1,14 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2012 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package org.appcelerator.titanium;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -72,6 +75,11 @@ public class TiDimension
 	public static Pattern DIMENSION_PATTERN = Pattern.compile("(-?[0-9]*\\.?[0-9]+)\\s*(system|px|dp|dip|sp|sip|mm|cm|pt|in|%)?");
 	protected static DisplayMetrics metrics = null;
 
+	// The value and units parsed from each string, so that dimensions converted ahead of time, for
+	// example by the ListView binding worker, are not parsed again when they are applied.
+	private static final int MAX_PARSED_VALUES = 256;
+	private static final Map<String, double[]> parsedValues = Collections.synchronizedMap(new HashMap<String, double[]>());
+
 	protected double value;
 	protected int units, valueType;
 
@@ -101,42 +109,59 @@ public class TiDimension
 		this.valueType = valueType;
 		this.units = TypedValue.COMPLEX_UNIT_PX;
 		if (svalue != null) {
-			Matcher m = DIMENSION_PATTERN.matcher(svalue.trim());
-			if (m.matches()) {
-				value = Float.parseFloat(m.group(1));
-
-				if (m.groupCount() == 2) {
-					String unit = m.group(2);
-					// if there is no unit, then use the default one
-					if (unit == null) {
-						unit = TiApplication.getInstance().getDefaultUnit();
+			double[] parsed = parsedValues.get(svalue);
+			if (parsed == null) {
+				parse(svalue);
+				synchronized (parsedValues) {
+					if (parsedValues.size() >= MAX_PARSED_VALUES) {
+						parsedValues.clear();
 					}
-					if (UNIT_PX.equals(unit) || UNIT_SYSTEM.equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_PX;
-					} else if (UNIT_PT.equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_PT;
-					} else if (UNIT_DP.equals(unit) || UNIT_DIP.equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_DIP;
-					} else if (UNIT_SP.equals(unit) || UNIT_SIP.equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_SP;
-					} else if (UNIT_PERCENT.equals(unit)) {
-						this.units = COMPLEX_UNIT_PERCENT;
-					} else if (UNIT_MM.equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_MM;
-					} else if (UNIT_CM.equals(unit)) {
-						this.units = COMPLEX_UNIT_CM;
-					} else if (UNIT_IN.equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_IN;
-					} else {
-						if (unit != null) {
-							Log.w(TAG, "Unknown unit: " + unit, Log.DEBUG_MODE);
-						}
+					parsedValues.put(svalue, new double[] { value, units });
+				}
+			} else {
+				value = parsed[0];
+				units = (int) parsed[1];
+			}
+		}
+	}
+
+	private void parse(String svalue)
+	{
+		Matcher m = DIMENSION_PATTERN.matcher(svalue.trim());
+		if (m.matches()) {
+			value = Float.parseFloat(m.group(1));
+
+			if (m.groupCount() == 2) {
+				String unit = m.group(2);
+				// if there is no unit, then use the default one
+				if (unit == null) {
+					unit = TiApplication.getInstance().getDefaultUnit();
+				}
+				if (UNIT_PX.equals(unit) || UNIT_SYSTEM.equals(unit)) {
+					this.units = TypedValue.COMPLEX_UNIT_PX;
+				} else if (UNIT_PT.equals(unit)) {
+					this.units = TypedValue.COMPLEX_UNIT_PT;
+				} else if (UNIT_DP.equals(unit) || UNIT_DIP.equals(unit)) {
+					this.units = TypedValue.COMPLEX_UNIT_DIP;
+				} else if (UNIT_SP.equals(unit) || UNIT_SIP.equals(unit)) {
+					this.units = TypedValue.COMPLEX_UNIT_SP;
+				} else if (UNIT_PERCENT.equals(unit)) {
+					this.units = COMPLEX_UNIT_PERCENT;
+				} else if (UNIT_MM.equals(unit)) {
+					this.units = TypedValue.COMPLEX_UNIT_MM;
+				} else if (UNIT_CM.equals(unit)) {
+					this.units = COMPLEX_UNIT_CM;
+				} else if (UNIT_IN.equals(unit)) {
+					this.units = TypedValue.COMPLEX_UNIT_IN;
+				} else {
+					if (unit != null) {
+						Log.w(TAG, "Unknown unit: " + unit, Log.DEBUG_MODE);
 					}
 				}
-			} else if (svalue.trim().equals(UNIT_AUTO)) {
-				this.value = Integer.MIN_VALUE;
-				this.units = COMPLEX_UNIT_AUTO;
 			}
+		} else if (svalue.trim().equals(UNIT_AUTO)) {
+			this.value = Integer.MIN_VALUE;
+			this.units = COMPLEX_UNIT_AUTO;
 		}
 	}
 
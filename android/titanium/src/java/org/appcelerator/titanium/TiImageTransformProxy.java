@@ -0,0 +1,138 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium;
+
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollFunction;
+import org.appcelerator.kroll.KrollProxy;
+import org.appcelerator.kroll.annotations.Kroll;
+import org.appcelerator.kroll.common.Log;
+import org.appcelerator.titanium.util.TiImageTransform;
+
+/**
+ * A chain of image operations created by {@link TiBlob#imageTransform()}. Each step only
+ * records the operation; the image is decoded, drawn and encoded once when the chain is applied,
+ * either synchronously or on a background worker.
+ */
+@Kroll.proxy
+public class TiImageTransformProxy extends KrollProxy
+{
+	private static final String TAG = "TiImageTransformProxy";
+	public static final int THREAD_POOL_SIZE = 2;
+
+	private static ExecutorService threadPool;
+
+	private final TiImageTransform transform;
+
+	public TiImageTransformProxy(TiImageTransform transform)
+	{
+		super();
+		this.transform = transform;
+	}
+
+	private static synchronized ExecutorService getThreadPool()
+	{
+		if (threadPool == null) {
+			threadPool = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+		}
+		return threadPool;
+	}
+
+	@Kroll.method
+	public TiImageTransformProxy crop(HashMap params)
+	{
+		KrollDict options = new KrollDict(params);
+		int width = options.optInt(TiC.PROPERTY_WIDTH, transform.getWidth());
+		int height = options.optInt(TiC.PROPERTY_HEIGHT, transform.getHeight());
+		int x = options.optInt(TiC.PROPERTY_X, (transform.getWidth() - width) / 2);
+		int y = options.optInt(TiC.PROPERTY_Y, (transform.getHeight() - height) / 2);
+		transform.crop(x, y, width, height);
+		return this;
+	}
+
+	@Kroll.method
+	public TiImageTransformProxy resize(Number width, Number height)
+	{
+		transform.resize(width.intValue(), height.intValue());
+		return this;
+	}
+
+	@Kroll.method
+	public TiImageTransformProxy thumbnail(Number size)
+	{
+		transform.thumbnail(size.intValue());
+		return this;
+	}
+
+	@Kroll.method
+	public TiImageTransformProxy fit(Number maxSize)
+	{
+		transform.fit(maxSize.intValue());
+		return this;
+	}
+
+	@Kroll.method
+	public TiImageTransformProxy roundedCorner(Number cornerRadius, @Kroll.argument(optional = true) Number borderSize)
+	{
+		float border = 1f;
+		if (borderSize != null) {
+			border = borderSize.floatValue();
+		}
+		transform.roundedCorner(cornerRadius.floatValue(), border);
+		return this;
+	}
+
+	@Kroll.method
+	public TiImageTransformProxy compress(Number compressionQuality)
+	{
+		transform.compress(compressionQuality.floatValue());
+		return this;
+	}
+
+	/**
+	 * Runs the chain. Without a callback the resulting blob is returned; with a callback the chain
+	 * runs on a background worker and the callback receives an object with the resulting image.
+	 */
+	@Kroll.method
+	public TiBlob apply(@Kroll.argument(optional = true) final KrollFunction callback)
+	{
+		if (callback == null) {
+			return transform.apply();
+		}
+
+		getThreadPool().execute(new Runnable() {
+			public void run()
+			{
+				KrollDict result = new KrollDict();
+				try {
+					TiBlob image = transform.apply();
+					if (image != null) {
+						result.put(TiC.PROPERTY_IMAGE, image);
+						result.putCodeAndMessage(TiC.ERROR_CODE_NO_ERROR, null);
+					} else {
+						result.putCodeAndMessage(TiC.ERROR_CODE_UNKNOWN, "Unable to transform the image");
+					}
+				} catch (Throwable t) {
+					Log.e(TAG, "Unable to transform the image: " + t.getMessage(), t);
+					result.putCodeAndMessage(TiC.ERROR_CODE_UNKNOWN, t.getMessage());
+				}
+				callback.callAsync(getKrollObject(), result);
+			}
+		});
+		return null;
+	}
+
+	@Override
+	public String getApiName()
+	{
+		return "Ti.ImageTransform";
+	}
+}
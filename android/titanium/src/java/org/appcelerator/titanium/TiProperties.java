@@ -1,13 +1,17 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package org.appcelerator.titanium;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.appcelerator.kroll.common.Log;
 import org.json.JSONException;
@@ -15,18 +19,56 @@ import org.json.JSONObject;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 
 /**
  * API for accessing, storing, and modifying application properties that are
  * exposed via Ti.App.Properties.
+ * <p>
+ * Values are read from an in-memory copy of the preferences, which is loaded on first access.
+ * Changes update the copy right away and are written in the background: changes made within
+ * {@link #FLUSH_DELAY} milliseconds are coalesced into a single edit of the preferences, which is
+ * applied when the delay expires, when an activity pauses or when {@link #flush()} is called.
+ * <p>
+ * The properties can instead be kept in a {@link TiPropertiesLog}, see {@link #useLog(File)}.
  */
 public class TiProperties
 {
 	private static final String TAG = "TiProperties";
 	private static JSONObject systemProperties;
 
+	// Milliseconds between the first change of a batch and the write of the batch.
+	private static final long FLUSH_DELAY = 1000;
+
+	// Marks a removed key in the pending changes.
+	private static final Object REMOVED = new Object();
+
 	SharedPreferences preferences;
 
+	private HashMap<String, Object> values;
+	private final HashMap<String, Object> pendingChanges = new HashMap<String, Object>();
+	private boolean clearPending, flushScheduled;
+	private final Handler flushHandler = new Handler(Looper.getMainLooper());
+	private final Runnable flushRunnable = new Runnable() {
+		public void run()
+		{
+			flush();
+		}
+	};
+
+	private TiPropertiesLog log;
+
+	// Keeps the copy up to date with changes made by others, such as the preferences screen of
+	// Ti.UI.Android.openPreferences. The preferences only keep a weak reference to the listener.
+	private final SharedPreferences.OnSharedPreferenceChangeListener preferenceListener =
+		new SharedPreferences.OnSharedPreferenceChangeListener() {
+			public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key)
+			{
+				preferenceChanged(key);
+			}
+		};
+
 	/**
 	 * Instantiates the private SharedPreferences collection with the given name and context.
 	 * This means no other Android application will have access to they keys and values.
@@ -69,15 +111,181 @@ public class TiProperties
 			try {
 				value = systemProperties.get(key);
 			} catch (JSONException e) {
-				value = preferences.getAll().get(key);
+				value = getValue(key);
 			}
 		}
 		if (value == null) {
-			value = preferences.getAll().get(key);
+			value = getValue(key);
 		}
 		return value;
 	}
 
+	// The copy of the preferences is loaded on first access, rather than copied on every read.
+	private synchronized Map<String, Object> getValues()
+	{
+		if (values == null) {
+			values = new HashMap<String, Object>(preferences.getAll());
+			preferences.registerOnSharedPreferenceChangeListener(preferenceListener);
+		}
+		return values;
+	}
+
+	// Copies a changed preference into the copy, unless a change of the key is still waiting to be
+	// written, in which case the write replaces the preference anyway. A null key reloads every
+	// key that has no pending change.
+	private synchronized void preferenceChanged(String key)
+	{
+		if (values == null || log != null || clearPending) {
+			return;
+		}
+		Map<String, ?> all = preferences.getAll();
+		if (key != null) {
+			if (pendingChanges.containsKey(key)) {
+				return;
+			}
+			Object value = all.get(key);
+			if (value == null) {
+				values.remove(key);
+			} else {
+				values.put(key, value);
+			}
+			return;
+		}
+		for (Iterator<String> keys = values.keySet().iterator(); keys.hasNext();) {
+			String existing = keys.next();
+			if (!all.containsKey(existing) && !pendingChanges.containsKey(existing)) {
+				keys.remove();
+			}
+		}
+		for (Map.Entry<String, ?> entry : all.entrySet()) {
+			if (!pendingChanges.containsKey(entry.getKey())) {
+				values.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private synchronized Object getValue(String key)
+	{
+		if (log != null) {
+			return log.get(key);
+		}
+		return getValues().get(key);
+	}
+
+	private synchronized ArrayList<String> getKeys()
+	{
+		if (log != null) {
+			return log.keys();
+		}
+		return new ArrayList<String>(getValues().keySet());
+	}
+
+	/**
+	 * Moves the properties to a typed key-value log, which reads the value of a key without
+	 * loading the others. The preferences are copied to the log only when its file is created,
+	 * and are no longer changed afterwards, so they never replace the properties of an existing log.
+	 * @param file the file of the log.
+	 */
+	public synchronized void useLog(File file)
+	{
+		if (log != null) {
+			return;
+		}
+		flush();
+		TiPropertiesLog newLog = new TiPropertiesLog(file);
+		try {
+			if (newLog.open()) {
+				for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+					newLog.put(entry.getKey(), entry.getValue());
+				}
+				newLog.flush();
+			}
+			log = newLog;
+			if (values != null) {
+				preferences.unregisterOnSharedPreferenceChangeListener(preferenceListener);
+				values = null;
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Unable to open the properties log, using the preferences: " + e.getMessage(), e);
+		}
+	}
+
+	// Updates the copy of the preferences and schedules the write of the change. A null value
+	// removes the key.
+	private synchronized void putValue(String key, Object value)
+	{
+		if (log != null) {
+			try {
+				log.put(key, value);
+			} catch (IOException e) {
+				Log.e(TAG, "Unable to write property " + key + ": " + e.getMessage(), e);
+			}
+			return;
+		}
+		if (value == null) {
+			getValues().remove(key);
+			pendingChanges.put(key, REMOVED);
+		} else {
+			getValues().put(key, value);
+			pendingChanges.put(key, value);
+		}
+		scheduleFlush();
+	}
+
+	private synchronized void scheduleFlush()
+	{
+		if (!flushScheduled) {
+			flushScheduled = true;
+			flushHandler.postDelayed(flushRunnable, FLUSH_DELAY);
+		}
+	}
+
+	/**
+	 * Writes the pending changes to the preferences in a single edit. The edit is applied in
+	 * memory right away and written to disk in the background; Android waits for the write
+	 * when an activity stops.
+	 * @module.api
+	 */
+	public synchronized void flush()
+	{
+		if (log != null) {
+			log.flush();
+			return;
+		}
+		if (flushScheduled) {
+			flushHandler.removeCallbacks(flushRunnable);
+			flushScheduled = false;
+		}
+		if (!clearPending && pendingChanges.isEmpty()) {
+			return;
+		}
+
+		SharedPreferences.Editor editor = preferences.edit();
+		if (clearPending) {
+			editor.clear();
+		}
+		for (Map.Entry<String, Object> change : pendingChanges.entrySet()) {
+			String key = change.getKey();
+			Object value = change.getValue();
+			if (value == REMOVED) {
+				editor.remove(key);
+			} else if (value instanceof Integer) {
+				editor.putInt(key, (Integer) value);
+			} else if (value instanceof Boolean) {
+				editor.putBoolean(key, (Boolean) value);
+			} else if (value instanceof Long) {
+				editor.putLong(key, (Long) value);
+			} else if (value instanceof Float) {
+				editor.putFloat(key, (Float) value);
+			} else {
+				editor.putString(key, value.toString());
+			}
+		}
+		editor.apply();
+		pendingChanges.clear();
+		clearPending = false;
+	}
+
 	/**
 	 * Maps the specified key with a String value. If value is null, existing key will be removed from preferences.
 	 * Otherwise, its value will be overwritten.
@@ -98,13 +306,7 @@ public class TiProperties
 			return;
 		}
 
-		SharedPreferences.Editor editor = preferences.edit();
-		if (value == null) {
-			editor.remove(key);
-		} else {
-			editor.putString(key,value);
-		}
-		editor.commit();
+		putValue(key, value);
 	}
 
 	/**
@@ -119,27 +321,26 @@ public class TiProperties
 		if (Log.isDebugModeEnabled()) {
 			Log.d(TAG, "getInt called with key:" + key + ", def:" + def);
 		}
-		try {
-			int value = def;
-			if (systemProperties != null) {
-				try {
-					value = systemProperties.getInt(key);
-				} catch (JSONException e) {
-					value = preferences.getInt(key,def);
-				}
-			} else {
-				value = preferences.getInt(key,def);
-			}
-			return value;
-		} catch(ClassCastException cce) {
-			//Value stored as something other than int. Try and convert to int
-			String val = getString(key,"");
+		if (systemProperties != null) {
 			try {
-				return Integer.parseInt(val);
-			} catch (NumberFormatException nfe) {
-				return def;
+				return systemProperties.getInt(key);
+			} catch (JSONException e) {
+				// Not a system property
 			}
 		}
+		Object value = getValue(key);
+		if (value == null) {
+			return def;
+		}
+		if (value instanceof Integer) {
+			return (Integer) value;
+		}
+		//Value stored as something other than int. Try and convert to int
+		try {
+			return Integer.parseInt(value.toString());
+		} catch (NumberFormatException nfe) {
+			return def;
+		}
 	}
 
 	/**
@@ -161,9 +362,7 @@ public class TiProperties
 			return;
 		}
 
-		SharedPreferences.Editor editor = preferences.edit();
-		editor.putInt(key,value);
-		editor.commit();
+		putValue(key, value);
 	}
 
 	/**
@@ -183,6 +382,9 @@ public class TiProperties
 		if (string == null) {
 			return def;
 		}
+		if (string instanceof Number) {
+			return ((Number) string).doubleValue();
+		}
 		stringValue = string.toString();
 		try {
 			return Double.parseDouble(stringValue);
@@ -211,9 +413,12 @@ public class TiProperties
 			return;
 		}
 
-		SharedPreferences.Editor editor = preferences.edit();
-		editor.putString(key,value + "");
-		editor.commit();
+		// Doubles are stored as strings in the preferences.
+		if (log != null) {
+			putValue(key, value);
+		} else {
+			putValue(key, value + "");
+		}
 	}
 
 	/**
@@ -228,27 +433,22 @@ public class TiProperties
 		if (Log.isDebugModeEnabled()) {
 			Log.d(TAG, "getBool called with key:" + key + ", def:" + def);
 		}
-		try {
-			boolean value = def;
-			if (systemProperties != null) {
-				try {
-					value = systemProperties.getBoolean(key);
-				} catch (JSONException e) {
-					value = preferences.getBoolean(key,def);
-				}
-			} else {
-				value = preferences.getBoolean(key,def);
-			}
-			return value;
-		} catch(ClassCastException cce) {
-			//Value stored as something other than boolean. Try and convert to boolean
-			String val = getString(key,"");
+		if (systemProperties != null) {
 			try {
-				return Boolean.valueOf(val).booleanValue();
-			} catch (Exception e) {
-				return def;
+				return systemProperties.getBoolean(key);
+			} catch (JSONException e) {
+				// Not a system property
 			}
 		}
+		Object value = getValue(key);
+		if (value == null) {
+			return def;
+		}
+		if (value instanceof Boolean) {
+			return (Boolean) value;
+		}
+		//Value stored as something other than boolean. Try and convert to boolean
+		return Boolean.valueOf(value.toString()).booleanValue();
 	}
 
 	/**
@@ -271,9 +471,7 @@ public class TiProperties
 			return;
 		}
 
-		SharedPreferences.Editor editor = preferences.edit();
-		editor.putBoolean(key,value);
-		editor.commit();
+		putValue(key, value);
 	}
 
 	/**
@@ -289,20 +487,29 @@ public class TiProperties
 			Log.d(TAG, "getList called with key:" + key + ", def:" + def);
 		}
 
-		int length = preferences.getInt(key+".length", -1);
-		if (length == -1) {
-			return def;
-		}
+		synchronized (this) {
+			Object nativeList = getValue(key);
+			if (nativeList instanceof String[]) {
+				return ((String[]) nativeList).clone();
+			}
+
+			Object length = getValue(key + ".length");
+			if (!(length instanceof Integer)) {
+				return def;
+			}
 
-		String list[] = new String[length];
-		for (int i = 0; i < length; i++) {
-			list[i] = preferences.getString(key+"."+i, "");
+			String list[] = new String[(Integer) length];
+			for (int i = 0; i < list.length; i++) {
+				Object value = getValue(key + "." + i);
+				list[i] = (value != null) ? value.toString() : "";
+			}
+			return list;
 		}
-		return list;
 	}
 
 	/**
-	 * Maps the specified key with String[] value. Also maps 'key.length' to 'value.length'.
+	 * Maps the specified key with String[] value. Also maps 'key.length' to 'value.length', unless
+	 * the properties are kept in a log, which stores the array itself.
 	 * If key exists, its value will be overwritten.
 	 * @param key the key to set.
 	 * @param value the value to set.
@@ -314,13 +521,36 @@ public class TiProperties
 			Log.d(TAG, "setList called with key:" + key + ", value:" + value);
 		}
 
-		SharedPreferences.Editor editor = preferences.edit();
-		for (int i = 0; i < value.length; i++) {
-			editor.putString(key + "." + i, value[i]);
+		// The elements and the length are written in the same batch.
+		synchronized (this) {
+			if (log != null) {
+				// The log stores the list itself, replacing the elements of the preferences format.
+				putValue(key, value.clone());
+				Object length = getValue(key + ".length");
+				int count = (length instanceof Integer) ? (Integer) length : 0;
+				for (int i = 0; i < count || getValue(key + "." + i) != null; i++) {
+					if (getValue(key + "." + i) != null) {
+						putValue(key + "." + i, null);
+					}
+				}
+				if (length != null) {
+					putValue(key + ".length", null);
+				}
+				return;
+			}
+			Object length = getValue(key + ".length");
+			int count = (length instanceof Integer) ? (Integer) length : 0;
+			for (int i = 0; i < value.length; i++) {
+				putValue(key + "." + i, value[i]);
+			}
+			// Elements past the end of a shorter list would otherwise be left behind.
+			for (int i = value.length; i < count || getValue(key + "." + i) != null; i++) {
+				if (getValue(key + "." + i) != null) {
+					putValue(key + "." + i, null);
+				}
+			}
+			putValue(key + ".length", value.length);
 		}
-		editor.putInt(key + ".length", value.length);
-
-		editor.commit();
 
 	}
 
@@ -330,6 +560,9 @@ public class TiProperties
 	 * @module.api
 	 */
 	public boolean hasListProperty(String key) {
+		if (getValue(key) instanceof String[]) {
+			return true;
+		}
 		return hasProperty(key+".0");
 	}
 
@@ -341,7 +574,7 @@ public class TiProperties
 	 */
 	public boolean hasProperty(String key)
 	{
-		return systemProperties != null ? systemProperties.has(key) || preferences.contains(key) : preferences.contains(key);
+		return systemProperties != null ? systemProperties.has(key) || getValue(key) != null : getValue(key) != null;
 	}
 
 	/**
@@ -359,7 +592,11 @@ public class TiProperties
 				properties.add(key);
 			}
 		}
-		for (String key : preferences.getAll().keySet()) {
+		ArrayList<String> keys;
+		synchronized (this) {
+			keys = getKeys();
+		}
+		for (String key : keys) {
 			if (key.endsWith(".length")) {
 				properties.add(key.substring(0, key.length() - 7));
 			} else if (key.matches(".+\\.\\d+$")) {
@@ -386,10 +623,10 @@ public class TiProperties
 			return;
 		}
 
-		if (preferences.contains(key)) {
-			SharedPreferences.Editor editor = preferences.edit();
-			editor.remove(key);
-			editor.commit();
+		synchronized (this) {
+			if (getValue(key) != null) {
+				putValue(key, null);
+			}
 		}
 	}
 	
@@ -397,9 +634,16 @@ public class TiProperties
 	 * Removes all keys from preferences.
 	 * @module.api
 	 */
-	public void removeAllProperties()
+	public synchronized void removeAllProperties()
 	{
-		preferences.edit().clear().commit();
+		if (log != null) {
+			log.clear();
+			return;
+		}
+		getValues().clear();
+		pendingChanges.clear();
+		clearPending = true;
+		scheduleFlush();
 	}
 
 	public static void setSystemProperties(JSONObject prop) {
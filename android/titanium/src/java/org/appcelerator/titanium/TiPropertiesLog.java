@@ -0,0 +1,575 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.appcelerator.kroll.common.Log;
+
+/**
+ * A typed key-value store for application properties, kept in a memory-mapped file.
+ * <p>
+ * The file starts with the records of a compaction, sorted by key, and an index of their
+ * offsets, so that a key is found with a binary search of the mapped file instead of parsing the
+ * whole file. Changes are appended to the end of the file as records of their own, which are
+ * indexed in memory when the file is opened. When the appended records outgrow a quarter of the
+ * compacted ones, the latest record of every key is compacted into a new file.
+ * <p>
+ * Values are strings, booleans, ints, longs, floats, doubles, and arrays of strings, ints and
+ * doubles. Values are decoded the first time their key is read. All methods are synchronized.
+ * <pre>
+ * header:  int magic, int version, int index count, int log start, int end
+ * index:   int record offset, for each compacted record, sorted by key
+ * records: byte type, int key length, key, int value length, value
+ * </pre>
+ */
+class TiPropertiesLog
+{
+	private static final String TAG = "TiPropertiesLog";
+
+	private static final int MAGIC = 0x54494b56; // "TIKV"
+	private static final int VERSION = 1;
+
+	private static final int HEADER_INDEX_COUNT = 8;
+	private static final int HEADER_LOG_START = 12;
+	private static final int HEADER_END = 16;
+	private static final int HEADER_SIZE = 20;
+
+	private static final int INITIAL_CAPACITY = 16 * 1024;
+
+	// Appended records are compacted once they take this many bytes, and a quarter of the file.
+	private static final int MIN_COMPACT_SIZE = 64 * 1024;
+
+	private static final byte TYPE_REMOVED = 0;
+	private static final byte TYPE_STRING = 1;
+	private static final byte TYPE_BOOLEAN = 2;
+	private static final byte TYPE_INT = 3;
+	private static final byte TYPE_LONG = 4;
+	private static final byte TYPE_FLOAT = 5;
+	private static final byte TYPE_DOUBLE = 6;
+	private static final byte TYPE_STRING_ARRAY = 7;
+	private static final byte TYPE_INT_ARRAY = 8;
+	private static final byte TYPE_DOUBLE_ARRAY = 9;
+
+	// Caches keys that have no value.
+	private static final Object MISSING = new Object();
+
+	private final File file;
+	private RandomAccessFile randomAccessFile;
+	private MappedByteBuffer buffer;
+	private int indexCount, logStart, end;
+
+	// Offsets of the latest appended record of each key.
+	private final HashMap<String, Integer> logIndex = new HashMap<String, Integer>();
+
+	// Values of the keys read or written so far.
+	private final HashMap<String, Object> values = new HashMap<String, Object>();
+
+	TiPropertiesLog(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Maps the file, creating it if needed. A file that is not a properties file is reset, and
+	 * appended records that were not completely written, for example because the process died
+	 * while writing them, are dropped along with the records after them.
+	 * @return true if the file was created.
+	 */
+	synchronized boolean open() throws IOException
+	{
+		boolean existed = file.length() >= HEADER_SIZE;
+		map(file, Math.max(file.length(), INITIAL_CAPACITY));
+
+		if (existed && readHeader()) {
+			return false;
+		}
+		if (existed) {
+			Log.w(TAG, "Resetting unreadable properties file: " + file);
+		}
+		writeHeader(0, HEADER_SIZE, HEADER_SIZE);
+		return !existed;
+	}
+
+	private void map(File mappedFile, long capacity) throws IOException
+	{
+		RandomAccessFile newFile = new RandomAccessFile(mappedFile, "rw");
+		try {
+			if (newFile.length() < capacity) {
+				newFile.setLength(capacity);
+			}
+			buffer = newFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		} catch (IOException e) {
+			newFile.close();
+			throw e;
+		}
+		if (randomAccessFile != null) {
+			randomAccessFile.close();
+		}
+		randomAccessFile = newFile;
+	}
+
+	// Reads the header and indexes the appended records, truncating the log at the first record
+	// that is not readable. The compacted records are written to a new file that only replaces
+	// the old one once complete, so only the header and the appended records can be torn.
+	private boolean readHeader()
+	{
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			return false;
+		}
+		indexCount = buffer.getInt(HEADER_INDEX_COUNT);
+		logStart = buffer.getInt(HEADER_LOG_START);
+		end = buffer.getInt(HEADER_END);
+		if (indexCount < 0 || logStart < HEADER_SIZE + 4L * indexCount || logStart > buffer.capacity()) {
+			return false;
+		}
+		// Without a valid end, the records are read up to the unused, zeroed part of the file.
+		boolean scan = (end < logStart || end > buffer.capacity());
+		if (scan) {
+			end = buffer.capacity();
+		}
+
+		logIndex.clear();
+		int offset = logStart;
+		while (offset < end) {
+			int size = getRecordSize(offset);
+			if (scan && size == 9 && buffer.get(offset) == TYPE_REMOVED) {
+				end = offset;
+				buffer.putInt(HEADER_END, end);
+				break;
+			}
+			if (size <= 0 || (long) offset + size > end) {
+				Log.w(TAG, "Dropping " + (end - offset) + " bytes of incomplete records from " + file);
+				end = offset;
+				buffer.putInt(HEADER_END, end);
+				break;
+			}
+			logIndex.put(getKey(offset), offset);
+			offset += size;
+		}
+		return true;
+	}
+
+	private void writeHeader(int indexCount, int logStart, int end)
+	{
+		this.indexCount = indexCount;
+		this.logStart = logStart;
+		this.end = end;
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(HEADER_INDEX_COUNT, indexCount);
+		buffer.putInt(HEADER_LOG_START, logStart);
+		buffer.putInt(HEADER_END, end);
+	}
+
+	/**
+	 * @return the value of the key, or null if it has none.
+	 */
+	synchronized Object get(String key)
+	{
+		Object value = values.get(key);
+		if (value == null) {
+			int offset = findRecord(key);
+			value = (offset >= 0) ? readValue(offset) : null;
+			values.put(key, (value != null) ? value : MISSING);
+		}
+		return (value != MISSING) ? value : null;
+	}
+
+	/**
+	 * Appends the value of a key. A null value removes the key.
+	 */
+	synchronized void put(String key, Object value) throws IOException
+	{
+		byte type = getType(value);
+		byte[] keyBytes = toBytes(key);
+		int valueLength = getValueLength(type, value);
+		int size = 1 + 4 + keyBytes.length + 4 + valueLength;
+		ensureCapacity(end + size);
+
+		buffer.position(end);
+		buffer.put(type);
+		buffer.putInt(keyBytes.length);
+		buffer.put(keyBytes);
+		buffer.putInt(valueLength);
+		writeValue(type, value);
+
+		// The record only counts once the end of the file includes it.
+		logIndex.put(key, end);
+		end += size;
+		buffer.putInt(HEADER_END, end);
+		values.put(key, (value != null) ? value : MISSING);
+
+		int compacted = logStart - HEADER_SIZE - 4 * indexCount;
+		if (end - logStart > Math.max(MIN_COMPACT_SIZE, compacted / 4)) {
+			compact();
+		}
+	}
+
+	/**
+	 * @return the keys that have a value.
+	 */
+	synchronized ArrayList<String> keys()
+	{
+		ArrayList<String> keys = new ArrayList<String>();
+		for (int i = 0; i < indexCount; i++) {
+			String key = getKey(buffer.getInt(HEADER_SIZE + 4 * i));
+			if (!logIndex.containsKey(key)) {
+				keys.add(key);
+			}
+		}
+		for (Map.Entry<String, Integer> entry : logIndex.entrySet()) {
+			if (buffer.get(entry.getValue()) != TYPE_REMOVED) {
+				keys.add(entry.getKey());
+			}
+		}
+		return keys;
+	}
+
+	synchronized void clear()
+	{
+		logIndex.clear();
+		values.clear();
+		writeHeader(0, HEADER_SIZE, HEADER_SIZE);
+	}
+
+	/**
+	 * Writes the mapped file to disk. Changes already survive the process without it, since
+	 * they are in the mapped memory.
+	 */
+	synchronized void flush()
+	{
+		buffer.force();
+	}
+
+	private void ensureCapacity(int capacity) throws IOException
+	{
+		if (capacity > buffer.capacity()) {
+			map(file, Math.max(capacity, 2L * buffer.capacity()));
+		}
+	}
+
+	// Rewrites the latest record of every key that has a value into a new file, sorted by key.
+	private void compact() throws IOException
+	{
+		ArrayList<Integer> offsets = new ArrayList<Integer>();
+		int recordsSize = 0;
+		for (int i = 0; i < indexCount; i++) {
+			int offset = buffer.getInt(HEADER_SIZE + 4 * i);
+			if (!logIndex.containsKey(getKey(offset))) {
+				offsets.add(offset);
+				recordsSize += getRecordSize(offset);
+			}
+		}
+		for (int offset : logIndex.values()) {
+			if (buffer.get(offset) != TYPE_REMOVED) {
+				offsets.add(offset);
+				recordsSize += getRecordSize(offset);
+			}
+		}
+		Collections.sort(offsets, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b)
+			{
+				return compareKeys(a, b);
+			}
+		});
+
+		int count = offsets.size();
+		int newLogStart = HEADER_SIZE + 4 * count + recordsSize;
+		File compactFile = new File(file.getPath() + ".compact");
+		MappedByteBuffer oldBuffer = buffer;
+		map(compactFile, Math.max(INITIAL_CAPACITY, newLogStart + newLogStart / 2));
+
+		int position = HEADER_SIZE + 4 * count;
+		for (int i = 0; i < count; i++) {
+			int offset = offsets.get(i);
+			int size = getRecordSize(oldBuffer, offset);
+			ByteBuffer record = oldBuffer.duplicate();
+			record.limit(offset + size).position(offset);
+			buffer.position(position);
+			buffer.put(record);
+			buffer.putInt(HEADER_SIZE + 4 * i, position);
+			position += size;
+		}
+		writeHeader(count, newLogStart, newLogStart);
+		buffer.force();
+		if (!compactFile.renameTo(file)) {
+			throw new IOException("Unable to replace " + file);
+		}
+		logIndex.clear();
+		Log.d(TAG, "Compacted " + count + " properties", Log.DEBUG_MODE);
+	}
+
+	// Finds the latest record of a key, in the appended records, then in the compacted ones.
+	private int findRecord(String key)
+	{
+		Integer logOffset = logIndex.get(key);
+		if (logOffset != null) {
+			return logOffset;
+		}
+
+		byte[] keyBytes = toBytes(key);
+		int low = 0;
+		int high = indexCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int offset = buffer.getInt(HEADER_SIZE + 4 * middle);
+			int comparison = compareKey(offset, keyBytes);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return offset;
+			}
+		}
+		return -1;
+	}
+
+	// Compares the key of a record with a key, as unsigned bytes.
+	private int compareKey(int offset, byte[] keyBytes)
+	{
+		int length = buffer.getInt(offset + 1);
+		int common = Math.min(length, keyBytes.length);
+		for (int i = 0; i < common; i++) {
+			int difference = (buffer.get(offset + 5 + i) & 0xff) - (keyBytes[i] & 0xff);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return length - keyBytes.length;
+	}
+
+	private int compareKeys(int offsetA, int offsetB)
+	{
+		int lengthA = buffer.getInt(offsetA + 1);
+		int lengthB = buffer.getInt(offsetB + 1);
+		int common = Math.min(lengthA, lengthB);
+		for (int i = 0; i < common; i++) {
+			int difference = (buffer.get(offsetA + 5 + i) & 0xff) - (buffer.get(offsetB + 5 + i) & 0xff);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return lengthA - lengthB;
+	}
+
+	private String getKey(int offset)
+	{
+		byte[] keyBytes = new byte[buffer.getInt(offset + 1)];
+		ByteBuffer record = buffer.duplicate();
+		record.position(offset + 5);
+		record.get(keyBytes);
+		return fromBytes(keyBytes);
+	}
+
+	private int getRecordSize(int offset)
+	{
+		return getRecordSize(buffer, offset);
+	}
+
+	private static int getRecordSize(ByteBuffer buffer, int offset)
+	{
+		if (offset + 9 > buffer.capacity()) {
+			return -1;
+		}
+		byte type = buffer.get(offset);
+		if (type < TYPE_REMOVED || type > TYPE_DOUBLE_ARRAY) {
+			return -1;
+		}
+		int keyLength = buffer.getInt(offset + 1);
+		if (keyLength < 0 || (long) offset + 9 + keyLength > buffer.capacity()) {
+			return -1;
+		}
+		int valueLength = buffer.getInt(offset + 5 + keyLength);
+		if (valueLength < 0 || (long) offset + 9 + keyLength + valueLength > buffer.capacity()) {
+			return -1;
+		}
+		return 1 + 4 + keyLength + 4 + valueLength;
+	}
+
+	private static byte getType(Object value)
+	{
+		if (value == null) {
+			return TYPE_REMOVED;
+		} else if (value instanceof Boolean) {
+			return TYPE_BOOLEAN;
+		} else if (value instanceof Integer) {
+			return TYPE_INT;
+		} else if (value instanceof Long) {
+			return TYPE_LONG;
+		} else if (value instanceof Float) {
+			return TYPE_FLOAT;
+		} else if (value instanceof Double) {
+			return TYPE_DOUBLE;
+		} else if (value instanceof String[]) {
+			return TYPE_STRING_ARRAY;
+		} else if (value instanceof int[]) {
+			return TYPE_INT_ARRAY;
+		} else if (value instanceof double[]) {
+			return TYPE_DOUBLE_ARRAY;
+		}
+		return TYPE_STRING;
+	}
+
+	private static int getValueLength(byte type, Object value)
+	{
+		switch (type) {
+			case TYPE_REMOVED:
+				return 0;
+			case TYPE_BOOLEAN:
+				return 1;
+			case TYPE_INT:
+			case TYPE_FLOAT:
+				return 4;
+			case TYPE_LONG:
+			case TYPE_DOUBLE:
+				return 8;
+			case TYPE_STRING_ARRAY:
+				int length = 4;
+				for (String element : (String[]) value) {
+					length += 4 + ((element != null) ? toBytes(element).length : 0);
+				}
+				return length;
+			case TYPE_INT_ARRAY:
+				return 4 + 4 * ((int[]) value).length;
+			case TYPE_DOUBLE_ARRAY:
+				return 4 + 8 * ((double[]) value).length;
+			default:
+				return toBytes(value.toString()).length;
+		}
+	}
+
+	private void writeValue(byte type, Object value)
+	{
+		switch (type) {
+			case TYPE_REMOVED:
+				break;
+			case TYPE_BOOLEAN:
+				buffer.put((byte) (((Boolean) value) ? 1 : 0));
+				break;
+			case TYPE_INT:
+				buffer.putInt((Integer) value);
+				break;
+			case TYPE_LONG:
+				buffer.putLong((Long) value);
+				break;
+			case TYPE_FLOAT:
+				buffer.putFloat((Float) value);
+				break;
+			case TYPE_DOUBLE:
+				buffer.putDouble((Double) value);
+				break;
+			case TYPE_STRING_ARRAY:
+				String[] strings = (String[]) value;
+				buffer.putInt(strings.length);
+				for (String element : strings) {
+					// A null element is stored with a negative length.
+					if (element == null) {
+						buffer.putInt(-1);
+					} else {
+						byte[] bytes = toBytes(element);
+						buffer.putInt(bytes.length);
+						buffer.put(bytes);
+					}
+				}
+				break;
+			case TYPE_INT_ARRAY:
+				int[] ints = (int[]) value;
+				buffer.putInt(ints.length);
+				buffer.asIntBuffer().put(ints);
+				buffer.position(buffer.position() + 4 * ints.length);
+				break;
+			case TYPE_DOUBLE_ARRAY:
+				double[] doubles = (double[]) value;
+				buffer.putInt(doubles.length);
+				buffer.asDoubleBuffer().put(doubles);
+				buffer.position(buffer.position() + 8 * doubles.length);
+				break;
+			default:
+				buffer.put(toBytes(value.toString()));
+				break;
+		}
+	}
+
+	private Object readValue(int offset)
+	{
+		byte type = buffer.get(offset);
+		ByteBuffer value = buffer.duplicate();
+		int keyLength = buffer.getInt(offset + 1);
+		value.position(offset + 5 + keyLength);
+		int valueLength = value.getInt();
+
+		switch (type) {
+			case TYPE_REMOVED:
+				return null;
+			case TYPE_BOOLEAN:
+				return value.get() != 0;
+			case TYPE_INT:
+				return value.getInt();
+			case TYPE_LONG:
+				return value.getLong();
+			case TYPE_FLOAT:
+				return value.getFloat();
+			case TYPE_DOUBLE:
+				return value.getDouble();
+			case TYPE_STRING_ARRAY:
+				String[] strings = new String[value.getInt()];
+				for (int i = 0; i < strings.length; i++) {
+					int length = value.getInt();
+					if (length >= 0) {
+						byte[] bytes = new byte[length];
+						value.get(bytes);
+						strings[i] = fromBytes(bytes);
+					}
+				}
+				return strings;
+			case TYPE_INT_ARRAY:
+				int[] ints = new int[value.getInt()];
+				value.asIntBuffer().get(ints);
+				return ints;
+			case TYPE_DOUBLE_ARRAY:
+				double[] doubles = new double[value.getInt()];
+				value.asDoubleBuffer().get(doubles);
+				return doubles;
+			default:
+				byte[] bytes = new byte[valueLength];
+				value.get(bytes);
+				return fromBytes(bytes);
+		}
+	}
+
+	private static byte[] toBytes(String string)
+	{
+		try {
+			return string.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String fromBytes(byte[] bytes)
+	{
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -32,6 +32,8 @@ import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiUrl;
 import org.appcelerator.titanium.util.TiUIHelper;
 import org.appcelerator.titanium.view.TiAnimation;
+import org.appcelerator.titanium.view.TiCompositeLayout;
+import org.appcelerator.titanium.view.TiFlatNode;
 import org.appcelerator.titanium.view.TiUIView;
 
 import android.animation.Animator;
@@ -44,6 +46,7 @@ import android.os.Handler;
 import android.os.Message;
 import android.view.View;
 import android.view.ViewAnimationUtils;
+import android.view.accessibility.AccessibilityManager;
 
 /**
  * The parent class of view proxies.
@@ -95,6 +98,7 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 	private static final int MSG_QUEUED_ANIMATE = MSG_FIRST_ID + 114;
 	private static final int MSG_INSERT_VIEW_AT = MSG_FIRST_ID + 115;
 	private static final int MSG_HIDE_KEYBOARD = MSG_FIRST_ID + 116;
+	private static final int MSG_UNFLATTEN = MSG_FIRST_ID + 117;
 
 	protected static final int MSG_LAST_ID = MSG_FIRST_ID + 999;
 
@@ -104,6 +108,7 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 	protected TiUIView view;
 	protected Object pendingAnimationLock;
 	protected TiAnimationBuilder pendingAnimation;
+	protected TiFlatNode flatNode;
 	private boolean isDecorView = false;
 	private boolean overrideCurrentAnimation = false;
 
@@ -254,6 +259,10 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 				handleHideKeyboard();
 				return true;
 			}
+			case MSG_UNFLATTEN : {
+				handleUnflatten();
+				return true;
+			}
 			case MSG_FOCUS : {
 				handleFocus();
 				return true;
@@ -483,6 +492,11 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 
 	protected TiUIView handleGetView()
 	{
+		if (flatNode != null) {
+			// Anything needing the view of a flattened proxy needs it in place of the node.
+			handleUnflatten();
+			return view;
+		}
 		if (view == null) {
 			if (Log.isDebugModeEnabled()) {
 				Log.d(TAG, "getView: " + getClass().getSimpleName(), Log.DEBUG_MODE);
@@ -513,8 +527,9 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 		if (children != null) {
 			try {
 				for (TiViewProxy p : children) {
-					TiUIView cv = p.getOrCreateView();
-					view.add(cv);
+					if (!deferChildView(p) && !flattenChild(p)) {
+						view.add(p.getOrCreateView());
+					}
 				}
 			} catch (ConcurrentModificationException e) {
 				Log.e(TAG, e.getMessage(), e);
@@ -530,6 +545,10 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 
 	public void releaseViews()
 	{
+		if (flatNode != null) {
+			flatNode.remove();
+			flatNode = null;
+		}
 		if (view != null) {
 			if  (children != null) {
 				for (TiViewProxy p : children) {
@@ -543,6 +562,120 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 		KrollRuntime.suggestGC();
 	}
 
+	/**
+	 * Creates a node drawing this proxy into the layout of its parent, used in place of a view
+	 * when the parent flattens its children. Only leaf views with a simple appearance support this.
+	 * @return the node, or null if this proxy always needs a view.
+	 */
+	public TiFlatNode createFlatNode()
+	{
+		return null;
+	}
+
+	/**
+	 * @return whether the children of this view are drawn as flat nodes when they can be. This is
+	 * set by the flattenChildren property of the view or of its closest ancestor setting it.
+	 */
+	public boolean isFlatteningChildren()
+	{
+		if (hasProperty(TiC.PROPERTY_FLATTEN_CHILDREN)) {
+			return TiConvert.toBoolean(getProperty(TiC.PROPERTY_FLATTEN_CHILDREN), false);
+		}
+		TiViewProxy parentProxy = getParent();
+		return parentProxy != null && parentProxy.isFlatteningChildren();
+	}
+
+	/**
+	 * Called when a child becomes part of the view of this proxy. Views that only create the views
+	 * of some of their children, such as virtualized scroll views, take care of the child here.
+	 * @param child the child proxy.
+	 * @return whether the view of the child is left for the view of this proxy to create.
+	 */
+	protected boolean deferChildView(TiViewProxy child)
+	{
+		return false;
+	}
+
+	// Draws the child as a node of our layout if it can do without a view. Touch exploration
+	// needs real views to focus, so nothing is flattened while it is enabled.
+	private boolean flattenChild(TiViewProxy child)
+	{
+		if (child.peekView() != null || (child.children != null && !child.children.isEmpty())
+			|| child.getPendingAnimation() != null || !isFlatteningChildren()) {
+			return false;
+		}
+		View nativeView = view.getNativeView();
+		if (!(nativeView instanceof TiCompositeLayout) || !((TiCompositeLayout) nativeView).canHostFlatNodes()) {
+			return false;
+		}
+		AccessibilityManager accessibilityManager = TiApplication.getInstance().getAccessibilityManager();
+		if (accessibilityManager != null && accessibilityManager.isTouchExplorationEnabled()) {
+			return false;
+		}
+		TiFlatNode node = child.createFlatNode();
+		if (node == null || !node.canFlatten()) {
+			return false;
+		}
+		child.flatNode = node;
+		((TiCompositeLayout) nativeView).addFlatNode(node);
+		child.setModelListener(node);
+		return true;
+	}
+
+	/**
+	 * @return whether this proxy is drawn by its parent instead of having a view.
+	 */
+	public boolean isFlattened()
+	{
+		return flatNode != null;
+	}
+
+	/**
+	 * Replaces the flat node of this proxy by a view, for example when it starts listening to
+	 * touch events or is given a property its node cannot draw.
+	 */
+	public void unflatten()
+	{
+		if (TiApplication.isUIThread()) {
+			handleUnflatten();
+		} else {
+			getMainHandler().sendEmptyMessage(MSG_UNFLATTEN);
+		}
+	}
+
+	private void handleUnflatten()
+	{
+		if (flatNode == null) {
+			return;
+		}
+		flatNode.remove();
+		flatNode = null;
+		setModelListener(null);
+
+		TiViewProxy parentProxy = getParent();
+		TiUIView parentView = (parentProxy != null) ? parentProxy.peekView() : null;
+		if (parentView != null) {
+			parentView.insertAt(handleGetView(), parentProxy.getViewIndex(this));
+		}
+	}
+
+	// Flattened children have no view, so view indexes can be lower than child indexes.
+	private int getViewIndex(TiViewProxy child)
+	{
+		int index = 0;
+		if (children != null) {
+			for (TiViewProxy sibling : children) {
+				if (sibling == child) {
+					break;
+				}
+				if (sibling.peekView() != null) {
+					index++;
+				}
+			}
+		}
+		return index;
+	}
+
 	/**
 	 * Implementing classes should use this method to create and return the appropriate view.
 	 * @param activity the context activity.
@@ -576,7 +709,7 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 			}
 		} else if (args instanceof TiViewProxy) {
 			TiViewProxy child = (TiViewProxy) args;
-			if (peekView() != null) {
+			if (peekView() != null || flatNode != null) {
 				if (TiApplication.isUIThread()) {
 					handleAdd(child);
 					return;
@@ -634,7 +767,7 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 		}
 
 
-		if (view != null) {
+		if (view != null || flatNode != null) {
 			if (TiApplication.isUIThread()) {
 				handleInsertAt(options);
 				return;
@@ -647,6 +780,8 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 
 	private void handleInsertAt(@SuppressWarnings("rawtypes") HashMap options)
 	{
+		// Only leaves are flattened.
+		handleUnflatten();
 		TiViewProxy child = null;
 		Integer position = -1;
 		if(options.containsKey("view")) {
@@ -671,13 +806,16 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 			if (this instanceof DecorViewProxy) {
 				child.isDecorView = true;
 			}
-			TiUIView cv = child.getOrCreateView();
-			view.insertAt(cv, position);
+			if (!deferChildView(child) && !flattenChild(child)) {
+				view.insertAt(child.getOrCreateView(), getViewIndex(child));
+			}
 		}
 	}
 
 	private void handleAdd(TiViewProxy child)
 	{
+		// Only leaves are flattened.
+		handleUnflatten();
 		children.add(child);
 		child.parent = new WeakReference<TiViewProxy>(this);
 		if (view != null) {
@@ -685,7 +823,9 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 			if (this instanceof DecorViewProxy) {
 				child.isDecorView = true;
 			}
-			view.add(child.getOrCreateView());
+			if (!deferChildView(child) && !flattenChild(child)) {
+				view.add(child.getOrCreateView());
+			}
 		}
 	}
 
@@ -866,6 +1006,11 @@ public abstract class TiViewProxy extends KrollProxy implements Handler.Callback
 				pendingAnimation.setCallback(callback);
 			}
 
+			// Flat nodes are not animated, the view runs the pending animation once realized.
+			if (flatNode != null) {
+				unflatten();
+				return;
+			}
 			handlePendingAnimation(false);
 		}
 	}
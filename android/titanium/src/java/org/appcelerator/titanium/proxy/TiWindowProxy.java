@@ -26,6 +26,7 @@ import org.appcelerator.titanium.util.TiOrientationHelper;
 import org.appcelerator.titanium.util.TiUIHelper;
 import org.appcelerator.titanium.util.TiWeakList;
 import org.appcelerator.titanium.view.TiAnimation;
+import org.appcelerator.titanium.view.TiLayoutStats;
 import org.appcelerator.titanium.view.TiUIView;
 
 import android.app.Activity;
@@ -439,6 +440,26 @@ public abstract class TiWindowProxy extends TiViewProxy
 		}
 	}
 
+	/**
+	 * @param reset whether to reset the counters after reading them.
+	 * @return the number of layout and measure passes run by the Titanium layouts of this window,
+	 * or null if the window is not open.
+	 */
+	@Kroll.method
+	public KrollDict getLayoutStats(@Kroll.argument(optional = true) boolean reset)
+	{
+		Activity activity = getWindowActivity();
+		if (!(activity instanceof TiBaseActivity)) {
+			return null;
+		}
+		TiLayoutStats stats = ((TiBaseActivity) activity).getLayoutStats();
+		KrollDict result = stats.toDict();
+		if (reset) {
+			stats.reset();
+		}
+		return result;
+	}
+
 	protected abstract void handleOpen(KrollDict options);
 	protected abstract void handleClose(KrollDict options);
 	protected abstract Activity getWindowActivity();
@@ -104,6 +104,10 @@ import com.nineoldandroids.view.animation.AnimatorProxy;
  * </pre>
  * ...would be fine since no operation is duplicated. In such a case, a set of
  * Honeycomb+ property Animators can be safely derived.
+ * <p>
+ * On Jelly Bean+, an animation with the <code>accelerated</code> option is run by a
+ * {@link TiViewPropertyAnimator} instead, as long as it neither repeats nor animates
+ * colors, and its transform does not shear the view.
  */
 public class TiAnimationBuilder
 {
@@ -129,6 +133,7 @@ public class TiAnimationBuilder
 	protected TiAnimation animationProxy;
 	protected KrollFunction callback;
 	protected boolean relayoutChild = false, applyOpacity = false;
+	protected boolean accelerated = false;
 	@SuppressWarnings("rawtypes")
 	protected HashMap options;
 	protected View view;
@@ -234,6 +239,8 @@ public class TiAnimationBuilder
 					TiC.PROPERTY_BACKGROUND_COLOR);
 		}
 
+		accelerated = TiConvert.toBoolean(options, TiC.PROPERTY_ACCELERATED, false);
+
 		this.options = options;
 	}
 
@@ -1534,7 +1541,10 @@ public class TiAnimationBuilder
 		this.view = view;
 		this.viewProxy = viewProxy;
 
-		if (tdm == null || tdm.canUsePropertyAnimators()) {
+		TiViewPropertyAnimator viewPropertyAnimator = TiViewPropertyAnimator.create(this);
+		if (viewPropertyAnimator != null) {
+			viewPropertyAnimator.start();
+		} else if (tdm == null || tdm.canUsePropertyAnimators()) {
 			// We can use Honeycomb+ property Animators via the
 			// NineOldAndroids library.
 			buildPropertyAnimators().start();
@@ -1551,7 +1561,7 @@ public class TiAnimationBuilder
 		setAnchor(width, height, anchorX, anchorY);
 	}
 
-	private void setAnchor(int width, int height, float thisAnchorX,
+	void setAnchor(int width, int height, float thisAnchorX,
 			float thisAnchorY)
 	{
 		float pivotX = 0, pivotY = 0;
@@ -1615,7 +1625,7 @@ public class TiAnimationBuilder
 	 * @param v The native View.
 	 * @param running Whether an animation is running or not.
 	 */
-	private static void setAnimationRunningFor(View v, boolean running)
+	static void setAnimationRunningFor(View v, boolean running)
 	{
 		if (running) {
 			if (!isAnimationRunningFor(v)) {
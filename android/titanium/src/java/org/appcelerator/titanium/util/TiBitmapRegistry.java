@@ -0,0 +1,240 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollProxy;
+import org.appcelerator.kroll.common.Log;
+import org.appcelerator.titanium.TiApplication;
+import org.appcelerator.titanium.TiC;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Keeps track of the live bitmaps created by Titanium, the object that owns each of them and the
+ * window it was created for. Bitmaps are held weakly, so registering a bitmap never extends its
+ * lifetime. When an activity is destroyed, bitmaps that are still alive and still attributed to
+ * it through a live owner are reported as possible leaks.
+ */
+public class TiBitmapRegistry
+{
+	private static final String TAG = "TiBitmapRegistry";
+
+	// Give the runtime a chance to collect released proxies before looking for leaks.
+	private static final long LEAK_CHECK_DELAY = 5000;
+
+	protected static TiBitmapRegistry _instance;
+
+	private final WeakHashMap<Bitmap, Record> records = new WeakHashMap<Bitmap, Record>();
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private int leakedCount = 0;
+	private long leakedBytes = 0;
+
+	private static class Record
+	{
+		String owner;
+		WeakReference<Object> ownerRef;
+		int windowId;
+		String window;
+		boolean leaked;
+	}
+
+	public static synchronized TiBitmapRegistry getInstance()
+	{
+		if (_instance == null) {
+			_instance = new TiBitmapRegistry();
+		}
+		return _instance;
+	}
+
+	/**
+	 * Attributes a bitmap to an owner, replacing any previous attribution.
+	 * @param bitmap the bitmap to track.
+	 * @param owner the proxy, or any other object, holding the bitmap.
+	 */
+	public void register(Bitmap bitmap, Object owner)
+	{
+		register(bitmap, owner, true);
+	}
+
+	/**
+	 * Attributes a bitmap to an owner only if it is not tracked yet. Used by caches and loaders,
+	 * which should not hide the proxy that actually uses the bitmap.
+	 */
+	public void registerIfAbsent(Bitmap bitmap, Object owner)
+	{
+		register(bitmap, owner, false);
+	}
+
+	private synchronized void register(Bitmap bitmap, Object owner, boolean replace)
+	{
+		if (bitmap == null || owner == null) {
+			return;
+		}
+		if (!replace && records.containsKey(bitmap)) {
+			return;
+		}
+
+		Activity activity = null;
+		if (owner instanceof KrollProxy) {
+			activity = ((KrollProxy) owner).getActivity();
+		}
+		if (activity == null && !(owner instanceof String)) {
+			activity = TiApplication.getAppCurrentActivity();
+		}
+
+		Record record = new Record();
+		record.owner = describe(owner);
+		record.ownerRef = new WeakReference<Object>(owner);
+		if (activity != null) {
+			record.windowId = System.identityHashCode(activity);
+			record.window = describe(activity);
+		}
+		records.put(bitmap, record);
+	}
+
+	/**
+	 * Stops tracking a bitmap, for example right before it is recycled.
+	 */
+	public synchronized void unregister(Bitmap bitmap)
+	{
+		if (bitmap != null) {
+			records.remove(bitmap);
+		}
+	}
+
+	/**
+	 * Stops tracking a bitmap if it is still attributed to the given owner, for example when a view
+	 * that showed it is released. Attributions to other owners are kept.
+	 */
+	public synchronized void unregister(Bitmap bitmap, Object owner)
+	{
+		if (bitmap == null) {
+			return;
+		}
+		Record record = records.get(bitmap);
+		if (record != null && record.ownerRef.get() == owner) {
+			records.remove(bitmap);
+		}
+	}
+
+	/**
+	 * Schedules a check for bitmaps that outlive the given activity.
+	 * @param activity the activity being destroyed.
+	 */
+	public void onActivityDestroyed(Activity activity)
+	{
+		final int windowId = System.identityHashCode(activity);
+		final String window = describe(activity);
+		handler.postDelayed(new Runnable() {
+			public void run()
+			{
+				checkForLeaks(windowId, window);
+			}
+		}, LEAK_CHECK_DELAY);
+	}
+
+	private synchronized void checkForLeaks(int windowId, String window)
+	{
+		for (Map.Entry<Bitmap, Record> entry : records.entrySet()) {
+			Bitmap bitmap = entry.getKey();
+			Record record = entry.getValue();
+			if (bitmap == null || record.leaked || record.windowId != windowId || bitmap.isRecycled()) {
+				continue;
+			}
+			if (record.ownerRef.get() == null) {
+				continue;
+			}
+			record.leaked = true;
+			int bytes = getByteCount(bitmap);
+			leakedCount++;
+			leakedBytes += bytes;
+			Log.w(TAG, "Possible bitmap leak: " + bitmap.getWidth() + "x" + bitmap.getHeight() + " (" + bytes
+				+ " bytes) owned by " + record.owner + " is still alive after " + window + " was destroyed");
+		}
+	}
+
+	/**
+	 * @return a snapshot of the live bitmap memory, grouped by owner and by window.
+	 */
+	public synchronized KrollDict getStats()
+	{
+		long totalBytes = 0;
+		int count = 0;
+		HashMap<String, Object> owners = new HashMap<String, Object>();
+		HashMap<String, Object> windows = new HashMap<String, Object>();
+		ArrayList<Object> leaks = new ArrayList<Object>();
+
+		for (Map.Entry<Bitmap, Record> entry : records.entrySet()) {
+			Bitmap bitmap = entry.getKey();
+			Record record = entry.getValue();
+			if (bitmap == null || bitmap.isRecycled()) {
+				continue;
+			}
+			int bytes = getByteCount(bitmap);
+			totalBytes += bytes;
+			count++;
+			addBytes(owners, record.owner, bytes);
+			if (record.window != null) {
+				addBytes(windows, record.window, bytes);
+			}
+			if (record.leaked) {
+				KrollDict leak = new KrollDict();
+				leak.put(TiC.PROPERTY_WIDTH, bitmap.getWidth());
+				leak.put(TiC.PROPERTY_HEIGHT, bitmap.getHeight());
+				leak.put("bytes", bytes);
+				leak.put("owner", record.owner);
+				leak.put("window", record.window);
+				leaks.add(leak);
+			}
+		}
+
+		KrollDict stats = new KrollDict();
+		stats.put("count", count);
+		stats.put("bytes", totalBytes);
+		stats.put("owners", new KrollDict(owners));
+		stats.put("windows", new KrollDict(windows));
+		stats.put("leaks", leaks.toArray());
+		stats.put("leakedCount", leakedCount);
+		stats.put("leakedBytes", leakedBytes);
+		return stats;
+	}
+
+	private static void addBytes(HashMap<String, Object> map, String key, int bytes)
+	{
+		Object current = map.get(key);
+		long total = (current instanceof Long) ? (Long) current : 0;
+		map.put(key, total + bytes);
+	}
+
+	private static String describe(Object owner)
+	{
+		if (owner instanceof String) {
+			return (String) owner;
+		}
+		String name = (owner instanceof KrollProxy) ? ((KrollProxy) owner).getApiName() : owner.getClass().getSimpleName();
+		return name + "@" + Integer.toHexString(System.identityHashCode(owner));
+	}
+
+	private static int getByteCount(Bitmap bitmap)
+	{
+		if (android.os.Build.VERSION.SDK_INT > TiC.API_LEVEL_HONEYCOMB) {
+			return bitmap.getByteCount();
+		} else {
+			return bitmap.getRowBytes() * bitmap.getHeight();
+		}
+	}
+}
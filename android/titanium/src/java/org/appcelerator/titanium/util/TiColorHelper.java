@@ -1,14 +1,16 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2012 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package org.appcelerator.titanium.util;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,7 +31,11 @@ public class TiColorHelper
 	static Pattern floatsPattern = Pattern.compile("rgba\\(\\s*(\\d\\.\\d)\\s*,\\s*(\\d\\.\\d)\\s*,\\s*(\\d\\.\\d)\\s*,\\s*(\\d\\.\\d)\\s*\\)");
 
 	private static final String TAG = "TiColorHelper";
-	private static HashMap<String, Integer> colorTable;
+	private static volatile HashMap<String, Integer> colorTable;
+	// The colors parsed from each string, so that colors converted ahead of time, for example by the
+	// ListView binding worker, are not parsed again when they are applied.
+	private static final int MAX_PARSED_COLORS = 256;
+	private static final Map<String, Integer> parsedColors = Collections.synchronizedMap(new HashMap<String, Integer>());
 	private static List<String> alphaMissingColors = Arrays.asList(new String[] {"aqua", "fuchsia", "lime", "maroon", "navy", "olive", "purple", "silver", "teal"});
 	
 
@@ -39,6 +45,24 @@ public class TiColorHelper
 	 * @return the RGB/RGBA representation (int) of the color.
 	 */
 	public static int parseColor(String value) {
+		if (value == null) {
+			return Color.TRANSPARENT;
+		}
+		Integer parsed = parsedColors.get(value);
+		if (parsed != null) {
+			return parsed;
+		}
+		int color = parse(value);
+		synchronized (parsedColors) {
+			if (parsedColors.size() >= MAX_PARSED_COLORS) {
+				parsedColors.clear();
+			}
+			parsedColors.put(value, color);
+		}
+		return color;
+	}
+
+	private static int parse(String value) {
 		int color = Color.TRANSPARENT;
 		if (value != null) {
 			String lowval = value.trim().toLowerCase();
@@ -110,7 +134,8 @@ public class TiColorHelper
 
 	private static void buildColorTable() {
 		synchronized(TiColorHelper.class) {
-			colorTable = new HashMap<String, Integer>(20);
+			// Filled before it is published, as colors may be parsed on background threads.
+			HashMap<String, Integer> colorTable = new HashMap<String, Integer>(20);
 
 			colorTable.put("black", Color.BLACK);
 			colorTable.put("red", Color.RED);
@@ -132,6 +157,7 @@ public class TiColorHelper
 			colorTable.put("olive", Color.rgb(0x80, 0x80, 0));
 			colorTable.put("teal", Color.rgb(0x0, 0x80, 0x80));
 			colorTable.put("brown", Color.rgb(0x99, 0x66, 0x33));
+			TiColorHelper.colorTable = colorTable;
 		}
 	}
 }
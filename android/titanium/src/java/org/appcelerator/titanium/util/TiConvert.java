@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2012 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -154,6 +154,54 @@ public class TiConvert
 		return toColor(TiConvert.toString(hashMap.get(key)));
 	}
 
+	/**
+	 * Parses the colors, dimensions and font families of a property dictionary ahead of time, and may
+	 * be called from any thread. Only the caches of the converters are filled: the results are not
+	 * returned and the dictionary is not modified. The color and dimension caches are bounded and
+	 * dropped when full, so applying the properties later on the UI thread finds the values already
+	 * parsed only while the caches still hold them.
+	 * @param properties the properties to parse.
+	 */
+	public static void preconvert(HashMap<String, Object> properties)
+	{
+		for (Map.Entry<String, Object> entry : properties.entrySet()) {
+			String key = entry.getKey();
+			Object value = entry.getValue();
+			if (key == null || value == null) {
+				continue;
+			}
+			int dimensionType = getDimensionType(key);
+			if (dimensionType != TiDimension.TYPE_UNDEFINED) {
+				toTiDimension(value, dimensionType);
+			} else if (value instanceof String && (TiC.PROPERTY_COLOR.equals(key) || key.endsWith("Color"))) {
+				toColor((String) value);
+			} else if (value instanceof HashMap && TiC.PROPERTY_FONT.equals(key)) {
+				Object fontFamily = ((HashMap<?, ?>) value).get(TiC.PROPERTY_FONTFAMILY);
+				if (fontFamily instanceof String) {
+					TiUIHelper.toTypeface(TiApplication.getInstance(), (String) fontFamily);
+				}
+			}
+		}
+	}
+
+	private static int getDimensionType(String key)
+	{
+		if (TiC.PROPERTY_WIDTH.equals(key) || TiC.PROPERTY_BORDER_WIDTH.equals(key)) {
+			return TiDimension.TYPE_WIDTH;
+		} else if (TiC.PROPERTY_HEIGHT.equals(key)) {
+			return TiDimension.TYPE_HEIGHT;
+		} else if (TiC.PROPERTY_LEFT.equals(key)) {
+			return TiDimension.TYPE_LEFT;
+		} else if (TiC.PROPERTY_RIGHT.equals(key)) {
+			return TiDimension.TYPE_RIGHT;
+		} else if (TiC.PROPERTY_TOP.equals(key)) {
+			return TiDimension.TYPE_TOP;
+		} else if (TiC.PROPERTY_BOTTOM.equals(key)) {
+			return TiDimension.TYPE_BOTTOM;
+		}
+		return TiDimension.TYPE_UNDEFINED;
+	}
+
 	public static ColorDrawable toColorDrawable(String value)
 	{
 		return new ColorDrawable(toColor(value));
@@ -0,0 +1,160 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.appcelerator.titanium.TiC;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.NinePatchDrawable;
+import android.support.v4.util.LruCache;
+
+/**
+ * Caches the constant state of drawables loaded from local resources, so that views sharing
+ * the same background image share one decoded bitmap. Each lookup returns a new, mutated
+ * drawable, so per-view changes such as tile mode or alpha do not leak between views.
+ */
+public class TiDrawableCache extends LruCache<String, TiDrawableCache.Entry>
+{
+	private static final String TAG = "TiDrawableCache";
+
+	// Get max available VM memory, exceeding this amount will throw an
+	// OutOfMemory exception. Stored in kilobytes as LruCache takes an
+	// int in its constructor.
+	private static final int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
+
+	// Use 1/16th of the available memory for this memory cache.
+	private static final int cacheSize = maxMemory / 16;
+
+	protected static TiDrawableCache _instance;
+
+	// Bitmaps that are, or were, shared through this cache and must not be recycled by their users.
+	private final Set<Bitmap> sharedBitmaps = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Bitmap, Boolean>()));
+
+	static class Entry
+	{
+		final Drawable.ConstantState state;
+		final int byteCount;
+
+		Entry(Drawable.ConstantState state, int byteCount)
+		{
+			this.state = state;
+			this.byteCount = byteCount;
+		}
+	}
+
+	public static TiDrawableCache getInstance()
+	{
+		if (_instance == null) {
+			_instance = new TiDrawableCache();
+		}
+		return _instance;
+	}
+
+	public TiDrawableCache()
+	{
+		super(cacheSize);
+	}
+
+	/**
+	 * Builds the cache key of a drawable.
+	 * @param path the resolved path of the image.
+	 * @param lastModified the last modified time of the image file, so that a file replaced on disk is
+	 * decoded again, or 0 for application assets.
+	 * @param densityDpi the density the bitmap was scaled for, or 0 if it is not density scaled.
+	 * @param checkForNinePatch whether the image was checked for nine-patch borders.
+	 * @return the cache key.
+	 */
+	public static String getKey(String path, long lastModified, int densityDpi, boolean checkForNinePatch)
+	{
+		return path + "|" + lastModified + "|" + densityDpi + "|" + (checkForNinePatch ? "9" : "-");
+	}
+
+	/**
+	 * @param key the key returned by {@link #getKey(String, long, int, boolean)}.
+	 * @return a new drawable sharing the cached bitmap, or null if there is none.
+	 */
+	public Drawable getDrawable(String key)
+	{
+		Entry entry = get(key);
+		if (entry == null) {
+			return null;
+		}
+		return entry.state.newDrawable().mutate();
+	}
+
+	/**
+	 * Caches the given drawable if it is backed by a single bitmap.
+	 * @param key the key returned by {@link #getKey(String, long, int, boolean)}.
+	 * @param drawable the freshly decoded drawable.
+	 * @return a drawable to hand out in place of the given one.
+	 */
+	public Drawable putDrawable(String key, Drawable drawable)
+	{
+		Bitmap bitmap = null;
+		if (drawable instanceof BitmapDrawable) {
+			bitmap = ((BitmapDrawable) drawable).getBitmap();
+		} else if (!(drawable instanceof NinePatchDrawable)) {
+			return drawable;
+		}
+		Drawable.ConstantState state = drawable.getConstantState();
+		if (state == null) {
+			return drawable;
+		}
+
+		int byteCount = (bitmap != null) ? getByteCount(bitmap) : drawable.getIntrinsicWidth() * drawable.getIntrinsicHeight() * 4;
+		if (bitmap != null) {
+			sharedBitmaps.add(bitmap);
+			TiBitmapRegistry.getInstance().registerIfAbsent(bitmap, TAG);
+		}
+		put(key, new Entry(state, byteCount));
+		return state.newDrawable().mutate();
+	}
+
+	/**
+	 * @return true if the bitmap is shared through this cache and must not be recycled.
+	 */
+	public boolean isShared(Bitmap bitmap)
+	{
+		return bitmap != null && sharedBitmaps.contains(bitmap);
+	}
+
+	/**
+	 * Releases cached drawables in response to a trim memory request.
+	 * @param level the level passed to onTrimMemory.
+	 */
+	public void trim(int level)
+	{
+		if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			evictAll();
+		} else {
+			trimToSize(maxSize() / 2);
+		}
+	}
+
+	@Override
+	protected int sizeOf(String key, Entry entry)
+	{
+		// The cache size will be measured in kilobytes rather than
+		// number of items.
+		return Math.max(1, entry.byteCount / 1024);
+	}
+
+	private static int getByteCount(Bitmap bitmap)
+	{
+		if (android.os.Build.VERSION.SDK_INT > TiC.API_LEVEL_HONEYCOMB) {
+			return bitmap.getByteCount();
+		} else {
+			return bitmap.getRowBytes() * bitmap.getHeight();
+		}
+	}
+}
@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2012 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -316,6 +316,20 @@ public class TiFileHelper implements Handler.Callback
 			return d;
 		}
 
+		// Local images are decoded once and shared between views through the drawable cache.
+		String cacheKey = null;
+		if (path != null && !URLUtil.isNetworkUrl(path)) {
+			int densityDpi = 0;
+			if (densityScaled) {
+				densityDpi = TiApplication.getInstance().getResources().getDisplayMetrics().densityDpi;
+			}
+			cacheKey = TiDrawableCache.getKey(path, getLastModified(path), densityDpi, checkForNinePatch);
+			d = TiDrawableCache.getInstance().getDrawable(cacheKey);
+			if (d != null) {
+				return d;
+			}
+		}
+
 		try
 		{
 			if (checkForNinePatch && path != null && !URLUtil.isNetworkUrl(path)) {
@@ -368,9 +382,35 @@ public class TiFileHelper implements Handler.Callback
 			}
 		}
 
+		if (d != null && cacheKey != null) {
+			d = TiDrawableCache.getInstance().putDrawable(cacheKey, d);
+		}
 		return d;
 	}
 
+	/**
+	 * @param path the path of a local image, as passed to {@link #openInputStream(String, boolean)}.
+	 * @return the last modified time of the file, or 0 if the path is an application asset or resource,
+	 * which can not change while the application runs.
+	 */
+	private long getLastModified(String path)
+	{
+		if (isTitaniumResource(path) || path.startsWith(RESOURCE_ROOT_ASSETS)) {
+			return 0;
+		}
+		if (path.startsWith(SD_CARD_PREFIX)) {
+			return new File(path).lastModified();
+		}
+		if (URLUtil.isFileUrl(path)) {
+			try {
+				return new File(new URI(path).getPath()).lastModified();
+			} catch (URISyntaxException e) {
+				return new File(path.substring("file://".length())).lastModified();
+			}
+		}
+		return 0;
+	}
+
 	public boolean isTitaniumResource(String s) {
 		boolean result = false;
 		if (s != null && s.startsWith(TI_RESOURCE_PREFIX)) {
@@ -0,0 +1,109 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import org.appcelerator.kroll.KrollDict;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * Counts the frames drawn while it runs, and the frames that were skipped because a frame took
+ * longer than the refresh interval of the display.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+public class TiFrameMonitor implements Choreographer.FrameCallback
+{
+	private static final float DEFAULT_REFRESH_RATE = 60f;
+
+	private final long frameIntervalNanos;
+	private boolean running;
+	private long lastFrameTimeNanos;
+	private int frames;
+	private int droppedFrames;
+
+	public TiFrameMonitor(Context context)
+	{
+		float refreshRate = DEFAULT_REFRESH_RATE;
+		WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		if (windowManager != null) {
+			Display display = windowManager.getDefaultDisplay();
+			if (display != null && display.getRefreshRate() > 0) {
+				refreshRate = display.getRefreshRate();
+			}
+		}
+		frameIntervalNanos = (long) (1000000000L / refreshRate);
+	}
+
+	/**
+	 * Starts counting from the next frame. Must be called on the UI thread.
+	 */
+	public void start()
+	{
+		if (running) {
+			return;
+		}
+		running = true;
+		lastFrameTimeNanos = 0;
+		frames = 0;
+		droppedFrames = 0;
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+
+	/**
+	 * Stops counting. Must be called on the UI thread.
+	 */
+	public void stop()
+	{
+		if (!running) {
+			return;
+		}
+		running = false;
+		Choreographer.getInstance().removeFrameCallback(this);
+	}
+
+	public void doFrame(long frameTimeNanos)
+	{
+		if (!running) {
+			return;
+		}
+		if (lastFrameTimeNanos > 0) {
+			long skipped = Math.round((double) (frameTimeNanos - lastFrameTimeNanos) / frameIntervalNanos) - 1;
+			if (skipped > 0) {
+				droppedFrames += skipped;
+			}
+		}
+		lastFrameTimeNanos = frameTimeNanos;
+		frames++;
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+
+	public int getFrames()
+	{
+		return frames;
+	}
+
+	public int getDroppedFrames()
+	{
+		return droppedFrames;
+	}
+
+	/**
+	 * @return the counters as the <code>frames</code> and <code>droppedFrames</code> keys.
+	 */
+	public KrollDict toDict()
+	{
+		KrollDict dict = new KrollDict();
+		dict.put("frames", frames);
+		dict.put("droppedFrames", droppedFrames);
+		return dict;
+	}
+}
@@ -7,11 +7,17 @@
 
 package org.appcelerator.titanium.util;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 
 import org.appcelerator.kroll.common.Log;
+import org.appcelerator.titanium.TiBlob;
+import org.appcelerator.titanium.io.TiFile;
 
 import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Paint;
@@ -168,6 +174,98 @@ public class TiImageHelper
 		return orientation;
 	}
 	
+	// EXIF tags carried over when a capture is re-encoded.
+	private static final String[] CAPTURE_EXIF_TAGS = {
+		ExifInterface.TAG_DATETIME, ExifInterface.TAG_MAKE, ExifInterface.TAG_MODEL, ExifInterface.TAG_FLASH,
+		ExifInterface.TAG_FOCAL_LENGTH, ExifInterface.TAG_WHITE_BALANCE, ExifInterface.TAG_GPS_LATITUDE,
+		ExifInterface.TAG_GPS_LATITUDE_REF, ExifInterface.TAG_GPS_LONGITUDE, ExifInterface.TAG_GPS_LONGITUDE_REF,
+		ExifInterface.TAG_GPS_TIMESTAMP, ExifInterface.TAG_GPS_DATESTAMP, ExifInterface.TAG_GPS_PROCESSING_METHOD
+	};
+
+	/**
+	 * Post-processes a captured JPEG in place, applying the maximum size and quality settings.
+	 * When no re-encoding is required the pixels are left untouched and the EXIF orientation is kept,
+	 * which is a lossless rotation for every consumer that honours it. Otherwise the capture is decoded
+	 * sub-sampled to at most twice the target size, rotated and scaled while being drawn into the output
+	 * bitmap, and streamed back to disk, so a full-size bitmap is never allocated.
+	 * @param file the captured JPEG file.
+	 * @param maxSize maximum width and height of the result in pixels, or 0 to keep the size.
+	 * @param quality JPEG quality from 0.0 to 1.0, or a negative value to keep the original encoding.
+	 * @return true if the file is valid after processing.
+	 */
+	public static boolean processCapture(File file, int maxSize, float quality)
+	{
+		TiBlob blob = TiBlob.blobFromFile(new TiFile(file, file.getAbsolutePath(), false));
+		int largest = Math.max(blob.getWidth(), blob.getHeight());
+		boolean downscale = maxSize > 0 && largest > maxSize;
+		if (!downscale && quality < 0) {
+			return largest > 0;
+		}
+
+		TiImageTransform transform = new TiImageTransform(blob);
+		if (!transform.isValid()) {
+			return false;
+		}
+		Bitmap output = transform.fit(maxSize).render();
+		if (output == null) {
+			return false;
+		}
+
+		ExifInterface original = null;
+		try {
+			original = new ExifInterface(file.getAbsolutePath());
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to read EXIF data of the capture: " + e.getMessage());
+		}
+
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		FileOutputStream out = null;
+		try {
+			int jpegQuality = quality < 0 ? 100 : Math.max(0, Math.min(100, (int) (quality * 100)));
+			out = new FileOutputStream(tempFile);
+			if (!output.compress(CompressFormat.JPEG, jpegQuality, out)) {
+				return false;
+			}
+			out.close();
+			out = null;
+			if (!tempFile.renameTo(file)) {
+				Log.e(TAG, "Unable to replace the capture with the processed image.");
+				return false;
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Unable to write the processed capture: " + e.getMessage(), e);
+			return false;
+		} finally {
+			output.recycle();
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+			tempFile.delete();
+		}
+
+		// The pixels are now upright, so only copy the descriptive tags over.
+		try {
+			ExifInterface exif = new ExifInterface(file.getAbsolutePath());
+			if (original != null) {
+				for (String tag : CAPTURE_EXIF_TAGS) {
+					String value = original.getAttribute(tag);
+					if (value != null) {
+						exif.setAttribute(tag, value);
+					}
+				}
+			}
+			exif.setAttribute(ExifInterface.TAG_ORIENTATION, Integer.toString(ExifInterface.ORIENTATION_NORMAL));
+			exif.saveAttributes();
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to write EXIF data of the capture: " + e.getMessage());
+		}
+		return true;
+	}
+
 	/**
 	 * Rotate the image
 	 * @param bm source bitmap
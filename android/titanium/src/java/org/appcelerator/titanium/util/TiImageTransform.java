@@ -0,0 +1,355 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.appcelerator.kroll.common.Log;
+import org.appcelerator.titanium.TiBlob;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Path.Direction;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * A lazily evaluated chain of image operations on a blob. Crop, resize, thumbnail and
+ * rounded corner steps are folded into a single source rectangle and a single output size,
+ * so that {@link #apply()} decodes the source once (sub-sampled, and only the region that is
+ * actually needed when possible), draws it once into the output bitmap and encodes it once.
+ */
+public class TiImageTransform
+{
+	private static final String TAG = "TiImageTransform";
+
+	private final TiBlob source;
+
+	// The source rectangle in oriented (EXIF rotated) source pixels and the size it maps to.
+	private RectF srcRect;
+	private int outWidth, outHeight;
+	private int rotation;
+
+	private float cornerRadius = 0f;
+	private float borderSize = 0f;
+	private int quality = -1;
+
+	/**
+	 * Creates a new transform for the given image blob. No decoding happens until {@link #apply()}.
+	 * @param source the blob to transform.
+	 */
+	public TiImageTransform(TiBlob source)
+	{
+		this.source = source;
+		if (source.getType() == TiBlob.TYPE_FILE) {
+			rotation = TiImageHelper.getOrientation(source.getNativePath());
+		}
+		int width = source.getWidth();
+		int height = source.getHeight();
+		if (rotation == 90 || rotation == 270) {
+			int tmp = width;
+			width = height;
+			height = tmp;
+		}
+		srcRect = new RectF(0, 0, width, height);
+		outWidth = width;
+		outHeight = height;
+	}
+
+	/**
+	 * @return true if the source blob has image dimensions that can be transformed.
+	 */
+	public boolean isValid()
+	{
+		return outWidth > 0 && outHeight > 0;
+	}
+
+	/**
+	 * @return the width of the output of the steps added so far.
+	 */
+	public int getWidth()
+	{
+		return outWidth;
+	}
+
+	/**
+	 * @return the height of the output of the steps added so far.
+	 */
+	public int getHeight()
+	{
+		return outHeight;
+	}
+
+	/**
+	 * Crops the current image. Coordinates are relative to the output of the previous steps.
+	 */
+	public TiImageTransform crop(int x, int y, int width, int height)
+	{
+		float scaleX = srcRect.width() / outWidth;
+		float scaleY = srcRect.height() / outHeight;
+		float left = srcRect.left + x * scaleX;
+		float top = srcRect.top + y * scaleY;
+		srcRect = new RectF(left, top, left + width * scaleX, top + height * scaleY);
+		outWidth = width;
+		outHeight = height;
+		return this;
+	}
+
+	/**
+	 * Scales the current image to the given size.
+	 */
+	public TiImageTransform resize(int width, int height)
+	{
+		outWidth = width;
+		outHeight = height;
+		return this;
+	}
+
+	/**
+	 * Center crops the current image to a square and scales it to the given size, as
+	 * {@link android.media.ThumbnailUtils#extractThumbnail(Bitmap, int, int)} does.
+	 */
+	public TiImageTransform thumbnail(int size)
+	{
+		int side = Math.min(outWidth, outHeight);
+		crop((outWidth - side) / 2, (outHeight - side) / 2, side, side);
+		return resize(size, size);
+	}
+
+	/**
+	 * Scales the current image down, keeping its aspect ratio, so that neither side exceeds maxSize.
+	 */
+	public TiImageTransform fit(int maxSize)
+	{
+		int largest = Math.max(outWidth, outHeight);
+		if (maxSize > 0 && largest > maxSize) {
+			float scale = (float) maxSize / largest;
+			resize(Math.max(1, Math.round(outWidth * scale)), Math.max(1, Math.round(outHeight * scale)));
+		}
+		return this;
+	}
+
+	/**
+	 * Rounds the corners of the final image and adds a transparent border around it.
+	 * This is always drawn last, regardless of its position in the chain.
+	 */
+	public TiImageTransform roundedCorner(float radius, float border)
+	{
+		if (radius <= 0 || border < 0) {
+			Log.w(TAG, "Unable to add rounded corners. Invalid corner radius or borderSize.");
+			return this;
+		}
+		cornerRadius = radius;
+		borderSize = border;
+		return this;
+	}
+
+	/**
+	 * Encodes the final image as JPEG with the given quality, from 0.0 to 1.0.
+	 */
+	public TiImageTransform compress(float quality)
+	{
+		this.quality = Math.max(0, Math.min(100, (int) (quality * 100)));
+		return this;
+	}
+
+	/**
+	 * Runs the whole chain. This may be called from any thread.
+	 * @return the resulting image blob, or null if the source could not be decoded.
+	 */
+	public TiBlob apply()
+	{
+		Bitmap result = render();
+		if (result == null) {
+			return null;
+		}
+		if (quality >= 0) {
+			return TiBlob.blobFromImage(result, CompressFormat.JPEG, quality);
+		}
+		return TiBlob.blobFromImage(result);
+	}
+
+	/**
+	 * Decodes and draws the chain into a single output bitmap.
+	 * @return the output bitmap, or null if the source could not be decoded.
+	 */
+	public Bitmap render()
+	{
+		if (!isValid()) {
+			return null;
+		}
+
+		int rawWidth = source.getWidth();
+		int rawHeight = source.getHeight();
+
+		// Maps raw source pixels to oriented source pixels.
+		Matrix orient = new Matrix();
+		orient.setRotate(rotation);
+		RectF bounds = new RectF(0, 0, rawWidth, rawHeight);
+		orient.mapRect(bounds);
+		orient.postTranslate(-bounds.left, -bounds.top);
+
+		Matrix inverse = new Matrix();
+		orient.invert(inverse);
+		RectF rawRectF = new RectF(srcRect);
+		inverse.mapRect(rawRectF);
+		Rect rawRect = new Rect();
+		rawRectF.roundOut(rawRect);
+		if (!rawRect.intersect(0, 0, rawWidth, rawHeight)) {
+			Log.e(TAG, "Unable to transform the image. The crop rectangle is outside of the image.");
+			return null;
+		}
+
+		Bitmap decoded = null;
+		Rect decodedRect = new Rect(0, 0, rawWidth, rawHeight);
+		boolean recycleDecoded = true;
+		try {
+			if (source.getType() == TiBlob.TYPE_IMAGE) {
+				decoded = source.getImage();
+				recycleDecoded = false;
+			} else {
+				boolean swap = rotation == 90 || rotation == 270;
+				int neededWidth = swap ? outHeight : outWidth;
+				int neededHeight = swap ? outWidth : outHeight;
+				BitmapFactory.Options opts = new BitmapFactory.Options();
+				opts.inSampleSize = calculateSampleSize(rawRect.width(), rawRect.height(), neededWidth, neededHeight);
+				opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
+
+				boolean partial = rawRect.width() < rawWidth || rawRect.height() < rawHeight;
+				if (partial) {
+					decoded = decodeRegion(rawRect, opts);
+					if (decoded != null) {
+						decodedRect = rawRect;
+					}
+				}
+				if (decoded == null) {
+					decoded = decodeFull(opts);
+				}
+			}
+			if (decoded == null) {
+				Log.e(TAG, "Unable to decode the image.");
+				return null;
+			}
+
+			int border = (int) borderSize;
+			boolean rounded = cornerRadius > 0;
+			Bitmap.Config config = (rounded || border > 0 || decoded.hasAlpha()) ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+			Bitmap output = Bitmap.createBitmap(outWidth + border * 2, outHeight + border * 2, config);
+			Canvas canvas = new Canvas(output);
+			RectF dstRect = new RectF(border, border, outWidth + border, outHeight + border);
+
+			if (rounded) {
+				Path clipPath = new Path();
+				float radii[] = new float[8];
+				Arrays.fill(radii, cornerRadius);
+				clipPath.addRoundRect(dstRect, radii, Direction.CW);
+				try {
+					canvas.clipPath(clipPath);
+				} catch (Exception e) {
+					Log.e(TAG, "clipPath failed on canvas: " + e.getMessage());
+					canvas.clipRect(dstRect);
+				}
+			}
+
+			// decoded pixels -> raw pixels -> oriented pixels -> output pixels
+			Matrix matrix = new Matrix();
+			matrix.setScale((float) decodedRect.width() / decoded.getWidth(),
+				(float) decodedRect.height() / decoded.getHeight());
+			matrix.postTranslate(decodedRect.left, decodedRect.top);
+			matrix.postConcat(orient);
+			Matrix fit = new Matrix();
+			fit.setRectToRect(srcRect, dstRect, Matrix.ScaleToFit.FILL);
+			matrix.postConcat(fit);
+
+			Paint paint = new Paint();
+			paint.setAntiAlias(true);
+			paint.setFilterBitmap(true);
+			paint.setDither(true);
+			canvas.drawBitmap(decoded, matrix, paint);
+			return output;
+
+		} catch (OutOfMemoryError e) {
+			TiBlobLruCache.getInstance().evictAll();
+			Log.e(TAG, "Unable to transform the image. Not enough memory: " + e.getMessage(), e);
+			return null;
+		} finally {
+			if (recycleDecoded && decoded != null) {
+				decoded.recycle();
+			}
+		}
+	}
+
+	private Bitmap decodeRegion(Rect region, BitmapFactory.Options opts)
+	{
+		InputStream stream = source.getInputStream();
+		if (stream == null) {
+			return null;
+		}
+		BitmapRegionDecoder decoder = null;
+		try {
+			decoder = BitmapRegionDecoder.newInstance(stream, false);
+			return decoder.decodeRegion(region, opts);
+		} catch (IOException e) {
+			// Not a JPEG or PNG, fall back to decoding the whole image.
+			Log.d(TAG, "Unable to decode region: " + e.getMessage(), Log.DEBUG_MODE);
+			return null;
+		} finally {
+			if (decoder != null) {
+				decoder.recycle();
+			}
+			closeQuietly(stream);
+		}
+	}
+
+	private Bitmap decodeFull(BitmapFactory.Options opts)
+	{
+		InputStream stream = source.getInputStream();
+		if (stream == null) {
+			return null;
+		}
+		try {
+			return BitmapFactory.decodeStream(stream, null, opts);
+		} finally {
+			closeQuietly(stream);
+		}
+	}
+
+	private static void closeQuietly(InputStream stream)
+	{
+		try {
+			stream.close();
+		} catch (IOException e) {
+			Log.w(TAG, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the largest power of two sample size that keeps the decoded image at least as large as the
+	 * requested size.
+	 */
+	public static int calculateSampleSize(int srcWidth, int srcHeight, int dstWidth, int dstHeight)
+	{
+		if (dstWidth <= 0 || dstHeight <= 0) {
+			return 1;
+		}
+		int targetScale = Math.min(srcWidth / dstWidth, srcHeight / dstHeight);
+		int sampleSize = 1;
+		while (targetScale >= 2) {
+			sampleSize *= 2;
+			targetScale /= 2;
+		}
+		return sampleSize;
+	}
+}
@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2013 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2013-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -78,6 +78,15 @@ public class TiLoadImageManager implements Handler.Callback
 		}
 	}
 
+	/**
+	 * Runs a job on the image loader threads, for decoding work that does not fit {@link #load}.
+	 * @param job the job to run.
+	 */
+	public void execute(Runnable job)
+	{
+		threadPool.execute(job);
+	}
+
 	protected void handleLoadImageMessage(int what, int hash, Bitmap bitmap)
 	{
 		ArrayList<SoftReference<TiLoadImageListener>> toRemove = new ArrayList<SoftReference<TiLoadImageListener>>();
@@ -7,6 +7,8 @@
 package org.appcelerator.titanium.util;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -38,6 +40,9 @@ import org.apache.commons.codec.digest.DigestUtils;
 import org.appcelerator.kroll.common.Log;
 import org.appcelerator.titanium.TiApplication;
 
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
+import android.graphics.BitmapFactory;
 import android.os.Build;
 
 public class TiResponseCache extends ResponseCache
@@ -46,6 +51,9 @@ public class TiResponseCache extends ResponseCache
 
 	private static final String HEADER_SUFFIX = ".hdr";
 	private static final String BODY_SUFFIX   = ".bdy";
+	private static final String PLACEHOLDER_SUFFIX = ".plh";
+	private static final int PLACEHOLDER_SIZE = 32;
+	private static final int PLACEHOLDER_QUALITY = 70;
 	private static final String CACHE_SIZE_KEY = "ti.android.cache.size.max";
 	private static final int DEFAULT_CACHE_SIZE = 25 * 1024 * 1024; // 25MB
 	private static final int INITIAL_DELAY = 10000;
@@ -97,12 +105,15 @@ public class TiResponseCache extends ResponseCache
 				File hdrFile = lastTime.get(last);
 				String h = hdrFile.getName().substring(0, hdrFile.getName().lastIndexOf('.')); // Hash
 				File bdyFile = new File(cacheDir, h + BODY_SUFFIX);
+				File plhFile = new File(cacheDir, h + PLACEHOLDER_SUFFIX);
 				
 				cacheSize += hdrFile.length();
 				cacheSize += bdyFile.length();
+				cacheSize += plhFile.length();
 				if (cacheSize > this.maxSize) {
 					hdrFile.delete();
 					bdyFile.delete();
+					plhFile.delete();
 				}
 			}
 		}
@@ -281,6 +292,108 @@ public class TiResponseCache extends ResponseCache
 		return null;
 	}
 
+	/**
+	 * A tiny, low quality version of a cached image, along with the size of the full image.
+	 */
+	public static class Placeholder
+	{
+		public final Bitmap bitmap;
+		public final int width, height;
+
+		Placeholder(Bitmap bitmap, int width, int height)
+		{
+			this.bitmap = bitmap;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	private static File getPlaceholderFile(URI uri)
+	{
+		ResponseCache rcc = TiResponseCache.getDefault();
+		if (!(rcc instanceof TiResponseCache) || ((TiResponseCache) rcc).cacheDir == null || uri == null) {
+			return null;
+		}
+		String hash = DigestUtils.shaHex(uri.toString());
+		return new File(((TiResponseCache) rcc).cacheDir, hash + PLACEHOLDER_SUFFIX);
+	}
+
+	/**
+	 * Returns the placeholder stored alongside the cache entry of uri.
+	 * @param uri
+	 * @return the placeholder, or null if there is none.
+	 */
+	public static Placeholder getPlaceholder(URI uri)
+	{
+		File pFile = getPlaceholderFile(uri);
+		if (pFile == null || !pFile.exists()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(pFile));
+			int width = in.readInt();
+			int height = in.readInt();
+			Bitmap bitmap = BitmapFactory.decodeStream(in);
+			if (bitmap == null) {
+				return null;
+			}
+			return new Placeholder(bitmap, width, height);
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to read placeholder for " + uri + ": " + e.getMessage(), Log.DEBUG_MODE);
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores a tiny, low quality version of the given image alongside the cache entry of uri,
+	 * unless one already exists. This should not be called on the UI thread.
+	 * @param uri
+	 * @param image the fully decoded image.
+	 */
+	public static void putPlaceholder(URI uri, Bitmap image)
+	{
+		File pFile = getPlaceholderFile(uri);
+		if (pFile == null || pFile.exists() || image == null || image.isRecycled()) {
+			return;
+		}
+		int width = image.getWidth();
+		int height = image.getHeight();
+		float scale = (float) PLACEHOLDER_SIZE / Math.max(width, height);
+		if (scale >= 1) {
+			return;
+		}
+		Bitmap small = Bitmap.createScaledBitmap(image, Math.max(1, (int) (width * scale)),
+			Math.max(1, (int) (height * scale)), true);
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new FileOutputStream(pFile));
+			out.writeInt(width);
+			out.writeInt(height);
+			small.compress(CompressFormat.JPEG, PLACEHOLDER_QUALITY, out);
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to write placeholder for " + uri + ": " + e.getMessage(), Log.DEBUG_MODE);
+			pFile.delete();
+		} finally {
+			small.recycle();
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
 	public static void addCompleteListener(URI uri, CompleteListener listener)
 	{
 		synchronized (completeListeners) {
@@ -0,0 +1,62 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+/**
+ * A source of rows that are fetched in pages on demand, so that consumers such as list sections
+ * never hold more than a window of a large data set. This lets modules that do not depend on each
+ * other, such as a database and a list view, share row data. Rows are fetched asynchronously, as
+ * consumers usually ask for them while drawing on the UI thread.
+ */
+public interface TiRowSource
+{
+	/**
+	 * Implemented by proxies that can create a row source for a query.
+	 */
+	public interface Provider
+	{
+		/**
+		 * @param query the query selecting the rows, in the provider's own query language.
+		 * @param args the query arguments, or null.
+		 * @return the row source.
+		 */
+		public TiRowSource createRowSource(String query, Object[] args);
+	}
+
+	/**
+	 * Receives the results of a row source. Results may be delivered on any thread, including
+	 * the calling one.
+	 */
+	public interface Callback
+	{
+		/**
+		 * @param count the total number of rows.
+		 */
+		public void onRowCount(int count);
+
+		/**
+		 * @param offset the index of the first row.
+		 * @param rows the rows, each one a dictionary. This may be shorter than the requested
+		 * count at the end of the data, and is empty if the rows could not be fetched. It is null
+		 * if the fetch failed before it could return any rows, in which case the same rows may be
+		 * requested again.
+		 */
+		public void onRows(int offset, Object[] rows);
+	}
+
+	/**
+	 * Counts the rows, and passes the count to {@link Callback#onRowCount(int)}.
+	 */
+	public void fetchRowCount(Callback callback);
+
+	/**
+	 * Fetches consecutive rows, and passes them to {@link Callback#onRows(int, Object[])}.
+	 * @param offset the index of the first row.
+	 * @param count the maximum number of rows to fetch.
+	 */
+	public void fetchRows(int offset, int count, Callback callback);
+}
@@ -0,0 +1,374 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An ordered list of searchable texts with a trigram index over their lower case form. Texts are
+ * case folded once when they are added, the index is updated as entries are inserted, replaced or
+ * removed, and a query that extends the previous one only re-checks the previous matches.
+ * Searches may run on any thread; all methods are synchronized.
+ */
+public class TiSearchIndex
+{
+	private static final int GRAM_LENGTH = 3;
+
+	private static ExecutorService searchExecutor;
+
+	private static class Entry
+	{
+		final int id;
+		final String text;
+		final String foldedText;
+		int position;
+
+		Entry(int id, String text)
+		{
+			this.id = id;
+			this.text = text;
+			this.foldedText = (text != null) ? text.toLowerCase(Locale.ROOT) : null;
+		}
+	}
+
+	private static final Comparator<Entry> POSITION_ORDER = new Comparator<Entry>() {
+		public int compare(Entry a, Entry b)
+		{
+			return a.position - b.position;
+		}
+	};
+
+	private static final Comparator<Entry> ID_ORDER = new Comparator<Entry>() {
+		public int compare(Entry a, Entry b)
+		{
+			return a.id - b.id;
+		}
+	};
+
+	// A growable list of entry ids, always sorted because ids only increase.
+	private static class IdList
+	{
+		int[] ids = new int[4];
+		int size = 0;
+
+		void add(int id)
+		{
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+	}
+
+	/**
+	 * The positions matching a query, along with the version of the index they were computed for.
+	 */
+	public static class Result
+	{
+		public final int version;
+		public final ArrayList<Integer> positions;
+
+		Result(int version, ArrayList<Integer> positions)
+		{
+			this.version = version;
+			this.positions = positions;
+		}
+	}
+
+	private final ArrayList<Entry> entries = new ArrayList<Entry>();
+	private final HashMap<Integer, Entry> entriesById = new HashMap<Integer, Entry>();
+	private final HashMap<String, IdList> postings = new HashMap<String, IdList>();
+	// Entries without text, which match every query.
+	private final HashSet<Integer> unfilteredIds = new HashSet<Integer>();
+	private int nextId = 0;
+	private int removedCount = 0;
+	private boolean positionsDirty = false;
+	private int version = 0;
+
+	private String lastQuery;
+	private boolean lastCaseInsensitive;
+	private boolean lastAnchored;
+	private int lastVersion = -1;
+	private ArrayList<Entry> lastMatches;
+
+	/**
+	 * @return a single worker shared by all indexes, so that searches for consecutive
+	 * keystrokes complete in order.
+	 */
+	public static synchronized ExecutorService getSearchExecutor()
+	{
+		if (searchExecutor == null) {
+			searchExecutor = Executors.newSingleThreadExecutor();
+		}
+		return searchExecutor;
+	}
+
+	/**
+	 * @return a number that changes whenever the entries change.
+	 */
+	public synchronized int getVersion()
+	{
+		return version;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Inserts an entry.
+	 * @param position the position of the new entry.
+	 * @param text the searchable text, or null if the entry matches every query.
+	 */
+	public synchronized void add(int position, String text)
+	{
+		entries.add(position, newEntry(text));
+		changed();
+	}
+
+	/**
+	 * Inserts consecutive entries.
+	 */
+	public synchronized void addAll(int position, List<String> texts)
+	{
+		ArrayList<Entry> added = new ArrayList<Entry>(texts.size());
+		for (String text : texts) {
+			added.add(newEntry(text));
+		}
+		entries.addAll(position, added);
+		changed();
+	}
+
+	/**
+	 * Replaces the text of an entry.
+	 */
+	public synchronized void set(int position, String text)
+	{
+		discard(entries.set(position, newEntry(text)));
+		changed();
+	}
+
+	public synchronized void remove(int position)
+	{
+		discard(entries.remove(position));
+		changed();
+	}
+
+	public synchronized void clear()
+	{
+		entries.clear();
+		entriesById.clear();
+		postings.clear();
+		unfilteredIds.clear();
+		removedCount = 0;
+		changed();
+	}
+
+	/**
+	 * Finds the entries containing, or starting with, the given query.
+	 * @param query the text to look for. An empty query matches every entry.
+	 * @param caseInsensitive whether to ignore case.
+	 * @param anchored whether entries must start with the query rather than contain it.
+	 * @return the matching positions in ascending order.
+	 */
+	public synchronized Result search(String query, boolean caseInsensitive, boolean anchored)
+	{
+		if (query == null) {
+			query = "";
+		}
+		String foldedQuery = query.toLowerCase(Locale.ROOT);
+		updatePositions();
+
+		Iterable<Entry> candidates;
+		if (lastVersion == version && lastCaseInsensitive == caseInsensitive && lastAnchored == anchored
+			&& lastQuery != null && extendsQuery(caseInsensitive ? foldedQuery : query, lastQuery, anchored)) {
+			// Anything matching the new query also matched the previous, shorter one.
+			candidates = lastMatches;
+		} else if (foldedQuery.length() >= GRAM_LENGTH) {
+			candidates = candidatesFor(foldedQuery);
+		} else {
+			candidates = entries;
+		}
+
+		ArrayList<Entry> matches = new ArrayList<Entry>();
+		for (Entry entry : candidates) {
+			if (matches(entry, query, foldedQuery, caseInsensitive, anchored)) {
+				matches.add(entry);
+			}
+		}
+
+		if (candidates != entries && candidates != lastMatches) {
+			// Index candidates come in insertion order rather than in list order.
+			Collections.sort(matches, POSITION_ORDER);
+		}
+		ArrayList<Integer> positions = new ArrayList<Integer>(matches.size());
+		for (Entry entry : matches) {
+			positions.add(entry.position);
+		}
+
+		lastQuery = caseInsensitive ? foldedQuery : query;
+		lastCaseInsensitive = caseInsensitive;
+		lastAnchored = anchored;
+		lastVersion = version;
+		lastMatches = matches;
+		return new Result(version, positions);
+	}
+
+	private static boolean extendsQuery(String query, String previous, boolean anchored)
+	{
+		return anchored ? query.startsWith(previous) : query.contains(previous);
+	}
+
+	private static boolean matches(Entry entry, String query, String foldedQuery, boolean caseInsensitive, boolean anchored)
+	{
+		if (entry.text == null) {
+			return true;
+		}
+		String text = caseInsensitive ? entry.foldedText : entry.text;
+		String q = caseInsensitive ? foldedQuery : query;
+		return anchored ? text.startsWith(q) : text.contains(q);
+	}
+
+	// Returns the entries containing every trigram of the query, which is a superset of the matches.
+	private ArrayList<Entry> candidatesFor(String foldedQuery)
+	{
+		HashSet<String> grams = new HashSet<String>();
+		for (int i = 0; i + GRAM_LENGTH <= foldedQuery.length(); i++) {
+			grams.add(foldedQuery.substring(i, i + GRAM_LENGTH));
+		}
+
+		ArrayList<IdList> lists = new ArrayList<IdList>(grams.size());
+		for (String gram : grams) {
+			IdList list = postings.get(gram);
+			if (list == null) {
+				lists = null;
+				break;
+			}
+			lists.add(list);
+		}
+
+		ArrayList<Entry> candidates = new ArrayList<Entry>();
+		if (lists != null) {
+			IdList smallest = lists.get(0);
+			for (IdList list : lists) {
+				if (list.size < smallest.size) {
+					smallest = list;
+				}
+			}
+			int[] ids = Arrays.copyOf(smallest.ids, smallest.size);
+			int count = smallest.size;
+			for (IdList list : lists) {
+				if (list != smallest) {
+					count = intersect(ids, count, list);
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				Entry entry = entriesById.get(ids[i]);
+				if (entry != null) {
+					candidates.add(entry);
+				}
+			}
+		}
+		for (Integer id : unfilteredIds) {
+			candidates.add(entriesById.get(id));
+		}
+		return candidates;
+	}
+
+	// Keeps the ids in the first count elements of ids that are also in list, returning how many are left.
+	private static int intersect(int[] ids, int count, IdList list)
+	{
+		int kept = 0;
+		int j = 0;
+		for (int i = 0; i < count && j < list.size; i++) {
+			while (j < list.size && list.ids[j] < ids[i]) {
+				j++;
+			}
+			if (j < list.size && list.ids[j] == ids[i]) {
+				ids[kept++] = ids[i];
+			}
+		}
+		return kept;
+	}
+
+	private Entry newEntry(String text)
+	{
+		Entry entry = new Entry(nextId++, text);
+		entriesById.put(entry.id, entry);
+		if (entry.foldedText == null) {
+			unfilteredIds.add(entry.id);
+		} else {
+			index(entry);
+		}
+		return entry;
+	}
+
+	private void index(Entry entry)
+	{
+		String text = entry.foldedText;
+		HashSet<String> grams = new HashSet<String>();
+		for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+			String gram = text.substring(i, i + GRAM_LENGTH);
+			if (grams.add(gram)) {
+				IdList list = postings.get(gram);
+				if (list == null) {
+					list = new IdList();
+					postings.put(gram, list);
+				}
+				list.add(entry.id);
+			}
+		}
+	}
+
+	// Removed ids stay in the postings until there are more of them than live entries. The postings
+	// are then rebuilt in id order rather than list order, since entries inserted before others have
+	// higher ids and intersect() relies on every IdList being sorted.
+	private void discard(Entry entry)
+	{
+		entriesById.remove(entry.id);
+		unfilteredIds.remove(entry.id);
+		if (entry.foldedText != null && ++removedCount > entries.size()) {
+			postings.clear();
+			removedCount = 0;
+			ArrayList<Entry> live = new ArrayList<Entry>(entries);
+			Collections.sort(live, ID_ORDER);
+			for (Entry remaining : live) {
+				if (remaining.foldedText != null) {
+					index(remaining);
+				}
+			}
+		}
+	}
+
+	private void changed()
+	{
+		version++;
+		positionsDirty = true;
+		lastMatches = null;
+		lastQuery = null;
+	}
+
+	private void updatePositions()
+	{
+		if (positionsDirty) {
+			for (int i = 0; i < entries.size(); i++) {
+				entries.get(i).position = i;
+			}
+			positionsDirty = false;
+		}
+	}
+}
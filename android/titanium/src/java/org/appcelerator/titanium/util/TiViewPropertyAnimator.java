@@ -0,0 +1,285 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import java.util.List;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.view.Ti2DMatrix;
+import org.appcelerator.titanium.view.Ti2DMatrix.Operation;
+import org.appcelerator.titanium.view.TiCompositeLayout;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.annotation.TargetApi;
+import android.graphics.Matrix;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.ViewTreeObserver.OnPreDrawListener;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Runs an animation of {@link TiAnimationBuilder} with the {@link ViewPropertyAnimator} of the
+ * view, so that it only touches the render properties of the view on every frame:
+ * <ul>
+ * <li>The view is drawn into a hardware layer for the duration of the animation only.</li>
+ * <li>A transform is turned into its target rotation, scale and translation once, before the
+ * animation starts. Matrices that are not a plain list of operations are decomposed.</li>
+ * <li>Layout changes are applied to the proxy in a single layout pass before the first frame;
+ * the view is then transformed back to its previous frame and animated to its new frame.</li>
+ * </ul>
+ * The number of frames drawn and dropped is passed to the callback and the complete event.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class TiViewPropertyAnimator
+{
+	// The default duration of an Animator, which a ViewPropertyAnimator would otherwise keep
+	// from the previous animation of the view.
+	private static final long DEFAULT_DURATION = 300;
+
+	// Tolerance of the shear check of a decomposed matrix.
+	private static final float SHEAR_EPSILON = 0.001f;
+
+	private static final String[] LAYOUT_KEYS = new String[] {
+		TiC.PROPERTY_TOP, TiC.PROPERTY_BOTTOM, TiC.PROPERTY_LEFT, TiC.PROPERTY_RIGHT, TiC.PROPERTY_CENTER,
+		TiC.PROPERTY_WIDTH, TiC.PROPERTY_HEIGHT };
+
+	private final TiAnimationBuilder builder;
+	private final View view;
+	private final boolean animatesLayout;
+	private final TiFrameMonitor frameMonitor;
+
+	// The decomposed transform of a matrix that is not a plain list of operations.
+	private float[] decomposed;
+
+	private TiViewPropertyAnimator(TiAnimationBuilder builder, boolean animatesLayout)
+	{
+		this.builder = builder;
+		this.view = builder.view;
+		this.animatesLayout = animatesLayout;
+		this.frameMonitor = new TiFrameMonitor(view.getContext());
+	}
+
+	/**
+	 * @return an animator for the current animation of the builder, or null if the animation needs
+	 * one of the other animation backends.
+	 */
+	static TiViewPropertyAnimator create(TiAnimationBuilder builder)
+	{
+		View view = builder.view;
+		if (Build.VERSION.SDK_INT < TiC.API_LEVEL_JELLY_BEAN || !builder.accelerated || view == null) {
+			return null;
+		}
+		// A ViewPropertyAnimator neither repeats nor animates colors.
+		if (builder.backgroundColor != null || (builder.repeat != null && builder.repeat.intValue() != 1)
+			|| (builder.autoreverse != null && builder.autoreverse.booleanValue())) {
+			return null;
+		}
+
+		boolean animatesLayout = builder.top != null || builder.bottom != null || builder.left != null
+			|| builder.right != null || builder.centerX != null || builder.centerY != null || builder.width != null
+			|| builder.height != null;
+		if (animatesLayout) {
+			// The layout is animated with the transform of the view, which must be free.
+			if (builder.tdm != null || !(view.getLayoutParams() instanceof TiCompositeLayout.LayoutParams)
+				|| view.getTranslationX() != 0 || view.getTranslationY() != 0 || view.getRotation() != 0
+				|| view.getScaleX() != 1 || view.getScaleY() != 1) {
+				return null;
+			}
+		}
+
+		TiViewPropertyAnimator animator = new TiViewPropertyAnimator(builder, animatesLayout);
+		if (builder.tdm != null && !builder.tdm.canUsePropertyAnimators()) {
+			animator.decomposed = decompose(builder.tdm, view.getWidth(), view.getHeight(), builder.anchorX,
+				builder.anchorY);
+			if (animator.decomposed == null) {
+				return null;
+			}
+		}
+		return animator;
+	}
+
+	/**
+	 * Decomposes the final matrix into the render properties of a view.
+	 * @return the translation x and y, scale x and y, rotation and pivot x and y, or null if the
+	 * matrix shears the view.
+	 */
+	private static float[] decompose(Ti2DMatrix tdm, int width, int height, float anchorX, float anchorY)
+	{
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
+		float[] values = new float[9];
+		tdm.interpolate(1f, width, height, anchorX, anchorY).getValues(values);
+		float a = values[Matrix.MSCALE_X];
+		float c = values[Matrix.MSKEW_X];
+		float b = values[Matrix.MSKEW_Y];
+		float d = values[Matrix.MSCALE_Y];
+
+		// The matrix is a rotation of a scale if its columns are orthogonal.
+		float scaleX = (float) Math.hypot(a, b);
+		if (scaleX == 0) {
+			return null;
+		}
+		float scaleY = (a * d - b * c) / scaleX;
+		if (Math.abs(a * c + b * d) > SHEAR_EPSILON * scaleX * Math.abs(scaleY)) {
+			return null;
+		}
+		float rotation = (float) Math.toDegrees(Math.atan2(b, a));
+
+		// A view scales and rotates around its pivot before it is translated.
+		float pivotX = (anchorX != Ti2DMatrix.DEFAULT_ANCHOR_VALUE) ? width * anchorX : width / 2f;
+		float pivotY = (anchorY != Ti2DMatrix.DEFAULT_ANCHOR_VALUE) ? height * anchorY : height / 2f;
+		float translationX = values[Matrix.MTRANS_X] + a * pivotX + c * pivotY - pivotX;
+		float translationY = values[Matrix.MTRANS_Y] + b * pivotX + d * pivotY - pivotY;
+
+		return new float[] { translationX, translationY, scaleX, scaleY, rotation, pivotX, pivotY };
+	}
+
+	@SuppressWarnings("unchecked")
+	void start()
+	{
+		if (!animatesLayout) {
+			animate();
+			return;
+		}
+
+		final int oldLeft = view.getLeft();
+		final int oldTop = view.getTop();
+		final int oldWidth = view.getWidth();
+		final int oldHeight = view.getHeight();
+
+		// The new layout runs once, before the next frame is drawn.
+		TiCompositeLayout.LayoutParams params = (TiCompositeLayout.LayoutParams) view.getLayoutParams();
+		TiConvert.fillLayout(builder.options, params);
+		view.setLayoutParams(params);
+		for (String key : LAYOUT_KEYS) {
+			if (builder.options.containsKey(key)) {
+				builder.viewProxy.setProperty(key, builder.options.get(key));
+			}
+		}
+
+		view.getViewTreeObserver().addOnPreDrawListener(new OnPreDrawListener()
+		{
+			public boolean onPreDraw()
+			{
+				view.getViewTreeObserver().removeOnPreDrawListener(this);
+
+				// Draw the view at its previous frame, then animate it to its new one.
+				int width = view.getWidth();
+				int height = view.getHeight();
+				view.setPivotX(0);
+				view.setPivotY(0);
+				view.setTranslationX(oldLeft - view.getLeft());
+				view.setTranslationY(oldTop - view.getTop());
+				view.setScaleX((width > 0) ? (float) oldWidth / width : 1f);
+				view.setScaleY((height > 0) ? (float) oldHeight / height : 1f);
+				animate();
+				return true;
+			}
+		});
+	}
+
+	private void animate()
+	{
+		ViewPropertyAnimator animator = view.animate();
+		animator.setDuration((builder.duration != null) ? builder.duration.longValue() : DEFAULT_DURATION);
+		animator.setStartDelay((builder.delay != null) ? builder.delay.longValue() : 0);
+		animator.setInterpolator(new LinearInterpolator());
+		animator.withLayer();
+
+		if (builder.toOpacity != null) {
+			animator.alpha(builder.toOpacity.floatValue());
+		}
+		if (animatesLayout) {
+			animator.translationX(0).translationY(0).scaleX(1f).scaleY(1f);
+		} else if (decomposed != null) {
+			view.setPivotX(decomposed[5]);
+			view.setPivotY(decomposed[6]);
+			animator.translationX(decomposed[0]).translationY(decomposed[1]);
+			animator.scaleX(decomposed[2]).scaleY(decomposed[3]);
+			animator.rotation(decomposed[4]);
+		} else if (builder.tdm != null) {
+			animateOperations(animator, builder.tdm.getAllOperations());
+		}
+
+		animator.setListener(new AnimatorListenerAdapter()
+		{
+			@Override
+			public void onAnimationStart(Animator animation)
+			{
+				frameMonitor.start();
+				if (builder.animationProxy != null) {
+					builder.animationProxy.fireEvent(TiC.EVENT_START, null);
+				}
+			}
+
+			@Override
+			public void onAnimationEnd(Animator animation)
+			{
+				frameMonitor.stop();
+				// The animator of the view is shared by all its animations.
+				view.animate().setListener(null);
+				finish();
+			}
+		});
+		animator.start();
+	}
+
+	// Same targets as the property Animators of TiAnimationBuilder, for matrices that list each
+	// operation at most once.
+	private void animateOperations(ViewPropertyAnimator animator, List<Operation> operations)
+	{
+		if (operations.size() == 0) {
+			// Identity matrix, which reverses any previous transform.
+			animator.rotation(0).scaleX(1f).scaleY(1f).translationX(0).translationY(0);
+			return;
+		}
+
+		int width = view.getWidth();
+		int height = view.getHeight();
+		for (Operation operation : operations) {
+			if (operation.anchorX != Ti2DMatrix.DEFAULT_ANCHOR_VALUE
+				|| operation.anchorY != Ti2DMatrix.DEFAULT_ANCHOR_VALUE) {
+				builder.setAnchor(width, height, operation.anchorX, operation.anchorY);
+			}
+			switch (operation.type) {
+				case Operation.TYPE_ROTATE:
+					if (operation.rotationFromValueSpecified) {
+						view.setRotation(operation.rotateFrom);
+					}
+					animator.rotation(operation.rotateTo);
+					break;
+				case Operation.TYPE_SCALE:
+					if (operation.scaleFromValuesSpecified) {
+						view.setScaleX(operation.scaleFromX);
+						view.setScaleY(operation.scaleFromY);
+					}
+					animator.scaleX(operation.scaleToX).scaleY(operation.scaleToY);
+					break;
+				case Operation.TYPE_TRANSLATE:
+					animator.translationX(operation.translateX).translationY(operation.translateY);
+					break;
+			}
+		}
+	}
+
+	private void finish()
+	{
+		TiAnimationBuilder.setAnimationRunningFor(view, false);
+
+		KrollDict stats = frameMonitor.toDict();
+		if (builder.callback != null) {
+			builder.callback.callAsync(builder.viewProxy.getKrollObject(), new Object[] { stats });
+		}
+		if (builder.animationProxy != null) {
+			builder.animationProxy.fireEvent(TiC.EVENT_COMPLETE, stats);
+		}
+	}
+}
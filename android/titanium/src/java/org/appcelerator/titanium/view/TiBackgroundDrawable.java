@@ -1,6 +1,6 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2012 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
@@ -8,6 +8,8 @@ package org.appcelerator.titanium.view;
 
 import java.io.IOException;
 
+import org.appcelerator.titanium.util.TiBitmapRegistry;
+import org.appcelerator.titanium.util.TiDrawableCache;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
@@ -128,7 +130,12 @@ public class TiBackgroundDrawable extends StateListDrawable {
 	public void releaseDelegate() {
 		if (background != null) {
 			if (background instanceof BitmapDrawable) {
-				((BitmapDrawable)background).getBitmap().recycle();
+				Bitmap bitmap = ((BitmapDrawable)background).getBitmap();
+				// Bitmaps shared through the drawable cache are still used by other views.
+				if (!TiDrawableCache.getInstance().isShared(bitmap)) {
+					TiBitmapRegistry.getInstance().unregister(bitmap);
+					bitmap.recycle();
+				}
 			}
 			background.setCallback(null);
 			background = null;
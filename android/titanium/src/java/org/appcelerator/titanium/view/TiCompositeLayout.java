@@ -8,11 +8,13 @@
 package org.appcelerator.titanium.view;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.TreeSet;
 
 import org.appcelerator.kroll.common.Log;
 import org.appcelerator.titanium.TiApplication;
+import org.appcelerator.titanium.TiBaseActivity;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.TiDimension;
 import org.appcelerator.titanium.TiLaunchActivity;
@@ -21,6 +23,7 @@ import org.appcelerator.titanium.util.TiUIHelper;
 
 import android.app.Activity;
 import android.content.Context;
+import android.graphics.Canvas;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
@@ -58,7 +61,18 @@ public class TiCompositeLayout extends ViewGroup
 
     public static final int NOT_SET = Integer.MIN_VALUE;
 
-    private TreeSet<View> viewSorter;
+    // Children are kept in z-order. Views without a zIndex are ordered as if it were 0, and
+    // views with the same zIndex keep the order they were added in.
+    private static final Comparator<View> Z_ORDER = new Comparator<View>()
+    {
+        public int compare(View o1, View o2)
+        {
+            int z1 = getZOrder(o1);
+            int z2 = getZOrder(o2);
+            return (z1 < z2) ? -1 : ((z1 == z2) ? 0 : 1);
+        }
+    };
+
     private boolean needsSort;
     protected LayoutArrangement arrangement;
 
@@ -71,6 +85,10 @@ public class TiCompositeLayout extends ViewGroup
     private int horiztonalLayoutPreviousRight = 0;
 
     private WeakReference<TiViewProxy> proxy;
+
+    // Leaf children drawn by this layout instead of having views. See TiFlatNode.
+    private ArrayList<TiFlatNode> flatNodes;
+
     private static final int HAS_SIZE_FILL_CONFLICT = 1;
     private static final int NO_SIZE_FILL_CONFLICT = 2;
 
@@ -126,66 +144,6 @@ public class TiCompositeLayout extends ViewGroup
     {
         super(context);
         this.arrangement = arrangement;
-        this.viewSorter = new TreeSet<View>(new Comparator<View>()
-        {
-
-            public int compare(View o1, View o2)
-            {
-                // TIMOB-20206 and
-                // https://android-review.googlesource.com/#/c/257511/1/ojluni/src/main/java/java/util/TreeMap.java
-                // We need to check if o1 or o2 is null
-                if (o1 == null || o2 == null) {
-                    throw new NullPointerException("null view");
-                }
-                // We need to check if the view being compared is itself and
-                // return 0.
-                if (o2.equals(o1)) {
-                    return 0;
-                }
-
-                TiCompositeLayout.LayoutParams p1 = (TiCompositeLayout.LayoutParams) o1
-                        .getLayoutParams();
-                TiCompositeLayout.LayoutParams p2 = (TiCompositeLayout.LayoutParams) o2
-                        .getLayoutParams();
-
-                int result = 0;
-
-                if (p1.optionZIndex != NOT_SET && p2.optionZIndex != NOT_SET) {
-                    if (p1.optionZIndex < p2.optionZIndex) {
-                        result = -1;
-                    } else if (p1.optionZIndex > p2.optionZIndex) {
-                        result = 1;
-                    }
-                } else if (p1.optionZIndex != NOT_SET) {
-                    if (p1.optionZIndex < 0) {
-                        result = -1;
-                    }
-                    if (p1.optionZIndex > 0) {
-                        result = 1;
-                    }
-                } else if (p2.optionZIndex != NOT_SET) {
-                    if (p2.optionZIndex < 0) {
-                        result = 1;
-                    }
-                    if (p2.optionZIndex > 0) {
-                        result = -1;
-                    }
-                }
-
-                if (result == 0) {
-                    if (p1.index < p2.index) {
-                        result = -1;
-                    } else if (p1.index > p2.index) {
-                        result = 1;
-                    } else {
-                        throw new IllegalStateException("Ambiguous Z-Order");
-                    }
-                }
-
-                return result;
-            }
-        });
-
         setNeedsSort(true);
         setOnHierarchyChangeListener(this);
         this.proxy = new WeakReference<TiViewProxy>(proxy);
@@ -211,7 +169,7 @@ public class TiCompositeLayout extends ViewGroup
     }
 
     public void onChildViewRemoved(View parent, View child) {
-        setNeedsSort(true);
+        // Removing a child leaves the others in order.
         if (Log.isDebugModeEnabled()) {
             Log.d(TAG, "Removing: " + viewToString(child) + " from " + viewToString(parent),
                     Log.DEBUG_MODE);
@@ -236,7 +194,11 @@ public class TiCompositeLayout extends ViewGroup
 
     protected int getViewWidthPadding(View child, int parentWidth)
     {
-        LayoutParams p = (LayoutParams) child.getLayoutParams();
+        return getWidthPadding((LayoutParams) child.getLayoutParams(), parentWidth);
+    }
+
+    private int getWidthPadding(LayoutParams p, int parentWidth)
+    {
         int padding = 0;
         if (p.optionLeft != null) {
             if (p.optionLeft.isUnitPercent()) {
@@ -257,7 +219,11 @@ public class TiCompositeLayout extends ViewGroup
 
     protected int getViewHeightPadding(View child, int parentHeight)
     {
-        LayoutParams p = (LayoutParams) child.getLayoutParams();
+        return getHeightPadding((LayoutParams) child.getLayoutParams(), parentHeight);
+    }
+
+    private int getHeightPadding(LayoutParams p, int parentHeight)
+    {
         int padding = 0;
         if (p.optionTop != null) {
             if (p.optionTop.isUnitPercent()) {
@@ -279,6 +245,10 @@ public class TiCompositeLayout extends ViewGroup
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
     {
+        TiLayoutStats stats = getLayoutStats();
+        if (stats != null) {
+            stats.measurePass();
+        }
         int childCount = getChildCount();
         int wFromSpec = MeasureSpec.getSize(widthMeasureSpec);
         int hFromSpec = MeasureSpec.getSize(heightMeasureSpec);
@@ -344,6 +314,18 @@ public class TiCompositeLayout extends ViewGroup
             maxHeight += horizontalRowHeight;
         }
 
+        // Flat nodes are only hosted by default arrangements, where they add up like views.
+        if (flatNodes != null) {
+            for (TiFlatNode node : flatNodes) {
+                if (node.isVisible()) {
+                    measureFlatNode(node, w, wMode, h, hMode);
+                    LayoutParams p = node.getLayoutParams();
+                    maxWidth = Math.max(maxWidth, node.getMeasuredWidth() + getWidthPadding(p, w));
+                    maxHeight = Math.max(maxHeight, node.getMeasuredHeight() + getHeightPadding(p, h));
+                }
+            }
+        }
+
         // account for padding
         maxWidth += getPaddingLeft() + getPaddingRight();
         maxHeight += getPaddingTop() + getPaddingBottom();
@@ -363,6 +345,44 @@ public class TiCompositeLayout extends ViewGroup
     }
 
     protected void constrainChild(View child, int width, int wMode, int height, int hMode)
+    {
+        LayoutParams p = (LayoutParams) child.getLayoutParams();
+        int parentWidthSpec = MeasureSpec.makeMeasureSpec(width, wMode);
+        int parentHeightSpec = MeasureSpec.makeMeasureSpec(height, hMode);
+        TiLayoutStats stats = getLayoutStats();
+
+        // The child specs only depend on the parent specs and on the layout params of the child and
+        // its descendants, any change to which requests a layout of the child.
+        if (!p.measureDirty && !child.isLayoutRequested() && p.cachedParentWidthSpec == parentWidthSpec
+                && p.cachedParentHeightSpec == parentHeightSpec) {
+            // onLayout() may have measured the child again to fit its pins.
+            if (child.getMeasuredWidth() != p.cachedMeasuredWidth
+                    || child.getMeasuredHeight() != p.cachedMeasuredHeight) {
+                child.measure(p.cachedWidthSpec, p.cachedHeightSpec);
+            }
+            if (stats != null) {
+                stats.childMeasure(true);
+            }
+            return;
+        }
+
+        int[] specs = new int[2];
+        computeChildMeasureSpecs(child, width, wMode, height, hMode, specs);
+        child.measure(specs[0], specs[1]);
+
+        p.measureDirty = false;
+        p.cachedParentWidthSpec = parentWidthSpec;
+        p.cachedParentHeightSpec = parentHeightSpec;
+        p.cachedWidthSpec = specs[0];
+        p.cachedHeightSpec = specs[1];
+        p.cachedMeasuredWidth = child.getMeasuredWidth();
+        p.cachedMeasuredHeight = child.getMeasuredHeight();
+        if (stats != null) {
+            stats.childMeasure(false);
+        }
+    }
+
+    private void computeChildMeasureSpecs(View child, int width, int wMode, int height, int hMode, int[] specs)
     {
         boolean hasFixedHeightParent = false;
         boolean hasFixedWidthParent = false;
@@ -429,10 +449,41 @@ public class TiCompositeLayout extends ViewGroup
                 heightPadding,
                 childDimension);
 
-        child.measure(widthSpec, heightSpec);
-        // Useful for debugging.
-        // int childWidth = child.getMeasuredWidth();
-        // int childHeight = child.getMeasuredHeight();
+        specs[0] = widthSpec;
+        specs[1] = heightSpec;
+    }
+
+    // Same as computeChildMeasureSpecs() for a leaf, which cannot have a size/fill conflict.
+    private void measureFlatNode(TiFlatNode node, int width, int wMode, int height, int hMode)
+    {
+        LayoutParams p = node.getLayoutParams();
+        int childDimension = LayoutParams.WRAP_CONTENT;
+        if (p.optionWidth != null) {
+            if (p.optionWidth.isUnitPercent() && width > 0) {
+                childDimension = getAsPercentageValue(p.optionWidth.getValue(), width);
+            } else {
+                childDimension = p.optionWidth.getAsPixels(this);
+            }
+        } else if (p.autoFillsWidth) {
+            childDimension = LayoutParams.MATCH_PARENT;
+        }
+        int widthSpec = ViewGroup.getChildMeasureSpec(MeasureSpec.makeMeasureSpec(width, wMode),
+                getWidthPadding(p, width), childDimension);
+
+        childDimension = LayoutParams.WRAP_CONTENT;
+        if (p.optionHeight != null) {
+            if (p.optionHeight.isUnitPercent() && height > 0) {
+                childDimension = getAsPercentageValue(p.optionHeight.getValue(), height);
+            } else {
+                childDimension = p.optionHeight.getAsPixels(this);
+            }
+        } else if (p.autoFillsHeight) {
+            childDimension = LayoutParams.MATCH_PARENT;
+        }
+        int heightSpec = ViewGroup.getChildMeasureSpec(MeasureSpec.makeMeasureSpec(height, hMode),
+                getHeightPadding(p, height), childDimension);
+
+        node.measure(widthSpec, heightSpec);
     }
 
     // Try to calculate width from pins, if we couldn't calculate from pins or
@@ -515,28 +566,17 @@ public class TiCompositeLayout extends ViewGroup
         int right = r - l;
         int bottom = b - t;
 
+        TiLayoutStats stats = getLayoutStats();
+        if (stats != null) {
+            stats.layoutPass();
+        }
+
         if (needsSort) {
-            viewSorter.clear();
             if (count > 1) { // No need to sort one item.
-                for (int i = 0; i < count; i++) {
-                    View child = getChildAt(i);
-                    TiCompositeLayout.LayoutParams params =
-                            (TiCompositeLayout.LayoutParams) child.getLayoutParams();
-                    params.index = i;
-                    viewSorter.add(child);
-                }
-
-                detachAllViewsFromParent();
-                int i = 0;
-                for (View child : viewSorter) {
-                    attachViewToParent(child, i++, child.getLayoutParams());
-                }
+                sortChildren(count, stats);
             }
             setNeedsSort(false);
         }
-        // viewSorter is not needed after this. It's a source of
-        // memory leaks if it retains the views it's holding.
-        viewSorter.clear();
 
         int[] horizontal = new int[2];
         int[] vertical = new int[2];
@@ -633,11 +673,126 @@ public class TiCompositeLayout extends ViewGroup
             }
         }
 
+        if (flatNodes != null) {
+            for (TiFlatNode node : flatNodes) {
+                if (node.isVisible()) {
+                    layoutFlatNode(node, left, top, right, bottom, horizontal, vertical);
+                }
+            }
+        }
+
         TiViewProxy viewProxy = (proxy == null ? null : proxy.get());
         TiUIHelper.firePostLayoutEvent(viewProxy);
 
     }
 
+    private void layoutFlatNode(TiFlatNode node, int left, int top, int right, int bottom, int[] horizontal,
+            int[] vertical)
+    {
+        LayoutParams params = node.getLayoutParams();
+        int measuredHeight = calculateHeightFromPins(params, top, bottom, getHeight(), node.getMeasuredHeight());
+        int measuredWidth = calculateWidthFromPins(params, left, right, getWidth(), node.getMeasuredWidth());
+        computePosition(this, params.optionLeft, params.optionCenterX, params.optionRight, measuredWidth, left,
+                right, horizontal);
+        computePosition(this, params.optionTop, params.optionCenterY, params.optionBottom, measuredHeight, top,
+                bottom, vertical);
+
+        int newWidth = horizontal[1] - horizontal[0];
+        int newHeight = vertical[1] - vertical[0];
+        if (newWidth != node.getMeasuredWidth() || newHeight != node.getMeasuredHeight()) {
+            node.measure(MeasureSpec.makeMeasureSpec(newWidth, MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(newHeight, MeasureSpec.EXACTLY));
+        }
+        node.layout(horizontal[0], vertical[0], horizontal[1], vertical[1]);
+    }
+
+    // Flat nodes are drawn before, and so below, the views of this layout.
+    @Override
+    protected void dispatchDraw(Canvas canvas)
+    {
+        if (flatNodes != null) {
+            for (TiFlatNode node : flatNodes) {
+                node.draw(canvas);
+            }
+        }
+        super.dispatchDraw(canvas);
+    }
+
+    /**
+     * @return whether this layout can draw flat nodes, which is only the case for the default arrangement.
+     */
+    public boolean canHostFlatNodes()
+    {
+        return isDefaultArrangement();
+    }
+
+    public void addFlatNode(TiFlatNode node)
+    {
+        if (flatNodes == null) {
+            flatNodes = new ArrayList<TiFlatNode>();
+        }
+        flatNodes.add(node);
+        node.attach(this);
+        requestLayout();
+        invalidate();
+    }
+
+    public void removeFlatNode(TiFlatNode node)
+    {
+        if (flatNodes != null && flatNodes.remove(node)) {
+            node.detach();
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    // The children are usually still in order, in which case they are left attached.
+    private void sortChildren(int count, TiLayoutStats stats)
+    {
+        View[] children = new View[count];
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            children[i] = getChildAt(i);
+            if (i > 0 && Z_ORDER.compare(children[i - 1], children[i]) > 0) {
+                sorted = false;
+            }
+        }
+        if (sorted) {
+            return;
+        }
+
+        // Arrays.sort is stable, so children with the same zIndex keep their order.
+        Arrays.sort(children, Z_ORDER);
+        detachAllViewsFromParent();
+        for (int i = 0; i < count; i++) {
+            LayoutParams params = (LayoutParams) children[i].getLayoutParams();
+            params.index = i;
+            attachViewToParent(children[i], i, params);
+        }
+        if (stats != null) {
+            stats.sort();
+        }
+    }
+
+    private static int getZOrder(View child)
+    {
+        ViewGroup.LayoutParams params = child.getLayoutParams();
+        if (params instanceof LayoutParams) {
+            int zIndex = ((LayoutParams) params).optionZIndex;
+            return (zIndex == NOT_SET) ? 0 : zIndex;
+        }
+        return 0;
+    }
+
+    private TiLayoutStats getLayoutStats()
+    {
+        Context context = getContext();
+        if (context instanceof TiBaseActivity) {
+            return ((TiBaseActivity) context).getLayoutStats();
+        }
+        return null;
+    }
+
     // option0 is left/top, option1 is right/bottom
     public static void computePosition(View parent, TiDimension leftOrTop,
             TiDimension optionCenter, TiDimension rightOrBottom,
@@ -834,6 +989,24 @@ public class TiCompositeLayout extends ViewGroup
                     return true;
                 }
             }
+
+            // Flat nodes are leaves, so only their own params can conflict.
+            if (currentLayout.flatNodes != null) {
+                for (TiFlatNode node : currentLayout.flatNodes) {
+                    LayoutParams nodeParams = node.getLayoutParams();
+                    if (nodeParams.autoFillsWidth && nodeParams.optionWidth == null
+                            && conflicts[0] == NOT_SET && !hasFixedWidthParent) {
+                        conflicts[0] = HAS_SIZE_FILL_CONFLICT;
+                    }
+                    if (nodeParams.autoFillsHeight && nodeParams.optionHeight == null
+                            && conflicts[1] == NOT_SET && !hasFixedHeightParent) {
+                        conflicts[1] = HAS_SIZE_FILL_CONFLICT;
+                    }
+                    if (conflicts[0] != NOT_SET && conflicts[1] != NOT_SET) {
+                        return true;
+                    }
+                }
+            }
         }
 
         // Default to false if we couldn't find conflicts
@@ -901,12 +1074,31 @@ public class TiCompositeLayout extends ViewGroup
          */
         public boolean autoFillsHeight = false;
 
+        // The last measure specs given to the child, valid until the child requests a layout
+        // or the params are marked dirty. See constrainChild().
+        boolean measureDirty = true;
+        int cachedParentWidthSpec;
+        int cachedParentHeightSpec;
+        int cachedWidthSpec;
+        int cachedHeightSpec;
+        int cachedMeasuredWidth;
+        int cachedMeasuredHeight;
+
         public LayoutParams()
         {
             super(WRAP_CONTENT, WRAP_CONTENT);
 
             index = Integer.MIN_VALUE;
         }
+
+        /**
+         * Forces the next measure of the view to recompute its measure specs. Call this after
+         * changing the params of a view that is not going to request a layout.
+         */
+        public void invalidateMeasureCache()
+        {
+            measureDirty = true;
+        }
     }
 
     protected boolean isVerticalArrangement()
@@ -933,6 +1125,13 @@ public class TiCompositeLayout extends ViewGroup
         } else {
             arrangement = LayoutArrangement.DEFAULT;
         }
+
+        // Vertical and horizontal arrangements need real views to flow.
+        if (!isDefaultArrangement() && flatNodes != null) {
+            for (TiFlatNode node : new ArrayList<TiFlatNode>(flatNodes)) {
+                node.proxy.unflatten();
+            }
+        }
     }
 
     public void setEnableHorizontalWrap(boolean enable)
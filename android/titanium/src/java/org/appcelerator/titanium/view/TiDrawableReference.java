@@ -25,6 +25,7 @@ import org.appcelerator.titanium.TiApplication;
 import org.appcelerator.titanium.TiBlob;
 import org.appcelerator.titanium.TiDimension;
 import org.appcelerator.titanium.io.TiBaseFile;
+import org.appcelerator.titanium.util.TiBitmapRegistry;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiDownloadListener;
 import org.appcelerator.titanium.util.TiDownloadManager;
@@ -432,6 +433,7 @@ public class TiDrawableReference
 			}
 		}
 
+		TiBitmapRegistry.getInstance().registerIfAbsent(b, TAG);
 		return b;
 	}
 
@@ -0,0 +1,351 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.view;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.appcelerator.kroll.KrollDict;
+import org.appcelerator.kroll.KrollPropertyChange;
+import org.appcelerator.kroll.KrollProxy;
+import org.appcelerator.kroll.KrollProxyListener;
+import org.appcelerator.titanium.TiC;
+import org.appcelerator.titanium.TiDimension;
+import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.TiConvert;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.View.MeasureSpec;
+
+/**
+ * Draws a non-interactive leaf view straight into the canvas of its parent layout instead of
+ * creating native views for it. A node only supports the properties it knows how to draw; as
+ * soon as its proxy needs anything else, such as touch events, accessibility or an animation,
+ * the node is replaced by a regular view. See {@link TiViewProxy#createFlatNode()}.
+ * This class draws the background and border of a view, subclasses draw their content on top.
+ */
+public class TiFlatNode implements KrollProxyListener
+{
+	private static final HashSet<String> TOUCH_EVENTS = new HashSet<String>(Arrays.asList(
+		TiC.EVENT_CLICK, TiC.EVENT_DOUBLE_CLICK, TiC.EVENT_SINGLE_TAP, TiC.EVENT_DOUBLE_TAP, TiC.EVENT_LONGCLICK,
+		TiC.EVENT_LONGPRESS, TiC.EVENT_TOUCH_START, TiC.EVENT_TOUCH_MOVE, TiC.EVENT_TOUCH_END, TiC.EVENT_TOUCH_CANCEL,
+		TiC.EVENT_SWIPE, TiC.EVENT_PINCH, TiC.EVENT_FOCUS, TiC.EVENT_BLUR, TiC.EVENT_KEY_PRESSED));
+
+	private static final HashSet<String> LAYOUT_PROPERTIES = new HashSet<String>(Arrays.asList(
+		TiC.PROPERTY_LEFT, TiC.PROPERTY_TOP, TiC.PROPERTY_RIGHT, TiC.PROPERTY_BOTTOM, TiC.PROPERTY_CENTER,
+		TiC.PROPERTY_WIDTH, TiC.PROPERTY_HEIGHT, TiC.PROPERTY_SIZE, TiC.PROPERTY_ZINDEX));
+
+	// Properties that are either drawn by every node or have no visible effect on a leaf.
+	private static final HashSet<String> COMMON_PROPERTIES = new HashSet<String>(Arrays.asList(
+		TiC.PROPERTY_BACKGROUND_COLOR, TiC.PROPERTY_BORDER_COLOR, TiC.PROPERTY_BORDER_WIDTH, TiC.PROPERTY_BORDER_RADIUS,
+		TiC.PROPERTY_OPACITY, TiC.PROPERTY_VISIBLE, TiC.PROPERTY_ID, TiC.PROPERTY_TOUCH_ENABLED, TiC.PROPERTY_ENABLED,
+		TiC.PROPERTY_BUBBLE_PARENT, TiC.PROPERTY_HIDDEN_BEHAVIOR, TiC.PROPERTY_BACKGROUND_REPEAT, TiC.PROPERTY_LAYOUT,
+		TiC.PROPERTY_HORIZONTAL_WRAP));
+
+	protected final TiViewProxy proxy;
+	protected final TiCompositeLayout.LayoutParams layoutParams = new TiCompositeLayout.LayoutParams();
+	private TiCompositeLayout host;
+	private final Rect bounds = new Rect();
+	private int measuredWidth;
+	private int measuredHeight;
+
+	private int backgroundColor = Color.TRANSPARENT;
+	private int borderColor = Color.TRANSPARENT;
+	private float borderWidth;
+	private float borderRadius;
+	private float opacity = 1f;
+	private boolean visible = true;
+	private Paint paint;
+
+	public TiFlatNode(TiViewProxy proxy)
+	{
+		this.proxy = proxy;
+	}
+
+	/**
+	 * @return whether the current properties and listeners of the proxy can be handled by this node.
+	 */
+	public boolean canFlatten()
+	{
+		for (String event : TOUCH_EVENTS) {
+			if (proxy.hasListeners(event)) {
+				return false;
+			}
+		}
+		for (Map.Entry<String, Object> entry : proxy.getProperties().entrySet()) {
+			if (!canDraw(entry.getKey(), entry.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether the node can draw the given property value. Subclasses add the properties
+	 * of their view type.
+	 */
+	protected boolean canDraw(String key, Object value)
+	{
+		if (value == null || key.startsWith("_") || COMMON_PROPERTIES.contains(key)) {
+			return true;
+		}
+		if (key.equals(TiC.PROPERTY_ZINDEX)) {
+			// Nodes are drawn below the native children of their parent.
+			return TiConvert.toInt(value, 0) <= 0;
+		}
+		return LAYOUT_PROPERTIES.contains(key);
+	}
+
+	/**
+	 * Applies a property to the node. Only called for properties accepted by {@link #canDraw(String, Object)}.
+	 */
+	protected void applyProperty(String key, Object value)
+	{
+		if (key.equals(TiC.PROPERTY_BACKGROUND_COLOR)) {
+			backgroundColor = (value == null) ? Color.TRANSPARENT : TiConvert.toColor(TiConvert.toString(value));
+		} else if (key.equals(TiC.PROPERTY_BORDER_COLOR)) {
+			borderColor = (value == null) ? Color.TRANSPARENT : TiConvert.toColor(TiConvert.toString(value));
+		} else if (key.equals(TiC.PROPERTY_BORDER_WIDTH)) {
+			borderWidth = toPixels(value, TiDimension.TYPE_WIDTH);
+		} else if (key.equals(TiC.PROPERTY_BORDER_RADIUS)) {
+			borderRadius = toPixels(value, TiDimension.TYPE_WIDTH);
+		} else if (key.equals(TiC.PROPERTY_OPACITY)) {
+			opacity = TiConvert.toFloat(value, 1f);
+		} else if (key.equals(TiC.PROPERTY_VISIBLE)) {
+			visible = TiConvert.toBoolean(value, true);
+		}
+	}
+
+	protected float toPixels(Object value, int valueType)
+	{
+		if (value == null || host == null) {
+			return 0;
+		}
+		return TiConvert.toTiDimension(value, valueType).getAsPixels(host);
+	}
+
+	/**
+	 * Sets the measured size of the node, the same way {@link android.view.View#onMeasure(int, int)} does.
+	 * By default a node has no content, so it is only as big as the specs make it.
+	 */
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
+	{
+		setMeasuredDimension(resolveSize(0, widthMeasureSpec), resolveSize(0, heightMeasureSpec));
+	}
+
+	/**
+	 * Draws the content of the node, in a canvas translated to the top left corner of the node.
+	 */
+	protected void onDraw(Canvas canvas, int width, int height)
+	{
+	}
+
+	protected final void setMeasuredDimension(int width, int height)
+	{
+		measuredWidth = width;
+		measuredHeight = height;
+	}
+
+	protected static int resolveSize(int size, int measureSpec)
+	{
+		int specSize = MeasureSpec.getSize(measureSpec);
+		switch (MeasureSpec.getMode(measureSpec)) {
+			case MeasureSpec.EXACTLY:
+				return specSize;
+			case MeasureSpec.AT_MOST:
+				return Math.min(size, specSize);
+			default:
+				return size;
+		}
+	}
+
+	public void measure(int widthMeasureSpec, int heightMeasureSpec)
+	{
+		onMeasure(widthMeasureSpec, heightMeasureSpec);
+	}
+
+	public int getMeasuredWidth()
+	{
+		return measuredWidth;
+	}
+
+	public int getMeasuredHeight()
+	{
+		return measuredHeight;
+	}
+
+	public void layout(int left, int top, int right, int bottom)
+	{
+		bounds.set(left, top, right, bottom);
+	}
+
+	public Rect getBounds()
+	{
+		return bounds;
+	}
+
+	public TiCompositeLayout.LayoutParams getLayoutParams()
+	{
+		return layoutParams;
+	}
+
+	public boolean isVisible()
+	{
+		return visible;
+	}
+
+	protected Context getContext()
+	{
+		return (host != null) ? host.getContext() : proxy.getActivity();
+	}
+
+	public void draw(Canvas canvas)
+	{
+		if (!visible || opacity <= 0f || bounds.isEmpty()) {
+			return;
+		}
+		int saveCount = (opacity < 1f)
+			? canvas.saveLayerAlpha(new RectF(bounds), Math.round(opacity * 255), Canvas.ALL_SAVE_FLAG)
+			: canvas.save();
+		canvas.translate(bounds.left, bounds.top);
+		drawBackground(canvas, bounds.width(), bounds.height());
+		onDraw(canvas, bounds.width(), bounds.height());
+		canvas.restoreToCount(saveCount);
+	}
+
+	private void drawBackground(Canvas canvas, int width, int height)
+	{
+		if (Color.alpha(backgroundColor) == 0 && (borderWidth <= 0 || Color.alpha(borderColor) == 0)) {
+			return;
+		}
+		if (paint == null) {
+			paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		}
+		RectF rect = new RectF(0, 0, width, height);
+		if (Color.alpha(backgroundColor) != 0) {
+			paint.setStyle(Paint.Style.FILL);
+			paint.setColor(backgroundColor);
+			canvas.drawRoundRect(rect, borderRadius, borderRadius, paint);
+		}
+		if (borderWidth > 0 && Color.alpha(borderColor) != 0) {
+			float inset = borderWidth / 2;
+			rect.inset(inset, inset);
+			paint.setStyle(Paint.Style.STROKE);
+			paint.setStrokeWidth(borderWidth);
+			paint.setColor(borderColor);
+			canvas.drawRoundRect(rect, Math.max(0, borderRadius - inset), Math.max(0, borderRadius - inset), paint);
+		}
+	}
+
+	void attach(TiCompositeLayout host)
+	{
+		this.host = host;
+	}
+
+	void detach()
+	{
+		host = null;
+		onDetach();
+	}
+
+	/**
+	 * Stops drawing the node in its parent layout.
+	 */
+	public void remove()
+	{
+		if (host != null) {
+			host.removeFlatNode(this);
+		}
+	}
+
+	/**
+	 * Called when the node stops being drawn, to release the resources it holds.
+	 */
+	protected void onDetach()
+	{
+	}
+
+	public void invalidate()
+	{
+		if (host != null) {
+			host.invalidate(bounds);
+		}
+	}
+
+	public void requestLayout()
+	{
+		if (host != null) {
+			host.requestLayout();
+			host.invalidate();
+		}
+	}
+
+	// Hands the proxy over to a native view.
+	private void unflatten()
+	{
+		if (host != null) {
+			proxy.unflatten();
+		}
+	}
+
+	public void processProperties(KrollDict d)
+	{
+		TiConvert.fillLayout(d, layoutParams);
+		for (Map.Entry<String, Object> entry : d.entrySet()) {
+			if (!canDraw(entry.getKey(), entry.getValue())) {
+				unflatten();
+				return;
+			}
+			applyProperty(entry.getKey(), entry.getValue());
+		}
+		requestLayout();
+	}
+
+	public void propertyChanged(String key, Object oldValue, Object newValue, KrollProxy proxy)
+	{
+		if (!canDraw(key, newValue)) {
+			unflatten();
+			return;
+		}
+		if (LAYOUT_PROPERTIES.contains(key)) {
+			KrollDict layout = new KrollDict();
+			layout.put(key, newValue);
+			TiConvert.fillLayout(layout, layoutParams);
+		} else {
+			applyProperty(key, newValue);
+		}
+		requestLayout();
+	}
+
+	public void propertiesChanged(List<KrollPropertyChange> changes, KrollProxy proxy)
+	{
+		for (KrollPropertyChange change : changes) {
+			propertyChanged(change.getName(), change.getOldValue(), change.getNewValue(), proxy);
+			if (host == null) {
+				return;
+			}
+		}
+	}
+
+	public void listenerAdded(String type, int count, KrollProxy proxy)
+	{
+		if (TOUCH_EVENTS.contains(type)) {
+			unflatten();
+		}
+	}
+
+	public void listenerRemoved(String type, int count, KrollProxy proxy)
+	{
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.view;
+
+import org.appcelerator.kroll.KrollDict;
+
+/**
+ * Counts the layout work done by the Titanium layouts of one window. All counters are only
+ * updated on the UI thread.
+ */
+public class TiLayoutStats
+{
+	private int layoutPasses;
+	private int measurePasses;
+	private int childMeasures;
+	private int cachedChildMeasures;
+	private int sorts;
+
+	void layoutPass()
+	{
+		layoutPasses++;
+	}
+
+	void measurePass()
+	{
+		measurePasses++;
+	}
+
+	void childMeasure(boolean cached)
+	{
+		if (cached) {
+			cachedChildMeasures++;
+		} else {
+			childMeasures++;
+		}
+	}
+
+	void sort()
+	{
+		sorts++;
+	}
+
+	public void reset()
+	{
+		layoutPasses = 0;
+		measurePasses = 0;
+		childMeasures = 0;
+		cachedChildMeasures = 0;
+		sorts = 0;
+	}
+
+	/**
+	 * @return the counters, by name.
+	 */
+	public KrollDict toDict()
+	{
+		KrollDict dict = new KrollDict();
+		dict.put("layoutPasses", layoutPasses);
+		dict.put("measurePasses", measurePasses);
+		dict.put("childMeasures", childMeasures);
+		dict.put("cachedChildMeasures", cachedChildMeasures);
+		dict.put("sorts", sorts);
+		return dict;
+	}
+}
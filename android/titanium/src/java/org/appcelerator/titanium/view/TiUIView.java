@@ -599,6 +599,9 @@ public abstract class TiUIView
 	protected void layoutNativeView(boolean informParent)
 	{
 		if (nativeView != null) {
+			if (layoutParams != null) {
+				layoutParams.invalidateMeasureCache();
+			}
 			Animation a = nativeView.getAnimation();
 			if (a != null && a instanceof TiMatrixAnimation) {
 				TiMatrixAnimation matrixAnimation = (TiMatrixAnimation) a;
@@ -1,12 +1,21 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2011-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2011-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package ti.modules.titanium;
 
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.Arrays;
 
 import org.appcelerator.kroll.KrollDict;
@@ -21,7 +30,11 @@ import org.appcelerator.titanium.util.TiConvert;
 import ti.modules.titanium.codec.CodecModule;
 
 /**
- * A proxy that wraps a primitive byte array buffer
+ * A proxy that wraps a resizable buffer of bytes. The bytes are kept in a {@link ByteBuffer},
+ * which is allocated outside of the Java heap when the buffer is created with <code>direct</code>.
+ * The storage has a capacity of its own, which doubles when the buffer grows past it, so repeated
+ * appends and stream reads do not copy the whole buffer each time. Slices share the storage of
+ * their buffer until either of them grows past its capacity.
  */
 @Kroll.proxy(creatableInModule=TitaniumModule.class, propertyAccessors = {
 	TiC.PROPERTY_BYTE_ORDER,
@@ -32,7 +45,18 @@ public class BufferProxy extends KrollProxy
 {
 	private static final String TAG = "BufferProxy";
 
-	private byte[] buffer;
+	private static final String PROPERTY_CAPACITY = "capacity";
+	private static final String PROPERTY_DIRECT = "direct";
+
+	private static final int MIN_CAPACITY = 16;
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private ByteBuffer storage;
+	private int length;
+	private boolean direct;
+
+	// Whether the storage is shared with slices, so it can not be given away or trimmed.
+	private boolean shared;
 
 	public BufferProxy()
 	{
@@ -41,12 +65,22 @@ public class BufferProxy extends KrollProxy
 
 	public BufferProxy(int bufferSize)
 	{
-		buffer = new byte[bufferSize];
+		storage = ByteBuffer.allocate(bufferSize);
+		length = bufferSize;
 	}
 
 	public BufferProxy(byte[] existingBuffer)
 	{
-		buffer = existingBuffer;
+		storage = ByteBuffer.wrap(existingBuffer);
+		length = existingBuffer.length;
+	}
+
+	private BufferProxy(ByteBuffer storage, boolean direct, boolean shared)
+	{
+		this.storage = storage;
+		this.length = storage.capacity();
+		this.direct = direct;
+		this.shared = shared;
 	}
 
 	@Override
@@ -54,7 +88,8 @@ public class BufferProxy extends KrollProxy
 	{
 		// If no arguments are provided in create, allocate an empty buffer.
 		if (args.length == 0) {
-			buffer = new byte[0];
+			storage = EMPTY;
+			length = 0;
 		} else {
 			super.handleCreationArgs(createdInModule, args);
 		}
@@ -70,6 +105,12 @@ public class BufferProxy extends KrollProxy
 		if (lengthProperty != null) {
 			length = TiConvert.toInt(lengthProperty);
 		}
+		int capacity = length;
+		Object capacityProperty = dict.get(PROPERTY_CAPACITY);
+		if (capacityProperty != null) {
+			capacity = Math.max(length, TiConvert.toInt(capacityProperty));
+		}
+		direct = dict.optBoolean(PROPERTY_DIRECT, false);
 
 		if (!hasProperty(TiC.PROPERTY_BYTE_ORDER)) {
 			// If no byte order is specified we need to default to the system byte order
@@ -77,7 +118,8 @@ public class BufferProxy extends KrollProxy
 			setProperty(TiC.PROPERTY_BYTE_ORDER, CodecModule.getByteOrder(null));
 		}
 
-		buffer = new byte[length];
+		storage = allocate(capacity);
+		this.length = length;
 		Object value = dict.get(TiC.PROPERTY_VALUE);
 		if (value instanceof Number) {
 			encodeNumber((Number) value, dict);
@@ -93,12 +135,12 @@ public class BufferProxy extends KrollProxy
 			throw new IllegalArgumentException("data is a Number, but no type was given");
 		}
 
-		if (buffer.length == 0) {
-			buffer = new byte[CodecModule.getWidth(type)];
+		if (length == 0) {
+			resize(CodecModule.getWidth(type));
 		}
 
 		int byteOrder = CodecModule.getByteOrder(dict.get(TiC.PROPERTY_BYTE_ORDER));
-		CodecModule.encodeNumber(value, type, buffer, 0, byteOrder);
+		CodecModule.encodeNumber(value, type, getByteBuffer(), 0, byteOrder);
 	}
 
 	protected void encodeString(String value, KrollDict dict)
@@ -111,10 +153,11 @@ public class BufferProxy extends KrollProxy
 		String charset = CodecModule.getCharset(type);
 		try {
 			byte bytes[] = value.getBytes(charset);
-			if (buffer.length == 0) {
-				buffer = bytes;
+			if (length == 0) {
+				storage = direct ? allocate(bytes.length).put(bytes) : ByteBuffer.wrap(bytes);
+				length = bytes.length;
 			} else {
-				System.arraycopy(bytes, 0, buffer, 0, bytes.length);
+				write(0, bytes, 0, bytes.length);
 			}
 		} catch (UnsupportedEncodingException e) {
 			Log.w(TAG, e.getMessage(), e);
@@ -122,54 +165,119 @@ public class BufferProxy extends KrollProxy
 		}
 	}
 
+	private ByteBuffer allocate(int capacity)
+	{
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
 	/**
-	 * @return The native buffer for this proxy
+	 * @return The native buffer for this proxy. This is the storage of the buffer, so writes into
+	 * the array change the buffer. When a heap buffer has grown past its length, its storage is
+	 * first trimmed to a new array of exactly its length.
+	 * @throws IllegalStateException if the buffer is direct, or shares its storage with slices, as
+	 * its storage is then not an array of exactly its length. Use {@link #getByteBuffer()} instead.
 	 * @module.api
 	 */
 	public byte[] getBuffer()
 	{
-		return buffer;
+		if (storage.hasArray() && storage.arrayOffset() == 0 && storage.array().length == length) {
+			return storage.array();
+		}
+		if (direct || shared) {
+			throw new IllegalStateException("The storage of a direct or sliced buffer is not a byte array, use getByteBuffer()");
+		}
+		byte[] bytes = new byte[length];
+		view(0, length).get(bytes);
+		storage = ByteBuffer.wrap(bytes);
+		return bytes;
+	}
+
+	private byte[] toByteArray()
+	{
+		if (storage.hasArray() && storage.arrayOffset() == 0 && storage.array().length == length) {
+			return storage.array();
+		}
+		byte[] bytes = new byte[length];
+		view(0, length).get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * @return A view of the bytes of this buffer, from position 0 to its length. The view shares
+	 * the storage of the buffer until the buffer grows past its capacity.
+	 * @module.api
+	 */
+	public ByteBuffer getByteBuffer()
+	{
+		return view(0, length);
+	}
+
+	private ByteBuffer view(int offset, int length)
+	{
+		ByteBuffer view = storage.duplicate();
+		view.limit(offset + length);
+		view.position(offset);
+		return view;
 	}
 
 	@Override
 	public Object getIndexedProperty(int index)
 	{
-		return buffer[index] & 0xFF;
+		checkIndex(index);
+		return storage.get(index) & 0xFF;
 	}
 
 	@Override
 	public void setIndexedProperty(int index, Object value)
 	{
 		if (value instanceof Number) {
-			buffer[index] = ((Number)value).byteValue();
+			checkIndex(index);
+			storage.put(index, ((Number)value).byteValue());
 		} else {
 			super.setIndexedProperty(index, value);
 		}
 	}
 
-	protected byte[] copyOf(byte[] array, int newLength)
+	private void checkIndex(int index)
 	{
-		byte newArray[] = new byte[newLength];
-		int length = newLength;
-		if (length > array.length) {
-			length = array.length;
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index " + index + " is outside of the buffer length: " + length);
 		}
-		System.arraycopy(array, 0, newArray, 0, length);
-		return newArray;
 	}
 
-	protected byte[] copyOfRange(byte[] array, int from, int to)
+	protected void validateOffsetAndLength(int offset, int length, int bufferLength)
 	{
-		int length = to - from;
-		byte newArray[] = new byte[length];
-		System.arraycopy(array, from, newArray, 0, length);
-		return newArray;
+		if (offset < 0 || length < 0 || offset + length > bufferLength) {
+			throw new IllegalArgumentException("offset of " + offset + " and length of " + length + " is larger than the buffer length: " + bufferLength);
+		}
 	}
 
-	protected void validateOffsetAndLength(int offset, int length, int bufferLength)
+	/**
+	 * Grows the storage to hold at least minCapacity bytes, doubling its capacity so that
+	 * repeated growth copies the bytes a logarithmic number of times.
+	 */
+	private void ensureCapacity(int minCapacity)
 	{
-		if (length > offset + bufferLength) {
-			throw new IllegalArgumentException("offset of " + offset + " and length of " + length + " is larger than the buffer length: " + bufferLength);
+		int capacity = storage.capacity();
+		if (minCapacity <= capacity) {
+			return;
+		}
+		long newCapacity = Math.max(MIN_CAPACITY, Math.max((long) minCapacity, (long) capacity * 2));
+		ByteBuffer newStorage = allocate((int) Math.min(Integer.MAX_VALUE, newCapacity));
+		newStorage.put(view(0, length));
+		storage = newStorage;
+		shared = false;
+	}
+
+	private void fillRange(int offset, int length, byte value)
+	{
+		if (storage.hasArray()) {
+			int start = storage.arrayOffset() + offset;
+			Arrays.fill(storage.array(), start, start + length, value);
+		} else {
+			for (int i = offset; i < offset + length; i++) {
+				storage.put(i, value);
+			}
 		}
 	}
 
@@ -184,40 +292,117 @@ public class BufferProxy extends KrollProxy
 	 */
 	public int write(int position, byte[] sourceBuffer, int sourceOffset, int sourceLength)
 	{
-		if ((position + sourceLength) > buffer.length) {
-			buffer = copyOf(buffer, (position + sourceLength));
+		if ((position + sourceLength) > length) {
+			resize(position + sourceLength);
 		}
 
-		System.arraycopy(sourceBuffer, sourceOffset, buffer, position, sourceLength);
+		view(position, sourceLength).put(sourceBuffer, sourceOffset, sourceLength);
 
 		return sourceLength;
 	}
 
+	/**
+	 * Writes data from another buffer into this, growing this buffer if needed.
+	 * @param position the offset position of this buffer.
+	 * @param source the buffer to write from.
+	 * @param sourceOffset the offset position of the source.
+	 * @param sourceLength the number of bytes to write.
+	 * @return number of bytes written.
+	 * @module.api
+	 */
+	public int write(int position, BufferProxy source, int sourceOffset, int sourceLength)
+	{
+		ByteBuffer sourceView = source.view(sourceOffset, sourceLength);
+		if ((position + sourceLength) > length) {
+			resize(position + sourceLength);
+		}
+
+		view(position, sourceLength).put(sourceView);
+
+		return sourceLength;
+	}
+
+	/**
+	 * Reads from a stream into this buffer, without growing it.
+	 * @param inputStream the stream to read from.
+	 * @param offset the offset position of this buffer.
+	 * @param length the maximum number of bytes to read.
+	 * @return number of bytes read, -1 at the end of the stream.
+	 * @module.api
+	 */
+	public int readFrom(InputStream inputStream, int offset, int length) throws IOException
+	{
+		if ((offset + length) > this.length) {
+			length = this.length - offset;
+		}
+
+		if (storage.hasArray()) {
+			return inputStream.read(storage.array(), storage.arrayOffset() + offset, length);
+		}
+		if (length == 0) {
+			return 0;
+		}
+		ByteBuffer view = view(offset, length);
+		if (inputStream instanceof FileInputStream) {
+			return ((FileInputStream) inputStream).getChannel().read(view);
+		}
+		return Channels.newChannel(inputStream).read(view);
+	}
+
+	/**
+	 * Writes the bytes of this buffer to a stream, and flushes it.
+	 * @param outputStream the stream to write to.
+	 * @param offset the offset position of this buffer.
+	 * @param length the number of bytes to write.
+	 * @return number of bytes written.
+	 * @module.api
+	 */
+	public int writeTo(OutputStream outputStream, int offset, int length) throws IOException
+	{
+		if ((offset + length) > this.length) {
+			length = this.length - offset;
+		}
+
+		if (storage.hasArray()) {
+			outputStream.write(storage.array(), storage.arrayOffset() + offset, length);
+		} else {
+			ByteBuffer view = view(offset, length);
+			WritableByteChannel channel;
+			if (outputStream instanceof FileOutputStream) {
+				channel = ((FileOutputStream) outputStream).getChannel();
+			} else {
+				channel = Channels.newChannel(outputStream);
+			}
+			while (view.hasRemaining()) {
+				channel.write(view);
+			}
+		}
+		outputStream.flush();
+
+		return length;
+	}
+
 	@Kroll.method
 	public int append(Object[] args)
 	{
 		if (args.length < 1) {
 			throw new IllegalArgumentException("At least 1 argument required for append: src");
 		}
-		int destLength = buffer.length;
 		BufferProxy src = (BufferProxy) args[0];
-		byte[] sourceBuffer = src.getBuffer();
 
 		int offset = 0;
 		if (args.length > 1 && args[1] != null) {
 			offset = TiConvert.toInt(args[1]);
 		}
 
-		int sourceLength = sourceBuffer.length;
+		int sourceLength = src.length;
 		if (args.length > 2 && args[2] != null) {
 			sourceLength = TiConvert.toInt(args[2]);
 		}
 
-		validateOffsetAndLength(offset, sourceLength, sourceBuffer.length);
+		validateOffsetAndLength(offset, sourceLength, src.length);
 
-		buffer = copyOf(buffer, (destLength + sourceLength));
-		System.arraycopy(sourceBuffer, offset, buffer, destLength, sourceLength);
-		return sourceLength;
+		return write(length, src, offset, sourceLength);
 	}
 
 	@Kroll.method
@@ -227,7 +412,6 @@ public class BufferProxy extends KrollProxy
 			throw new IllegalArgumentException("At least 2 arguments required for insert: src, offset");
 		}
 		BufferProxy sourceBufferProxy = (BufferProxy) args[0];
-		byte[] sourceBuffer = sourceBufferProxy.getBuffer();
 		int offset = TiConvert.toInt(args[1]);
 
 		int sourceOffset = 0;
@@ -235,24 +419,46 @@ public class BufferProxy extends KrollProxy
 			sourceOffset = TiConvert.toInt(args[2]);
 		}
 
-		int sourceLength = sourceBuffer.length;
+		int sourceLength = sourceBufferProxy.length;
 		if (args.length > 3 && args[3] != null) {
 			sourceLength = TiConvert.toInt(args[3]);
 		}
 
-		validateOffsetAndLength(sourceOffset, sourceLength, sourceBuffer.length);
-
-		byte[] preInsertBuffer = copyOf(buffer, offset);
-		byte[] postInsertBuffer = copyOfRange(buffer, offset, buffer.length);
+		validateOffsetAndLength(sourceOffset, sourceLength, sourceBufferProxy.length);
+		validateOffsetAndLength(offset, 0, length);
+
+		// The source is read after the tail of this buffer is moved, so it is copied first when both
+		// buffers use the same storage
+		ByteBuffer sourceView = sourceBufferProxy.view(sourceOffset, sourceLength);
+		if (sharesStorage(sourceBufferProxy)) {
+			ByteBuffer copy = allocate(sourceLength);
+			copy.put(sourceView);
+			copy.flip();
+			sourceView = copy;
+		}
 
-		buffer = new byte[(preInsertBuffer.length + sourceLength + postInsertBuffer.length)];
-		System.arraycopy(preInsertBuffer, 0, buffer, 0, preInsertBuffer.length);
-		System.arraycopy(sourceBuffer, sourceOffset, buffer, preInsertBuffer.length, sourceLength);
-		System.arraycopy(postInsertBuffer, 0, buffer, (preInsertBuffer.length + sourceLength), postInsertBuffer.length);
+		int tailLength = length - offset;
+		ensureCapacity(length + sourceLength);
+		view(offset + sourceLength, tailLength).put(view(offset, tailLength));
+		view(offset, sourceLength).put(sourceView);
+		length += sourceLength;
 
 		return sourceLength;
 	}
 
+	private boolean sharesStorage(BufferProxy other)
+	{
+		if (other == this) {
+			return true;
+		}
+		if (storage.hasArray() && other.storage.hasArray()) {
+			return storage.array() == other.storage.array();
+		}
+		// The memory of direct buffers can not be compared, so buffers that take part in slicing
+		// are assumed to share it
+		return shared && other.shared;
+	}
+
 	@Kroll.method
 	public int copy(Object[] args)
 	{
@@ -261,7 +467,6 @@ public class BufferProxy extends KrollProxy
 		}
 
 		BufferProxy sourceBufferProxy = (BufferProxy) args[0];
-		byte[] sourceBuffer = sourceBufferProxy.getBuffer();
 
 		int offset = 0;
 		if (args.length > 1 && args[1] != null) {
@@ -273,14 +478,15 @@ public class BufferProxy extends KrollProxy
 			sourceOffset = TiConvert.toInt(args[2]);
 		}
 
-		int sourceLength = sourceBuffer.length;
+		int sourceLength = sourceBufferProxy.length;
 		if (args.length > 3 && args[3] != null) {
 			sourceLength = TiConvert.toInt(args[3]);
 		}
 
-		validateOffsetAndLength(sourceOffset, sourceLength, sourceBuffer.length);
+		validateOffsetAndLength(sourceOffset, sourceLength, sourceBufferProxy.length);
+		validateOffsetAndLength(offset, sourceLength, length);
 
-		System.arraycopy(sourceBuffer, sourceOffset, buffer, offset, sourceLength);
+		view(offset, sourceLength).put(sourceBufferProxy.view(sourceOffset, sourceLength));
 		return sourceLength;
 	}
 
@@ -292,14 +498,41 @@ public class BufferProxy extends KrollProxy
 			offset = TiConvert.toInt(args[0]);
 		}
 
-		int length = buffer.length;
+		int length = this.length;
+		if (args.length > 1 && args[1] != null) {
+			length = TiConvert.toInt(args[1]);
+		}
+
+		validateOffsetAndLength(offset, length, this.length);
+
+		ByteBuffer copy = allocate(length);
+		copy.put(view(offset, length));
+		return new BufferProxy(copy, direct, false);
+	}
+
+	/**
+	 * Creates a buffer that shares a range of the bytes of this buffer, without copying them.
+	 * Writes to either buffer are seen by the other, until either grows past its capacity.
+	 */
+	@Kroll.method
+	public BufferProxy slice(Object[] args)
+	{
+		int offset = 0;
+		if (args.length > 0 && args[0] != null) {
+			offset = TiConvert.toInt(args[0]);
+		}
+
+		int length = this.length - offset;
 		if (args.length > 1 && args[1] != null) {
 			length = TiConvert.toInt(args[1]);
 		}
 
-		validateOffsetAndLength(offset, length, buffer.length);
+		validateOffsetAndLength(offset, length, this.length);
 
-		return new BufferProxy(copyOfRange(buffer, offset, offset+length));
+		shared = true;
+		BufferProxy slice = new BufferProxy(view(offset, length).slice(), direct, true);
+		slice.setProperty(TiC.PROPERTY_BYTE_ORDER, getProperty(TiC.PROPERTY_BYTE_ORDER));
+		return slice;
 	}
 
 	@Kroll.method
@@ -315,38 +548,43 @@ public class BufferProxy extends KrollProxy
 			offset = TiConvert.toInt(args[1]);
 		}
 
-		int length = buffer.length;
+		int length = this.length;
 		if (args.length > 2 && args[2] != null) {
 			length = TiConvert.toInt(args[2]);
 		}
 
-		validateOffsetAndLength(offset, length, buffer.length);
+		validateOffsetAndLength(offset, length, this.length);
 
-		Arrays.fill(buffer, offset, (offset + length), (byte)fillByte);
+		fillRange(offset, length, (byte)fillByte);
 	}
 
 	@Kroll.method
 	public void clear()
 	{
-		Arrays.fill(buffer, (byte)0);
+		fillRange(0, length, (byte)0);
 	}
 
 	@Kroll.method
 	public void release()
 	{
-		buffer = new byte[0];
+		storage = EMPTY;
+		length = 0;
+		shared = false;
 	}
 
 	@Kroll.method
 	public String toString()
 	{
-		return new String(buffer);
+		if (storage.hasArray()) {
+			return new String(storage.array(), storage.arrayOffset(), length);
+		}
+		return Charset.defaultCharset().decode(view(0, length)).toString();
 	}
 
 	@Kroll.method
 	public TiBlob toBlob()
 	{
-		return TiBlob.blobFromData(buffer);
+		return TiBlob.blobFromData(toByteArray());
 	}
 
 	/**
@@ -356,7 +594,7 @@ public class BufferProxy extends KrollProxy
 	@Kroll.getProperty @Kroll.method
 	public int getLength()
 	{
-		return buffer.length;
+		return length;
 	}
 
 	/**
@@ -371,9 +609,38 @@ public class BufferProxy extends KrollProxy
 		resize(length);
 	}
 
+	/**
+	 * @return The number of bytes this buffer can hold before its storage is grown.
+	 * @module.api
+	 */
+	@Kroll.getProperty @Kroll.method
+	public int getCapacity()
+	{
+		return storage.capacity();
+	}
+
+	@Kroll.getProperty @Kroll.method
+	public boolean getDirect()
+	{
+		return direct;
+	}
+
+	/**
+	 * Sets the length of this buffer. Shrinking keeps the storage, and growing only reallocates it
+	 * past its capacity. New bytes are zeroed.
+	 * @param length The new length of this buffer proxy in bytes
+	 * @module.api
+	 */
 	public void resize(int length)
 	{
-		buffer = copyOf(buffer, length);
+		if (length < 0) {
+			throw new IllegalArgumentException("Invalid buffer length: " + length);
+		}
+		if (length > this.length) {
+			ensureCapacity(length);
+			fillRange(this.length, length - this.length, (byte)0);
+		}
+		this.length = length;
 	}
 
 	@Override
@@ -382,4 +649,3 @@ public class BufferProxy extends KrollProxy
 		return "Ti.Buffer";
 	}
 }
-
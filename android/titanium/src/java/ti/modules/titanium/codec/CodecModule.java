@@ -1,18 +1,25 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2011-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2011-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package ti.modules.titanium.codec;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
 
 import org.appcelerator.kroll.KrollDict;
 import org.appcelerator.kroll.KrollModule;
 import org.appcelerator.kroll.annotations.Kroll;
-import org.appcelerator.kroll.common.Log;
 import org.appcelerator.titanium.TiC;
 import org.appcelerator.titanium.util.TiConvert;
 
@@ -41,6 +48,10 @@ public class CodecModule extends KrollModule
 	@Kroll.constant public static final int BIG_ENDIAN = 0;
 	@Kroll.constant public static final int LITTLE_ENDIAN = 1;
 
+	// Coders are reused for each charset, and used by one thread at a time.
+	private static final HashMap<String, CharsetEncoder> encoders = new HashMap<String, CharsetEncoder>();
+	private static final HashMap<String, CharsetDecoder> decoders = new HashMap<String, CharsetDecoder>();
+
 	@Kroll.method
 	public int encodeNumber(KrollDict args)
 	{
@@ -64,8 +75,36 @@ public class CodecModule extends KrollModule
 			position = TiConvert.toInt(args, TiC.PROPERTY_POSITION);
 		}
 
-		byte buffer[] = dest.getBuffer();
-		return encodeNumber(src, type, buffer, position, byteOrder);
+		return encodeNumber(src, type, dest.getByteBuffer(), position, byteOrder);
+	}
+
+	/**
+	 * Encodes a number at an absolute position of a buffer, and sets the byte order of the buffer.
+	 * @return the position after the encoded number.
+	 */
+	public static int encodeNumber(Number src, String type, ByteBuffer dest, int position, int byteOrder)
+	{
+		dest.order(toByteOrder(byteOrder));
+		if (type.equals(TYPE_BYTE)) {
+			dest.put(position, (byte) src.longValue());
+			return position+1;
+		} else if (type.equals(TYPE_SHORT)) {
+			dest.putShort(position, (short) src.longValue());
+			return position+2;
+		} else if (type.equals(TYPE_INT)) {
+			dest.putInt(position, (int) src.longValue());
+			return position+4;
+		} else if (type.equals(TYPE_FLOAT)) {
+			dest.putFloat(position, src.floatValue());
+			return position+4;
+		} else if (type.equals(TYPE_LONG)) {
+			dest.putLong(position, src.longValue());
+			return position+8;
+		} else if (type.equals(TYPE_DOUBLE)) {
+			dest.putDouble(position, src.doubleValue());
+			return position+8;
+		}
+		return position;
 	}
 
 	public static int encodeNumber(Number src, String type, byte dest[], int position, int byteOrder)
@@ -124,45 +163,205 @@ public class CodecModule extends KrollModule
 			position = TiConvert.toInt(args, TiC.PROPERTY_POSITION);
 		}
 
-		byte src[] = buffer.getBuffer();
+		return decodeNumber(buffer.getByteBuffer(), type, position, byteOrder);
+	}
+
+	/**
+	 * Decodes a number at an absolute position of a buffer, and sets the byte order of the buffer.
+	 * Shorts are decoded as unsigned.
+	 */
+	public static Object decodeNumber(ByteBuffer src, String type, int position, int byteOrder)
+	{
+		src.order(toByteOrder(byteOrder));
+		if (type.equals(TYPE_BYTE)) {
+			return src.get(position);
+		} else if (type.equals(TYPE_SHORT)) {
+			return src.getShort(position) & 0xFFFF;
+		} else if (type.equals(TYPE_INT)) {
+			return src.getInt(position);
+		} else if (type.equals(TYPE_FLOAT)) {
+			return src.getFloat(position);
+		} else if (type.equals(TYPE_LONG)) {
+			return src.getLong(position);
+		} else if (type.equals(TYPE_DOUBLE)) {
+			return src.getDouble(position);
+		}
+		return 0;
+	}
+
+	@Kroll.method
+	public int encodeNumbers(KrollDict args)
+	{
+		if (!args.containsKey(TiC.PROPERTY_DEST)) {
+			throw new IllegalArgumentException("dest was not specified for encodeNumbers");
+		}
+		if (!(args.get(TiC.PROPERTY_SOURCE) instanceof Object[])) {
+			throw new IllegalArgumentException("src was not specified as an array for encodeNumbers");
+		}
+		if (!args.containsKey(TiC.PROPERTY_TYPE)) {
+			throw new IllegalArgumentException("type was not specified for encodeNumbers");
+		}
+
+		BufferProxy dest = (BufferProxy) args.get(TiC.PROPERTY_DEST);
+		Object[] src = (Object[]) args.get(TiC.PROPERTY_SOURCE);
+		String type = TiConvert.toString(args, TiC.PROPERTY_TYPE);
+		int byteOrder = getByteOrder(args.get(TiC.PROPERTY_BYTE_ORDER));
+
+		int position = 0;
+		if (args.containsKey(TiC.PROPERTY_POSITION)) {
+			position = TiConvert.toInt(args, TiC.PROPERTY_POSITION);
+		}
+
+		return encodeNumbers(src, type, dest.getByteBuffer(), position, byteOrder);
+	}
+
+	/**
+	 * Encodes numbers of the same type one after the other from a position of a buffer, through a
+	 * view of the buffer for that type.
+	 * @return the position after the last encoded number.
+	 */
+	public static int encodeNumbers(Object[] src, String type, ByteBuffer dest, int position, int byteOrder)
+	{
+		int count = src.length;
+		validateRange(type, position, count, dest.limit());
+		dest.order(toByteOrder(byteOrder));
+		dest.position(position);
+
 		if (type.equals(TYPE_BYTE)) {
-			return src[position];
-		}
-		else if (type.equals(TYPE_SHORT)) {
-			short s1 = (short) (src[position] & 0xFF);
-			short s2 = (short) (src[position + 1] & 0xFF);
-			switch (byteOrder) {
-				case BIG_ENDIAN:
-					return ((s1 << 8) + s2);
-				case LITTLE_ENDIAN:
-					return ((s2 << 8) + s1);
+			for (int i = 0; i < count; i++) {
+				dest.put((byte) toNumber(src[i]).longValue());
 			}
-		} else if (type.equals(TYPE_INT) || type.equals(TYPE_FLOAT)) {
-			int bits = 0;
-			int shiftBits = byteOrder == BIG_ENDIAN ? 24 : 0;
-			int step = byteOrder == BIG_ENDIAN ? -8 : 8;
-			for (int i = 0; i < 4; i++, shiftBits += step) {
-				int part = (int) (src[position + i] & 0xFF);
-				bits += (part << shiftBits);
+		} else if (type.equals(TYPE_SHORT)) {
+			short[] values = new short[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = (short) toNumber(src[i]).longValue();
 			}
-			if (type.equals(TYPE_FLOAT)) {
-				return Float.intBitsToFloat(bits);
+			dest.asShortBuffer().put(values);
+		} else if (type.equals(TYPE_INT)) {
+			int[] values = new int[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = (int) toNumber(src[i]).longValue();
 			}
-			return bits;
-		} else if (type.equals(TYPE_LONG) || type.equals(TYPE_DOUBLE)) {
-			long bits = 0;
-			int shiftBits = byteOrder == BIG_ENDIAN ? 56 : 0;
-			int step = byteOrder == BIG_ENDIAN ? -8 : 8;
-			for (int i = 0; i < 8; i++, shiftBits += step) {
-				long part = (long) (src[position + i] & 0xFF);
-				bits += (part << shiftBits);
+			dest.asIntBuffer().put(values);
+		} else if (type.equals(TYPE_FLOAT)) {
+			float[] values = new float[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = toNumber(src[i]).floatValue();
 			}
-			if (type.equals(TYPE_DOUBLE)) {
-				return Double.longBitsToDouble(bits);
+			dest.asFloatBuffer().put(values);
+		} else if (type.equals(TYPE_LONG)) {
+			long[] values = new long[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = toNumber(src[i]).longValue();
 			}
-			return bits;
+			dest.asLongBuffer().put(values);
+		} else {
+			double[] values = new double[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = toNumber(src[i]).doubleValue();
+			}
+			dest.asDoubleBuffer().put(values);
 		}
-		return 0;
+		return position + count * getWidth(type);
+	}
+
+	/**
+	 * Decodes numbers of the same type into an array: an int array for bytes, shorts and ints,
+	 * and a float, long or double array for the other types. Shorts are decoded as unsigned.
+	 */
+	@Kroll.method
+	public Object decodeNumbers(KrollDict args)
+	{
+		if (!args.containsKey(TiC.PROPERTY_SOURCE)) {
+			throw new IllegalArgumentException("src was not specified for decodeNumbers");
+		}
+		if (!args.containsKey(TiC.PROPERTY_TYPE)) {
+			throw new IllegalArgumentException("type was not specified for decodeNumbers");
+		}
+
+		BufferProxy buffer = (BufferProxy) args.get(TiC.PROPERTY_SOURCE);
+		String type = TiConvert.toString(args, TiC.PROPERTY_TYPE);
+		int byteOrder = getByteOrder(args.get(TiC.PROPERTY_BYTE_ORDER));
+
+		int position = 0;
+		if (args.containsKey(TiC.PROPERTY_POSITION)) {
+			position = TiConvert.toInt(args, TiC.PROPERTY_POSITION);
+		}
+		int count = -1;
+		if (args.containsKey(TiC.PROPERTY_COUNT)) {
+			count = TiConvert.toInt(args, TiC.PROPERTY_COUNT);
+		}
+
+		return decodeNumbers(buffer.getByteBuffer(), type, position, count, byteOrder);
+	}
+
+	/**
+	 * @param count the number of values to decode, or -1 to decode up to the end of the buffer.
+	 */
+	public static Object decodeNumbers(ByteBuffer src, String type, int position, int count, int byteOrder)
+	{
+		int width = getWidth(type);
+		if (width == 0) {
+			throw new IllegalArgumentException("invalid type: " + type);
+		}
+		if (count < 0) {
+			count = Math.max(0, (src.limit() - position) / width);
+		}
+		validateRange(type, position, count, src.limit());
+		src.order(toByteOrder(byteOrder));
+		src.position(position);
+
+		if (type.equals(TYPE_BYTE)) {
+			int[] values = new int[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = src.get();
+			}
+			return values;
+		} else if (type.equals(TYPE_SHORT)) {
+			short[] shorts = new short[count];
+			src.asShortBuffer().get(shorts);
+			int[] values = new int[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = shorts[i] & 0xFFFF;
+			}
+			return values;
+		} else if (type.equals(TYPE_INT)) {
+			int[] values = new int[count];
+			src.asIntBuffer().get(values);
+			return values;
+		} else if (type.equals(TYPE_FLOAT)) {
+			float[] values = new float[count];
+			src.asFloatBuffer().get(values);
+			return values;
+		} else if (type.equals(TYPE_LONG)) {
+			long[] values = new long[count];
+			src.asLongBuffer().get(values);
+			return values;
+		} else {
+			double[] values = new double[count];
+			src.asDoubleBuffer().get(values);
+			return values;
+		}
+	}
+
+	private static void validateRange(String type, int position, int count, int limit)
+	{
+		int width = getWidth(type);
+		if (width == 0) {
+			throw new IllegalArgumentException("invalid type: " + type);
+		}
+		if (position < 0 || (long) position + (long) count * width > limit) {
+			throw new IllegalArgumentException("position " + position + " and " + count + " values of type " + type
+				+ " do not fit in the buffer length: " + limit);
+		}
+	}
+
+	private static Number toNumber(Object value)
+	{
+		if (value instanceof Number) {
+			return (Number) value;
+		}
+		throw new IllegalArgumentException("value is not a Number: " + value);
 	}
 
 	@Kroll.method
@@ -192,21 +391,42 @@ public class CodecModule extends KrollModule
 		}
 
 		String charset = validateCharset(args);
-		byte destBuffer[] = dest.getBuffer();
 		validatePositionAndLength(srcPosition, srcLength, src.length());
 
-		if (srcPosition != 0 || srcLength != src.length()) {
-			src = src.substring(srcPosition, srcPosition+srcLength);
-		}
-
-		try {
-			byte encoded[] = src.getBytes(charset);
-			System.arraycopy(encoded, 0, destBuffer, destPosition, encoded.length);
+		return encodeString(src, srcPosition, srcLength, charset, dest.getByteBuffer(), destPosition);
+	}
 
-			return destPosition + encoded.length;
-		} catch (UnsupportedEncodingException e) {
-			Log.w(TAG, e.getMessage(), e);
-			throw new IllegalArgumentException("Unsupported Encoding: " + charset);
+	/**
+	 * Encodes part of a string into a buffer from a position, with the encoder of the charset.
+	 * The string is encoded straight into the buffer when it has room for the longest possible
+	 * encoding, and otherwise into a scratch buffer first, so that the buffer is left unchanged
+	 * if the encoded string does not fit.
+	 * @return the position after the encoded string.
+	 */
+	public static int encodeString(String src, int srcPosition, int srcLength, String charset, ByteBuffer dest,
+		int destPosition)
+	{
+		CharsetEncoder encoder = getEncoder(charset);
+		synchronized (encoder) {
+			CharBuffer chars = CharBuffer.wrap(src, srcPosition, srcPosition + srcLength);
+			dest.position(destPosition);
+			ByteBuffer out = dest;
+			if (Math.ceil(encoder.maxBytesPerChar() * srcLength) > dest.remaining()) {
+				out = ByteBuffer.allocate(dest.remaining());
+			}
+			encoder.reset();
+			CoderResult result = encoder.encode(chars, out, true);
+			if (result.isUnderflow()) {
+				result = encoder.flush(out);
+			}
+			if (result.isOverflow()) {
+				throw new IllegalArgumentException("dest is too small for the encoded string");
+			}
+			if (out != dest) {
+				out.flip();
+				dest.put(out);
+			}
+			return dest.position();
 		}
 	}
 
@@ -218,25 +438,59 @@ public class CodecModule extends KrollModule
 		}
 
 		BufferProxy src = (BufferProxy) args.get(TiC.PROPERTY_SOURCE);
-		byte buffer[] = src.getBuffer();
+		ByteBuffer buffer = src.getByteBuffer();
 
 		int position = 0;
 		if (args.containsKey(TiC.PROPERTY_POSITION)) {
 			position = TiConvert.toInt(args, TiC.PROPERTY_POSITION);
 		}
-		int length = buffer.length;
+		int length = buffer.limit();
 		if (args.containsKey(TiC.PROPERTY_LENGTH)) {
 			length = TiConvert.toInt(args, TiC.PROPERTY_LENGTH);
 		}
 
-		validatePositionAndLength(position, length, buffer.length);
+		validatePositionAndLength(position, length, buffer.limit());
 		String charset = validateCharset(args);
 
-		try {
-			return new String(buffer, position, length, charset);
-		} catch (UnsupportedEncodingException e) {
-			Log.w(TAG, e.getMessage(), e);
-			throw new IllegalArgumentException("Unsupported Encoding: " + charset);
+		// Decodes straight from the storage of the buffer
+		buffer.limit(position + length);
+		buffer.position(position);
+		CharsetDecoder decoder = getDecoder(charset);
+		synchronized (decoder) {
+			try {
+				return decoder.decode(buffer).toString();
+			} catch (CharacterCodingException e) {
+				// Not thrown, as malformed input is replaced
+				throw new IllegalArgumentException("Unable to decode " + charset + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private static CharsetEncoder getEncoder(String charset)
+	{
+		synchronized (encoders) {
+			CharsetEncoder encoder = encoders.get(charset);
+			if (encoder == null) {
+				encoder = Charset.forName(charset).newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+				encoders.put(charset, encoder);
+			}
+			return encoder;
+		}
+	}
+
+	private static CharsetDecoder getDecoder(String charset)
+	{
+		synchronized (decoders) {
+			CharsetDecoder decoder = decoders.get(charset);
+			if (decoder == null) {
+				decoder = Charset.forName(charset).newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+				decoders.put(charset, decoder);
+			}
+			return decoder;
 		}
 	}
 
@@ -279,6 +533,11 @@ public class CodecModule extends KrollModule
 		}
 	}
 
+	public static ByteOrder toByteOrder(int byteOrder)
+	{
+		return (byteOrder == BIG_ENDIAN) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+	}
+
 	public static String getCharset(String charset)
 	{
 		// These are taken from http://download.oracle.com/javase/1.4.2/docs/api/java/nio/charset/Charset.html
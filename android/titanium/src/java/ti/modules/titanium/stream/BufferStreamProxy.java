@@ -1,19 +1,16 @@
 /**
  * Appcelerator Titanium Mobile
- * Copyright (c) 2009-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Copyright (c) 2009-2017 by Appcelerator, Inc. All Rights Reserved.
  * Licensed under the terms of the Apache Public License
  * Please see the LICENSE included with this distribution for details.
  */
 package ti.modules.titanium.stream;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import org.appcelerator.kroll.KrollProxy;
 import org.appcelerator.kroll.annotations.Kroll;
-import org.appcelerator.kroll.common.Log;
 import org.appcelerator.titanium.io.TiStream;
-import org.appcelerator.titanium.util.TiStreamHelper;
 
 import ti.modules.titanium.BufferProxy;
 
@@ -102,22 +99,23 @@ public class BufferStreamProxy extends KrollProxy implements TiStream
 			throw new IllegalArgumentException("Invalid number of arguments");
 		}
 
-		ByteArrayInputStream bufferInputStream = new ByteArrayInputStream(buffer.getBuffer(), position, (buffer.getLength() - position));
-		int bytesRead;
-
-		try {
-			bytesRead = TiStreamHelper.read(bufferInputStream, bufferProxy, offset, length);
-
-			if (bytesRead > -1) {
-				position += bytesRead;
-			}
-
-			return bytesRead;
+		// Copies straight from the buffer of the stream into the destination buffer
+		int available = buffer.getLength() - position;
+		if (available <= 0) {
+			return -1;
+		}
+		if ((offset + length) > bufferProxy.getLength()) {
+			length = bufferProxy.getLength() - offset;
+		}
 
-		} catch (IOException e) {
-			Log.e(TAG, "Unable to read from buffer stream, IO error", e);
-			throw new IOException("Unable to read from buffer stream, IO error");
+		int bytesRead = Math.min(length, available);
+		if (bytesRead <= 0) {
+			return 0;
 		}
+		bufferProxy.write(offset, buffer, position, bytesRead);
+		position += bytesRead;
+
+		return bytesRead;
 	}
 
 	@Kroll.method
@@ -172,7 +170,7 @@ public class BufferStreamProxy extends KrollProxy implements TiStream
 			throw new IllegalArgumentException("Invalid number of arguments");
 		}
 
-		int bytesWritten = buffer.write(position, bufferProxy.getBuffer(), offset, length);
+		int bytesWritten = buffer.write(position, bufferProxy, offset, length);
 		position += bytesWritten;
 
 		return bytesWritten;
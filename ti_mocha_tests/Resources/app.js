@@ -34,11 +34,11 @@ require('./ti.ui.scrollableview.test');
 // require('./ti.app.properties.test');
 // require('./ti.blob.test');
 // require('./ti.builtin.test');
-// require('./ti.buffer.test');
-// require('./ti.codec.test');
+require('./ti.buffer.test');
+require('./ti.codec.test');
 // require('./ti.contacts.group.test');
 // require('./ti.contacts.person.test');
-// require('./ti.database.test');
+require('./ti.database.test');
 // require('./ti.filestream.test');
 // require('./ti.geolocation.test');
 // require('./ti.gesture.test');
@@ -55,7 +55,7 @@ require('./ti.require.test');
 // require('./ti.ui.constants.test');
 // require('./ti.ui.emaildialog.test');
 // require('./ti.ui.layout.test');
-// require('./ti.ui.listview.test');
+require('./ti.ui.listview.test');
 // require('./ti.ui.alertdialog.test');
 // require('./ti.ui.optiondialog.test');
 // require('./ti.ui.progressbar.test');
@@ -66,7 +66,7 @@ require('./ti.require.test');
 // require('./ti.ui.textfield.test');
 // require('./ti.ui.view.test');
 // require('./ti.ui.window.test');
-// require('./ti.xml.test');
+require('./ti.xml.test');
 // require('./ti.locale.test');
 // ============================================================================
 
@@ -0,0 +1,102 @@
+/*
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+var should = require('./should');
+
+describe("Titanium.Buffer", function() {
+	var isAndroid = ("android" === Ti.Platform.osname);
+
+	(isAndroid ? it : it.skip)("append and insert", function(finish) {
+		var buffer = Ti.createBuffer({ value: 'abc' });
+		buffer.append(Ti.createBuffer({ value: 'def' }));
+		should(buffer.toString()).eql('abcdef');
+		buffer.insert(Ti.createBuffer({ value: 'XY' }), 3);
+		should(buffer.toString()).eql('abcXYdef');
+		buffer.insert(buffer, 0, 6, 2);
+		should(buffer.toString()).eql('efabcXYdef');
+		should(buffer.length).eql(10);
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("insert a slice of the same buffer", function(finish) {
+		var buffer = Ti.createBuffer({ capacity: 16 });
+		buffer.append(Ti.createBuffer({ value: 'abcdef' }));
+		buffer.insert(buffer.slice(3, 3), 0);
+		should(buffer.toString()).eql('defabcdef');
+
+		buffer = Ti.createBuffer({ capacity: 16, direct: true });
+		buffer.append(Ti.createBuffer({ value: 'abcdef' }));
+		buffer.insert(buffer.slice(3, 3), 0);
+		should(buffer.toString()).eql('defabcdef');
+
+		buffer = Ti.createBuffer({ capacity: 16 });
+		buffer.append(Ti.createBuffer({ value: 'abcdef' }));
+		var slice = buffer.slice(0, 3);
+		slice.insert(buffer, 1, 3, 2);
+		should(slice.toString()).eql('adebc');
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("resize keeps data and zeroes new bytes", function(finish) {
+		var buffer = Ti.createBuffer({ value: 'abcdef' });
+		buffer.length = 3;
+		should(buffer.toString()).eql('abc');
+		buffer.length = 5;
+		should(buffer[2]).eql(99);
+		should(buffer[3]).eql(0);
+		should(buffer[4]).eql(0);
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("capacity", function(finish) {
+		var buffer = Ti.createBuffer({ length: 4, capacity: 64 });
+		should(buffer.length).eql(4);
+		should(buffer.capacity).eql(64);
+		buffer.length = 100;
+		should(buffer.capacity).be.above(99);
+		buffer.length = 0;
+		should(buffer.capacity).be.above(99);
+		buffer.release();
+		should(buffer.capacity).eql(0);
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("slice shares data", function(finish) {
+		var buffer = Ti.createBuffer({ value: 'abcdef', direct: true }),
+			slice = buffer.slice(2, 3);
+		should(buffer.direct).be.true;
+		should(slice.length).eql(3);
+		should(slice.toString()).eql('cde');
+		slice[0] = 67;
+		should(buffer.toString()).eql('abCdef');
+		slice.append(Ti.createBuffer({ value: 'x' }));
+		slice[0] = 99;
+		should(buffer.toString()).eql('abCdef');
+		should(slice.toString()).eql('cdex');
+		finish();
+	});
+
+	// Appends 1KB chunks up to 10MB, which copied the whole buffer on each append before its
+	// capacity doubled.
+	(isAndroid ? it : it.skip)("append benchmark", function(finish) {
+		this.timeout(120000);
+		var CHUNKS = 10 * 1024,
+			chunk = Ti.createBuffer({ length: 1024 }),
+			buffer = Ti.createBuffer(),
+			started = new Date().getTime(),
+			i;
+
+		chunk.fill(7);
+		for (i = 0; i < CHUNKS; i++) {
+			buffer.append(chunk);
+		}
+		should(buffer.length).eql(CHUNKS * 1024);
+		should(buffer[buffer.length - 1]).eql(7);
+		Ti.API.info('Appended ' + CHUNKS + ' 1KB chunks in ' + (new Date().getTime() - started) + 'ms');
+		buffer.release();
+		finish();
+	});
+});
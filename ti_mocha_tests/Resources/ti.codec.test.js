@@ -0,0 +1,101 @@
+/*
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+var should = require('./should');
+
+describe("Titanium.Codec", function() {
+	var isAndroid = ("android" === Ti.Platform.osname);
+
+	(isAndroid ? it : it.skip)("encodeNumbers and decodeNumbers", function(finish) {
+		var buffer = Ti.createBuffer({ length: 14 }),
+			position = Ti.Codec.encodeNumbers({
+				source: [1, -2, 0x3456789a],
+				dest: buffer,
+				position: 2,
+				type: Ti.Codec.TYPE_INT,
+				byteOrder: Ti.Codec.BIG_ENDIAN
+			});
+		should(position).eql(14);
+		should(buffer[5]).eql(1);
+		should(Ti.Codec.decodeNumber({
+			source: buffer,
+			position: 10,
+			type: Ti.Codec.TYPE_INT,
+			byteOrder: Ti.Codec.BIG_ENDIAN
+		})).eql(0x3456789a);
+		should(Ti.Codec.decodeNumbers({
+			source: buffer,
+			position: 2,
+			type: Ti.Codec.TYPE_INT,
+			byteOrder: Ti.Codec.BIG_ENDIAN
+		})).eql([1, -2, 0x3456789a]);
+		should(Ti.Codec.decodeNumbers({
+			source: buffer,
+			position: 2,
+			count: 2,
+			type: Ti.Codec.TYPE_SHORT,
+			byteOrder: Ti.Codec.LITTLE_ENDIAN
+		})).eql([0, 256]);
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("encodeNumbers doubles", function(finish) {
+		var buffer = Ti.createBuffer({ length: 24 });
+		Ti.Codec.encodeNumbers({
+			source: [1.5, -2.25, 1e100],
+			dest: buffer,
+			type: Ti.Codec.TYPE_DOUBLE,
+			byteOrder: Ti.Codec.LITTLE_ENDIAN
+		});
+		should(Ti.Codec.decodeNumbers({
+			source: buffer,
+			type: Ti.Codec.TYPE_DOUBLE,
+			byteOrder: Ti.Codec.LITTLE_ENDIAN
+		})).eql([1.5, -2.25, 1e100]);
+		should(function() {
+			Ti.Codec.encodeNumbers({
+				source: [1, 2, 3, 4],
+				dest: buffer,
+				type: Ti.Codec.TYPE_DOUBLE
+			});
+		}).throw();
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("encodeString and decodeString", function(finish) {
+		var buffer = Ti.createBuffer({ length: 32 }),
+			i, position, text;
+		for (i = 0; i < 3; i++) {
+			position = Ti.Codec.encodeString({
+				source: 'héllo wörld',
+				sourcePosition: 6,
+				sourceLength: 5,
+				dest: buffer,
+				destPosition: 1
+			});
+			should(position).eql(7);
+			text = Ti.Codec.decodeString({
+				source: buffer,
+				position: 1,
+				length: 6
+			});
+			should(text).eql('wörld');
+		}
+		should(function() {
+			Ti.Codec.encodeString({
+				source: 'a string longer than the buffer it is encoded to',
+				dest: buffer
+			});
+		}).throw();
+		// A string that does not fit leaves the buffer unchanged.
+		should(Ti.Codec.decodeString({
+			source: buffer,
+			position: 1,
+			length: 6
+		})).eql('wörld');
+		finish();
+	});
+});
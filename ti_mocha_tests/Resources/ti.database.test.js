@@ -0,0 +1,126 @@
+/*
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+var should = require('./should');
+
+describe("Titanium.Database", function() {
+	var isAndroid = ("android" === Ti.Platform.osname);
+
+	(isAndroid ? it : it.skip)("executeBatch and fetchAll", function(finish) {
+		var db = Ti.Database.open('fetchTest');
+		db.execute('DROP TABLE IF EXISTS people');
+		db.execute('CREATE TABLE people (name TEXT, age INTEGER, height REAL)');
+		var changed = db.executeBatch('INSERT INTO people (name, age, height) VALUES (?, ?, ?)', [
+			['Paul', 32, 1.8],
+			['Jane', 27, 1.65],
+			['Mia', null, 1.7]
+		]);
+		should(changed).eql(3);
+
+		var rows = db.execute('SELECT name, age, height FROM people ORDER BY rowid');
+		var page = rows.fetchAll();
+		should(page.rowCount).eql(3);
+		should(page.fields).eql(['name', 'age', 'height']);
+		should(page.columns[0]).eql(['Paul', 'Jane', 'Mia']);
+		should(page.columns[1]).eql([32, 27, null]);
+		should(page.columns[2]).eql([1.8, 1.65, 1.7]);
+		should(rows.isValidRow()).be.false;
+		rows.close();
+		db.remove();
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("fetchPage", function(finish) {
+		var db = Ti.Database.open('fetchPageTest');
+		db.execute('DROP TABLE IF EXISTS numbers');
+		db.execute('CREATE TABLE numbers (value INTEGER)');
+		db.executeBatch('INSERT INTO numbers (value) VALUES (?)', [1, 2, 3, 4, 5]);
+
+		var rows = db.execute('SELECT value FROM numbers ORDER BY value');
+		should(rows.fetchPage(2).columns[0]).eql([1, 2]);
+		should(rows.fetchPage(2).columns[0]).eql([3, 4]);
+		should(rows.fetchPage(2).columns[0]).eql([5]);
+		should(rows.fetchPage(2).rowCount).eql(0);
+		rows.close();
+		db.remove();
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("transactionAsync and executeAsync", function(finish) {
+		var db = Ti.Database.open('asyncTest', { walEnabled: true });
+		should(db.walEnabled).be.true;
+		db.execute('DROP TABLE IF EXISTS people');
+		db.execute('CREATE TABLE people (name TEXT, age INTEGER)');
+		db.transactionAsync([
+			'DELETE FROM people',
+			{ sql: 'INSERT INTO people (name, age) VALUES (?, ?)', args: ['Paul', 32] },
+			{ sql: 'INSERT INTO people (name, age) VALUES (?, ?)', args: ['Jane', 27] }
+		], function(e) {
+			should(e.success).be.true;
+			should(e.rowsAffected).eql(2);
+			db.executeAsync('SELECT name FROM people WHERE age > ?', 30, function(e) {
+				should(e.success).be.true;
+				should(e.resultSet.fetchAll().columns[0]).eql(['Paul']);
+				e.resultSet.close();
+				should(db.queryStats.count).be.above(3);
+				db.remove();
+				finish();
+			});
+		});
+	});
+
+	(isAndroid ? it : it.skip)("executeAsync error", function(finish) {
+		var db = Ti.Database.open('asyncErrorTest');
+		db.executeAsync('SELECT * FROM missing', function(e) {
+			should(e.success).be.false;
+			should(e.error).be.a.String;
+			db.remove();
+			finish();
+		});
+	});
+
+	// Compares reading 50k rows of 8 columns field by field with reading them with fetchAll().
+	(isAndroid ? it : it.skip)("fetchAll benchmark", function(finish) {
+		this.timeout(120000);
+		var ROWS = 50000,
+			db = Ti.Database.open('fetchBenchmark'),
+			args = [],
+			i, j, rows, started, fieldTime, fetchTime, page, count;
+
+		db.execute('DROP TABLE IF EXISTS bench');
+		db.execute('CREATE TABLE bench (c0 INTEGER, c1 INTEGER, c2 REAL, c3 REAL, c4 TEXT, c5 TEXT, c6 INTEGER, c7 TEXT)');
+		for (i = 0; i < ROWS; i++) {
+			args.push([i, i * 2, i / 3, i / 7, 'name' + i, 'city' + (i % 100), i % 2, 'note']);
+		}
+		db.executeBatch('INSERT INTO bench VALUES (?, ?, ?, ?, ?, ?, ?, ?)', args);
+
+		started = new Date().getTime();
+		rows = db.execute('SELECT * FROM bench');
+		count = 0;
+		while (rows.isValidRow()) {
+			for (j = 0; j < 8; j++) {
+				rows.field(j);
+			}
+			count++;
+			rows.next();
+		}
+		rows.close();
+		fieldTime = new Date().getTime() - started;
+		should(count).eql(ROWS);
+
+		started = new Date().getTime();
+		rows = db.execute('SELECT * FROM bench');
+		page = rows.fetchAll();
+		rows.close();
+		fetchTime = new Date().getTime() - started;
+		should(page.rowCount).eql(ROWS);
+		should(page.columns.length).eql(8);
+
+		Ti.API.info('Read ' + ROWS + ' rows x 8 columns: field() ' + fieldTime + 'ms, fetchAll() ' + fetchTime + 'ms');
+		db.remove();
+		finish();
+	});
+});
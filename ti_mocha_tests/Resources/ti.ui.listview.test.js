@@ -0,0 +1,51 @@
+/*
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+var should = require('./should');
+
+describe("Titanium.UI.ListView", function() {
+	var isAndroid = ("android" === Ti.Platform.osname);
+
+	// Rows inserted at the head get newer ids than the rows after them, so the search index must
+	// still find the older rows after removals make it rebuild.
+	(isAndroid ? it : it.skip)("search after inserting at the head and removing rows", function(finish) {
+		this.timeout(10000);
+		var win = Ti.UI.createWindow({ backgroundColor: 'white' }),
+			section = Ti.UI.createListSection({
+				items: [
+					{ properties: { title: 'first', searchableText: 'first' } },
+					{ properties: { title: 'second', searchableText: 'second' } },
+					{ properties: { title: 'third', searchableText: 'third' } },
+					{ properties: { title: 'fourth', searchableText: 'fourth' } },
+					{ properties: { title: 'apple pie', searchableText: 'apple pie' } }
+				]
+			}),
+			listView = Ti.UI.createListView({ sections: [ section ] }),
+			noResults = false;
+
+		listView.addEventListener('noresults', function() {
+			noResults = true;
+		});
+		win.add(listView);
+		win.addEventListener('open', function() {
+			section.insertItemsAt(0, [ { properties: { title: 'applesauce', searchableText: 'applesauce' } } ]);
+			// Removing four of the six rows makes the index rebuild its postings.
+			section.deleteItemsAt(1, 4);
+			should(section.items.length).eql(2);
+
+			listView.searchText = 'apple pie';
+			setTimeout(function() {
+				should(noResults).be.false;
+				listView.addEventListener('noresults', function() {
+					win.close();
+					finish();
+				});
+				listView.searchText = 'cherry';
+			}, 2000);
+		});
+		win.open();
+	});
+});
@@ -0,0 +1,76 @@
+/*
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2017 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+var should = require('./should');
+
+describe("Titanium.XML", function() {
+	var isAndroid = ("android" === Ti.Platform.osname);
+
+	(isAndroid ? it : it.skip)("node proxies are reused", function(finish) {
+		var doc = Ti.XML.parseString('<feed><item id="1"/><item id="2"/></feed>');
+		var first = doc.documentElement.firstChild;
+		should(doc.documentElement.childNodes.item(0) === first).be.true;
+		should(first.parentNode === doc.documentElement).be.true;
+		should(first.ownerDocument === doc).be.true;
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("evaluate", function(finish) {
+		var doc = Ti.XML.parseString('<feed><item id="1"/><item id="2"/><other/></feed>'),
+			i, items;
+		for (i = 0; i < 3; i++) {
+			items = doc.evaluate('/feed/item');
+			should(items.length).eql(2);
+			should(items.item(1).getAttribute('id')).eql('2');
+			should(items.item(1) === items.item(1)).be.true;
+			should(items.item(2)).not.be.ok;
+		}
+		finish();
+	});
+
+	(isAndroid ? it : it.skip)("parseStream", function(finish) {
+		var xml = '<rss><channel>',
+			names = [],
+			batches = 0,
+			i;
+		for (i = 0; i < 5; i++) {
+			xml += '<item id="' + i + '"><title>Item ' + i + '</title><![CDATA[ data ]]></item>';
+		}
+		xml += '</channel></rss>';
+
+		Ti.XML.parseStream(xml, {
+			element: 'item',
+			batchSize: 2,
+			batch: function(e) {
+				batches++;
+				should(e.elements.length).be.below(3);
+				e.elements.forEach(function(item) {
+					should(item.name).eql('item');
+					should(item.text).eql('data');
+					names.push(item.attributes.id + ':' + item.children[0].text);
+				});
+			},
+			complete: function(e) {
+				should(e.success).be.true;
+				should(e.count).eql(5);
+				should(batches).eql(3);
+				should(names).eql(['0:Item 0', '1:Item 1', '2:Item 2', '3:Item 3', '4:Item 4']);
+				finish();
+			}
+		});
+	});
+
+	(isAndroid ? it : it.skip)("parseStream error", function(finish) {
+		Ti.XML.parseStream('<feed><item></feed>', {
+			batch: function(e) {},
+			complete: function(e) {
+				should(e.success).be.false;
+				should(e.error).be.a.String;
+				finish();
+			}
+		});
+	});
+});